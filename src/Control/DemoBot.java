@@ -1,7 +1,11 @@
 package Control;
 
 import Model.Board;
+import Model.GameState;
+import Model.QuestionTile;
+import Model.SurpriseTile;
 import Model.Tile;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Random;
 import javax.swing.SwingUtilities;
 
@@ -9,14 +13,20 @@ import javax.swing.SwingUtilities;
  * AI Bot Logic for "Play with AI" Demo Mode.
  * <p>
  * This class runs on a separate thread and simulates a second player.
- * It periodically checks if it's Player 2's turn and makes random valid moves.
+ * It periodically checks if it's Player 2's turn and asks {@link MctsPlayer}
+ * for the move with the best expected team outcome. The search runs on a fork
+ * of the game off the Event Dispatch Thread; only the chosen move is applied on
+ * the EDT.
  * <p>
  * 
  * @author Team Rhino
- * @version 1.0
+ * @version 2.0 - Iteration 4 (Monte Carlo tree search)
  */
 public class DemoBot implements Runnable {
+    private static final long MOVE_DELAY_MS = 1500; // Human-like pacing between moves
+
     private final GameController controller;
+    private final MctsPlayer player = new MctsPlayer();
     private final Random random = new Random();
     private volatile boolean running = true;
 
@@ -32,25 +42,92 @@ public class DemoBot implements Runnable {
     public void run() {
         try {
             while (running && !controller.isGameOver()) {
-                Thread.sleep(1500); // Wait 1.5 second between moves
+                long started = System.currentTimeMillis();
+
+                GameState snapshot = snapshotIfBotTurn();
+                MctsPlayer.Move move = snapshot != null ? player.chooseMove(snapshot) : null;
+
+                // Thinking time counts towards the usual delay between moves
+                long remaining = MOVE_DELAY_MS - (System.currentTimeMillis() - started);
+                if (remaining > 0) {
+                    Thread.sleep(remaining);
+                }
 
                 SwingUtilities.invokeLater(() -> {
                     if (running && !controller.isGameOver()) {
                         // Only play if it's Player 2's turn (Index 1)
                         if (controller.getCurrentPlayerIndex() == 1) {
-                            makeMove();
+                            makeMove(move);
                         }
                     }
                 });
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            player.shutdown();
+        }
+    }
+
+    /**
+     * Forks the live game on the EDT if it is the bot's turn.
+     *
+     * @return A fork of the game, or null if the bot should not move now
+     */
+    private GameState snapshotIfBotTurn() throws InterruptedException {
+        GameState[] snapshot = new GameState[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                if (running && !controller.isGameOver() && controller.getCurrentPlayerIndex() == 1) {
+                    snapshot[0] = controller.forkGameState();
+                }
+            });
+        } catch (InvocationTargetException e) {
+            System.err.println("AI could not read the game: " + e.getCause());
         }
+        return snapshot[0];
     }
 
-    private void makeMove() {
-        // Simple random move logic for demo
+    /**
+     * Applies the searched move, or a random one if the search had nothing (or
+     * the game changed while it was thinking).
+     */
+    private void makeMove(MctsPlayer.Move move) {
         Board board = controller.getCurrentPlayerBoard();
+        int boardNum = controller.getCurrentPlayerIndex() + 1;
+
+        if (move != null && isStillApplicable(board, move)) {
+            if (move.getType() == MctsPlayer.MoveType.FLAG) {
+                controller.handleFlagToggle(boardNum, move.getRow(), move.getCol());
+            } else {
+                controller.handleTileClick(boardNum, move.getRow(), move.getCol());
+            }
+            return;
+        }
+        makeRandomMove(board, boardNum);
+    }
+
+    private boolean isStillApplicable(Board board, MctsPlayer.Move move) {
+        Tile tile = board.getTile(move.getRow(), move.getCol());
+        if (tile == null) {
+            return false;
+        }
+        switch (move.getType()) {
+            case REVEAL:
+                return !tile.isRevealed() && !tile.isFlagged();
+            case FLAG:
+                return !tile.isRevealed();
+            case ACTIVATE:
+                if (tile.isQuestion()) {
+                    return !((QuestionTile) tile).isActivated();
+                }
+                return tile.isSurprise() && !((SurpriseTile) tile).isActivated();
+            default:
+                return false;
+        }
+    }
+
+    private void makeRandomMove(Board board, int boardNum) {
         int size = board.getSize();
         int attempts = 0;
 
@@ -60,8 +137,6 @@ public class DemoBot implements Runnable {
             Tile tile = board.getTile(r, c);
 
             if (!tile.isRevealed() && !tile.isFlagged()) {
-                // Determine which board (1 or 2)
-                int boardNum = controller.getCurrentPlayerIndex() + 1;
                 controller.handleTileClick(boardNum, r, c);
                 break;
             }
@@ -3,7 +3,10 @@ package Control;
 import Model.*;
 import View.GameView;
 import View.TriviaDialog;
+import Patterns.Observer.CellsRevealed;
+import Patterns.Observer.GameEventBus;
 import Patterns.Observer.GameEventLogger;
+import Patterns.Observer.GameObserver;
 
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -11,6 +14,7 @@ import javax.swing.JButton;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for the MineSweeper game. ONE-CLICK VERSION: Q and S tiles
@@ -19,9 +23,14 @@ import java.util.List;
  * @author Team Rhino
  */
 public class GameController {
+	/** System property that logs game events to the console when "true". */
+	public static final String LOG_EVENTS_PROPERTY = "minesweeper.logEvents";
+
 	private GameState gameState;
 	private final GameView view;
-	private boolean historySaved = false;
+	private GameState savedGame; // last game whose history was queued for saving
+	private GameRecorder recorder; // records the current game for replay
+	private boolean startPending = false; // a start click is waiting for game data
 
 	public GameController(GameView view) {
 		this.view = view;
@@ -30,8 +39,35 @@ public class GameController {
 	}
 
 	private void initializeStartScreen() {
-		view.setStartButtonListener(e -> startNewGame());
-		view.setDemoButtonListener(e -> startDemoMode());
+		view.setStartButtonListener(e -> whenGameDataReady(this::startNewGame));
+		view.setDemoButtonListener(e -> whenGameDataReady(this::startDemoMode));
+
+		GameDataLoader.getInstance().addProgressListener((completed, total, message) -> SwingUtilities
+				.invokeLater(() -> view.setLoadingProgress(completed, total, message)));
+	}
+
+	/**
+	 * Runs a start action now if the game data is loaded, or on the EDT as soon
+	 * as loading finishes. A second click while waiting is ignored.
+	 *
+	 * @param action The action to run
+	 */
+	private void whenGameDataReady(Runnable action) {
+		CompletableFuture<Void> ready = GameDataLoader.getInstance().whenGameDataReady();
+		if (ready.isDone()) {
+			action.run();
+			return;
+		}
+		if (startPending) {
+			return;
+		}
+		startPending = true;
+		view.showLoadingMessage("Loading game data, the game will start shortly...");
+		// Start even if a data set failed to load: the game falls back to defaults
+		ready.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+			startPending = false;
+			action.run();
+		}));
 	}
 
 	public void startNewGame() {
@@ -66,11 +102,19 @@ public class GameController {
 				difficulty = Difficulty.EASY;
 		}
 
+		if (recorder != null) {
+			recorder.close(); // the previous game was abandoned
+		}
+		if (gameState != null) {
+			gameState.closeObservers();
+		}
 		gameState = new GameState(player1Name, player2Name, difficulty);
+		recorder = GameRecorder.start(gameState);
 
-		GameEventLogger logger = new GameEventLogger();
-		logger.setEnabled(false);
-		gameState.addObserver(logger);
+		if (Boolean.getBoolean(LOG_EVENTS_PROPERTY)) {
+			gameState.addObserver(new GameEventLogger());
+		}
+		gameState.addObserver(new TileRedrawer(gameState));
 
 		view.setPlayerNames(player1Name, player2Name);
 
@@ -81,8 +125,8 @@ public class GameController {
 
 		view.updatePendingQuestions(new java.util.ArrayList<>(), new java.util.ArrayList<>());
 
-		QuestionBank.getInstance().resetUsedQuestions();
-
+		updateBoardDisplay(1);
+		updateBoardDisplay(2);
 		updateView();
 
 		view.showGameScreen();
@@ -145,8 +189,7 @@ public class GameController {
 		int revealedMines = gameState.getBoard1().getRevealedMineCount() + gameState.getBoard2().getRevealedMineCount();
 		view.updateMineCount(totalMines - flagsPlaced - revealedMines);
 
-		updateBoardDisplay(1);
-		updateBoardDisplay(2);
+		// Tiles are redrawn as they change (see TileRedrawer)
 
 		List<QuestionTile> player1Pending = gameState.getPendingQuestionsForPlayer(1);
 		List<QuestionTile> player2Pending = gameState.getPendingQuestionsForPlayer(2);
@@ -167,6 +210,85 @@ public class GameController {
 		}
 	}
 
+	/**
+	 * Redraws one tile now. Used for changes the game publishes no event for,
+	 * such as a question tile becoming or ceasing to be pending.
+	 */
+	private void redrawTile(int boardNum, Tile tile) {
+		Board board = (boardNum == 1) ? gameState.getBoard1() : gameState.getBoard2();
+		view.updateTile(boardNum, tile.getRow(), tile.getCol(), board.getTile(tile.getRow(), tile.getCol()));
+	}
+
+	/**
+	 * Redraws the tiles a game reports as changed, once per batch of events,
+	 * rather than both whole boards after every action. Runs on its own thread
+	 * and hands each batch's tiles to the EDT.
+	 */
+	private final class TileRedrawer implements GameObserver, GameEventBus.EndOfBatchListener {
+		private final GameState game;
+		private final int size;
+		private boolean[][] changed; // [board][row * size + col]; handed over at the end of a batch
+		private boolean anyChanged;
+
+		TileRedrawer(GameState game) {
+			this.game = game;
+			this.size = game.getDifficulty().getBoardSize();
+			this.changed = new boolean[2][size * size];
+		}
+
+		private void mark(int boardNum, int cell) {
+			changed[boardNum - 1][cell] = true;
+			anyChanged = true;
+		}
+
+		@Override
+		public void onCellsRevealed(CellsRevealed event) {
+			for (int cell : event.getCells()) {
+				mark(event.getBoardNum(), cell);
+			}
+		}
+
+		@Override
+		public void onFlagChanged(int boardNum, int row, int col, boolean flagged) {
+			mark(boardNum, row * size + col);
+		}
+
+		@Override
+		public void onQuestionAnswered(int boardNum, int row, int col, boolean correct, int questionId) {
+			mark(boardNum, row * size + col);
+		}
+
+		@Override
+		public void onSurpriseTriggered(int boardNum, int row, int col, boolean good, int points, int lives) {
+			mark(boardNum, row * size + col);
+		}
+
+		@Override
+		public void onEndOfBatch() {
+			if (!anyChanged) {
+				return;
+			}
+			boolean[][] tiles = changed;
+			changed = new boolean[2][size * size];
+			anyChanged = false;
+			SwingUtilities.invokeLater(() -> redraw(tiles));
+		}
+
+		private void redraw(boolean[][] tiles) {
+			if (gameState != game) {
+				return; // a new game has replaced the boards
+			}
+			for (int b = 0; b < 2; b++) {
+				Board board = b == 0 ? game.getBoard1() : game.getBoard2();
+				for (int cell = 0; cell < tiles[b].length; cell++) {
+					if (tiles[b][cell]) {
+						view.updateTile(b + 1, cell / size, cell % size, board.getTile(cell / size, cell % size));
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Handles a tile click event. This is the main interaction entry point.
 	 * <p>
@@ -219,15 +341,8 @@ public class GameController {
 				return;
 			}
 
-			// ✅ pay cost once
-			gameState.addScore(-cost);
-
-			// Reveal tile if not already revealed (may be revealed by cascade)
-			if (!tile.isRevealed()) {
-				board.revealTile(row, col);
-			}
-
-			String result = gameState.handleSafeReveal(tile);
+			// ✅ pay cost once, reveal the tile if a cascade has not already
+			String result = gameState.activateTile(tile);
 			showTriviaDialog(qTile);
 
 			view.showMessage(result);
@@ -253,16 +368,10 @@ public class GameController {
 				return;
 			}
 
-			// Pay cost
-			gameState.addScore(-cost);
-
-			if (!tile.isRevealed()) {
-				board.revealTile(row, col);
-			}
-
-			// ✅ Use the model's logic (handles +/− points and +/− lives correctly)
-			// and ensures bad surprises call loseLives() (so game-over works)
-			String result = gameState.handleSafeReveal(tile);
+			// Pay cost, reveal, then ✅ use the model's logic (handles +/− points and
+			// +/− lives correctly) and ensures bad surprises call loseLives() (so
+			// game-over works)
+			String result = gameState.activateTile(tile);
 
 			Surprise surprise = sTile.getSurprise();
 			if (surprise != null) {
@@ -284,11 +393,7 @@ public class GameController {
 			updateView();
 
 			if (gameState.isGameOver()) {
-				if (!historySaved) {
-					GameHistory history = GameHistory.fromGameState(gameState);
-					HistoryManager.saveHistory(history);
-					historySaved = true;
-				}
+				saveHistoryOnce();
 				view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 			} else {
 				view.highlightActiveBoard(gameState.getCurrentPlayerIndex() + 1);
@@ -340,11 +445,7 @@ public class GameController {
 		updateView();
 
 		if (gameState.isGameOver()) {
-			if (!historySaved) {
-				GameHistory history = GameHistory.fromGameState(gameState);
-				HistoryManager.saveHistory(history);
-				historySaved = true;
-			}
+			saveHistoryOnce();
 			view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 		} else {
 			view.highlightActiveBoard(gameState.getCurrentPlayerIndex() + 1);
@@ -377,8 +478,7 @@ public class GameController {
 
 		// Special Rule: Flagging a mine reveals it and gives points
 		if (tile.isMine() && !tile.isFlagged()) {
-			tile.setRevealed(true);
-			gameState.addScore(1);
+			gameState.flagMine(tile);
 
 			String msg = "Mine Found! +1 Point";
 			// Use auto-closing message to avoid disrupting flow
@@ -387,34 +487,24 @@ public class GameController {
 			updateView();
 
 			if (gameState.isGameOver()) {
-				if (!historySaved) {
-					GameHistory history = GameHistory.fromGameState(gameState);
-					HistoryManager.saveHistory(history);
-					historySaved = true;
-				}
+				saveHistoryOnce();
 				view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 			}
 			return;
 		}
 
-		tile.toggleFlag();
-
-		gameState.handleFlag(tile);
+		gameState.toggleFlag(tile);
 
 		updateView();
 
 		if (gameState.isGameOver()) {
-			if (!historySaved) {
-				GameHistory history = GameHistory.fromGameState(gameState);
-				HistoryManager.saveHistory(history);
-				historySaved = true;
-			}
+			saveHistoryOnce();
 			view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 		}
 	}
 
 	private void showTriviaDialog(QuestionTile questionTile) {
-		Question question = questionTile.getQuestion();
+		Question question = gameState.bindQuestion(questionTile);
 		if (question == null) {
 			view.showMessage("No question available!");
 			return;
@@ -441,11 +531,7 @@ public class GameController {
 				// here
 				// if needed
 				// For flow consistency, we let the updateView/GameOver checks handle the rest
-				if (!historySaved) {
-					GameHistory history = GameHistory.fromGameState(gameState);
-					HistoryManager.saveHistory(history);
-					historySaved = true;
-				}
+				saveHistoryOnce();
 				view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 			} else {
 				view.highlightActiveBoard(gameState.getCurrentPlayerIndex() + 1);
@@ -460,6 +546,7 @@ public class GameController {
 		if (!dialog.wasAnswered()) {
 			int playerNumber = gameState.getCurrentPlayerIndex() + 1;
 			gameState.addPendingQuestion(questionTile, playerNumber);
+			redrawTile(playerNumber, questionTile);
 
 			gameState.completeQuestionTileInteraction();
 
@@ -491,11 +578,7 @@ public class GameController {
 		updateView();
 
 		if (gameState.isGameOver()) {
-			if (!historySaved) {
-				GameHistory history = GameHistory.fromGameState(gameState);
-				HistoryManager.saveHistory(history);
-				historySaved = true;
-			}
+			saveHistoryOnce();
 			view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 		} else {
 			view.highlightActiveBoard(gameState.getCurrentPlayerIndex() + 1);
@@ -521,7 +604,7 @@ public class GameController {
 			return;
 		}
 
-		Question question = questionTile.getQuestion();
+		Question question = gameState.bindQuestion(questionTile);
 		if (question == null) {
 			view.showMessage("No question available!");
 			return;
@@ -539,24 +622,39 @@ public class GameController {
 
 			int playerNumber = gameState.getCurrentPlayerIndex() + 1;
 			gameState.removePendingQuestion(questionTile, playerNumber);
+			redrawTile(playerNumber, questionTile);
 
 			updateView();
 
 			if (gameState.isGameOver()) {
-				if (!historySaved) {
-					GameHistory history = GameHistory.fromGameState(gameState);
-					HistoryManager.saveHistory(history);
-					historySaved = true;
-				}
+				saveHistoryOnce();
 				view.showGameOver(gameState.getGameEndMessage(), gameState.isGameWon());
 			}
 		}
 	}
 
+	/**
+	 * Queues the finished game's history for saving, once per game, and closes
+	 * its recording. The save runs on a background thread, so the game-over
+	 * screen does not wait.
+	 */
+	private void saveHistoryOnce() {
+		if (savedGame != gameState) {
+			savedGame = gameState;
+			AsyncHistoryWriter.getInstance().submit(GameHistory.fromGameState(gameState));
+			if (recorder != null) {
+				recorder.close();
+				recorder = null;
+			}
+		}
+	}
+
 	/**
 	 * Refreshes the view (public method for View callbacks).
 	 */
 	public void refreshView() {
+		updateBoardDisplay(1);
+		updateBoardDisplay(2);
 		updateView();
 	}
 
@@ -578,7 +676,7 @@ public class GameController {
 		Hint hint = currentBoard.getSmartHint();
 
 		if (hint != null) {
-			gameState.addScore(-cost); // Deduct cost
+			gameState.useHint(hint, cost); // Deduct cost
 			int boardNum = gameState.getCurrentPlayerIndex() + 1;
 			view.showMessage("Hint (-2 pts): " + hint.getMessage());
 			view.updateScores(gameState.getTotalScore(), gameState.getPlayer1().getScore(),
@@ -614,6 +712,15 @@ public class GameController {
 		return gameState != null && gameState.isGameOver();
 	}
 
+	/**
+	 * Creates an observer-free fork of the current game for AI lookahead.
+	 *
+	 * @return A fork of the game, or null if no game is running
+	 */
+	public GameState forkGameState() {
+		return gameState == null ? null : gameState.fork();
+	}
+
 	public Board getCurrentPlayerBoard() {
 		return gameState.getCurrentBoard();
 	}
@@ -0,0 +1,502 @@
+package Control;
+
+import Model.Board;
+import Model.GameState;
+import Model.MineProbabilityEngine;
+import Model.QuestionTile;
+import Model.SurpriseTile;
+import Model.Tile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search player used by the "Play With AI" partner.
+ * <p>
+ * For every move the player samples mine layouts consistent with what it can
+ * see ({@link MineProbabilityEngine}), plays candidate moves out on forks of
+ * the game state ({@link GameState#fork()}) and picks the move with the best
+ * expected team outcome: shared score plus the value of remaining lives, with a
+ * heavy penalty for losing the game. The economics of paying
+ * {@link GameState#getActivationCost()} for question and surprise tiles are
+ * simulated with the same rules the real game uses.
+ * <p>
+ * Search runs in parallel on a fixed time budget per move (root
+ * parallelization: each worker grows its own tree and the visit counts are
+ * merged at the end).
+ * <p>
+ * The partner's own moves are simulated only; the other player's turns are
+ * skipped, so rollouts measure what this player's moves do for the team.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class MctsPlayer {
+
+	/**
+	 * Kinds of moves the AI partner can make.
+	 */
+	public enum MoveType {
+		/** Reveal a hidden tile (left click). */
+		REVEAL,
+		/** Toggle a flag (right click). */
+		FLAG,
+		/** Pay to activate a revealed question or surprise tile (left click). */
+		ACTIVATE
+	}
+
+	/**
+	 * A move chosen by the search.
+	 */
+	public static final class Move {
+		private final MoveType type;
+		private final int row;
+		private final int col;
+
+		public Move(MoveType type, int row, int col) {
+			this.type = type;
+			this.row = row;
+			this.col = col;
+		}
+
+		public MoveType getType() {
+			return type;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public int getCol() {
+			return col;
+		}
+
+		int key(int size) {
+			return type.ordinal() * size * size + row * size + col;
+		}
+
+		@Override
+		public String toString() {
+			return type + " (" + row + "," + col + ")";
+		}
+	}
+
+	// The AI partner answers trivia by picking one of four options at random
+	private static final double ANSWER_ACCURACY = 0.25;
+	private static final double EXPLORATION = 1.2;
+	private static final double LOSS_PENALTY_HEARTS = 25;
+	private static final int PROBABILITY_SAMPLES = 200;
+	private static final int SAMPLING_SHARE = 4; // at most 1/4 of a move's time goes to probabilities
+	private static final int LAYOUTS_PER_WORKER = 24;
+	private static final int TREE_DEPTH = 3;
+	private static final int ROLLOUT_DEPTH = 4;
+	private static final int MAX_REVEAL_CANDIDATES = 10;
+	private static final int MAX_FLAG_CANDIDATES = 3;
+	private static final double FLAG_THRESHOLD = 0.6;
+
+	private final ExecutorService executor;
+	private final int workers;
+	private final Random random = new Random();
+
+	/**
+	 * Creates a player that searches with one worker per spare CPU core.
+	 */
+	public MctsPlayer() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	/**
+	 * Creates a player with a fixed number of search workers.
+	 *
+	 * @param workers Number of parallel search workers
+	 */
+	public MctsPlayer(int workers) {
+		this.workers = Math.max(1, workers);
+		this.executor = Executors.newFixedThreadPool(this.workers, r -> {
+			Thread thread = new Thread(r, "mcts-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Gets the thinking time per move for a difficulty. Larger boards get more
+	 * time but stay well under a second.
+	 *
+	 * @param state The game being played
+	 * @return Time budget in milliseconds
+	 */
+	public static long timeBudgetMillis(GameState state) {
+		return switch (state.getDifficulty()) {
+			case EASY -> 150;
+			case MEDIUM -> 250;
+			case HARD -> 400;
+		};
+	}
+
+	/**
+	 * Chooses a move for the current player of the given game.
+	 *
+	 * @param root A fork of the live game; it is not modified by the search
+	 * @return The chosen move, or null if there is nothing to do
+	 */
+	public Move chooseMove(GameState root) {
+		return chooseMove(root, timeBudgetMillis(root));
+	}
+
+	/**
+	 * Chooses a move for the current player of the given game.
+	 *
+	 * @param root             A fork of the live game
+	 * @param timeBudgetMillis How long to search
+	 * @return The chosen move, or null if there is nothing to do
+	 */
+	public Move chooseMove(GameState root, long timeBudgetMillis) {
+		if (root.isGameOver()) {
+			return null;
+		}
+		long start = System.nanoTime();
+		long deadline = start + timeBudgetMillis * 1_000_000L;
+		int me = root.getCurrentPlayerIndex();
+		Board board = root.getCurrentBoard();
+
+		// Candidate selection may use a share of the budget; the rest is search
+		MineProbabilityEngine engine = new MineProbabilityEngine(board, new Random(random.nextLong()));
+		long samplingDeadline = start + timeBudgetMillis * 1_000_000L / SAMPLING_SHARE;
+		double[] probabilities = engine.estimateProbabilities(PROBABILITY_SAMPLES, samplingDeadline);
+		MoveGenerator generator = new MoveGenerator(board, probabilities);
+
+		List<Move> rootMoves = generator.candidates(root);
+		if (rootMoves.size() <= 1) {
+			return rootMoves.isEmpty() ? null : rootMoves.get(0);
+		}
+
+		// Forks are single-threaded, so every worker gets its own fork up front
+		List<Future<Node>> futures = new ArrayList<>();
+		for (int w = 0; w < workers; w++) {
+			GameState workerRoot = root.fork();
+			long seed = random.nextLong();
+			futures.add(executor.submit(() -> search(workerRoot, me, rootMoves, generator, deadline, seed)));
+		}
+
+		int size = board.getSize();
+		int[] visits = new int[rootMoves.size()];
+		double[] values = new double[rootMoves.size()];
+		for (Future<Node> future : futures) {
+			try {
+				Node tree = future.get();
+				for (int i = 0; i < rootMoves.size(); i++) {
+					Node child = tree.children.get(rootMoves.get(i).key(size));
+					if (child != null) {
+						visits[i] += child.visits;
+						values[i] += child.valueSum;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				System.err.println("AI search worker failed: " + e.getCause());
+			}
+		}
+
+		int best = 0;
+		for (int i = 1; i < rootMoves.size(); i++) {
+			if (visits[i] > visits[best]
+					|| (visits[i] == visits[best] && values[i] / Math.max(1, visits[i]) > values[best]
+							/ Math.max(1, visits[best]))) {
+				best = i;
+			}
+		}
+		return rootMoves.get(best);
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// ========== Search ==========
+
+	/**
+	 * Grows one search tree until the deadline.
+	 */
+	private Node search(GameState workerRoot, int me, List<Move> rootMoves, MoveGenerator generator,
+			long deadline, long seed) {
+		Random rnd = new Random(seed);
+		Node root = new Node();
+		int size = workerRoot.getCurrentBoard().getSize();
+
+		// Determinize: each world is the same visible game with a different
+		// consistent mine layout. Simulations fork these worlds copy-on-write.
+		MineProbabilityEngine engine = new MineProbabilityEngine(workerRoot.getCurrentBoard(), rnd);
+		List<GameState> worlds = new ArrayList<>(LAYOUTS_PER_WORKER);
+		for (int i = 0; i < LAYOUTS_PER_WORKER && System.nanoTime() < deadline; i++) {
+			boolean[] layout = engine.sampleLayout();
+			if (layout != null) {
+				GameState world = workerRoot.fork();
+				world.getCurrentBoard().applyMineLayout(layout);
+				worlds.add(world);
+			}
+		}
+		if (worlds.isEmpty()) {
+			return root;
+		}
+
+		double baseline = teamValue(workerRoot);
+		double scale = 4.0 * workerRoot.getActivationCost();
+
+		for (int iteration = 0; System.nanoTime() < deadline; iteration++) {
+			GameState sim = worlds.get(iteration % worlds.size()).fork();
+			List<Node> path = new ArrayList<>(TREE_DEPTH + 1);
+			Node node = root;
+			path.add(node);
+
+			// Selection and expansion
+			for (int depth = 0; depth < TREE_DEPTH && !sim.isGameOver(); depth++) {
+				List<Move> legal = depth == 0 ? rootMoves : generator.candidates(sim);
+				if (legal.isEmpty()) {
+					break;
+				}
+				Move untried = null;
+				for (Move move : legal) {
+					if (!node.children.containsKey(move.key(size))) {
+						untried = move;
+						break;
+					}
+				}
+				if (untried != null) {
+					node = node.child(untried.key(size));
+					path.add(node);
+					apply(sim, untried, me, rnd);
+					break;
+				}
+				Move selected = select(node, legal, size);
+				node = node.children.get(selected.key(size));
+				path.add(node);
+				apply(sim, selected, me, rnd);
+			}
+
+			rollout(sim, me, generator, rnd);
+
+			double reward = 0.5 + 0.5 * Math.tanh((teamValue(sim) - baseline) / scale);
+			for (Node visited : path) {
+				visited.visits++;
+				visited.valueSum += reward;
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * UCB1 selection among the legal, already expanded children.
+	 */
+	private Move select(Node node, List<Move> legal, int size) {
+		Move best = legal.get(0);
+		double bestScore = Double.NEGATIVE_INFINITY;
+		double logVisits = Math.log(Math.max(1, node.visits));
+		for (Move move : legal) {
+			Node child = node.children.get(move.key(size));
+			double score = child.valueSum / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+			if (score > bestScore) {
+				bestScore = score;
+				best = move;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Default policy: keep revealing the safest-looking tiles.
+	 */
+	private void rollout(GameState sim, int me, MoveGenerator generator, Random rnd) {
+		for (int depth = 0; depth < ROLLOUT_DEPTH && !sim.isGameOver(); depth++) {
+			Move move = generator.safeReveal(sim, rnd);
+			if (move == null) {
+				return;
+			}
+			apply(sim, move, me, rnd);
+		}
+	}
+
+	/**
+	 * Applies a move to a simulated game, mirroring what GameController does for
+	 * the same click.
+	 */
+	static void apply(GameState sim, Move move, int me, Random rnd) {
+		Tile tile = sim.getCurrentBoard().getTile(move.getRow(), move.getCol());
+
+		switch (move.getType()) {
+			case REVEAL:
+				if (tile.isQuestion() || tile.isSurprise()) {
+					// Clicking a question or surprise tile activates it, if affordable
+					if (sim.getTotalScore() >= sim.getActivationCost()) {
+						activate(sim, tile, rnd);
+					}
+				} else {
+					sim.revealTile(move.getRow(), move.getCol());
+				}
+				break;
+
+			case FLAG:
+				if (tile.isMine() && !tile.isFlagged()) {
+					sim.flagMine(tile);
+				} else {
+					sim.toggleFlag(tile);
+				}
+				break;
+
+			case ACTIVATE:
+				activate(sim, tile, rnd);
+				break;
+		}
+
+		// Skip the partner's turn: only our own moves are simulated
+		if (!sim.isGameOver() && sim.getCurrentPlayerIndex() != me) {
+			sim.setCurrentPlayerIndex(me);
+		}
+	}
+
+	/**
+	 * Activates a question or surprise tile, answering a question correctly
+	 * with the assumed accuracy.
+	 */
+	private static void activate(GameState sim, Tile tile, Random rnd) {
+		sim.activateTile(tile);
+		if (tile.isQuestion() && !sim.isGameOver()) {
+			sim.handleQuestionAnswer((QuestionTile) tile, rnd.nextDouble() < ANSWER_ACCURACY);
+			sim.completeQuestionTileInteraction();
+		}
+	}
+
+	/**
+	 * Value of a game for the team: score plus remaining lives at their end-game
+	 * conversion rate, minus a heavy penalty for losing.
+	 */
+	private static double teamValue(GameState state) {
+		int heart = state.getActivationCost();
+		double value = state.getTotalScore() + (double) state.getSharedLives() * heart;
+		if (state.isGameOver() && !state.isGameWon()) {
+			value -= LOSS_PENALTY_HEARTS * heart;
+		}
+		return value;
+	}
+
+	/**
+	 * Open-loop tree node: children are keyed by move, not by resulting state.
+	 */
+	private static final class Node {
+		private final Map<Integer, Node> children = new HashMap<>();
+		private int visits;
+		private double valueSum;
+
+		Node child(int key) {
+			return children.computeIfAbsent(key, k -> new Node());
+		}
+	}
+
+	/**
+	 * Generates candidate moves from the probabilities computed at the root.
+	 */
+	private static final class MoveGenerator {
+		private final int size;
+		private final int[] safestFirst; // hidden tiles by ascending mine probability
+		private final double[] probabilities;
+		private final int[] specialTiles; // question/surprise tiles revealed at the root
+
+		MoveGenerator(Board board, double[] probabilities) {
+			this.size = board.getSize();
+			this.probabilities = probabilities;
+
+			List<Integer> hidden = new ArrayList<>();
+			List<Integer> special = new ArrayList<>();
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					Tile tile = board.getTile(row, col);
+					int index = row * size + col;
+					if (!tile.isRevealed()) {
+						hidden.add(index);
+					} else if (tile.isQuestion() || tile.isSurprise()) {
+						special.add(index);
+					}
+				}
+			}
+			hidden.sort((a, b) -> Double.compare(probabilities[a], probabilities[b]));
+			this.safestFirst = hidden.stream().mapToInt(Integer::intValue).toArray();
+			this.specialTiles = special.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		List<Move> candidates(GameState state) {
+			Board board = state.getCurrentBoard();
+			List<Move> moves = new ArrayList<>();
+
+			// Affordable activations of revealed question/surprise tiles
+			if (state.getTotalScore() >= state.getActivationCost()) {
+				for (int index : specialTiles) {
+					Tile tile = board.getTile(index / size, index % size);
+					boolean used = tile.isQuestion() ? ((QuestionTile) tile).isActivated()
+							: ((SurpriseTile) tile).isActivated();
+					if (!used) {
+						moves.add(new Move(MoveType.ACTIVATE, index / size, index % size));
+					}
+				}
+			}
+
+			// Safest reveals
+			int reveals = 0;
+			for (int i = 0; i < safestFirst.length && reveals < MAX_REVEAL_CANDIDATES; i++) {
+				int index = safestFirst[i];
+				Tile tile = board.getTile(index / size, index % size);
+				if (!tile.isRevealed() && !tile.isFlagged()) {
+					moves.add(new Move(MoveType.REVEAL, index / size, index % size));
+					reveals++;
+				}
+			}
+
+			// Likely mines are worth flagging (+1 if right), and our own flags are
+			// always safe tiles that must be unflagged before they can be revealed
+			int flags = 0;
+			for (int i = safestFirst.length - 1; i >= 0; i--) {
+				int index = safestFirst[i];
+				Tile tile = board.getTile(index / size, index % size);
+				if (tile.isRevealed()) {
+					continue;
+				}
+				if (tile.isFlagged()) {
+					moves.add(new Move(MoveType.FLAG, index / size, index % size));
+				} else if (flags < MAX_FLAG_CANDIDATES && probabilities[index] >= FLAG_THRESHOLD) {
+					moves.add(new Move(MoveType.FLAG, index / size, index % size));
+					flags++;
+				}
+			}
+			return moves;
+		}
+
+		Move safeReveal(GameState state, Random rnd) {
+			Board board = state.getCurrentBoard();
+			int seen = 0;
+			Move choice = null;
+			// Pick at random among the three safest remaining tiles
+			for (int i = 0; i < safestFirst.length && seen < 3; i++) {
+				int index = safestFirst[i];
+				Tile tile = board.getTile(index / size, index % size);
+				if (!tile.isRevealed() && !tile.isFlagged()) {
+					seen++;
+					if (rnd.nextInt(seen) == 0) {
+						choice = new Move(MoveType.REVEAL, index / size, index % size);
+					}
+				}
+			}
+			return choice;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Saves game history on a background thread, so the game-over screen never
+ * waits on disk.
+ *
+ * Finished games are put on a bounded queue. The writer thread takes them in
+ * batches and saves each batch with one {@link HistoryManager#saveHistory(List)}
+ * call, when the {@link FlushPolicy} says so: after every game, after every N
+ * games, or at most T ms after a game finished. Pending games are saved when
+ * the application exits.
+ *
+ * The policy is read from the system property {@value #POLICY_PROPERTY}
+ * ({@code record}, {@code records:N} or {@code millis:T}); the default saves
+ * every game straight away.
+ *
+ * A batch that fails to save is kept and tried again after a delay that
+ * doubles with every failure, together with the games queued meanwhile. A
+ * game is only dropped if saving still fails when the writer closes.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class AsyncHistoryWriter {
+	/** System property that selects the flush policy. */
+	public static final String POLICY_PROPERTY = "minesweeper.historyFlush";
+
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final long SHUTDOWN_WAIT_MILLIS = 5000;
+	private static final long CLOSE_CHECK_MILLIS = 100; // the writer is never interrupted mid-write
+	private static final long RETRY_MIN_MILLIS = 100;
+	private static final long RETRY_MAX_MILLIS = 5000;
+	private static final int CLOSE_ATTEMPTS = 3;
+
+	private static AsyncHistoryWriter instance;
+
+	/**
+	 * When queued games are written to the history.
+	 */
+	public static final class FlushPolicy {
+		private final int maxRecords;
+		private final long maxDelayMillis;
+
+		private FlushPolicy(int maxRecords, long maxDelayMillis) {
+			this.maxRecords = maxRecords;
+			this.maxDelayMillis = maxDelayMillis;
+		}
+
+		/**
+		 * Writes every game as soon as it is queued.
+		 *
+		 * @return The policy
+		 */
+		public static FlushPolicy everyRecord() {
+			return new FlushPolicy(1, 0);
+		}
+
+		/**
+		 * Writes games once a number of them are queued (and on exit).
+		 *
+		 * @param records Games per write (at least 1)
+		 * @return The policy
+		 */
+		public static FlushPolicy everyRecords(int records) {
+			return new FlushPolicy(Math.max(1, records), Long.MAX_VALUE);
+		}
+
+		/**
+		 * Writes the queued games at most a given time after the first of them
+		 * was queued.
+		 *
+		 * @param millis Longest time a game waits to be written
+		 * @return The policy
+		 */
+		public static FlushPolicy everyMillis(long millis) {
+			return new FlushPolicy(Integer.MAX_VALUE, Math.max(0, millis));
+		}
+
+		/**
+		 * Gets the number of queued games that are written together.
+		 *
+		 * @return Games per write; {@link Integer#MAX_VALUE} if only time counts
+		 */
+		public int getMaxRecords() {
+			return maxRecords;
+		}
+
+		/**
+		 * Gets the longest time a queued game waits to be written.
+		 *
+		 * @return Milliseconds; {@link Long#MAX_VALUE} if only the count counts
+		 */
+		public long getMaxDelayMillis() {
+			return maxDelayMillis;
+		}
+
+		/**
+		 * Reads a policy from text: {@code record}, {@code records:N} or
+		 * {@code millis:T}.
+		 *
+		 * @param text The policy text
+		 * @return The policy, or {@link #everyRecord()} if the text is invalid
+		 */
+		public static FlushPolicy parse(String text) {
+			if (text == null || text.trim().isEmpty() || "record".equals(text.trim())) {
+				return everyRecord();
+			}
+			String[] parts = text.trim().split(":", 2);
+			try {
+				if (parts.length == 2 && "records".equals(parts[0])) {
+					return everyRecords(Integer.parseInt(parts[1].trim()));
+				}
+				if (parts.length == 2 && "millis".equals(parts[0])) {
+					return everyMillis(Long.parseLong(parts[1].trim()));
+				}
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+			System.err.println("Unknown history flush policy '" + text + "', saving every game");
+			return everyRecord();
+		}
+	}
+
+	private final BlockingQueue<GameHistory> queue;
+	private final FlushPolicy policy;
+	private final Predicate<List<GameHistory>> saver;
+	private final Thread writerThread;
+	private final Object submitLock = new Object(); // orders submit against close
+	private volatile boolean closing;
+
+	/**
+	 * Gets the shared writer, starting it on first use. Queued games are saved
+	 * when the JVM exits.
+	 *
+	 * @return The AsyncHistoryWriter instance
+	 */
+	public static synchronized AsyncHistoryWriter getInstance() {
+		if (instance == null) {
+			instance = new AsyncHistoryWriter(FlushPolicy.parse(System.getProperty(POLICY_PROPERTY)));
+			AsyncHistoryWriter writer = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "history-writer-shutdown"));
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates and starts a writer.
+	 *
+	 * @param policy When queued games are written
+	 */
+	public AsyncHistoryWriter(FlushPolicy policy) {
+		this(policy, HistoryManager::saveHistory);
+	}
+
+	/**
+	 * Creates and starts a writer that saves batches through a given function
+	 * instead of the {@link HistoryManager}.
+	 *
+	 * @param policy When queued games are written
+	 * @param saver  Saves a batch, oldest game first; returns false if it failed
+	 */
+	public AsyncHistoryWriter(FlushPolicy policy, Predicate<List<GameHistory>> saver) {
+		this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		this.policy = policy;
+		this.saver = saver;
+		this.writerThread = new Thread(this::run, "history-writer");
+		writerThread.setDaemon(true); // the shutdown hook saves what is queued
+		writerThread.start();
+	}
+
+	/**
+	 * Queues a finished game to be saved. Never blocks.
+	 *
+	 * @param history The game to save
+	 * @return true if the game was queued, false if the writer is closed or
+	 *         too far behind
+	 */
+	public boolean submit(GameHistory history) {
+		// Under the lock a game is either queued before close() marks the
+		// writer closing, and so saved by its final drain, or refused
+		synchronized (submitLock) {
+			if (closing) {
+				System.err.println("History writer is closed, game not saved");
+				return false;
+			}
+			if (!queue.offer(history)) {
+				System.err.println("History writer is behind, game not saved");
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Saves every queued game and stops the writer, waiting a few seconds at
+	 * most.
+	 */
+	public void close() {
+		synchronized (submitLock) {
+			closing = true;
+		}
+		try {
+			writerThread.join(SHUTDOWN_WAIT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		List<GameHistory> batch = new ArrayList<>();
+		long deadline = 0; // when the oldest game in the batch must be written
+		long retryAt = 0; // no write before this after a failed one
+		long backoff = RETRY_MIN_MILLIS;
+		while (!closing) {
+			try {
+				long wait = CLOSE_CHECK_MILLIS;
+				if (!batch.isEmpty()) {
+					long writeAt = batch.size() >= policy.maxRecords ? retryAt : Math.max(deadline, retryAt);
+					if (writeAt != Long.MAX_VALUE) {
+						wait = Math.min(wait, writeAt - System.currentTimeMillis());
+					}
+				}
+				GameHistory next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+				if (next != null) {
+					if (batch.isEmpty()) {
+						deadline = policy.maxDelayMillis == Long.MAX_VALUE ? Long.MAX_VALUE
+								: System.currentTimeMillis() + policy.maxDelayMillis;
+					}
+					batch.add(next);
+					queue.drainTo(batch);
+				}
+				long now = System.currentTimeMillis();
+				if (!batch.isEmpty() && now >= retryAt
+						&& (batch.size() >= policy.maxRecords || now >= deadline)) {
+					if (write(batch)) {
+						retryAt = 0;
+						backoff = RETRY_MIN_MILLIS;
+					} else {
+						System.err.println("Could not save " + batch.size() + " games to history, retrying in "
+								+ backoff + " ms");
+						retryAt = now + backoff;
+						backoff = Math.min(2 * backoff, RETRY_MAX_MILLIS);
+					}
+				}
+			} catch (InterruptedException e) {
+				break; // not expected: save what is queued and stop
+			}
+		}
+
+		queue.drainTo(batch);
+		for (int attempt = 1; !write(batch) && attempt < CLOSE_ATTEMPTS; attempt++) {
+			try {
+				Thread.sleep(RETRY_MIN_MILLIS * attempt);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		if (!batch.isEmpty()) {
+			System.err.println("Could not save " + batch.size() + " games to history, they are lost");
+		}
+	}
+
+	/**
+	 * Saves a batch and empties it, or keeps it if saving failed.
+	 *
+	 * @return true if the batch is empty now
+	 */
+	private boolean write(List<GameHistory> batch) {
+		if (batch.isEmpty()) {
+			return true;
+		}
+		boolean saved;
+		try {
+			saved = saver.test(batch);
+		} catch (RuntimeException e) {
+			System.err.println("Error saving history: " + e);
+			saved = false;
+		}
+		if (saved) {
+			batch.clear();
+		}
+		return saved;
+	}
+}
@@ -0,0 +1,538 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Game history stored as fixed-size binary records, an alternative to the
+ * history CSV for large histories.
+ *
+ * The log is two files: the records (for example {@code history.bin}) and a
+ * name table beside it ({@code history.names}). Every record is
+ * {@link #RECORD_SIZE} bytes:
+ *
+ * <pre>
+ *  0  long  timestamp (epoch millis of the local date-time, read as UTC)
+ *  8  int   player 1 name ID
+ * 12  int   player 2 name ID
+ * 16  int   player 1 score
+ * 20  int   player 2 score
+ * 24  int   total score
+ * 28  int   recorded winner text ID
+ * 32  byte  difficulty ordinal (-1 if unknown)
+ * 33  byte  result ({@link #RESULT_WON} or {@link #RESULT_LOST})
+ * 34  short remaining lives
+ * 36  int   reserved (0)
+ * 40  long  question seed
+ * </pre>
+ *
+ * Names are interned: each distinct name is written once to the name table
+ * (length-prefixed UTF-8) and records refer to it by index, so names may
+ * contain any character. Names are written before the record that uses them.
+ *
+ * Records are appended through a {@link FileChannel}. Reads go through a
+ * memory-mapped view of the file: {@link #records()} returns an immutable
+ * {@link Records} snapshot whose column accessors read one field without
+ * creating objects, so a statistics scan over millions of games takes
+ * milliseconds. A record cut short by a crash is dropped when the log is
+ * opened.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class BinaryHistoryLog implements Closeable {
+	/** Size of one record in bytes. */
+	public static final int RECORD_SIZE = 48;
+
+	/** Result code of a game the players won. */
+	public static final byte RESULT_WON = 1;
+
+	/** Result code of a game the players lost. */
+	public static final byte RESULT_LOST = 2;
+
+	private static final int MAGIC = 0x484C4F47; // "HLOG"
+	private static final short FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	// One mapping covers the whole file, so it must stay under 2 GB
+	private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+	private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+	private final FileChannel channel;
+	private final FileChannel namesChannel;
+
+	private final Map<String, Integer> nameIds;
+	private String[] names; // snapshots share the array up to their name count
+	private int nameCount;
+
+	private int count;
+	private ByteBuffer mapped; // read-only mapping of the records (may lag behind count)
+	private Records snapshot; // cached until the next append
+
+	/**
+	 * Opens a log, creating its files if needed.
+	 *
+	 * @param file Path of the record file; the name table is stored beside it
+	 *             with the extension {@code .names}
+	 * @throws IOException If the files cannot be opened or are not a history log
+	 */
+	public BinaryHistoryLog(Path file) throws IOException {
+		this.nameIds = new HashMap<>();
+		this.names = new String[16];
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			this.namesChannel = FileChannel.open(namesPath(file), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		try {
+			openRecords(file);
+			readNames();
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the path of the name table that belongs to a record file.
+	 *
+	 * @param file Path of the record file
+	 * @return Path of the name table
+	 */
+	public static Path namesPath(Path file) {
+		String name = file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".names");
+	}
+
+	/**
+	 * Checks the header (writing it to a new file) and drops a partly written
+	 * last record.
+	 */
+	private void openRecords(Path file) throws IOException {
+		long fileSize = channel.size();
+		if (fileSize == 0) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) RECORD_SIZE);
+			header.flip();
+			writeFully(channel, header, 0);
+			return;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+			// read the whole header
+		}
+		if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+			throw new IOException(file.getFileName() + " is not a history log");
+		}
+		if (header.getShort(4) != FORMAT_VERSION || header.getShort(6) != RECORD_SIZE) {
+			throw new IOException(file.getFileName() + " has an unsupported format version");
+		}
+
+		long records = (fileSize - HEADER_SIZE) / RECORD_SIZE;
+		if (records > MAX_RECORDS) {
+			throw new IOException(file.getFileName() + " is too large");
+		}
+		long end = HEADER_SIZE + records * RECORD_SIZE;
+		if (end != fileSize) {
+			System.err.println("Dropping incomplete last record of " + file.getFileName());
+			channel.truncate(end);
+		}
+		count = (int) records;
+	}
+
+	/**
+	 * Reads the name table, dropping a partly written last name.
+	 */
+	private void readNames() throws IOException {
+		long valid = 0;
+		InputStream in = Channels.newInputStream(namesChannel.position(0));
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		try {
+			while (true) {
+				String name = data.readUTF();
+				valid += 2 + utfLength(name);
+				addName(name);
+			}
+		} catch (EOFException | UTFDataFormatException e) {
+			// end of table (or a torn last entry)
+		}
+		if (namesChannel.size() != valid) {
+			System.err.println("Dropping incomplete last name of the history name table");
+			namesChannel.truncate(valid);
+		}
+	}
+
+	/**
+	 * Appends one game.
+	 *
+	 * @param history The game to append
+	 * @throws IOException If the record cannot be written
+	 */
+	public synchronized void append(GameHistory history) throws IOException {
+		appendAll(Arrays.asList(history));
+	}
+
+	/**
+	 * Appends several games with one write.
+	 *
+	 * @param histories The games to append, oldest first
+	 * @throws IOException If the records cannot be written
+	 */
+	public synchronized void appendAll(List<GameHistory> histories) throws IOException {
+		if (histories.isEmpty()) {
+			return;
+		}
+		if ((long) count + histories.size() > MAX_RECORDS) {
+			throw new IOException("History log is full");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(histories.size() * RECORD_SIZE);
+		ByteArrayOutputStream newNames = new ByteArrayOutputStream();
+		int firstNewName = nameCount;
+		for (GameHistory history : histories) {
+			buffer.putLong(toEpochMillis(history.getTimestamp()));
+			buffer.putInt(intern(history.getPlayer1Name(), newNames));
+			buffer.putInt(intern(history.getPlayer2Name(), newNames));
+			buffer.putInt(history.getPlayer1Score());
+			buffer.putInt(history.getPlayer2Score());
+			buffer.putInt(history.getTotalScore());
+			buffer.putInt(intern(history.getRecordedWinner(), newNames));
+			buffer.put(history.getDifficulty() == null ? -1 : (byte) history.getDifficulty().ordinal());
+			buffer.put(history.isWon() ? RESULT_WON : RESULT_LOST);
+			buffer.putShort((short) history.getRemainingLives());
+			buffer.putInt(0);
+			buffer.putLong(history.getSeed());
+		}
+		buffer.flip();
+
+		try {
+			// Names first, so a record never refers to a name that is not on disk
+			if (newNames.size() > 0) {
+				writeFully(namesChannel, ByteBuffer.wrap(newNames.toByteArray()), namesChannel.size());
+			}
+			writeFully(channel, buffer, HEADER_SIZE + (long) count * RECORD_SIZE);
+		} catch (IOException e) {
+			// Forget names that may not have been written
+			for (int id = firstNewName; id < nameCount; id++) {
+				nameIds.remove(names[id]);
+			}
+			nameCount = firstNewName;
+			throw e;
+		}
+		count += histories.size();
+		snapshot = null;
+	}
+
+	/**
+	 * Gets the number of games in the log.
+	 *
+	 * @return Record count
+	 */
+	public synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * Gets a snapshot of every record, oldest first. The snapshot reads from
+	 * the memory-mapped file and does not change when games are appended later.
+	 *
+	 * @return Read-only records
+	 * @throws IOException If the file cannot be mapped
+	 */
+	public synchronized Records records() throws IOException {
+		if (snapshot == null) {
+			int needed = count * RECORD_SIZE;
+			if (mapped == null || mapped.capacity() < needed) {
+				// Remap to cover the appended records
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, needed);
+			}
+			snapshot = new Records(mapped.duplicate(), count, names, nameCount);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Copies every record of a history CSV to a new binary log.
+	 *
+	 * @param csvFile Path of the history CSV
+	 * @param binFile Path of the record file to create; it must not exist
+	 * @return Number of games converted
+	 * @throws IOException If the CSV cannot be read or the log cannot be written
+	 */
+	public static int convertCsv(Path csvFile, Path binFile) throws IOException {
+		if (Files.exists(binFile) && Files.size(binFile) > 0) {
+			throw new IOException(binFile.getFileName() + " already exists");
+		}
+		List<GameHistory> histories = new HistoryStore(csvFile).getRecords();
+		try (BinaryHistoryLog log = new BinaryHistoryLog(binFile)) {
+			int batch = 64 * 1024;
+			for (int from = 0; from < histories.size(); from += batch) {
+				log.appendAll(histories.subList(from, Math.min(from + batch, histories.size())));
+			}
+		}
+		return histories.size();
+	}
+
+	/**
+	 * Closes the files. Snapshots already taken stay readable.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			channel.close();
+		} finally {
+			namesChannel.close();
+		}
+	}
+
+	/**
+	 * Gets the ID of a name, adding it to the table (and to the bytes to write)
+	 * if it is new.
+	 */
+	private int intern(String name, ByteArrayOutputStream newNames) throws IOException {
+		String key = name == null ? "" : name;
+		Integer id = nameIds.get(key);
+		if (id != null) {
+			return id;
+		}
+		if (utfLength(key) > 0xFFFF) {
+			throw new IOException("Name too long for the history log");
+		}
+		new DataOutputStream(newNames).writeUTF(key);
+		return addName(key);
+	}
+
+	private int addName(String name) {
+		if (nameCount == names.length) {
+			names = Arrays.copyOf(names, nameCount * 2); // snapshots keep the old array
+		}
+		names[nameCount] = name;
+		nameIds.put(name, nameCount);
+		return nameCount++;
+	}
+
+	/**
+	 * Gets the number of bytes {@link DataOutputStream#writeUTF(String)} writes
+	 * for a string, without the length prefix.
+	 */
+	private static int utfLength(String text) {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+		}
+		return length;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static long toEpochMillis(LocalDateTime timestamp) {
+		return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	private static LocalDateTime fromEpochMillis(long millis) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+				(int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Immutable snapshot of the log. As a list it creates a
+	 * {@link GameHistory} for each record read; the column accessors read a
+	 * single field straight from the mapped file.
+	 */
+	public static final class Records extends AbstractList<GameHistory> implements RandomAccess {
+		private final ByteBuffer buffer;
+		private final int size;
+		private final String[] names;
+		private final int nameCount;
+
+		private Records(ByteBuffer buffer, int size, String[] names, int nameCount) {
+			this.buffer = buffer;
+			this.size = size;
+			this.names = names;
+			this.nameCount = nameCount;
+		}
+
+		@Override
+		public GameHistory get(int index) {
+			int offset = offset(index);
+			int difficulty = buffer.get(offset + 32);
+			return new GameHistory(getName(buffer.getInt(offset + 8)), getName(buffer.getInt(offset + 12)),
+					buffer.getInt(offset + 16), buffer.getInt(offset + 20), buffer.getInt(offset + 24),
+					difficulty >= 0 && difficulty < DIFFICULTIES.length ? DIFFICULTIES[difficulty] : null,
+					getName(buffer.getInt(offset + 28)), fromEpochMillis(buffer.getLong(offset)),
+					buffer.getShort(offset + 34), buffer.getLong(offset + 40));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Gets the timestamp of a game.
+		 *
+		 * @param index Record index
+		 * @return Epoch millis of the game's local date-time, read as UTC
+		 */
+		public long getTimestampMillis(int index) {
+			return buffer.getLong(offset(index));
+		}
+
+		/**
+		 * Gets the name ID of a game's first player.
+		 *
+		 * @param index Record index
+		 * @return Name ID (see {@link #getName(int)})
+		 */
+		public int getPlayer1Id(int index) {
+			return buffer.getInt(offset(index) + 8);
+		}
+
+		/**
+		 * Gets the name ID of a game's second player.
+		 *
+		 * @param index Record index
+		 * @return Name ID (see {@link #getName(int)})
+		 */
+		public int getPlayer2Id(int index) {
+			return buffer.getInt(offset(index) + 12);
+		}
+
+		/**
+		 * Gets the first player's score.
+		 *
+		 * @param index Record index
+		 * @return Player 1 score
+		 */
+		public int getPlayer1Score(int index) {
+			return buffer.getInt(offset(index) + 16);
+		}
+
+		/**
+		 * Gets the second player's score.
+		 *
+		 * @param index Record index
+		 * @return Player 2 score
+		 */
+		public int getPlayer2Score(int index) {
+			return buffer.getInt(offset(index) + 20);
+		}
+
+		/**
+		 * Gets the total score of a game.
+		 *
+		 * @param index Record index
+		 * @return Total score
+		 */
+		public int getTotalScore(int index) {
+			return buffer.getInt(offset(index) + 24);
+		}
+
+		/**
+		 * Gets the difficulty of a game.
+		 *
+		 * @param index Record index
+		 * @return The difficulty, or null if unknown
+		 */
+		public Difficulty getDifficulty(int index) {
+			int ordinal = buffer.get(offset(index) + 32);
+			return ordinal >= 0 && ordinal < DIFFICULTIES.length ? DIFFICULTIES[ordinal] : null;
+		}
+
+		/**
+		 * Checks whether the players won a game.
+		 *
+		 * @param index Record index
+		 * @return true if the game was won
+		 */
+		public boolean isWon(int index) {
+			return buffer.get(offset(index) + 33) == RESULT_WON;
+		}
+
+		/**
+		 * Gets the lives left at the end of a game.
+		 *
+		 * @param index Record index
+		 * @return Remaining lives
+		 */
+		public int getRemainingLives(int index) {
+			return buffer.getShort(offset(index) + 34);
+		}
+
+		/**
+		 * Gets the question seed of a game.
+		 *
+		 * @param index Record index
+		 * @return The seed, or 0 if unknown
+		 */
+		public long getSeed(int index) {
+			return buffer.getLong(offset(index) + 40);
+		}
+
+		/**
+		 * Gets an interned name.
+		 *
+		 * @param id Name ID from a record
+		 * @return The name
+		 */
+		public String getName(int id) {
+			if (id < 0 || id >= nameCount) {
+				throw new IndexOutOfBoundsException("Name ID: " + id);
+			}
+			return names[id];
+		}
+
+		/**
+		 * Gets the number of distinct names in this snapshot. IDs run from 0 to
+		 * this count minus one.
+		 *
+		 * @return Name count
+		 */
+		public int getNameCount() {
+			return nameCount;
+		}
+
+		private int offset(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return index * RECORD_SIZE;
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package Model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import Patterns.Factory.TileFactory;
 
 /**
@@ -13,6 +15,10 @@ import Patterns.Factory.TileFactory;
  * 
  * Updated in Iteration 2 to use Tile hierarchy with polymorphism.
  * 
+ * Boards can be forked for simulation (see {@link #fork()}). Forks share tile
+ * rows copy-on-write: a row is only copied the first time a fork modifies one
+ * of its tiles.
+ * 
  * @author Team Rhino
  * @version 2.0 - Iteration 2 (Using Tile Hierarchy)
  */
@@ -24,6 +30,16 @@ public class Board {
 	private int totalSafeTiles;
 	private final Random random;
 
+	// Copy-on-write bookkeeping for forks. null on live boards, which always own
+	// their rows; on forks, sharedRows[row] is true while that row is still
+	// shared with the parent or a sibling fork.
+	private final boolean[] sharedRows;
+
+	// Cells revealed since the log was last taken, as row * size + col; null
+	// unless logging is on (see setRevealLogging)
+	private int[] revealLog;
+	private int revealLogSize;
+
 	/**
 	 * Creates a new game board with the specified difficulty. Initializes tiles,
 	 * places mines, questions, surprises, and calculates neighbors.
@@ -31,11 +47,28 @@ public class Board {
 	 * @param difficulty The difficulty level determining board size and mine count
 	 */
 	public Board(Difficulty difficulty) {
+		this(difficulty, new Random());
+	}
+
+	/**
+	 * Creates a new game board whose layout is determined by a seed. Boards
+	 * created with the same difficulty and seed have the same layout, which is
+	 * how recorded games are replayed (see {@link GameReplay}).
+	 * 
+	 * @param difficulty The difficulty level determining board size and mine count
+	 * @param seed       Seed of the placement
+	 */
+	public Board(Difficulty difficulty, long seed) {
+		this(difficulty, new Random(seed));
+	}
+
+	private Board(Difficulty difficulty, Random random) {
 		this.difficulty = difficulty;
 		this.size = difficulty.getBoardSize();
 		this.tiles = new Tile[size][size];
 		this.revealedCount = 0;
-		this.random = new Random();
+		this.random = random;
+		this.sharedRows = null;
 
 		initializeTiles();
 		placeSpecialTiles();
@@ -45,6 +78,88 @@ public class Board {
 		this.totalSafeTiles = (size * size) - difficulty.getMineCount();
 	}
 
+	/**
+	 * Creates a fork of the given board.
+	 * 
+	 * @param source    The board to fork
+	 * @param shareRows true to share rows copy-on-write, false to copy every tile
+	 *                  up front
+	 */
+	private Board(Board source, boolean shareRows) {
+		this.difficulty = source.difficulty;
+		this.size = source.size;
+		this.revealedCount = source.revealedCount;
+		this.totalSafeTiles = source.totalSafeTiles;
+		// Seeded apart from the source, so forking never moves the source's
+		// random stream (and never changes what a live game rolls next)
+		this.random = new Random(ThreadLocalRandom.current().nextLong());
+		this.sharedRows = new boolean[size];
+
+		if (shareRows) {
+			this.tiles = source.tiles.clone();
+			Arrays.fill(sharedRows, true);
+			// The source fork now shares its rows too and must copy before writing
+			Arrays.fill(source.sharedRows, true);
+		} else {
+			this.tiles = new Tile[size][];
+			for (int row = 0; row < size; row++) {
+				tiles[row] = copyRow(source.tiles[row]);
+			}
+		}
+	}
+
+	/**
+	 * Creates a lightweight copy of this board for simulation (e.g. bot
+	 * lookahead). Changes made to the fork never affect this board and vice versa.
+	 * <p>
+	 * Forking a live board copies its tiles once, because live tiles are
+	 * referenced by the view and by pending question lists; the live board
+	 * itself is only read. Forking a fork is O(board size): both boards share
+	 * every row and copy a row only when they first modify it, so forking a fork
+	 * also marks the source fork's rows as shared. Neither kind of fork draws
+	 * from the source's random numbers.
+	 * <p>
+	 * Forks are not thread-safe; a fork should only be used, and forked, from one
+	 * thread at a time.
+	 * 
+	 * @return A new forked board
+	 */
+	public Board fork() {
+		return new Board(this, isFork());
+	}
+
+	/**
+	 * Checks if this board is a fork created by {@link #fork()}.
+	 * 
+	 * @return true if this board is a simulation fork
+	 */
+	public boolean isFork() {
+		return sharedRows != null;
+	}
+
+	/**
+	 * Copies every tile of a row.
+	 */
+	private static Tile[] copyRow(Tile[] source) {
+		Tile[] copy = new Tile[source.length];
+		for (int col = 0; col < source.length; col++) {
+			copy[col] = source[col].copy();
+		}
+		return copy;
+	}
+
+	/**
+	 * Gets a tile that this board may modify, copying its row first if the row is
+	 * still shared with another fork.
+	 */
+	private Tile writableTile(int row, int col) {
+		if (sharedRows != null && sharedRows[row]) {
+			tiles[row] = copyRow(tiles[row]);
+			sharedRows[row] = false;
+		}
+		return tiles[row][col];
+	}
+
 	/**
 	 * Initializes all tiles on the board as empty tiles.
 	 * Updated for Iteration 3: Uses TileFactory (Factory Method pattern).
@@ -170,8 +285,9 @@ public class Board {
 			return null;
 		}
 
+		tile = writableTile(row, col);
 		tile.reveal();
-		revealedCount++;
+		countRevealed(row, col);
 
 		// If empty tile with no adjacent mines, reveal neighbors recursively
 		if (tile.isEmpty() && tile.getAdjacentMines() == 0) {
@@ -201,8 +317,9 @@ public class Board {
 
 					// Reveal non-mine, non-flagged tiles during cascade
 					if (!neighbor.isRevealed() && !neighbor.isFlagged() && !neighbor.isMine()) {
+						neighbor = writableTile(newRow, newCol);
 						neighbor.reveal();
-						revealedCount++;
+						countRevealed(newRow, newCol);
 
 						// Continue cascade logic:
 						// "The cascade continues recursively as long as the tiles revealed are GREEN (0
@@ -220,6 +337,46 @@ public class Board {
 		}
 	}
 
+	/**
+	 * Counts a tile this board has just revealed, and logs it if logging is on.
+	 */
+	private void countRevealed(int row, int col) {
+		revealedCount++;
+		if (revealLog != null) {
+			if (revealLogSize == revealLog.length) {
+				revealLog = Arrays.copyOf(revealLog, revealLog.length * 2);
+			}
+			revealLog[revealLogSize++] = row * size + col;
+		}
+	}
+
+	/**
+	 * Turns logging of revealed tiles on or off. The game state turns it on for
+	 * live boards to report reveals to observers; forks never log.
+	 *
+	 * @param on true to log reveals
+	 */
+	void setRevealLogging(boolean on) {
+		revealLog = on ? new int[16] : null;
+		revealLogSize = 0;
+	}
+
+	/**
+	 * Takes the tiles revealed since the last call, in reveal order, and clears
+	 * the log.
+	 *
+	 * @return Cells as row * size + col, or null if none were revealed or
+	 *         logging is off
+	 */
+	int[] takeRevealed() {
+		if (revealLogSize == 0) {
+			return null;
+		}
+		int[] cells = Arrays.copyOf(revealLog, revealLogSize);
+		revealLogSize = 0;
+		return cells;
+	}
+
 	/**
 	 * Gets all revealed but unactivated question tiles on this board. Used to
 	 * handle questions revealed through cascade. Excludes questions already marked
@@ -255,7 +412,7 @@ public class Board {
 		if (!isValidPosition(row, col)) {
 			return false;
 		}
-		return tiles[row][col].toggleFlag();
+		return writableTile(row, col).toggleFlag();
 	}
 
 	/**
@@ -282,8 +439,9 @@ public class Board {
 		if (!unrevealedMines.isEmpty()) {
 			int randomIndex = random.nextInt(unrevealedMines.size());
 			Tile mineTile = unrevealedMines.get(randomIndex);
+			mineTile = writableTile(mineTile.getRow(), mineTile.getCol());
 			mineTile.reveal();
-			revealedCount++;
+			countRevealed(mineTile.getRow(), mineTile.getCol());
 			return true;
 		}
 
@@ -325,8 +483,9 @@ public class Board {
 
 				// Only reveal if not already revealed, not flagged, and not a mine
 				if (!tile.isRevealed() && !tile.isFlagged() && !tile.isMine()) {
+					tile = writableTile(row, col);
 					tile.reveal();
-					revealedCount++;
+					countRevealed(row, col);
 					revealed++;
 
 					// If empty tile with no adjacent mines, trigger cascade
@@ -365,6 +524,104 @@ public class Board {
 		return tiles[row][col];
 	}
 
+	/**
+	 * Gets the tile at the specified position for modification. On live boards
+	 * this is the same as {@link #getTile(int, int)}; on forks the tile's row is
+	 * copied first if it is still shared, so changes stay local to this fork.
+	 * 
+	 * @param row Row of the tile
+	 * @param col Column of the tile
+	 * @return The tile at the position, or null if invalid
+	 */
+	public Tile getTileForUpdate(int row, int col) {
+		if (!isValidPosition(row, col)) {
+			return null;
+		}
+		return writableTile(row, col);
+	}
+
+	/**
+	 * Replaces the hidden contents of a forked board with a hypothetical mine
+	 * layout, e.g. one sampled by {@link MineProbabilityEngine}. Revealed and
+	 * flagged tiles are kept as they are; every other tile becomes a mine or a
+	 * safe tile, and adjacent mine counts are recalculated.
+	 *
+	 * Hidden question and surprise tiles are not lost: as many of each are
+	 * placed again at random among the hidden safe tiles of the layout, since
+	 * where they are is as unknown to a player as where the mines are. Revealing
+	 * one in the sampled world then costs its activation like in the real game.
+	 *
+	 * @param mineAt Mine flags indexed by row * size + col
+	 * @throws IllegalStateException    if this board is not a fork
+	 * @throws IllegalArgumentException if the layout does not match the board
+	 */
+	public void applyMineLayout(boolean[] mineAt) {
+		if (!isFork()) {
+			throw new IllegalStateException("Mine layouts can only be applied to forked boards");
+		}
+		if (mineAt.length != size * size) {
+			throw new IllegalArgumentException("Layout size does not match board size");
+		}
+
+		int questions = 0;
+		int surprises = 0;
+		List<int[]> safeCells = new ArrayList<>();
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				Tile tile = tiles[row][col];
+				if (tile.isRevealed() || tile.isFlagged()) {
+					continue;
+				}
+				if (tile.isQuestion()) {
+					questions++;
+				} else if (tile.isSurprise()) {
+					surprises++;
+				}
+				boolean mine = mineAt[row * size + col];
+				if (!mine) {
+					safeCells.add(new int[] { row, col });
+				}
+				if (mine != tile.isMine() || tile.isQuestion() || tile.isSurprise()) {
+					writableTile(row, col);
+					tiles[row][col] = mine ? TileFactory.createMineTile(row, col)
+							: TileFactory.createEmptyTile(row, col);
+				}
+			}
+		}
+
+		// Deal the special tiles out again among the hidden safe tiles
+		Collections.shuffle(safeCells, random);
+		int placed = 0;
+		for (int[] pos : safeCells) {
+			if (placed == questions + surprises) {
+				break;
+			}
+			writableTile(pos[0], pos[1]);
+			tiles[pos[0]][pos[1]] = placed < questions ? TileFactory.createQuestionTile(pos[0], pos[1])
+					: TileFactory.createSurpriseTile(pos[0], pos[1]);
+			placed++;
+		}
+
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				Tile tile = tiles[row][col];
+				if (tile.isRevealed() || tile.isMine() || tile.isQuestion() || tile.isSurprise()) {
+					continue;
+				}
+				int count = countAdjacentMines(row, col);
+				if (count == tile.getAdjacentMines() && (count > 0) == (tile instanceof NumberTile)) {
+					continue;
+				}
+				boolean flagged = tile.isFlagged();
+				writableTile(row, col);
+				Tile replacement = count > 0 ? TileFactory.createNumberTile(row, col, count)
+						: TileFactory.createEmptyTile(row, col);
+				replacement.setFlagged(flagged);
+				tiles[row][col] = replacement;
+			}
+		}
+	}
+
 	/**
 	 * Checks if all safe tiles have been revealed (win condition).
 	 * 
@@ -0,0 +1,169 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches data files (the question and surprise catalogs) for changes made
+ * outside the game and reloads them without a restart.
+ *
+ * One {@link WatchService} watches the directories of the registered files. A
+ * burst of events for one file (editors often write a file in several steps)
+ * is debounced: the file's reload runs once, {@link #DEBOUNCE_MILLIS} after the
+ * last event. Reloads run one at a time on a background thread; each reload
+ * parses only the file that changed.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class CatalogWatcher implements Closeable {
+	/** Quiet time after the last change event before a file is reloaded. */
+	public static final long DEBOUNCE_MILLIS = 500;
+
+	private final WatchService watchService;
+	private final ScheduledExecutorService reloader;
+	private final Map<WatchKey, Path> directories;
+	private final Map<Path, Runnable> reloads; // absolute file path -> reload action
+	private final Map<Path, ScheduledFuture<?>> pending;
+	private Thread watchThread;
+
+	/**
+	 * Creates a watcher. Nothing is watched until files are registered and
+	 * {@link #start()} is called.
+	 *
+	 * @throws IOException If the file system does not support watching
+	 */
+	public CatalogWatcher() throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "catalog-reloader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.directories = new HashMap<>();
+		this.reloads = new HashMap<>();
+		this.pending = new HashMap<>();
+	}
+
+	/**
+	 * Registers a file to watch.
+	 *
+	 * @param file   The file to watch (its directory must exist)
+	 * @param reload Action that reloads the file; runs on the reload thread
+	 * @return true if the file is being watched
+	 */
+	public synchronized boolean watch(Path file, Runnable reload) {
+		Path absolute = file.toAbsolutePath().normalize();
+		Path directory = absolute.getParent();
+		if (directory == null) {
+			return false;
+		}
+		try {
+			if (!directories.containsValue(directory)) {
+				// Files are replaced by renames as well as rewritten in place
+				WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				directories.put(key, directory);
+			}
+			reloads.put(absolute, reload);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Cannot watch " + absolute + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Starts watching on a daemon thread. Calling this again has no effect.
+	 */
+	public synchronized void start() {
+		if (watchThread != null) {
+			return;
+		}
+		watchThread = new Thread(this::processEvents, "catalog-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+
+	private void processEvents() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				Path directory;
+				synchronized (this) {
+					directory = directories.get(key);
+				}
+				if (directory != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							scheduleAll(); // events were lost: reload everything
+						} else {
+							schedule(directory.resolve((Path) event.context()));
+						}
+					}
+				}
+				key.reset();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Closed: stop watching
+		}
+	}
+
+	/**
+	 * Schedules (or postpones) the reload of one file.
+	 */
+	private synchronized void schedule(Path file) {
+		Runnable reload = reloads.get(file);
+		if (reload == null) {
+			return; // another file in a watched directory
+		}
+		ScheduledFuture<?> previous = pending.get(file);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+		pending.put(file, reloader.schedule(() -> runReload(file, reload), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+	}
+
+	private synchronized void scheduleAll() {
+		for (Path file : reloads.keySet()) {
+			schedule(file);
+		}
+	}
+
+	private void runReload(Path file, Runnable reload) {
+		synchronized (this) {
+			pending.remove(file);
+		}
+		try {
+			reload.run();
+		} catch (RuntimeException e) {
+			System.err.println("Error reloading " + file.getFileName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops watching and cancels pending reloads.
+	 */
+	@Override
+	public void close() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			System.err.println("Error closing file watcher: " + e.getMessage());
+		}
+		reloader.shutdownNow();
+	}
+}
@@ -0,0 +1,277 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 CSV reader shared by all data loaders.
+ *
+ * Records are parsed in a single pass by a small state machine over a reused
+ * character buffer: quoted fields may contain commas, line breaks and doubled
+ * quotes ({@code ""}), and both LF and CRLF line endings are accepted. The
+ * fields of the current record are kept in one reused buffer, so reading a
+ * record allocates nothing until a field is requested as a String.
+ *
+ * Usage:
+ *
+ * <pre>
+ * try (CsvReader csv = new CsvReader(reader)) {
+ * 	csv.next(); // skip header
+ * 	while (csv.next()) {
+ * 		int id = csv.getInt(0);
+ * 		String text = csv.get(1);
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class CsvReader implements Closeable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Reader in;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+	private boolean eof;
+
+	// Current record: field characters back to back, fieldEnds[i] marks the end
+	// of field i
+	private final StringBuilder record;
+	private int[] fieldEnds;
+	private int fieldCount;
+	private long lineNumber; // physical lines consumed so far
+	private long recordLine; // line where the current record starts
+
+	/**
+	 * Creates a reader over a character stream. The stream is buffered
+	 * internally, so it does not need to be wrapped in a BufferedReader.
+	 *
+	 * @param in The character stream to read
+	 */
+	public CsvReader(Reader in) {
+		this(in, BUFFER_SIZE);
+	}
+
+	private CsvReader(Reader in, int bufferSize) {
+		this.in = in;
+		this.buffer = new char[bufferSize];
+		this.record = new StringBuilder(Math.min(bufferSize, 256));
+		this.fieldEnds = new int[16];
+	}
+
+	/**
+	 * Creates a reader over in-memory CSV text (for callers that already hold
+	 * a record as a String). The buffer is sized to the text.
+	 *
+	 * @param text The CSV text
+	 * @return A reader; call {@link #next()} to parse the first record
+	 */
+	public static CsvReader forText(String text) {
+		return new CsvReader(new StringReader(text), Math.max(16, text.length()));
+	}
+
+	/**
+	 * Advances to the next record.
+	 *
+	 * @return true if a record was read, false at end of input
+	 * @throws IOException If the underlying stream fails
+	 */
+	public boolean next() throws IOException {
+		record.setLength(0);
+		fieldCount = 0;
+
+		int c = read();
+		if (c < 0) {
+			return false;
+		}
+		recordLine = ++lineNumber;
+
+		boolean quoted = false; // inside a quoted section
+		while (true) {
+			if (quoted) {
+				if (c < 0) {
+					// Unterminated quote: keep what was read
+					endField();
+					return true;
+				}
+				if (c == '"') {
+					int peek = read();
+					if (peek == '"') {
+						record.append('"');
+					} else {
+						quoted = false;
+						c = peek;
+						continue;
+					}
+				} else {
+					if (c == '\n') {
+						lineNumber++;
+					}
+					record.append((char) c);
+				}
+			} else {
+				if (c < 0 || c == '\n') {
+					endField();
+					return true;
+				}
+				if (c == '\r') {
+					int peek = read();
+					if (peek != '\n' && peek >= 0) {
+						position--; // lone CR ends the record, keep the next char
+					}
+					endField();
+					return true;
+				}
+				if (c == ',') {
+					endField();
+				} else if (c == '"') {
+					quoted = true;
+				} else {
+					record.append((char) c);
+				}
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * Gets the number of fields in the current record.
+	 *
+	 * @return Field count
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * Gets a field of the current record.
+	 *
+	 * @param index Field index (0-based)
+	 * @return Field value without enclosing quotes
+	 */
+	public String get(int index) {
+		checkIndex(index);
+		return record.substring(fieldStart(index), fieldEnds[index]);
+	}
+
+	/**
+	 * Gets a field of the current record as an int, ignoring surrounding spaces.
+	 * Parses straight from the record buffer without creating a String.
+	 *
+	 * @param index Field index (0-based)
+	 * @return Parsed value
+	 * @throws NumberFormatException If the field is not an integer
+	 */
+	public int getInt(int index) {
+		checkIndex(index);
+		int start = fieldStart(index);
+		int end = fieldEnds[index];
+		while (start < end && record.charAt(start) == ' ') {
+			start++;
+		}
+		while (end > start && record.charAt(end - 1) == ' ') {
+			end--;
+		}
+		if (start == end) {
+			throw new NumberFormatException("Empty field " + index + " on line " + recordLine);
+		}
+
+		boolean negative = false;
+		int i = start;
+		char first = record.charAt(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++i == end) {
+				throw new NumberFormatException("Invalid number on line " + recordLine);
+			}
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = record.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException(
+						"Invalid number \"" + record.substring(start, end) + "\" on line " + recordLine);
+			}
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				throw new NumberFormatException("Number out of range on line " + recordLine);
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Number out of range on line " + recordLine);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Checks whether the current record is a blank line.
+	 *
+	 * @return true if the record has a single empty or whitespace-only field
+	 */
+	public boolean isBlankRecord() {
+		if (fieldCount != 1) {
+			return false;
+		}
+		for (int i = 0; i < fieldEnds[0]; i++) {
+			if (!Character.isWhitespace(record.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the line number where the current record starts (1-based; the header
+	 * is line 1).
+	 *
+	 * @return Line number
+	 */
+	public long getLineNumber() {
+		return recordLine;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			if (eof) {
+				return -1;
+			}
+			limit = in.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				eof = true;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+
+	private void endField() {
+		if (fieldCount == fieldEnds.length) {
+			fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+		}
+		fieldEnds[fieldCount++] = record.length();
+	}
+
+	private int fieldStart(int index) {
+		return index == 0 ? 0 : fieldEnds[index - 1];
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fieldCount) {
+			throw new IndexOutOfBoundsException(
+					"Field " + index + " not present on line " + recordLine + " (" + fieldCount + " fields)");
+		}
+	}
+}
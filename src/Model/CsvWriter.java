@@ -0,0 +1,164 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming RFC 4180 CSV writer, the counterpart of {@link CsvReader}.
+ *
+ * Fields are written straight to the underlying writer. A field is enclosed in
+ * quotes when it contains a comma, a quote, a line break or leading/trailing
+ * spaces (or when quoting is requested explicitly), and embedded quotes are
+ * doubled.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class CsvWriter implements Closeable, Flushable {
+	private static final String LINE_END = System.lineSeparator();
+
+	private final Writer out;
+	private boolean firstField = true;
+
+	/**
+	 * Creates a writer over a character stream. Wrap the stream in a
+	 * BufferedWriter when writing many records.
+	 *
+	 * @param out The character stream to write to
+	 */
+	public CsvWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes a text field, quoting it only if needed.
+	 *
+	 * @param value Field value (null is written as an empty field)
+	 * @return This writer, for chaining
+	 * @throws IOException If the underlying stream fails
+	 */
+	public CsvWriter field(String value) throws IOException {
+		separator();
+		if (value != null) {
+			if (needsQuotes(value)) {
+				writeQuoted(out, value);
+			} else {
+				out.write(value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a text field, always enclosed in quotes.
+	 *
+	 * @param value Field value (null is written as "")
+	 * @return This writer, for chaining
+	 * @throws IOException If the underlying stream fails
+	 */
+	public CsvWriter quotedField(String value) throws IOException {
+		separator();
+		writeQuoted(out, value == null ? "" : value);
+		return this;
+	}
+
+	/**
+	 * Writes a numeric field.
+	 *
+	 * @param value Field value
+	 * @return This writer, for chaining
+	 * @throws IOException If the underlying stream fails
+	 */
+	public CsvWriter field(int value) throws IOException {
+		separator();
+		out.write(Integer.toString(value));
+		return this;
+	}
+
+	/**
+	 * Ends the current record.
+	 *
+	 * @throws IOException If the underlying stream fails
+	 */
+	public void endRecord() throws IOException {
+		out.write(LINE_END);
+		firstField = true;
+	}
+
+	/**
+	 * Appends a field to a line being built in memory, quoting it only if
+	 * needed. Does not add a separator.
+	 *
+	 * @param line  The line being built
+	 * @param value Field value (null is appended as an empty field)
+	 * @return The same builder, for chaining
+	 */
+	public static StringBuilder appendField(StringBuilder line, String value) {
+		if (value == null) {
+			return line;
+		}
+		if (!needsQuotes(value)) {
+			return line.append(value);
+		}
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				line.append('"');
+			}
+			line.append(c);
+		}
+		return line.append('"');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void separator() throws IOException {
+		if (!firstField) {
+			out.write(',');
+		}
+		firstField = false;
+	}
+
+	private static boolean needsQuotes(String value) {
+		int length = value.length();
+		if (length == 0) {
+			return false;
+		}
+		if (value.charAt(0) == ' ' || value.charAt(length - 1) == ' ') {
+			return true;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeQuoted(Writer out, String value) throws IOException {
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == '"') {
+				// Write up to and including the quote, then double it
+				out.write(value, start, i - start + 1);
+				out.write('"');
+				start = i + 1;
+			}
+		}
+		out.write(value, start, value.length() - start);
+		out.write('"');
+	}
+}
@@ -57,6 +57,13 @@ public class EmptyTile extends Tile {
 		this.adjacentMines = count;
 	}
 
+	@Override
+	public Tile copy() {
+		EmptyTile copy = new EmptyTile(row, col);
+		copy.adjacentMines = adjacentMines;
+		return copyStateInto(copy);
+	}
+
 	@Override
 	public String toDisplayString() {
 		return adjacentMines == 0 ? " " : String.valueOf(adjacentMines);
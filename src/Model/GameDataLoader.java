@@ -0,0 +1,224 @@
+package Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads the game data (question bank, surprises and history) in parallel on
+ * background threads while the start screen is showing.
+ *
+ * Each data set is exposed as a {@link CompletableFuture}, so controllers and
+ * views can wait for what they need without blocking the Event Dispatch Thread.
+ * Progress listeners are told each time one data set finishes. Once the
+ * questions and surprises are loaded, their files are watched and reloaded
+ * when they change (see {@link CatalogWatcher}). Listeners and
+ * future callbacks run on a loader thread; Swing code must hand off to the EDT
+ * itself.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameDataLoader {
+	/**
+	 * Listener for loading progress.
+	 */
+	public interface ProgressListener {
+		/**
+		 * Called after a data set has finished loading.
+		 *
+		 * @param completed Number of data sets loaded so far
+		 * @param total     Total number of data sets
+		 * @param message   Description of the data set that finished
+		 */
+		void onProgress(int completed, int total, String message);
+	}
+
+	private static final int TASK_COUNT = 3;
+
+	private static GameDataLoader instance;
+
+	private final ExecutorService executor;
+	private final List<ProgressListener> listeners;
+	private final AtomicInteger completed;
+
+	private CompletableFuture<QuestionBank> questions;
+	private CompletableFuture<Void> surprises;
+	private CompletableFuture<List<GameHistory>> history;
+	private CompletableFuture<Void> gameData;
+
+	/**
+	 * Gets the singleton loader.
+	 *
+	 * @return The GameDataLoader instance
+	 */
+	public static synchronized GameDataLoader getInstance() {
+		if (instance == null) {
+			instance = new GameDataLoader();
+		}
+		return instance;
+	}
+
+	private GameDataLoader() {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(TASK_COUNT, runnable -> {
+			Thread thread = new Thread(runnable, "game-data-loader-" + threadCount.incrementAndGet());
+			thread.setDaemon(true); // never keeps the JVM alive after the window closes
+			return thread;
+		});
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.completed = new AtomicInteger();
+	}
+
+	/**
+	 * Starts loading all game data. Calling this again has no effect.
+	 */
+	public synchronized void start() {
+		if (gameData != null) {
+			return;
+		}
+		questions = load("Questions loaded", QuestionBank::getInstance);
+		surprises = load("Surprises loaded", () -> {
+			SurpriseCatalog.getInstance();
+			return null;
+		});
+		history = load("History loaded", GameDataLoader::readHistory);
+		gameData = CompletableFuture.allOf(questions, surprises);
+		gameData.thenRun(this::watchCatalogs);
+	}
+
+	/**
+	 * Starts reloading the question and surprise files when they are changed
+	 * outside the game.
+	 */
+	private void watchCatalogs() {
+		try {
+			CatalogWatcher catalogWatcher = new CatalogWatcher();
+			QuestionBank bank = QuestionBank.getInstance();
+			catalogWatcher.watch(bank.getCsvPath(), bank::reload);
+			File good = SurpriseCatalog.getFile(true);
+			if (good != null) {
+				catalogWatcher.watch(good.toPath(), () -> SurpriseCatalog.reload(true));
+			}
+			File bad = SurpriseCatalog.getFile(false);
+			if (bad != null) {
+				catalogWatcher.watch(bad.toPath(), () -> SurpriseCatalog.reload(false));
+			}
+			catalogWatcher.start(); // runs for the life of the application
+		} catch (IOException e) {
+			System.err.println("Data files will not be reloaded: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the history records and brings the history statistics and player
+	 * index up to date, so the history screen can show them without file I/O.
+	 */
+	private static List<GameHistory> readHistory() {
+		List<GameHistory> records = HistoryManager.loadHistory();
+		HistoryManager.getAggregates();
+		HistoryManager.getPlayerIndex();
+		return records;
+	}
+
+	/**
+	 * Runs one loading task and reports progress when it finishes (normally or
+	 * not).
+	 */
+	private <T> CompletableFuture<T> load(String message, Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, executor).whenComplete((result, error) -> {
+			if (error != null) {
+				System.err.println("Error loading game data: " + error.getMessage());
+			}
+			int done = completed.incrementAndGet();
+			for (ProgressListener listener : listeners) {
+				listener.onProgress(done, TASK_COUNT, message);
+			}
+		});
+	}
+
+	/**
+	 * Adds a progress listener. If some data sets have already finished, the
+	 * listener is told the current progress straight away.
+	 *
+	 * @param listener The listener to add
+	 */
+	public void addProgressListener(ProgressListener listener) {
+		listeners.add(listener);
+		int done = completed.get();
+		if (done > 0) {
+			listener.onProgress(done, TASK_COUNT, done == TASK_COUNT ? "Ready" : "Loading game data");
+		}
+	}
+
+	/**
+	 * Removes a progress listener.
+	 *
+	 * @param listener The listener to remove
+	 */
+	public void removeProgressListener(ProgressListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Gets the question bank once it has been loaded.
+	 *
+	 * @return Future completed with the question bank
+	 */
+	public synchronized CompletableFuture<QuestionBank> getQuestions() {
+		start();
+		return questions;
+	}
+
+	/**
+	 * Gets the history records read at startup.
+	 *
+	 * @return Future completed with the history records
+	 */
+	public synchronized CompletableFuture<List<GameHistory>> getHistory() {
+		start();
+		return history;
+	}
+
+	/**
+	 * Reads the history file again in the background (for example after a game
+	 * was saved or the history was cleared).
+	 *
+	 * @return Future completed with the current history records
+	 */
+	public synchronized CompletableFuture<List<GameHistory>> reloadHistory() {
+		start();
+		history = CompletableFuture.supplyAsync(GameDataLoader::readHistory, executor).exceptionally(error -> {
+			System.err.println("Error loading history: " + error.getMessage());
+			return new ArrayList<>();
+		});
+		return history;
+	}
+
+	/**
+	 * Gets a future that completes when everything a new game needs (questions
+	 * and surprises) is loaded.
+	 *
+	 * @return Future completed when a game can start without file I/O
+	 */
+	public synchronized CompletableFuture<Void> whenGameDataReady() {
+		start();
+		return gameData;
+	}
+
+	/**
+	 * Checks whether a new game can start without waiting.
+	 *
+	 * @return true if questions and surprises are loaded
+	 */
+	public boolean isGameDataReady() {
+		return whenGameDataReady().isDone();
+	}
+}
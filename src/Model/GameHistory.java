@@ -1,5 +1,6 @@
 package Model;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -11,6 +12,8 @@ import java.time.format.DateTimeFormatter;
  * @version 3.0 - Iteration 3
  */
 public class GameHistory {
+	private static final DateTimeFormatter CSV_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
 	private final String player1Name;
 	private final String player2Name;
 	private final int player1Score;
@@ -20,6 +23,7 @@ public class GameHistory {
 	private final String winner;
 	private final LocalDateTime timestamp;
 	private final int remainingLives;
+	private final long seed; // question dealing seed of the game (0 if unknown)
 
 	/**
 	 * Creates a new game history record.
@@ -44,6 +48,16 @@ public class GameHistory {
 	 */
 	private GameHistory(String player1Name, String player2Name, int player1Score, int player2Score, int totalScore,
 			Difficulty difficulty, String winner, LocalDateTime timestamp, int remainingLives) {
+		this(player1Name, player2Name, player1Score, player2Score, totalScore, difficulty, winner, timestamp,
+				remainingLives, 0);
+	}
+
+	/**
+	 * Internal constructor used when loading history from storage that keeps
+	 * the game seed (see {@link BinaryHistoryLog}).
+	 */
+	GameHistory(String player1Name, String player2Name, int player1Score, int player2Score, int totalScore,
+			Difficulty difficulty, String winner, LocalDateTime timestamp, int remainingLives, long seed) {
 		this.player1Name = player1Name;
 		this.player2Name = player2Name;
 		this.player1Score = player1Score;
@@ -53,6 +67,7 @@ public class GameHistory {
 		this.winner = winner;
 		this.timestamp = timestamp;
 		this.remainingLives = remainingLives;
+		this.seed = seed;
 	}
 
 	/**
@@ -66,7 +81,8 @@ public class GameHistory {
 
 		return new GameHistory(gameState.getPlayer1().getName(), gameState.getPlayer2().getName(),
 				gameState.getPlayer1().getScore(), gameState.getPlayer2().getScore(), gameState.getTotalScore(),
-				gameState.getDifficulty(), winner, gameState.getSharedLives());
+				gameState.getDifficulty(), winner, LocalDateTime.now(), gameState.getSharedLives(),
+				gameState.getQuestionSeed());
 	}
 
 	/**
@@ -75,9 +91,14 @@ public class GameHistory {
 	 * @return CSV formatted string
 	 */
 	public String toCsvLine() {
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-		return String.format("%s,%s,%s,%d,%d,%d,%s,%s,%d", timestamp.format(formatter), player1Name, player2Name,
-				player1Score, player2Score, totalScore, difficulty.name(), winner, remainingLives);
+		StringBuilder line = new StringBuilder(64);
+		line.append(timestamp.format(CSV_TIMESTAMP)).append(',');
+		CsvWriter.appendField(line, player1Name).append(',');
+		CsvWriter.appendField(line, player2Name).append(',');
+		line.append(player1Score).append(',').append(player2Score).append(',').append(totalScore).append(',')
+				.append(difficulty.name()).append(',');
+		CsvWriter.appendField(line, winner).append(',');
+		return line.append(remainingLives).toString();
 	}
 
 	/**
@@ -88,22 +109,34 @@ public class GameHistory {
 	 */
 	public static GameHistory fromCsvLine(String csvLine) {
 		try {
-			String[] parts = csvLine.split(",");
-			if (parts.length != 9) {
+			CsvReader csv = CsvReader.forText(csvLine);
+			return csv.next() ? fromCsvRecord(csv) : null;
+		} catch (IOException e) {
+			// In-memory text cannot fail to read
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a GameHistory from the current record of a CSV reader.
+	 * 
+	 * @param csv Reader positioned on a history record
+	 * @return GameHistory instance or null if parsing fails
+	 */
+	public static GameHistory fromCsvRecord(CsvReader csv) {
+		try {
+			if (csv.getFieldCount() != 9) {
 				return null;
 			}
 
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-			LocalDateTime ts = LocalDateTime.parse(parts[0].trim(), formatter);
-
-			return new GameHistory(parts[1], // player1Name
-					parts[2], // player2Name
-					Integer.parseInt(parts[3]), // player1Score
-					Integer.parseInt(parts[4]), // player2Score
-					Integer.parseInt(parts[5]), // totalScore
-					Difficulty.valueOf(parts[6]), // difficulty
-					parts[7], // winner
-					ts, Integer.parseInt(parts[8]) // remainingLives
+			return new GameHistory(csv.get(1), // player1Name
+					csv.get(2), // player2Name
+					csv.getInt(3), // player1Score
+					csv.getInt(4), // player2Score
+					csv.getInt(5), // totalScore
+					Difficulty.valueOf(csv.get(6)), // difficulty
+					csv.get(7), // winner
+					parseTimestamp(csv.get(0).trim()), csv.getInt(8) // remainingLives
 			);
 		} catch (Exception e) {
 			System.err.println("Error parsing CSV line: " + e.getMessage());
@@ -111,6 +144,42 @@ public class GameHistory {
 		}
 	}
 
+	/**
+	 * Parses a CSV timestamp. The fixed "yyyy-MM-dd HH:mm:ss" layout is decoded
+	 * directly, which is much faster than the formatter when loading large
+	 * histories; anything else goes through the formatter.
+	 */
+	private static LocalDateTime parseTimestamp(String text) {
+		if (text.length() == 19 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == ' '
+				&& text.charAt(13) == ':' && text.charAt(16) == ':') {
+			int year = digits(text, 0, 4);
+			int month = digits(text, 5, 7);
+			int day = digits(text, 8, 10);
+			int hour = digits(text, 11, 13);
+			int minute = digits(text, 14, 16);
+			int second = digits(text, 17, 19);
+			if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+				return LocalDateTime.of(year, month, day, hour, minute, second);
+			}
+		}
+		return LocalDateTime.parse(text, CSV_TIMESTAMP);
+	}
+
+	/**
+	 * Reads a run of decimal digits, or returns -1 if there is a non-digit.
+	 */
+	private static int digits(String text, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
 	// Getters
 	public String getPlayer1Name() {
 		return player1Name;
@@ -145,6 +214,15 @@ public class GameHistory {
 		return remainingLives > 0 ? "Won together" : "Lost together";
 	}
 
+	/**
+	 * Checks whether the players won the game (see {@link #getWinner()}).
+	 *
+	 * @return true if the game was won
+	 */
+	public boolean isWon() {
+		return getWinner().startsWith("Won");
+	}
+
 	public LocalDateTime getTimestamp() {
 		return timestamp;
 	}
@@ -153,6 +231,26 @@ public class GameHistory {
 		return remainingLives;
 	}
 
+	/**
+	 * Gets the question dealing seed of the game. Not stored in the CSV format,
+	 * so records read from CSV return 0.
+	 *
+	 * @return The seed, or 0 if unknown
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the winner exactly as recorded (see {@link #getWinner()} for the
+	 * displayed result).
+	 *
+	 * @return Recorded winner text
+	 */
+	String getRecordedWinner() {
+		return winner;
+	}
+
 	@Override
 	public String toString() {
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
@@ -0,0 +1,445 @@
+package Model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import Patterns.Observer.CellsRevealed;
+import Patterns.Observer.GameEventBus;
+import Patterns.Observer.GameObserver;
+import Patterns.Observer.StatsChanged;
+
+/**
+ * Records a game event by event into a compact log, so it can be analysed or
+ * replayed later (see {@link GameReplay}).
+ *
+ * The log starts with the seeds of both boards, so a replay rebuilds the same
+ * layouts, followed by one record per event: tiles revealed, flags placed or
+ * removed, question and surprise activations, answers, surprise outcomes,
+ * score and lives changes, turn changes and the end of the game. Every number
+ * is written as a varint, so most events take two to four bytes. At the first
+ * turn change after every {@value #SNAPSHOT_INTERVAL} events a snapshot of the
+ * whole game is written too; a replay seeks by restoring the nearest snapshot
+ * and applying at most that many events.
+ *
+ * The recorder is an ordinary observer: it writes the game's events on its
+ * own thread and keeps its own copy of the state they add up to, which is
+ * what snapshots are written from. A whole cascade arrives as one event and is
+ * one record. Forks are never recorded.
+ *
+ * The log is created on the recorder's thread when the first event arrives,
+ * so starting a game does no disk I/O and a game left before its first move
+ * leaves no log. It is flushed at every turn change; a log cut short by a
+ * crash replays up to its last complete event. The replay directory keeps the
+ * newest {@value #MAX_LOGS} logs.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameRecorder implements GameObserver, Closeable {
+	// Record types. Events are numbered from 0 in log order; snapshots are not
+	// events.
+	static final int REVEAL = 1; // board, tile count, tiles
+	static final int FLAG = 2; // board, tile
+	static final int UNFLAG = 3; // board, tile
+	static final int ACTIVATE = 4; // board, tile, cost
+	static final int ANSWER = 5; // board, tile, correct, question id
+	static final int SURPRISE = 6; // board, tile, good, points, lives
+	static final int SCORE = 7; // player, change
+	static final int LIVES = 8; // change
+	static final int TURN = 9; // player
+	static final int GAME_OVER = 10; // won
+	static final int SNAPSHOT = 11; // event count, both boards, scores, lives, turn, end
+
+	static final int MAGIC = 0x4D524543; // "MREC"
+	static final int FORMAT_VERSION = 1;
+	static final String LOG_EXTENSION = ".moves";
+
+	/** Events between snapshots. */
+	public static final int SNAPSHOT_INTERVAL = 32;
+
+	/** Recorded games kept in the replay directory; older logs are deleted. */
+	public static final int MAX_LOGS = 100;
+
+	private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	private final GameState game;
+	private final Path file;
+	private OutputStream out; // opened with the first record
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+	private final int size;
+	private final long startTime;
+	private boolean pruneLogs; // keeps the replay directory to MAX_LOGS
+
+	// The game as recorded so far. Tiles per board, indexed by row * size + col
+	private final boolean[][] revealed;
+	private final boolean[][] flagged;
+	private final boolean[][] used; // activated question and surprise tiles
+	private final boolean[][] good; // good surprises
+	private int player1Score;
+	private int player2Score;
+	private int totalScore;
+	private int lives;
+	private int currentPlayer;
+	private boolean gameOver;
+	private boolean gameWon;
+
+	private int events;
+	private int lastSnapshot; // event count at the last snapshot
+	private boolean failed; // stops recording after a write error
+	private boolean closed;
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	/**
+	 * Starts recording a game into a new log in the replay directory (see
+	 * {@link HistoryManager#getReplayDirectory()}). Does no disk I/O: the log
+	 * is created on the recorder's thread.
+	 *
+	 * @param game The live game to record, before its first move
+	 * @return The recorder
+	 */
+	public static GameRecorder start(GameState game) {
+		Path directory = HistoryManager.getReplayDirectory();
+		String name = String.format("game-%s-%016x%s", LocalDateTime.now().format(FILE_TIME),
+				game.getQuestionSeed(), LOG_EXTENSION);
+		GameRecorder recorder = new GameRecorder(game, directory.resolve(name));
+		recorder.pruneLogs = true;
+		// Woken per event rather than polling, as moves are far apart
+		game.addObserver(recorder, GameEventBus.WaitStrategy.BLOCKING);
+		return recorder;
+	}
+
+	/**
+	 * Creates a recorder writing to a file. Nothing is written until the first
+	 * event. The recorder must still be added as an observer of the game;
+	 * {@link #start(GameState)} does that.
+	 *
+	 * @param game The live game to record
+	 * @param file The log file to create (replaced if it exists)
+	 */
+	public GameRecorder(GameState game, Path file) {
+		if (game.isFork()) {
+			throw new IllegalArgumentException("Forked games are not recorded");
+		}
+		this.game = game;
+		this.file = file;
+		this.size = game.getDifficulty().getBoardSize();
+		this.startTime = System.currentTimeMillis();
+		this.revealed = new boolean[2][size * size];
+		this.flagged = new boolean[2][size * size];
+		this.used = new boolean[2][size * size];
+		this.good = new boolean[2][size * size];
+
+		// Replays start from new boards, so the tiles start out blank
+		player1Score = game.getPlayer1().getScore();
+		player2Score = game.getPlayer2().getScore();
+		totalScore = game.getTotalScore();
+		lives = game.getSharedLives();
+		currentPlayer = game.getCurrentPlayerIndex() + 1;
+	}
+
+	/**
+	 * Creates the log and writes its header.
+	 *
+	 * @return false if the log could not be created
+	 */
+	private boolean open() {
+		if (out != null) {
+			return true;
+		}
+		if (failed) {
+			return false;
+		}
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			if (directory != null) {
+				Files.createDirectories(directory);
+			}
+			out = new BufferedOutputStream(Files.newOutputStream(file));
+			DataOutputStream header = new DataOutputStream(out);
+			header.writeInt(MAGIC);
+			header.writeByte(FORMAT_VERSION);
+			header.writeByte(game.getDifficulty().ordinal());
+			header.writeLong(game.getBoardSeed(1));
+			header.writeLong(game.getBoardSeed(2));
+			header.writeLong(game.getQuestionSeed());
+			header.writeLong(startTime);
+			header.writeUTF(game.getPlayer1().getName());
+			header.writeUTF(game.getPlayer2().getName());
+			return true;
+		} catch (IOException e) {
+			failed = true;
+			System.err.println("Error starting game recording, recording stopped: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Deletes the oldest logs in the replay directory beyond {@link #MAX_LOGS}.
+	 */
+	private static void pruneLogs() {
+		List<Path> logs = listLogs();
+		for (int i = MAX_LOGS; i < logs.size(); i++) {
+			try {
+				Files.deleteIfExists(logs.get(i));
+			} catch (IOException e) {
+				System.err.println("Error deleting old game recording: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Lists the recorded games in the replay directory, newest first.
+	 *
+	 * @return Log files; empty if there are none
+	 */
+	public static List<Path> listLogs() {
+		List<Path> logs = new ArrayList<>();
+		Path directory = HistoryManager.getReplayDirectory();
+		if (!Files.isDirectory(directory)) {
+			return logs;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LOG_EXTENSION)) {
+			for (Path log : files) {
+				logs.add(log);
+			}
+		} catch (IOException e) {
+			System.err.println("Error listing recorded games: " + e.getMessage());
+		}
+		// Names start with the start time, so name order is time order
+		logs.sort(Collections.reverseOrder());
+		return logs;
+	}
+
+	/**
+	 * Gets the log file.
+	 *
+	 * @return The file being written
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the number of events recorded so far.
+	 *
+	 * @return Event count
+	 */
+	public synchronized int getEventCount() {
+		return events;
+	}
+
+	// ========== GameObserver ==========
+
+	@Override
+	public synchronized void onCellsRevealed(CellsRevealed event) {
+		boolean[] wasRevealed = revealed[event.getBoardNum() - 1];
+		// A cascade is one event
+		begin(REVEAL).varint(event.getBoardNum()).varint(event.getCount());
+		for (int cell : event.getCells()) {
+			wasRevealed[cell] = true;
+			varint(cell);
+		}
+		end();
+	}
+
+	@Override
+	public synchronized void onFlagChanged(int boardNum, int row, int col, boolean isFlagged) {
+		int cell = row * size + col;
+		flagged[boardNum - 1][cell] = isFlagged;
+		begin(isFlagged ? FLAG : UNFLAG).varint(boardNum).varint(cell).end();
+	}
+
+	@Override
+	public synchronized void onTileActivated(int boardNum, int row, int col, int cost) {
+		begin(ACTIVATE).varint(boardNum).varint(row * size + col).varint(cost).end();
+	}
+
+	@Override
+	public synchronized void onQuestionAnswered(int boardNum, int row, int col, boolean correct, int questionId) {
+		int cell = row * size + col;
+		used[boardNum - 1][cell] = true;
+		begin(ANSWER).varint(boardNum).varint(cell).varint(correct ? 1 : 0).varint(questionId).end();
+	}
+
+	@Override
+	public synchronized void onSurpriseTriggered(int boardNum, int row, int col, boolean isGood, int points,
+			int livesEffect) {
+		int cell = row * size + col;
+		used[boardNum - 1][cell] = true;
+		good[boardNum - 1][cell] = isGood;
+		// Its points and lives are recorded with the rest of the action's
+		begin(SURPRISE).varint(boardNum).varint(cell).varint(isGood ? 1 : 0).signed(points).signed(livesEffect)
+				.end();
+	}
+
+	@Override
+	public synchronized void onStatsChanged(StatsChanged change) {
+		for (int player = 1; player <= 2; player++) {
+			if (change.getScoreChange(player) != 0) {
+				begin(SCORE).varint(player).signed(change.getScoreChange(player)).end();
+			}
+		}
+		if (change.getLivesChange() != 0) {
+			begin(LIVES).signed(change.getLivesChange()).end();
+		}
+		player1Score = change.getScore(1);
+		player2Score = change.getScore(2);
+		totalScore = change.getTotalScore();
+		lives = change.getLives();
+	}
+
+	@Override
+	public synchronized void onGameOver(boolean won, String message) {
+		gameOver = true;
+		gameWon = won;
+		begin(GAME_OVER).varint(won ? 1 : 0).end();
+	}
+
+	@Override
+	public synchronized void onTurnChanged(int playerNumber) {
+		currentPlayer = playerNumber;
+		begin(TURN).varint(playerNumber).end();
+		// Turn changes end a move, so the game is consistent here
+		if (events - lastSnapshot >= SNAPSHOT_INTERVAL) {
+			snapshot();
+		}
+		flush();
+	}
+
+	/**
+	 * Stops recording. Returns at once: the events the game has already sent
+	 * are still recorded on the recorder's thread, which then writes a final
+	 * snapshot and closes the log (see {@link #awaitClosed(long)}).
+	 */
+	@Override
+	public void close() {
+		game.removeObserver(this, this::finish);
+	}
+
+	/**
+	 * Waits until the log is closed after {@link #close()}.
+	 *
+	 * @param timeoutMillis Longest time to wait
+	 * @return true if the log was closed in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitClosed(long timeoutMillis) throws InterruptedException {
+		return finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Writes the final snapshot and closes the log, after the last event.
+	 */
+	private synchronized void finish() {
+		if (closed) {
+			return;
+		}
+		if (events > lastSnapshot) {
+			snapshot();
+		}
+		closed = true;
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				System.err.println("Error closing game recording: " + e.getMessage());
+			}
+			if (pruneLogs) {
+				pruneLogs();
+			}
+		}
+		finished.countDown();
+	}
+
+	/**
+	 * Writes the whole game state: revealed, flagged and used tiles of both
+	 * boards (one bit per tile each), scores, lives, turn and result.
+	 */
+	private void snapshot() {
+		begin(SNAPSHOT).varint(events);
+		for (int b = 0; b < 2; b++) {
+			writeBits(revealed[b]);
+			writeBits(flagged[b]);
+			writeBits(used[b]);
+			writeBits(good[b]);
+		}
+		signed(player1Score).signed(player2Score).signed(totalScore).varint(lives).varint(currentPlayer)
+				.varint((gameOver ? 1 : 0) | (gameWon ? 2 : 0));
+		write();
+		lastSnapshot = events;
+	}
+
+	private void writeBits(boolean[] tiles) {
+		byte[] bits = new byte[(tiles.length + 7) / 8];
+		for (int cell = 0; cell < tiles.length; cell++) {
+			if (tiles[cell]) {
+				bits[cell >> 3] |= 1 << (cell & 7);
+			}
+		}
+		record.write(bits, 0, bits.length);
+	}
+
+	// ========== Encoding ==========
+
+	private GameRecorder begin(int type) {
+		record.reset();
+		return varint(type);
+	}
+
+	private void end() {
+		write();
+		events++;
+	}
+
+	private GameRecorder varint(int value) {
+		// 7 bits per byte, low bits first; the high bit marks more bytes
+		while ((value & ~0x7F) != 0) {
+			record.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		record.write(value);
+		return this;
+	}
+
+	private GameRecorder signed(int value) {
+		// Zigzag, so small negative numbers stay short
+		return varint((value << 1) ^ (value >> 31));
+	}
+
+	private void write() {
+		if (closed || failed || !open()) {
+			return;
+		}
+		try {
+			record.writeTo(out);
+		} catch (IOException e) {
+			failed = true;
+			System.err.println("Error recording game, recording stopped: " + e.getMessage());
+		}
+	}
+
+	private void flush() {
+		if (closed || failed || out == null) {
+			return;
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			failed = true;
+			System.err.println("Error recording game, recording stopped: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,516 @@
+package Model;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Replays a game recorded by {@link GameRecorder}.
+ *
+ * The boards are rebuilt from the recorded seeds and the events are applied to
+ * them one by one, so a view can draw the replay with the same tile rendering
+ * as a live game. The position is the number of events applied: 0 is the
+ * start of the game and {@link #getEventCount()} the end.
+ *
+ * The log is indexed once when it is opened. {@link #seek(int)} then restores
+ * the nearest snapshot at or before the target and applies at most
+ * {@value GameRecorder#SNAPSHOT_INTERVAL} events (a few more when a move runs
+ * long), so any position can be reached quickly, backwards or forwards.
+ * {@link #replayAll()} jumps straight to the end.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameReplay {
+	private final byte[] data;
+	private final Difficulty difficulty;
+	private final long boardSeed1;
+	private final long boardSeed2;
+	private final long questionSeed;
+	private final long startMillis;
+	private final String player1Name;
+	private final String player2Name;
+
+	private final int[] eventOffsets; // where each event starts
+	private final int[] snapshotEvents; // event count of each snapshot, ascending
+	private final int[] snapshotOffsets; // where each snapshot's state starts
+
+	// Replayed state
+	private Board board1;
+	private Board board2;
+	private int position;
+	private int player1Score;
+	private int player2Score;
+	private int totalScore;
+	private int lives;
+	private int currentPlayer; // 1 or 2
+	private boolean gameOver;
+	private boolean gameWon;
+
+	private int cursor; // read position in data
+
+	/**
+	 * Opens a recorded game.
+	 *
+	 * @param file The log file
+	 * @return The replay at the start of the game, or null if the file is
+	 *         missing or not a game log
+	 */
+	public static GameReplay open(Path file) {
+		try {
+			return new GameReplay(Files.readAllBytes(file));
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Error opening recorded game " + file.getFileName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private GameReplay(byte[] data) throws IOException {
+		this.data = data;
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(data));
+		if (header.readInt() != GameRecorder.MAGIC) {
+			throw new IOException("not a recorded game");
+		}
+		int version = header.readUnsignedByte();
+		if (version != GameRecorder.FORMAT_VERSION) {
+			throw new IOException("unsupported format version " + version);
+		}
+		this.difficulty = Difficulty.values()[header.readUnsignedByte()];
+		this.boardSeed1 = header.readLong();
+		this.boardSeed2 = header.readLong();
+		this.questionSeed = header.readLong();
+		this.startMillis = header.readLong();
+		this.player1Name = header.readUTF();
+		this.player2Name = header.readUTF();
+		int headerLength = data.length - header.available();
+
+		// Index events and snapshots
+		int[] events = new int[64];
+		int eventCount = 0;
+		int[] snapEvents = new int[8];
+		int[] snapOffsets = new int[8];
+		int snapshotCount = 0;
+		cursor = headerLength;
+		while (cursor < data.length) {
+			int start = cursor;
+			try {
+				int type = readVarint();
+				if (type == GameRecorder.SNAPSHOT) {
+					int events0 = readVarint();
+					int stateStart = cursor;
+					skipSnapshotState();
+					if (snapshotCount == snapEvents.length) {
+						snapEvents = Arrays.copyOf(snapEvents, snapshotCount * 2);
+						snapOffsets = Arrays.copyOf(snapOffsets, snapshotCount * 2);
+					}
+					snapEvents[snapshotCount] = events0;
+					snapOffsets[snapshotCount++] = stateStart;
+				} else {
+					skipEvent(type);
+					if (eventCount == events.length) {
+						events = Arrays.copyOf(events, eventCount * 2);
+					}
+					events[eventCount++] = start;
+				}
+			} catch (IndexOutOfBoundsException e) {
+				break; // cut short while recording; replay what is complete
+			}
+		}
+		this.eventOffsets = Arrays.copyOf(events, eventCount);
+		this.snapshotEvents = Arrays.copyOf(snapEvents, snapshotCount);
+		this.snapshotOffsets = Arrays.copyOf(snapOffsets, snapshotCount);
+
+		reset();
+	}
+
+	// ========== Recorded game ==========
+
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+
+	public String getPlayer1Name() {
+		return player1Name;
+	}
+
+	public String getPlayer2Name() {
+		return player2Name;
+	}
+
+	public long getQuestionSeed() {
+		return questionSeed;
+	}
+
+	/**
+	 * Gets the seed a board was laid out from.
+	 *
+	 * @param boardNum The board number (1 or 2)
+	 * @return The seed
+	 */
+	public long getBoardSeed(int boardNum) {
+		return boardNum == 1 ? boardSeed1 : boardSeed2;
+	}
+
+	/**
+	 * Gets when the recording started.
+	 *
+	 * @return Start time, in the local time zone
+	 */
+	public LocalDateTime getStartTime() {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneId.systemDefault());
+	}
+
+	/**
+	 * Gets the number of recorded events.
+	 *
+	 * @return Event count
+	 */
+	public int getEventCount() {
+		return eventOffsets.length;
+	}
+
+	// ========== Replay ==========
+
+	/**
+	 * Gets the number of events applied so far.
+	 *
+	 * @return Position, from 0 to {@link #getEventCount()}
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Moves to a position, restoring the nearest snapshot first unless the
+	 * position is a short step forward.
+	 *
+	 * @param target Number of events to have applied; clamped to the game
+	 */
+	public void seek(int target) {
+		target = Math.max(0, Math.min(target, eventOffsets.length));
+		int snapshot = lastSnapshotAtOrBefore(target);
+		int snapshotEvent = snapshot < 0 ? 0 : snapshotEvents[snapshot];
+		if (target < position || snapshotEvent > position) {
+			if (snapshot < 0) {
+				reset();
+			} else {
+				restoreSnapshot(snapshot);
+			}
+		}
+		while (position < target) {
+			step();
+		}
+	}
+
+	/**
+	 * Applies the next event.
+	 *
+	 * @return false if the replay was already at the end
+	 */
+	public boolean step() {
+		if (position >= eventOffsets.length) {
+			return false;
+		}
+		cursor = eventOffsets[position];
+		applyEvent(readVarint());
+		position++;
+		return true;
+	}
+
+	/**
+	 * Replays the rest of the game at once.
+	 */
+	public void replayAll() {
+		seek(eventOffsets.length);
+	}
+
+	/**
+	 * Gets the type of an event, for describing it.
+	 *
+	 * @param index Event index
+	 * @return A short name, such as "REVEAL" or "TURN"
+	 */
+	public String getEventName(int index) {
+		cursor = eventOffsets[index];
+		switch (readVarint()) {
+		case GameRecorder.REVEAL:
+			return "REVEAL";
+		case GameRecorder.FLAG:
+			return "FLAG";
+		case GameRecorder.UNFLAG:
+			return "UNFLAG";
+		case GameRecorder.ACTIVATE:
+			return "ACTIVATE";
+		case GameRecorder.ANSWER:
+			return "ANSWER";
+		case GameRecorder.SURPRISE:
+			return "SURPRISE";
+		case GameRecorder.SCORE:
+			return "SCORE";
+		case GameRecorder.LIVES:
+			return "LIVES";
+		case GameRecorder.TURN:
+			return "TURN";
+		case GameRecorder.GAME_OVER:
+			return "GAME_OVER";
+		default:
+			return "UNKNOWN";
+		}
+	}
+
+	public Board getBoard1() {
+		return board1;
+	}
+
+	public Board getBoard2() {
+		return board2;
+	}
+
+	/**
+	 * Gets a player's score at the current position.
+	 *
+	 * @param playerNumber Player number (1 or 2)
+	 * @return The score
+	 */
+	public int getScore(int playerNumber) {
+		return playerNumber == 1 ? player1Score : player2Score;
+	}
+
+	public int getTotalScore() {
+		return totalScore;
+	}
+
+	public int getLives() {
+		return lives;
+	}
+
+	/**
+	 * Gets the player whose turn it is at the current position.
+	 *
+	 * @return Player number (1 or 2)
+	 */
+	public int getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	public boolean isGameWon() {
+		return gameWon;
+	}
+
+	// ========== Applying the log ==========
+
+	/**
+	 * Goes back to the start of the game.
+	 */
+	private void reset() {
+		board1 = new Board(difficulty, boardSeed1);
+		board2 = new Board(difficulty, boardSeed2);
+		position = 0;
+		player1Score = 0;
+		player2Score = 0;
+		totalScore = 0;
+		lives = difficulty.getInitialLives();
+		currentPlayer = 1;
+		gameOver = false;
+		gameWon = false;
+	}
+
+	private void restoreSnapshot(int snapshot) {
+		board1 = new Board(difficulty, boardSeed1);
+		board2 = new Board(difficulty, boardSeed2);
+		cursor = snapshotOffsets[snapshot];
+		readBoardState(board1);
+		readBoardState(board2);
+		player1Score = readSigned();
+		player2Score = readSigned();
+		totalScore = readSigned();
+		lives = readVarint();
+		currentPlayer = readVarint();
+		int end = readVarint();
+		gameOver = (end & 1) != 0;
+		gameWon = (end & 2) != 0;
+		position = snapshotEvents[snapshot];
+	}
+
+	private int lastSnapshotAtOrBefore(int event) {
+		int found = Arrays.binarySearch(snapshotEvents, event);
+		if (found >= 0) {
+			// Several snapshots can share an event count; use the last
+			while (found + 1 < snapshotEvents.length && snapshotEvents[found + 1] == event) {
+				found++;
+			}
+			return found;
+		}
+		return -found - 2; // insertion point - 1
+	}
+
+	private void readBoardState(Board board) {
+		int tiles = board.getSize() * board.getSize();
+		int bytes = (tiles + 7) / 8;
+		int revealedAt = cursor;
+		int flaggedAt = revealedAt + bytes;
+		int usedAt = flaggedAt + bytes;
+		int goodAt = usedAt + bytes;
+		for (int cell = 0; cell < tiles; cell++) {
+			Tile tile = tile(board, cell);
+			int bit = 1 << (cell & 7);
+			int i = cell >> 3;
+			tile.setRevealed((data[revealedAt + i] & bit) != 0);
+			tile.setFlagged((data[flaggedAt + i] & bit) != 0);
+			if ((data[usedAt + i] & bit) != 0) {
+				markUsed(tile, (data[goodAt + i] & bit) != 0, 0, 0);
+			}
+		}
+		cursor = goodAt + bytes;
+	}
+
+	private void applyEvent(int type) {
+		switch (type) {
+		case GameRecorder.REVEAL: {
+			Board board = board(readVarint());
+			int count = readVarint();
+			for (int i = 0; i < count; i++) {
+				tile(board, readVarint()).setRevealed(true);
+			}
+			break;
+		}
+		case GameRecorder.FLAG:
+			tile(board(readVarint()), readVarint()).setFlagged(true);
+			break;
+		case GameRecorder.UNFLAG:
+			tile(board(readVarint()), readVarint()).setFlagged(false);
+			break;
+		case GameRecorder.ACTIVATE:
+			// The cost is recorded as a score change
+			break;
+		case GameRecorder.ANSWER: {
+			Tile tile = tile(board(readVarint()), readVarint());
+			if (tile.isQuestion()) {
+				((QuestionTile) tile).activate();
+			}
+			break;
+		}
+		case GameRecorder.SURPRISE: {
+			Tile tile = tile(board(readVarint()), readVarint());
+			boolean good = readVarint() != 0;
+			markUsed(tile, good, readSigned(), readSigned());
+			break;
+		}
+		case GameRecorder.SCORE: {
+			int player = readVarint();
+			int change = readSigned();
+			if (player == 1) {
+				player1Score += change;
+			} else {
+				player2Score += change;
+			}
+			totalScore += change;
+			break;
+		}
+		case GameRecorder.LIVES:
+			lives += readSigned();
+			break;
+		case GameRecorder.TURN:
+			currentPlayer = readVarint();
+			break;
+		case GameRecorder.GAME_OVER:
+			gameOver = true;
+			gameWon = readVarint() != 0;
+			break;
+		default:
+			throw new IllegalStateException("Unknown event type " + type);
+		}
+	}
+
+	/**
+	 * Marks a question tile answered, or gives a surprise tile a stand-in
+	 * surprise with the recorded outcome.
+	 */
+	private static void markUsed(Tile tile, boolean good, int points, int livesEffect) {
+		if (tile.isQuestion()) {
+			((QuestionTile) tile).activate();
+		} else if (tile.isSurprise()) {
+			((SurpriseTile) tile).setSurprise(new Surprise(0, good ? "Good surprise" : "Bad surprise", points,
+					livesEffect, good));
+		}
+	}
+
+	/**
+	 * Moves the cursor past an event's operands.
+	 */
+	private void skipEvent(int type) {
+		int operands;
+		switch (type) {
+		case GameRecorder.REVEAL:
+			readVarint();
+			operands = readVarint();
+			break;
+		case GameRecorder.FLAG:
+		case GameRecorder.UNFLAG:
+		case GameRecorder.SCORE:
+			operands = 2;
+			break;
+		case GameRecorder.ACTIVATE:
+			operands = 3;
+			break;
+		case GameRecorder.ANSWER:
+			operands = 4;
+			break;
+		case GameRecorder.SURPRISE:
+			operands = 5;
+			break;
+		case GameRecorder.LIVES:
+		case GameRecorder.TURN:
+		case GameRecorder.GAME_OVER:
+			operands = 1;
+			break;
+		default:
+			throw new IndexOutOfBoundsException("Unknown event type " + type); // treated as the end of the log
+		}
+		for (int i = 0; i < operands; i++) {
+			readVarint();
+		}
+	}
+
+	private void skipSnapshotState() {
+		int tiles = difficulty.getBoardSize() * difficulty.getBoardSize();
+		cursor += 2 * 4 * ((tiles + 7) / 8); // two boards, four bit sets each
+		for (int i = 0; i < 6; i++) {
+			readVarint();
+		}
+	}
+
+	private Board board(int boardNum) {
+		return boardNum == 1 ? board1 : board2;
+	}
+
+	private static Tile tile(Board board, int cell) {
+		return board.getTile(cell / board.getSize(), cell % board.getSize());
+	}
+
+	private int readVarint() {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = data[cursor++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	private int readSigned() {
+		int zigzag = readVarint();
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
@@ -3,7 +3,11 @@ package Model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import Patterns.Observer.CellsRevealed;
+import Patterns.Observer.GameEventBus;
 import Patterns.Observer.GameObserver;
+import Patterns.Observer.StatsChanged;
 
 /**
  * Manages the overall state of the MineSweeper game. Tracks players, turns,
@@ -14,6 +18,20 @@ import Patterns.Observer.GameObserver;
  * QuestionTile scoring mechanics.
  *
  * Updated in Iteration 3 with Observer pattern support for game events.
+ * Observers are called on their own threads through a {@link GameEventBus},
+ * so the game never waits for them. Each public action reports the tiles it
+ * changed as they change, and its score and lives changes together when it
+ * ends (see {@link GameObserver#onStatsChanged}).
+ *
+ * A game state can be forked into an observer-free copy for lookahead (see
+ * {@link #fork()}).
+ *
+ * Questions are bound to question tiles lazily, the first time a tile's
+ * question is needed (see {@link #bindQuestion(QuestionTile)}), from a seeded
+ * per-game dealing stream. Tiles nobody opens never use up a question.
+ *
+ * Boards are laid out from seeds, so a live game can be recorded with a
+ * {@link GameRecorder} (an observer) and replayed later.
  *
  * @author Team Rhino
  * @version 3.0 - Iteration 3
@@ -23,8 +41,13 @@ public class GameState {
 	private final Player player2;
 	private final Board board1;
 	private final Board board2;
+	private final long boardSeed1;
+	private final long boardSeed2;
 	private final Difficulty difficulty;
 	private QuestionBank questionBank;
+	private QuestionDealer questionDealer; // this game's no-repeat dealing
+	private long questionSeed; // seed of the dealing stream
+	private final Object dealerLock; // shared by a game and its forks, which may deal on a bot thread
 	private SurpriseManager surpriseManager;
 
 	private int currentPlayerIndex; // 0 for player1, 1 for player2
@@ -38,8 +61,8 @@ public class GameState {
 	private List<QuestionTile> player1PendingQuestions;
 	private List<QuestionTile> player2PendingQuestions;
 
-	// Observer pattern - list of observers
-	private List<GameObserver> observers;
+	// Observer pattern - delivers events to observers; null on forks
+	private GameEventBus events;
 
 	// Random instance for 50/50 logic in question answers
 	private Random random;
@@ -47,6 +70,16 @@ public class GameState {
 	// Maximum lives cap
 	private static final int MAX_LIVES = 10;
 
+	// true for simulation copies created by fork()
+	private final boolean forked;
+
+	// The action in progress: how deeply actions are nested, and its score and
+	// lives changes so far, sent as one event when the outermost action ends
+	private int actionDepth;
+	private int player1ScoreChange;
+	private int player2ScoreChange;
+	private int livesChange;
+
 	/**
 	 * Creates a new game state with the specified players and difficulty.
 	 *
@@ -58,8 +91,13 @@ public class GameState {
 		this.difficulty = difficulty;
 		this.player1 = new Player(player1Name, 1);
 		this.player2 = new Player(player2Name, 2);
-		this.board1 = new Board(difficulty);
-		this.board2 = new Board(difficulty);
+		Random seeds = new Random();
+		this.boardSeed1 = seeds.nextLong();
+		this.boardSeed2 = seeds.nextLong();
+		this.board1 = new Board(difficulty, boardSeed1);
+		this.board2 = new Board(difficulty, boardSeed2);
+		board1.setRevealLogging(true);
+		board2.setRevealLogging(true);
 		this.currentPlayerIndex = 0;
 		this.sharedLives = difficulty.getInitialLives();
 		this.totalScore = 0;
@@ -69,40 +107,140 @@ public class GameState {
 		this.player1PendingQuestions = new ArrayList<>();
 		this.player2PendingQuestions = new ArrayList<>();
 		this.questionBank = QuestionBank.getInstance();
+		this.questionSeed = new Random().nextLong();
+		this.questionDealer = questionBank.newDealer(questionSeed);
+		this.dealerLock = new Object();
 		this.surpriseManager = new SurpriseManager();
 
-		this.observers = new ArrayList<>();
+		this.events = new GameEventBus();
 		this.random = new Random();
+		this.forked = false;
+	}
 
-		// Assign questions to question tiles
-		assignQuestionsToTiles();
+	/**
+	 * Creates a fork of the given game state. Boards are forked copy-on-write,
+	 * players are copied, and observers are not carried over.
+	 *
+	 * @param source The game state to fork
+	 */
+	private GameState(GameState source) {
+		this.difficulty = source.difficulty;
+		this.player1 = source.player1.copy();
+		this.player2 = source.player2.copy();
+		this.board1 = source.board1.fork();
+		this.board2 = source.board2.fork();
+		this.boardSeed1 = source.boardSeed1;
+		this.boardSeed2 = source.boardSeed2;
+		this.currentPlayerIndex = source.currentPlayerIndex;
+		this.sharedLives = source.sharedLives;
+		this.totalScore = source.totalScore;
+		this.gameOver = source.gameOver;
+		this.gameWon = source.gameWon;
+		this.gameEndMessage = source.gameEndMessage;
+		this.player1PendingQuestions = forkPendingQuestions(source.player1PendingQuestions, board1);
+		this.player2PendingQuestions = forkPendingQuestions(source.player2PendingQuestions, board2);
+		this.questionBank = source.questionBank;
+		// Shared read-only (see bindQuestion)
+		this.questionDealer = source.questionDealer;
+		this.questionSeed = source.questionSeed;
+		this.dealerLock = source.dealerLock;
+		this.surpriseManager = source.surpriseManager;
+
+		this.events = null;
+		// Seeded apart from the source, so forking never moves its random stream
+		this.random = new Random(ThreadLocalRandom.current().nextLong());
+		this.forked = true;
 	}
 
 	/**
-	 * Assigns random questions to all QuestionTiles on both boards.
+	 * Creates a lightweight, observer-free copy of this game for simulation, such
+	 * as a bot trying out "what if I reveal here". The fork shares unchanged board
+	 * rows with this state (see {@link Board#fork()}), so forking a fork costs
+	 * O(board size) rather than a full rebuild. Moves applied to the fork never
+	 * affect this game, and no observers are notified.
+	 * <p>
+	 * Tiles passed to the fork's methods are resolved by position on the fork's
+	 * current board, so tiles read from the fork can be used directly.
+	 *
+	 * @return A new forked GameState
 	 */
-	private void assignQuestionsToTiles() {
-		assignQuestionsToBoard(board1);
-		assignQuestionsToBoard(board2);
+	public GameState fork() {
+		return new GameState(this);
 	}
 
 	/**
-	 * Assigns questions to all QuestionTiles on a specific board.
+	 * Checks if this state is a simulation copy created by {@link #fork()}.
 	 *
-	 * @param board The board to assign questions to
+	 * @return true if this is a fork
 	 */
-	private void assignQuestionsToBoard(Board board) {
-		int size = board.getSize();
-		for (int row = 0; row < size; row++) {
-			for (int col = 0; col < size; col++) {
-				Tile tile = board.getTile(row, col);
-				if (tile.isQuestion()) {
-					QuestionTile qTile = (QuestionTile) tile;
-					Question question = questionBank.getRandomQuestionMixed(difficulty);
-					qTile.setQuestion(question);
-				}
-			}
+	public boolean isFork() {
+		return forked;
+	}
+
+	/**
+	 * Re-resolves pending question tiles against a forked board.
+	 */
+	private static List<QuestionTile> forkPendingQuestions(List<QuestionTile> source, Board board) {
+		List<QuestionTile> pending = new ArrayList<>(source.size());
+		for (QuestionTile tile : source) {
+			pending.add((QuestionTile) board.getTile(tile.getRow(), tile.getCol()));
+		}
+		return pending;
+	}
+
+	/**
+	 * Resolves a tile that is about to be modified. Live games use the tile as
+	 * given; forks look it up on the current board so a row shared with another
+	 * fork is copied before it changes.
+	 */
+	private Tile ownTile(Tile tile) {
+		if (!forked) {
+			return tile;
+		}
+		return getCurrentBoard().getTileForUpdate(tile.getRow(), tile.getCol());
+	}
+
+	/**
+	 * Gets the question of a question tile, dealing one from this game's stream
+	 * the first time the tile's question is needed. A fork only peeks at the
+	 * shared dealer (see {@link QuestionDealer#peek}), so simulated questions
+	 * never use up the live game's pool, and sets the question on its own copy
+	 * of the tile.
+	 *
+	 * @param tile The question tile
+	 * @return The tile's question, or null if the bank has no questions
+	 */
+	public Question bindQuestion(QuestionTile tile) {
+		if (tile.hasQuestion()) {
+			return tile.getQuestion();
 		}
+		QuestionTile own = (QuestionTile) ownTile(tile);
+		// Locked because forks running on a bot thread may read the dealer
+		// while the live game deals
+		synchronized (dealerLock) {
+			own.setQuestion(forked ? questionDealer.peek(difficulty, random) : questionDealer.deal(difficulty));
+		}
+		return own.getQuestion();
+	}
+
+	/**
+	 * Gets the seed of this game's question dealing stream.
+	 *
+	 * @return The seed
+	 */
+	public long getQuestionSeed() {
+		return questionSeed;
+	}
+
+	/**
+	 * Gets the seed a board was laid out from (see
+	 * {@link Board#Board(Difficulty, long)}).
+	 *
+	 * @param boardNum The board number (1 or 2)
+	 * @return The seed
+	 */
+	public long getBoardSeed(int boardNum) {
+		return boardNum == 1 ? boardSeed1 : boardSeed2;
 	}
 
 	/**
@@ -137,16 +275,21 @@ public class GameState {
 	 * @param amount Number of lives to lose
 	 */
 	public void loseLives(int amount) {
+		beginAction();
 		int oldLives = sharedLives;
 		sharedLives -= amount;
-		if (sharedLives <= 0) {
+		boolean noLivesLeft = sharedLives <= 0;
+		if (noLivesLeft) {
 			sharedLives = 0;
+		}
+		livesChanged(sharedLives - oldLives);
+		if (noLivesLeft) {
 			gameOver = true;
 			gameWon = false;
 			gameEndMessage = "Game Over! No lives remaining.";
 			notifyGameOver(false, gameEndMessage);
 		}
-		notifyLivesChanged(sharedLives, sharedLives - oldLives);
+		endAction();
 	}
 
 	/**
@@ -160,6 +303,7 @@ public class GameState {
 			loseLives(-amount);
 			return;
 		}
+		beginAction();
 		int oldLives = sharedLives;
 		int newLives = sharedLives + amount;
 		if (newLives > MAX_LIVES) {
@@ -170,7 +314,8 @@ public class GameState {
 		} else {
 			sharedLives = newLives;
 		}
-		notifyLivesChanged(sharedLives, sharedLives - oldLives);
+		livesChanged(sharedLives - oldLives);
+		endAction();
 	}
 
 	/**
@@ -186,20 +331,110 @@ public class GameState {
 		totalScore = totalScore + points;
 
 		// Also add to current player's individual score for tracking
-		Player currentPlayer = getCurrentPlayer();
-		int oldScore = currentPlayer.getScore();
-		currentPlayer.addScore(points);
-		notifyScoreChanged(currentPlayerIndex + 1, currentPlayer.getScore(), points);
+		getCurrentPlayer().addScore(points);
+		scoreChanged(currentPlayerIndex + 1, points);
 	}
 
 	/**
 	 * Handles the result of revealing a mine. Reduces lives and switches turn.
 	 */
 	public void handleMineHit() {
+		beginAction();
 		loseLives(1);
 		if (!gameOver) {
 			switchTurn();
 		}
+		endAction();
+	}
+
+	/**
+	 * Charges the current player the activation cost of a question or surprise
+	 * tile.
+	 *
+	 * @param tile The tile being activated
+	 */
+	public void payActivation(Tile tile) {
+		beginAction();
+		int cost = getActivationCost();
+		if (events != null) {
+			publishReveals();
+			events.publishTileActivated(currentPlayerIndex + 1, tile.getRow(), tile.getCol(), cost);
+		}
+		addScore(-cost);
+		endAction();
+	}
+
+	/**
+	 * Activates a question or surprise tile on the current board: charges its
+	 * cost, reveals it if a cascade has not already, and applies it (see
+	 * {@link #handleSafeReveal(Tile)}).
+	 *
+	 * @param tile The question or surprise tile
+	 * @return Description of what happened
+	 */
+	public String activateTile(Tile tile) {
+		beginAction();
+		try {
+			payActivation(tile);
+			if (!tile.isRevealed()) {
+				getCurrentBoard().revealTile(tile.getRow(), tile.getCol());
+			}
+			return handleSafeReveal(tile);
+		} finally {
+			endAction();
+		}
+	}
+
+	/**
+	 * Special rule: flagging a hidden mine on the current board reveals it and
+	 * gives the player a point.
+	 *
+	 * @param tile The mine
+	 */
+	public void flagMine(Tile tile) {
+		beginAction();
+		getCurrentBoard().revealTile(tile.getRow(), tile.getCol());
+		addScore(1);
+		endAction();
+	}
+
+	/**
+	 * Places or removes a flag on a tile of the current board and applies the
+	 * flagging rules (see {@link #handleFlag(Tile)}).
+	 *
+	 * @param tile The tile
+	 * @return true if a flag was placed on a mine
+	 */
+	public boolean toggleFlag(Tile tile) {
+		beginAction();
+		try {
+			tile = ownTile(tile);
+			tile.toggleFlag();
+			if (events != null) {
+				publishReveals();
+				events.publishFlagChanged(currentPlayerIndex + 1, tile.getRow(), tile.getCol(), tile.isFlagged());
+			}
+			return handleFlag(tile);
+		} finally {
+			endAction();
+		}
+	}
+
+	/**
+	 * Charges the current player for a hint and tells observers which tile it
+	 * points to.
+	 *
+	 * @param hint The hint
+	 * @param cost Points the hint costs
+	 */
+	public void useHint(Hint hint, int cost) {
+		beginAction();
+		addScore(-cost);
+		if (events != null) {
+			publishReveals();
+			events.publishHintShown(currentPlayerIndex + 1, hint.getRow(), hint.getCol(), hint.isMine());
+		}
+		endAction();
 	}
 
 	public int getActivationCost() {
@@ -230,6 +465,15 @@ public class GameState {
 	 * @return Description of what happened
 	 */
 	public String handleSafeReveal(Tile tile, int revealedCount) {
+		beginAction();
+		try {
+			return applySafeReveal(ownTile(tile), revealedCount);
+		} finally {
+			endAction();
+		}
+	}
+
+	private String applySafeReveal(Tile tile, int revealedCount) {
 		String result = "";
 		int scoreChange = revealedCount; // Points equal to number of tiles revealed
 		int livesChange = 0;
@@ -263,6 +507,11 @@ public class GameState {
 						template.isGood());
 
 				surpriseTile.setSurprise(dynamicSurprise);
+				if (events != null) {
+					publishReveals();
+					events.publishSurpriseTriggered(currentPlayerIndex + 1, tile.getRow(), tile.getCol(),
+							dynamicSurprise.isGood(), finalPoints, finalLives);
+				}
 			}
 
 			Surprise surprise = surpriseTile.getSurprise();
@@ -311,17 +560,15 @@ public class GameState {
 	 */
 	public boolean handleFlag(Tile tile) {
 		if (tile.isFlagged()) {
+			beginAction();
 			// ✅ Spec:
 			// - Flagging a mine: -1 point
 			// - Flagging any non-mine (number/empty/question/surprise): -3 points
-			if (tile.isMine()) {
-				addScore(-1);
-				checkWinCondition();
-				return true;
-			}
-			addScore(-3);
+			boolean mine = tile.isMine();
+			addScore(mine ? -1 : -3);
 			checkWinCondition();
-			return false;
+			endAction();
+			return mine;
 		}
 		return false;
 	}
@@ -336,15 +583,26 @@ public class GameState {
 	 * @return Result message
 	 */
 	public String handleQuestionAnswer(QuestionTile tile, boolean correct) {
+		tile = (QuestionTile) ownTile(tile);
 		if (tile.isActivated()) {
 			return "This question has already been answered!";
 		}
 
+		Question question = bindQuestion(tile);
+		if (question == null) {
+			return "No question available!";
+		}
+
+		beginAction();
 		tile.activate();
 
 		// Get question difficulty level
-		Question question = tile.getQuestion();
 		String questionLevel = question.getLevel().toUpperCase(); // "EASY", "MEDIUM", "HARD", "EXPERT"
+		if (events != null) {
+			publishReveals();
+			events.publishQuestionAnswered(currentPlayerIndex + 1, tile.getRow(), tile.getCol(), correct,
+					question.getId());
+		}
 
 		String result;
 		if (correct) {
@@ -354,6 +612,7 @@ public class GameState {
 		}
 
 		checkWinCondition();
+		endAction();
 		return result;
 	}
 
@@ -667,7 +926,15 @@ public class GameState {
 		if (gameOver) {
 			return "Game is over!";
 		}
+		beginAction();
+		try {
+			return applyReveal(row, col);
+		} finally {
+			endAction();
+		}
+	}
 
+	private String applyReveal(int row, int col) {
 		Board currentBoard = getCurrentBoard();
 		int initialRevealed = currentBoard.getRevealedCount();
 		Tile tile = currentBoard.revealTile(row, col);
@@ -686,7 +953,7 @@ public class GameState {
 			}
 			return getCurrentPlayer().getName() + " hit a mine! Lost 1 life. Lives remaining: " + sharedLives;
 		} else {
-			return handleSafeReveal(tile, revealedCount);
+			return applySafeReveal(tile, revealedCount);
 		}
 	}
 
@@ -761,6 +1028,7 @@ public class GameState {
 	 * Adds a question tile to the specified player's pending questions list.
 	 */
 	public void addPendingQuestion(QuestionTile questionTile, int playerNumber) {
+		questionTile = (QuestionTile) ownTile(questionTile);
 		questionTile.markAsPending();
 
 		if (playerNumber == 1) {
@@ -785,13 +1053,14 @@ public class GameState {
 	 * Removes a question tile from the specified player's pending list.
 	 */
 	public void removePendingQuestion(QuestionTile questionTile, int playerNumber) {
+		questionTile = (QuestionTile) ownTile(questionTile);
 		questionTile.clearPending();
 
-		if (playerNumber == 1) {
-			player1PendingQuestions.remove(questionTile);
-		} else {
-			player2PendingQuestions.remove(questionTile);
-		}
+		// Match by position: on forks the list may hold a pre-copy tile instance
+		int row = questionTile.getRow();
+		int col = questionTile.getCol();
+		List<QuestionTile> pending = playerNumber == 1 ? player1PendingQuestions : player2PendingQuestions;
+		pending.removeIf(t -> t.getRow() == row && t.getCol() == col);
 	}
 
 	/**
@@ -803,37 +1072,143 @@ public class GameState {
 
 	// ========== Observer Pattern Methods ==========
 
+	/**
+	 * Adds an observer. It is called on its own thread, which sleeps until an
+	 * event arrives, so an idle observer costs no CPU; forks ignore observers.
+	 *
+	 * @param observer The observer
+	 */
 	public void addObserver(GameObserver observer) {
-		if (observer != null && !observers.contains(observer)) {
-			observers.add(observer);
+		addObserver(observer, GameEventBus.WaitStrategy.BLOCKING);
+	}
+
+	/**
+	 * Adds an observer whose thread waits for events in a given way.
+	 *
+	 * @param observer     The observer
+	 * @param waitStrategy How the observer's thread waits for events
+	 */
+	public void addObserver(GameObserver observer, GameEventBus.WaitStrategy waitStrategy) {
+		if (events != null) {
+			events.subscribe(observer, waitStrategy);
 		}
 	}
 
+	/**
+	 * Removes an observer. It is still sent the events so far, on its own
+	 * thread; this call does not wait for that.
+	 *
+	 * @param observer The observer
+	 */
 	public void removeObserver(GameObserver observer) {
-		observers.remove(observer);
+		removeObserver(observer, null);
 	}
 
-	private void notifyScoreChanged(int playerNumber, int newScore, int change) {
-		for (GameObserver observer : observers) {
-			observer.onScoreChanged(playerNumber, newScore, change);
+	/**
+	 * Removes an observer and runs an action once it has been sent the events
+	 * so far. The action runs on the observer's thread, or right away if the
+	 * observer was not added; this call does not wait for it.
+	 *
+	 * @param observer The observer
+	 * @param whenDone Action to run after the observer's last event, or null
+	 */
+	public void removeObserver(GameObserver observer, Runnable whenDone) {
+		if (events != null) {
+			events.unsubscribe(observer, whenDone);
+		} else if (whenDone != null) {
+			whenDone.run();
 		}
 	}
 
-	private void notifyLivesChanged(int newLives, int change) {
-		for (GameObserver observer : observers) {
-			observer.onLivesChanged(newLives, change);
+	/**
+	 * Stops delivering events to observers once the events already published
+	 * have been delivered. Called when the game is finished with.
+	 */
+	public void closeObservers() {
+		if (events != null) {
+			events.close();
 		}
 	}
 
+	/**
+	 * Starts an action. Actions nest; the score and lives changes of all of
+	 * them are reported when the outermost one ends.
+	 */
+	private void beginAction() {
+		actionDepth++;
+	}
+
+	private void endAction() {
+		if (--actionDepth == 0) {
+			publishPending();
+		}
+	}
+
+	private void scoreChanged(int playerNumber, int change) {
+		if (events == null) {
+			return; // forks report nothing
+		}
+		if (playerNumber == 1) {
+			player1ScoreChange += change;
+		} else {
+			player2ScoreChange += change;
+		}
+		if (actionDepth == 0) {
+			publishPending(); // called on its own, it is an action by itself
+		}
+	}
+
+	private void livesChanged(int change) {
+		if (events != null) {
+			livesChange += change;
+		}
+	}
+
+	/**
+	 * Publishes the tiles revealed since the last call, one event per board.
+	 */
+	private void publishReveals() {
+		publishReveals(1, board1);
+		publishReveals(2, board2);
+	}
+
+	private void publishReveals(int boardNum, Board board) {
+		int[] cells = board.takeRevealed();
+		if (cells != null && events != null) {
+			events.publishCellsRevealed(new CellsRevealed(boardNum, board.getSize(), cells));
+		}
+	}
+
+	/**
+	 * Publishes the reveals and the score and lives changes not yet reported.
+	 */
+	private void publishPending() {
+		publishReveals();
+		if (player1ScoreChange == 0 && player2ScoreChange == 0 && livesChange == 0) {
+			return;
+		}
+		if (events != null) {
+			events.publishStatsChanged(new StatsChanged(player1.getScore(), player2.getScore(), totalScore,
+					sharedLives, player1ScoreChange, player2ScoreChange, livesChange));
+		}
+		player1ScoreChange = 0;
+		player2ScoreChange = 0;
+		livesChange = 0;
+	}
+
+	// Turn changes and game over end what came before them in an action
+
 	private void notifyGameOver(boolean won, String message) {
-		for (GameObserver observer : observers) {
-			observer.onGameOver(won, message);
+		publishPending();
+		if (events != null) {
+			events.publishGameOver(won, message);
 		}
 	}
 
 	private void notifyTurnChanged(int playerNumber) {
-		for (GameObserver observer : observers) {
-			observer.onTurnChanged(playerNumber);
+		publishPending();
+		if (events != null) {
+			events.publishTurnChanged(playerNumber);
 		}
 	}
 
@@ -862,11 +1237,23 @@ public class GameState {
 	}
 
 	public List<GameObserver> getObservers() {
-		return observers;
+		return events == null ? new ArrayList<>(0) : events.getObservers();
 	}
 
+	/**
+	 * Replaces all observers.
+	 *
+	 * @param observers The new observers
+	 */
 	public void setObservers(List<GameObserver> observers) {
-		this.observers = observers;
+		if (events == null) {
+			return;
+		}
+		events.close();
+		events = new GameEventBus();
+		for (GameObserver observer : observers) {
+			events.subscribe(observer);
+		}
 	}
 
 	public Random getRandom() {
@@ -883,6 +1270,7 @@ public class GameState {
 
 	public void setQuestionBank(QuestionBank questionBank) {
 		this.questionBank = questionBank;
+		this.questionDealer = questionBank.newDealer(questionSeed);
 	}
 
 	public void setCurrentPlayerIndex(int currentPlayerIndex) {
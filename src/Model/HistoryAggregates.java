@@ -0,0 +1,302 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Running statistics over the game history: game count, score sums, averages
+ * and best scores overall and per difficulty, wins and losses, and the number
+ * of distinct players (not counting the AI bot).
+ *
+ * The aggregates are updated as each game is saved and kept in a small file
+ * beside the history (see {@link HistoryManager#getAggregates()}), so the
+ * history screen shows its statistics without scanning the games. The file
+ * records the size of the history file it matches; if the history was changed
+ * some other way, the aggregates are rebuilt from the games once.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryAggregates {
+	private static final String AI_PLAYER = "AI Bot";
+	private static final int FORMAT_VERSION = 1;
+	private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+	private int games;
+	private long scoreSum;
+	private int bestScore;
+	private int wins;
+	private int losses;
+	private final int[] gamesByDifficulty;
+	private final long[] scoreSumByDifficulty;
+	private final int[] bestScoreByDifficulty;
+	private final Set<String> players;
+	private long sourceSize; // size of the history storage these aggregates match
+	private long sourceModified; // and its modification time
+
+	/**
+	 * Creates empty aggregates.
+	 */
+	public HistoryAggregates() {
+		this.gamesByDifficulty = new int[DIFFICULTIES.length];
+		this.scoreSumByDifficulty = new long[DIFFICULTIES.length];
+		this.bestScoreByDifficulty = new int[DIFFICULTIES.length];
+		this.players = new HashSet<>();
+	}
+
+	/**
+	 * Computes the aggregates of a list of games.
+	 *
+	 * @param history The games
+	 * @return New aggregates
+	 */
+	public static HistoryAggregates of(List<GameHistory> history) {
+		HistoryAggregates aggregates = new HistoryAggregates();
+		for (GameHistory game : history) {
+			aggregates.add(game);
+		}
+		return aggregates;
+	}
+
+	/**
+	 * Adds one game.
+	 *
+	 * @param game The game to add
+	 */
+	public synchronized void add(GameHistory game) {
+		int score = game.getTotalScore();
+		bestScore = games == 0 ? score : Math.max(bestScore, score);
+		games++;
+		scoreSum += score;
+
+		Difficulty difficulty = game.getDifficulty();
+		if (difficulty != null) {
+			int d = difficulty.ordinal();
+			bestScoreByDifficulty[d] = gamesByDifficulty[d] == 0 ? score : Math.max(bestScoreByDifficulty[d], score);
+			gamesByDifficulty[d]++;
+			scoreSumByDifficulty[d] += score;
+		}
+
+		if (game.isWon()) {
+			wins++;
+		} else {
+			losses++;
+		}
+
+		addPlayer(game.getPlayer1Name());
+		addPlayer(game.getPlayer2Name());
+	}
+
+	private void addPlayer(String name) {
+		if (name != null && !name.trim().equalsIgnoreCase(AI_PLAYER)) {
+			players.add(name);
+		}
+	}
+
+	/**
+	 * Gets the number of games.
+	 *
+	 * @return Game count
+	 */
+	public synchronized int getGameCount() {
+		return games;
+	}
+
+	/**
+	 * Gets the number of games of a difficulty.
+	 *
+	 * @param difficulty The difficulty
+	 * @return Game count
+	 */
+	public synchronized int getGameCount(Difficulty difficulty) {
+		return gamesByDifficulty[difficulty.ordinal()];
+	}
+
+	/**
+	 * Gets the sum of all total scores.
+	 *
+	 * @return Score sum
+	 */
+	public synchronized long getScoreSum() {
+		return scoreSum;
+	}
+
+	/**
+	 * Gets the average total score.
+	 *
+	 * @return Average score, or 0 if there are no games
+	 */
+	public synchronized double getAverageScore() {
+		return games == 0 ? 0 : (double) scoreSum / games;
+	}
+
+	/**
+	 * Gets the average total score of a difficulty.
+	 *
+	 * @param difficulty The difficulty
+	 * @return Average score, or 0 if there are no games of that difficulty
+	 */
+	public synchronized double getAverageScore(Difficulty difficulty) {
+		int d = difficulty.ordinal();
+		return gamesByDifficulty[d] == 0 ? 0 : (double) scoreSumByDifficulty[d] / gamesByDifficulty[d];
+	}
+
+	/**
+	 * Gets the best total score.
+	 *
+	 * @return Best score, or 0 if there are no games
+	 */
+	public synchronized int getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Gets the best total score of a difficulty.
+	 *
+	 * @param difficulty The difficulty
+	 * @return Best score, or 0 if there are no games of that difficulty
+	 */
+	public synchronized int getBestScore(Difficulty difficulty) {
+		return bestScoreByDifficulty[difficulty.ordinal()];
+	}
+
+	/**
+	 * Gets the number of games won.
+	 *
+	 * @return Win count
+	 */
+	public synchronized int getWins() {
+		return wins;
+	}
+
+	/**
+	 * Gets the number of games lost.
+	 *
+	 * @return Loss count
+	 */
+	public synchronized int getLosses() {
+		return losses;
+	}
+
+	/**
+	 * Gets the number of distinct players, not counting the AI bot.
+	 *
+	 * @return Player count
+	 */
+	public synchronized int getPlayerCount() {
+		return players.size();
+	}
+
+	/**
+	 * Checks if these aggregates were computed from the history storage as it
+	 * is now. Both the size and the modification time must match, so a history
+	 * edited to the same size is still noticed.
+	 *
+	 * @param size     Size of the history storage
+	 * @param modified Its modification time in milliseconds
+	 * @return true if the aggregates are up to date
+	 */
+	public synchronized boolean matchesSource(long size, long modified) {
+		return sourceSize == size && sourceModified == modified;
+	}
+
+	/**
+	 * Records the size and modification time of the history storage these
+	 * aggregates match.
+	 *
+	 * @param size     Size of the history storage
+	 * @param modified Its modification time in milliseconds
+	 */
+	public synchronized void setSource(long size, long modified) {
+		this.sourceSize = size;
+		this.sourceModified = modified;
+	}
+
+	/**
+	 * Writes the aggregates to a file, replacing it in one step.
+	 *
+	 * @param file The file to write
+	 * @return true if successful, false otherwise
+	 */
+	public synchronized boolean save(Path file) {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (CsvWriter out = new CsvWriter(
+					new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8))) {
+				out.field("version").field(FORMAT_VERSION).endRecord();
+				out.field("source").field(String.valueOf(sourceSize)).field(String.valueOf(sourceModified))
+						.endRecord();
+				out.field("all").field(games).field(String.valueOf(scoreSum)).field(bestScore).field(wins)
+						.field(losses).endRecord();
+				for (Difficulty difficulty : DIFFICULTIES) {
+					int d = difficulty.ordinal();
+					out.field(difficulty.name()).field(gamesByDifficulty[d])
+							.field(String.valueOf(scoreSumByDifficulty[d])).field(bestScoreByDifficulty[d])
+							.endRecord();
+				}
+				for (String player : players) {
+					out.field("player").field(player).endRecord();
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error saving history statistics: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Reads aggregates written by {@link #save(Path)}.
+	 *
+	 * @param file The file to read
+	 * @return The aggregates, or null if the file is missing or unreadable
+	 */
+	public static HistoryAggregates load(Path file) {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		HistoryAggregates aggregates = new HistoryAggregates();
+		try (CsvReader csv = new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			if (!csv.next() || !"version".equals(csv.get(0)) || csv.getInt(1) != FORMAT_VERSION) {
+				return null;
+			}
+			while (csv.next()) {
+				if (csv.isBlankRecord()) {
+					continue;
+				}
+				String key = csv.get(0);
+				if ("source".equals(key)) {
+					aggregates.sourceSize = Long.parseLong(csv.get(1));
+					// Files without a time never match, so they are recomputed once
+					aggregates.sourceModified = csv.getFieldCount() > 2 ? Long.parseLong(csv.get(2)) : -1;
+				} else if ("all".equals(key)) {
+					aggregates.games = csv.getInt(1);
+					aggregates.scoreSum = Long.parseLong(csv.get(2));
+					aggregates.bestScore = csv.getInt(3);
+					aggregates.wins = csv.getInt(4);
+					aggregates.losses = csv.getInt(5);
+				} else if ("player".equals(key)) {
+					aggregates.players.add(csv.get(1));
+				} else {
+					int d = Difficulty.valueOf(key).ordinal();
+					aggregates.gamesByDifficulty[d] = csv.getInt(1);
+					aggregates.scoreSumByDifficulty[d] = Long.parseLong(csv.get(2));
+					aggregates.bestScoreByDifficulty[d] = csv.getInt(3);
+				}
+			}
+			return aggregates;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Ignoring unreadable history statistics: " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -1,23 +1,67 @@
 package Model;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Manages game history persistence using CSV storage.
- * Handles saving and loading game records.
+ * Handles saving and loading game records. Loaded records are cached and
+ * refreshed incrementally (see {@link HistoryStore}).
+ * 
+ * History is kept in exactly one {@link Storage}: the CSV, a binary history
+ * log ({@code history.bin}, see {@link BinaryHistoryLog}) or monthly segments
+ * (a {@code history} directory, see {@link SegmentedHistory}). The choice is
+ * recorded in {@code history.storage} beside the CSV; without that file the
+ * CSV is used. Only {@link #convertToBinary()} and
+ * {@link #convertToSegments()} change it, and they refuse to convert history
+ * that is not stored the way they convert from.
+ * 
+ * Running statistics are kept up to date as games are saved (see
+ * {@link HistoryAggregates} and {@link #getAggregates()}).
  * 
  * @author Team Rhino
  * @version 3.0 - Iteration 3
  */
 public class HistoryManager {
-	private static final String HISTORY_FILE = "src/DATA/history.csv";
+    /**
+     * Ways the history can be stored. One is in use at a time.
+     */
+    public enum Storage {
+        /** The history CSV, the default. */
+        CSV,
+        /** The binary history log. */
+        BINARY,
+        /** Monthly CSV segments. */
+        SEGMENTS
+    }
+
+	private static final String HISTORY_FILE = "src/Data/history.csv";
     private static final String CSV_HEADER = "timestamp,player1,player2,player1Score,player2Score,totalScore,difficulty,winner,remainingLives";
 
+    private static final String STORAGE_FILE = "history.storage";
+    private static final String BINARY_FILE = "history.bin";
+    private static final String STATS_FILE = "history.stats";
+    private static final String PLAYERS_FILE = "history.players";
+    private static final String SEGMENT_DIRECTORY = "history";
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    private static Storage storage; // null until read from the storage file
+    private static HistoryStore store; // parsed records, see loadHistory()
+    private static BinaryHistoryLog binaryLog; // open binary log, if in use
+    private static SegmentedHistory segments; // open monthly segments, if in use
+    private static HistoryAggregates aggregates; // null until loaded, or when stale
+    private static PlayerIndex playerIndex; // null until loaded, or when stale
+    private static volatile Path resolvedHistoryPath; // cached once the file exists
+
     /**
      * Resolves the history file location.
      *
@@ -25,6 +69,10 @@ public class HistoryManager {
      * We therefore try a few common locations and fall back to the current working directory.
      */
     private static Path resolveHistoryPath() {
+        Path resolved = resolvedHistoryPath;
+        if (resolved != null) {
+            return resolved;
+        }
         String userDir = System.getProperty("user.dir");
         String[] candidates = {
                 HISTORY_FILE,
@@ -38,6 +86,7 @@ public class HistoryManager {
             try {
                 Path p = Paths.get(c).normalize();
                 if (Files.exists(p)) {
+                    resolvedHistoryPath = p; // the file is not moved while running
                     return p;
                 }
             } catch (Exception ignored) {
@@ -49,13 +98,55 @@ public class HistoryManager {
     }
     
     /**
-     * Saves a game history record to the CSV file.
+     * Saves a game history record to the CSV file and updates the statistics.
+     * Games that end during play are saved through {@link AsyncHistoryWriter}
+     * instead, off the Event Dispatch Thread.
      * 
      * @param history The game history to save
      * @return true if successful, false otherwise
      */
     public static boolean saveHistory(GameHistory history) {
+        return saveHistory(Collections.singletonList(history));
+    }
+
+    /**
+     * Saves several game history records with one write and updates the
+     * statistics.
+     * 
+     * @param histories The game histories to save, oldest first
+     * @return true if successful, false otherwise
+     */
+    public static synchronized boolean saveHistory(List<GameHistory> histories) {
+        long sizeBefore = historySize();
+        long modifiedBefore = historyModified();
+        if (!appendRecords(histories)) {
+            aggregates = null; // part of the batch may have been written
+            playerIndex = null;
+            return false;
+        }
+        long sizeAfter = historySize();
+        long modifiedAfter = historyModified();
+        updateAggregates(histories, sizeBefore, modifiedBefore, sizeAfter, modifiedAfter);
+        updatePlayerIndex(histories, sizeBefore, modifiedBefore, sizeAfter, modifiedAfter);
+        return true;
+    }
+
+    /**
+     * Appends records to the storage in use.
+     */
+    private static boolean appendRecords(List<GameHistory> histories) {
         try {
+            SegmentedHistory segmented = getSegments();
+            if (segmented != null) {
+                segmented.append(histories);
+                return true;
+            }
+            BinaryHistoryLog log = getBinaryLog();
+            if (log != null) {
+                log.appendAll(histories);
+                return true;
+            }
+
             Path historyPath = resolveHistoryPath();
             File file = historyPath.toFile();
             boolean fileExists = file.exists();
@@ -66,8 +157,8 @@ public class HistoryManager {
                 Files.createDirectories(parent);
             }
 
-            try (FileWriter fw = new FileWriter(file, true);
-                 BufferedWriter bw = new BufferedWriter(fw);
+            try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file, true), StandardCharsets.UTF_8));
                  PrintWriter out = new PrintWriter(bw)) {
                 
                 // Write header if new file
@@ -75,8 +166,13 @@ public class HistoryManager {
                     out.println(CSV_HEADER);
                 }
                 
-                // Write history record
-                out.println(history.toCsvLine());
+                // Write history records
+                for (GameHistory history : histories) {
+                    out.println(history.toCsvLine());
+                }
+                if (out.checkError()) {
+                    throw new IOException("write failed");
+                }
                 return true;
             }
         } catch (IOException e) {
@@ -86,40 +182,386 @@ public class HistoryManager {
     }
     
     /**
-     * Loads all game history records from the CSV file.
+     * Loads all game history records. Records are cached by {@link HistoryStore}:
+     * only lines appended since the last call are read from the file.
      * 
-     * @return List of game history records
+     * @return Read-only list of game history records, oldest first
      */
     public static List<GameHistory> loadHistory() {
-        List<GameHistory> histories = new ArrayList<>();
+        SegmentedHistory segmented = getSegments();
+        if (segmented != null) {
+            return segmented.getRecords();
+        }
+        BinaryHistoryLog log = getBinaryLog();
+        if (log != null) {
+            try {
+                return log.records();
+            } catch (IOException e) {
+                System.err.println("Error loading history: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
+        return getStore().getRecords();
+    }
+
+    /**
+     * Gets the running statistics of the history. They are read from the
+     * statistics file and only recomputed from the games if the history file
+     * was changed without them (for example edited by hand, or saved by an
+     * older version).
+     *
+     * @return The statistics; they keep changing as games are saved
+     */
+    public static synchronized HistoryAggregates getAggregates() {
+        long size = historySize();
+        long modified = historyModified();
+        if (aggregates == null) {
+            aggregates = HistoryAggregates.load(statsPath());
+        }
+        if (aggregates == null || !aggregates.matchesSource(size, modified)) {
+            aggregates = HistoryAggregates.of(loadHistory());
+            aggregates.setSource(size, modified);
+            aggregates.save(statsPath());
+        }
+        return aggregates;
+    }
+
+    /**
+     * Adds saved games to the statistics if they matched the history before
+     * them; otherwise they are recomputed on next use.
+     */
+    private static void updateAggregates(List<GameHistory> histories, long sizeBefore, long modifiedBefore,
+            long sizeAfter, long modifiedAfter) {
+        HistoryAggregates current = aggregates != null ? aggregates : HistoryAggregates.load(statsPath());
+        if (current == null && sizeBefore == 0) {
+            current = new HistoryAggregates(); // first game of a new history
+        }
+        if (current == null || !current.matchesSource(sizeBefore, modifiedBefore)) {
+            aggregates = null;
+            return;
+        }
+        for (GameHistory history : histories) {
+            current.add(history);
+        }
+        current.setSource(sizeAfter, modifiedAfter);
+        current.save(statsPath());
+        aggregates = current;
+    }
+
+    private static Path statsPath() {
+        return resolveHistoryPath().resolveSibling(STATS_FILE);
+    }
+
+    /**
+     * Gets the per-player standings and ratings. Like the statistics, they are
+     * read from their file and only rebuilt from the games if the history was
+     * changed without them.
+     *
+     * @return The player index; it keeps changing as games are saved
+     */
+    public static synchronized PlayerIndex getPlayerIndex() {
+        long size = historySize();
+        long modified = historyModified();
+        if (playerIndex == null) {
+            playerIndex = PlayerIndex.load(playersPath());
+        }
+        if (playerIndex == null || !playerIndex.matchesSource(size, modified)) {
+            playerIndex = PlayerIndex.of(loadHistory());
+            playerIndex.setSource(size, modified);
+            playerIndex.save(playersPath());
+        }
+        return playerIndex;
+    }
+
+    /**
+     * Adds saved games to the player index if it matched the history before
+     * them; otherwise it is rebuilt on next use.
+     */
+    private static void updatePlayerIndex(List<GameHistory> histories, long sizeBefore, long modifiedBefore,
+            long sizeAfter, long modifiedAfter) {
+        PlayerIndex current = playerIndex != null ? playerIndex : PlayerIndex.load(playersPath());
+        if (current == null && sizeBefore == 0) {
+            current = new PlayerIndex(); // first game of a new history
+        }
+        if (current == null || !current.matchesSource(sizeBefore, modifiedBefore)) {
+            playerIndex = null;
+            return;
+        }
+        for (GameHistory history : histories) {
+            current.add(history);
+        }
+        current.setSource(sizeAfter, modifiedAfter);
+        current.save(playersPath());
+        playerIndex = current;
+    }
+
+    private static Path playersPath() {
+        return resolveHistoryPath().resolveSibling(PLAYERS_FILE);
+    }
+
+    /**
+     * Gets the file games are saved to: the binary log if in use, or else the
+     * CSV.
+     */
+    private static Path currentHistoryPath() {
         Path historyPath = resolveHistoryPath();
-        File file = historyPath.toFile();
-        
-        if (!file.exists()) {
-            return histories; // Return empty list if file doesn't exist
-        }
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean firstLine = true;
-            
-            while ((line = br.readLine()) != null) {
-                // Skip header
-                if (firstLine) {
-                    firstLine = false;
-                    continue;
+        return getStorage() == Storage.BINARY ? historyPath.resolveSibling(BINARY_FILE) : historyPath;
+    }
+
+    /**
+     * Gets the size of the history storage in use; it changes whenever games
+     * are saved or removed.
+     */
+    private static long historySize() {
+        SegmentedHistory segmented = getSegments();
+        return segmented != null ? segmented.totalBytes() : fileSize(currentHistoryPath());
+    }
+
+    /**
+     * Gets the last modification time of the history storage in use. Together
+     * with {@link #historySize()} it tells whether the derived files still
+     * match the history.
+     */
+    private static long historyModified() {
+        SegmentedHistory segmented = getSegments();
+        return segmented != null ? segmented.lastModified() : fileModified(currentHistoryPath());
+    }
+
+    /**
+     * Gets the modification time of a file (0 if it does not exist, -1 if
+     * unreadable).
+     */
+    private static long fileModified(Path path) {
+        try {
+            return Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : 0;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the size of a file (0 if it does not exist, -1 if unreadable).
+     */
+    private static long fileSize(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the way the history is stored, reading it on first use.
+     *
+     * @return The storage in use
+     */
+    public static synchronized Storage getStorage() {
+        if (storage == null) {
+            storage = Storage.CSV;
+            Path file = storagePath();
+            if (Files.exists(file)) {
+                try {
+                    storage = Storage.valueOf(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error reading history storage, using the CSV: " + e.getMessage());
                 }
-                
-                GameHistory history = GameHistory.fromCsvLine(line);
-                if (history != null) {
-                    histories.add(history);
+            }
+        }
+        return storage;
+    }
+
+    /**
+     * Records the way the history is stored, replacing the storage file in
+     * one step.
+     */
+    private static void setStorage(Storage newStorage) throws IOException {
+        Path file = storagePath();
+        Path temp = file.resolveSibling(STORAGE_FILE + ".tmp");
+        Files.write(temp, (newStorage.name() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        storage = newStorage;
+    }
+
+    private static Path storagePath() {
+        return resolveHistoryPath().resolveSibling(STORAGE_FILE);
+    }
+
+    /**
+     * Gets the binary history log if history is stored in it, opening it on
+     * first use.
+     *
+     * @return The open log, or null if history is stored another way
+     */
+    public static synchronized BinaryHistoryLog getBinaryLog() {
+        if (getStorage() != Storage.BINARY) {
+            return null;
+        }
+        if (binaryLog == null) {
+            try {
+                binaryLog = new BinaryHistoryLog(resolveHistoryPath().resolveSibling(BINARY_FILE));
+            } catch (IOException e) {
+                System.err.println("Error opening binary history: " + e.getMessage());
+                return null;
+            }
+        }
+        return binaryLog;
+    }
+
+    /**
+     * Copies the CSV history into a new binary history log, which is used from
+     * then on. The CSV file is left in place. Only history stored as CSV can
+     * be converted.
+     *
+     * @return Number of games converted, or -1 if the conversion failed
+     */
+    public static synchronized int convertToBinary() {
+        if (getStorage() != Storage.CSV) {
+            System.err.println("History is stored as " + getStorage() + ", not as CSV; not converting it");
+            return -1;
+        }
+        Path historyPath = resolveHistoryPath();
+        Path binaryPath = historyPath.resolveSibling(BINARY_FILE);
+        try {
+            int converted = BinaryHistoryLog.convertCsv(historyPath, binaryPath);
+            setStorage(Storage.BINARY);
+            binaryLog = null; // opened on next use
+            return converted;
+        } catch (IOException e) {
+            System.err.println("Error converting history: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the directory recorded games are kept in (see {@link GameRecorder}),
+     * beside the history file. The directory may not exist yet.
+     *
+     * @return The replay directory
+     */
+    public static Path getReplayDirectory() {
+        return resolveHistoryPath().resolveSibling(REPLAY_DIRECTORY);
+    }
+
+    /**
+     * Gets the monthly history segments if history is stored in them, opening
+     * them on first use.
+     *
+     * @return The segments, or null if history is stored another way
+     */
+    public static synchronized SegmentedHistory getSegments() {
+        if (getStorage() != Storage.SEGMENTS) {
+            return null;
+        }
+        if (segments == null) {
+            try {
+                segments = new SegmentedHistory(resolveHistoryPath().resolveSibling(SEGMENT_DIRECTORY));
+            } catch (IOException e) {
+                System.err.println("Error opening history segments: " + e.getMessage());
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Splits the history into monthly segments, which are used from then on.
+     * The games are read from the storage in use (the CSV or the binary log),
+     * and its files are left in place. History that is already segmented is
+     * not split again.
+     *
+     * @return Number of games copied, or -1 if the split failed
+     */
+    public static synchronized int convertToSegments() {
+        if (getStorage() == Storage.SEGMENTS) {
+            System.err.println("History is already split into segments");
+            return -1;
+        }
+        try {
+            // Like loadHistory(), but a log that cannot be read stops the split
+            List<GameHistory> records;
+            if (getStorage() == Storage.BINARY) {
+                BinaryHistoryLog log = getBinaryLog();
+                if (log == null) {
+                    throw new IOException("the binary history log cannot be opened");
                 }
+                records = log.records();
+            } else {
+                records = getStore().getRecords();
             }
+            int converted = SegmentedHistory.split(records,
+                    resolveHistoryPath().resolveSibling(SEGMENT_DIRECTORY));
+            setStorage(Storage.SEGMENTS);
+            if (binaryLog != null) {
+                binaryLog.close(); // no longer read or written
+                binaryLog = null;
+            }
+            segments = null; // opened on next use
+            return converted;
         } catch (IOException e) {
-            System.err.println("Error loading history: " + e.getMessage());
+            System.err.println("Error splitting history: " + e.getMessage());
+            return -1;
         }
-        
-        return histories;
+    }
+
+    /**
+     * Finds the games played in a date range, optionally by one player. With
+     * segmented history only the months that can match are read.
+     *
+     * @param from   Earliest time (inclusive), or null for no lower bound
+     * @param to     Latest time (inclusive), or null for no upper bound
+     * @param player Name of a player who must have played (case-insensitive),
+     *               or null for any player
+     * @return Matching games, oldest first
+     */
+    public static List<GameHistory> queryHistory(LocalDateTime from, LocalDateTime to, String player) {
+        SegmentedHistory segmented = getSegments();
+        if (segmented != null) {
+            return segmented.query(from, to, player);
+        }
+        List<GameHistory> matches = new ArrayList<>();
+        for (GameHistory game : loadHistory()) {
+            LocalDateTime time = game.getTimestamp();
+            if ((from == null || !time.isBefore(from)) && (to == null || !time.isAfter(to))
+                    && (player == null || player.trim().equalsIgnoreCase(game.getPlayer1Name().trim())
+                            || player.trim().equalsIgnoreCase(game.getPlayer2Name().trim()))) {
+                matches.add(game);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Deletes the games of every month before a given month, by deleting
+     * whole segment files. History is never dropped on its own: segmenting
+     * and retention are both opt-in, through the {@code --segment-history}
+     * and {@code --drop-history-before} options (see {@link Main}).
+     *
+     * @param month First month to keep
+     * @return Number of months dropped, or -1 if it failed or the history is
+     *         not segmented
+     */
+    public static synchronized int dropHistoryBefore(YearMonth month) {
+        SegmentedHistory segmented = getSegments();
+        if (segmented == null) {
+            System.err.println("Old history can only be dropped once it is split into segments");
+            return -1;
+        }
+        try {
+            return segmented.dropBefore(month); // statistics are recomputed on next use
+        } catch (IOException e) {
+            System.err.println("Error dropping old history: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the cache over the history file, creating it on first use.
+     */
+    private static synchronized HistoryStore getStore() {
+        if (store == null) {
+            store = new HistoryStore(resolveHistoryPath());
+        }
+        return store;
     }
     
     /**
@@ -127,18 +569,33 @@ public class HistoryManager {
      * 
      * @return true if successful, false otherwise
      */
-    public static boolean clearHistory() {
+    public static synchronized boolean clearHistory() {
         try {
             Path historyPath = resolveHistoryPath();
-            File file = historyPath.toFile();
-            if (file.exists()) {
-                file.delete();
+            if (getSegments() != null) {
+                segments.clear();
             }
-            
-            // Create new file with just header
-            try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            if (getBinaryLog() != null) {
+                // Start an empty binary log
+                binaryLog.close();
+                binaryLog = null;
+                Path binaryPath = historyPath.resolveSibling(BINARY_FILE);
+                Files.deleteIfExists(BinaryHistoryLog.namesPath(binaryPath));
+                Files.delete(binaryPath);
+                new BinaryHistoryLog(binaryPath).close();
+            }
+            // Replace the file with one holding just the header (UTF-8, like
+            // the records appended to it)
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(historyPath, StandardCharsets.UTF_8))) {
                 out.println(CSV_HEADER);
             }
+
+            aggregates = new HistoryAggregates();
+            aggregates.setSource(historySize(), historyModified());
+            aggregates.save(statsPath());
+            playerIndex = new PlayerIndex();
+            playerIndex.setSource(historySize(), historyModified());
+            playerIndex.save(playersPath());
             return true;
         } catch (IOException e) {
             System.err.println("Error clearing history: " + e.getMessage());
@@ -152,6 +609,14 @@ public class HistoryManager {
      * @return Number of games in history
      */
     public static int getGameCount() {
-        return loadHistory().size();
+        SegmentedHistory segmented = getSegments();
+        if (segmented != null) {
+            return segmented.size();
+        }
+        BinaryHistoryLog log = getBinaryLog();
+        if (log != null) {
+            return log.size();
+        }
+        return getStore().size();
     }
 }
\ No newline at end of file
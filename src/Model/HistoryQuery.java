@@ -0,0 +1,224 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A filter and sort order over the game history, evaluated against the
+ * history records to give the order of the matching records.
+ *
+ * Games are saved as they finish, so record order is date order: the default
+ * query (every game, by date) needs no work at all. Other sort orders are
+ * computed on primitive keys, without creating objects per record.
+ *
+ * Queries are immutable; use the {@code with...} methods to derive new ones.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class HistoryQuery {
+	/**
+	 * Columns the history can be sorted by.
+	 */
+	public enum SortKey {
+		DATE, PLAYER1, PLAYER2, TOTAL_SCORE, DIFFICULTY, RESULT
+	}
+
+	/**
+	 * Game results to filter by.
+	 */
+	public enum Result {
+		ANY, WON, LOST
+	}
+
+	/** Every game, oldest first. */
+	public static final HistoryQuery ALL = new HistoryQuery("", null, Result.ANY, SortKey.DATE, false);
+
+	private final String player; // lower-case substring of either player's name; empty for any
+	private final Difficulty difficulty; // null for any
+	private final Result result;
+	private final SortKey sortKey;
+	private final boolean descending;
+
+	private HistoryQuery(String player, Difficulty difficulty, Result result, SortKey sortKey, boolean descending) {
+		this.player = player;
+		this.difficulty = difficulty;
+		this.result = result;
+		this.sortKey = sortKey;
+		this.descending = descending;
+	}
+
+	/**
+	 * Derives a query with a different filter and the same sort order.
+	 *
+	 * @param player     Text either player's name must contain (case-insensitive);
+	 *                   null or blank for any player
+	 * @param difficulty Difficulty to match, or null for any
+	 * @param result     Result to match
+	 * @return The new query
+	 */
+	public HistoryQuery withFilter(String player, Difficulty difficulty, Result result) {
+		String text = player == null ? "" : player.trim().toLowerCase(Locale.ROOT);
+		return new HistoryQuery(text, difficulty, result == null ? Result.ANY : result, sortKey, descending);
+	}
+
+	/**
+	 * Derives a query with a different sort order and the same filter.
+	 *
+	 * @param sortKey    Column to sort by
+	 * @param descending true for descending order
+	 * @return The new query
+	 */
+	public HistoryQuery withSort(SortKey sortKey, boolean descending) {
+		return new HistoryQuery(player, difficulty, result, sortKey, descending);
+	}
+
+	/**
+	 * Gets the column this query sorts by.
+	 *
+	 * @return The sort key
+	 */
+	public SortKey getSortKey() {
+		return sortKey;
+	}
+
+	/**
+	 * Checks whether this query sorts in descending order.
+	 *
+	 * @return true for descending order
+	 */
+	public boolean isDescending() {
+		return descending;
+	}
+
+	/**
+	 * Checks whether this query filters out any games.
+	 *
+	 * @return true if some games may not match
+	 */
+	public boolean isFiltered() {
+		return !player.isEmpty() || difficulty != null || result != Result.ANY;
+	}
+
+	/**
+	 * Checks whether a game matches the filter.
+	 *
+	 * @param game The game
+	 * @return true if the game matches
+	 */
+	public boolean matches(GameHistory game) {
+		if (difficulty != null && game.getDifficulty() != difficulty) {
+			return false;
+		}
+		if (result != Result.ANY && game.isWon() != (result == Result.WON)) {
+			return false;
+		}
+		return player.isEmpty() || contains(game.getPlayer1Name()) || contains(game.getPlayer2Name());
+	}
+
+	private boolean contains(String name) {
+		return name != null && name.toLowerCase(Locale.ROOT).contains(player);
+	}
+
+	/**
+	 * Evaluates the query.
+	 *
+	 * @param records The history records, oldest first
+	 * @return Indexes of the matching records in query order, or null if the
+	 *         query keeps every record in record order (oldest first) or in
+	 *         reverse record order (when {@link #isDescending()})
+	 */
+	public int[] run(List<GameHistory> records) {
+		if (!isFiltered() && sortKey == SortKey.DATE) {
+			return null;
+		}
+
+		int[] rows = new int[records.size()];
+		int count = 0;
+		for (int i = 0; i < rows.length; i++) {
+			if (!isFiltered() || matches(records.get(i))) {
+				rows[count++] = i;
+			}
+		}
+		rows = Arrays.copyOf(rows, count);
+
+		if (sortKey != SortKey.DATE) {
+			sortByKey(records, rows);
+		}
+		if (descending) {
+			reverse(rows);
+		}
+		return rows;
+	}
+
+	/**
+	 * Sorts record indexes by the sort key, ascending. Each index is packed with
+	 * its key into one long, so the sort is a primitive sort; ties keep record
+	 * order.
+	 */
+	private void sortByKey(List<GameHistory> records, int[] rows) {
+		Map<String, Integer> nameRanks = sortKey == SortKey.PLAYER1 || sortKey == SortKey.PLAYER2
+				? rankNames(records, rows)
+				: null;
+		long[] keyed = new long[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			GameHistory game = records.get(rows[i]);
+			long key;
+			switch (sortKey) {
+			case PLAYER1:
+				key = nameRanks.get(nameOf(game.getPlayer1Name()));
+				break;
+			case PLAYER2:
+				key = nameRanks.get(nameOf(game.getPlayer2Name()));
+				break;
+			case TOTAL_SCORE:
+				key = game.getTotalScore();
+				break;
+			case DIFFICULTY:
+				key = game.getDifficulty() == null ? -1 : game.getDifficulty().ordinal();
+				break;
+			default: // RESULT
+				key = game.isWon() ? 1 : 0;
+				break;
+			}
+			keyed[i] = (key << 32) | rows[i];
+		}
+		Arrays.sort(keyed);
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = (int) keyed[i];
+		}
+	}
+
+	/**
+	 * Ranks the distinct player names of the matching records alphabetically
+	 * (case-insensitive).
+	 */
+	private Map<String, Integer> rankNames(List<GameHistory> records, int[] rows) {
+		TreeSet<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER.thenComparing(String::compareTo));
+		for (int row : rows) {
+			GameHistory game = records.get(row);
+			names.add(nameOf(sortKey == SortKey.PLAYER1 ? game.getPlayer1Name() : game.getPlayer2Name()));
+		}
+		Map<String, Integer> ranks = new HashMap<>(names.size() * 2);
+		for (String name : names) {
+			ranks.put(name, ranks.size());
+		}
+		return ranks;
+	}
+
+	private static String nameOf(String name) {
+		return name == null ? "" : name;
+	}
+
+	private static void reverse(int[] rows) {
+		for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+			int swap = rows[i];
+			rows[i] = rows[j];
+			rows[j] = swap;
+		}
+	}
+}
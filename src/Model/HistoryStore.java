@@ -0,0 +1,228 @@
+package Model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * In-memory cache of the history CSV.
+ *
+ * Parsed records are kept between calls. The history file is only ever
+ * appended to, so a refresh compares the file's size and modification time
+ * with what was read last: if both are unchanged nothing is read, and if the
+ * file grew only the appended bytes are parsed. A file that changed without
+ * growing, or was rewritten (for example cleared), is read again from the
+ * start.
+ *
+ * {@link #getRecords()} returns a read-only snapshot that shares storage with
+ * the cache, so repeated queries do not copy the records.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryStore {
+	private final Path path;
+
+	// Append-only record storage; snapshots share the array up to their size
+	private GameHistory[] records;
+	private int size;
+	private List<GameHistory> snapshot; // cached until the next change
+
+	private long readOffset; // bytes parsed so far (always the end of a full record)
+	private long knownSize = -1;
+	private long knownModified = -1;
+
+	/**
+	 * Creates a store for a history file. Nothing is read until the records are
+	 * first requested.
+	 *
+	 * @param path Path of the history CSV
+	 */
+	public HistoryStore(Path path) {
+		this.path = path;
+		this.records = new GameHistory[64];
+	}
+
+	/**
+	 * Gets every history record, oldest first, reading whatever was appended to
+	 * the file since the last call.
+	 *
+	 * @return Read-only list of records; it does not change after it is returned
+	 */
+	public synchronized List<GameHistory> getRecords() {
+		refresh();
+		if (snapshot == null) {
+			snapshot = new Snapshot(records, size);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Gets the number of history records.
+	 *
+	 * @return Number of games in history
+	 */
+	public synchronized int size() {
+		refresh();
+		return size;
+	}
+
+	/**
+	 * Brings the cache up to date with the file.
+	 */
+	private void refresh() {
+		if (!Files.exists(path)) {
+			if (size > 0 || readOffset > 0) {
+				reset();
+			}
+			knownSize = -1;
+			knownModified = -1;
+			return;
+		}
+		try {
+			long fileSize = Files.size(path);
+			long modified = Files.getLastModifiedTime(path).toMillis();
+			if (fileSize == knownSize && modified == knownModified) {
+				return; // unchanged: the common case
+			}
+
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				// Appending always grows the file, so a change that did not is a rewrite
+				if (fileSize <= knownSize || fileSize < readOffset || !endsRecordAt(channel, readOffset)) {
+					// Shrunk or rewritten: start over
+					reset();
+				}
+				readFrom(channel, fileSize);
+			}
+			knownSize = fileSize;
+			knownModified = modified;
+		} catch (IOException e) {
+			System.err.println("Error loading history: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks that the byte before an offset is still the line break that ended
+	 * the last record read, i.e. the file was appended to, not rewritten.
+	 */
+	private static boolean endsRecordAt(FileChannel channel, long offset) throws IOException {
+		if (offset == 0) {
+			return true;
+		}
+		ByteBuffer last = ByteBuffer.allocate(1);
+		return channel.read(last, offset - 1) == 1 && last.get(0) == '\n';
+	}
+
+	/**
+	 * Parses the complete records between the read offset and the end of the
+	 * file. A record still being written (no final line break) is left for the
+	 * next refresh.
+	 */
+	private void readFrom(FileChannel channel, long fileSize) throws IOException {
+		long length = fileSize - readOffset;
+		if (length <= 0) {
+			return;
+		}
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new IOException("History file too large to read at once");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		while (buffer.hasRemaining() && channel.read(buffer, readOffset + buffer.position()) > 0) {
+			// keep reading until the tail is complete
+		}
+		byte[] bytes = buffer.array();
+		int end = lastRecordEnd(bytes, buffer.position());
+		if (end == 0) {
+			return;
+		}
+
+		boolean header = readOffset == 0;
+		try (CsvReader csv = new CsvReader(new InputStreamReader(new ByteArrayInputStream(bytes, 0, end),
+				StandardCharsets.UTF_8))) {
+			if (header) {
+				csv.next(); // Skip header
+			}
+			while (csv.next()) {
+				if (csv.isBlankRecord()) {
+					continue;
+				}
+				GameHistory history = GameHistory.fromCsvRecord(csv);
+				if (history != null) {
+					append(history);
+				}
+			}
+		}
+		readOffset += end;
+	}
+
+	/**
+	 * Finds the end (just past the line break) of the last complete record.
+	 * Line breaks inside quoted fields do not end a record.
+	 */
+	private static int lastRecordEnd(byte[] bytes, int length) {
+		int end = 0;
+		boolean quoted = false;
+		for (int i = 0; i < length; i++) {
+			byte b = bytes[i];
+			if (b == '"') {
+				quoted = !quoted; // an escaped quote ("") toggles twice
+			} else if (b == '\n' && !quoted) {
+				end = i + 1;
+			}
+		}
+		return end;
+	}
+
+	private void append(GameHistory history) {
+		if (size == records.length) {
+			records = Arrays.copyOf(records, size * 2);
+		}
+		records[size++] = history;
+		snapshot = null;
+	}
+
+	private void reset() {
+		records = new GameHistory[64]; // snapshots keep the old array
+		size = 0;
+		snapshot = null;
+		readOffset = 0;
+	}
+
+	/**
+	 * Read-only view of the first {@code size} records of a storage array. The
+	 * store only writes past this size (or into a new array), so the view never
+	 * changes.
+	 */
+	private static final class Snapshot extends AbstractList<GameHistory> implements RandomAccess {
+		private final GameHistory[] records;
+		private final int size;
+
+		Snapshot(GameHistory[] records, int size) {
+			this.records = records;
+			this.size = size;
+		}
+
+		@Override
+		public GameHistory get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return records[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
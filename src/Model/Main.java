@@ -1,5 +1,8 @@
 package Model;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
@@ -18,9 +21,45 @@ public class Main {
 	/**
 	 * Main method - entry point of the application.
 	 *
-	 * @param args Command line arguments (not used)
+	 * @param args Command line arguments; {@code --convert-history} converts the
+	 *             history CSV to the binary history log and
+	 *             {@code --segment-history} splits the history, from either,
+	 *             into monthly segments, and {@code --drop-history-before
+	 *             YYYY-MM} deletes the segments of earlier months, then the
+	 *             program exits
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && "--convert-history".equals(args[0])) {
+			int converted = HistoryManager.convertToBinary();
+			if (converted < 0) {
+				System.exit(1);
+			}
+			System.out.println("Converted " + converted + " games to the binary history log");
+			return;
+		}
+		if (args.length > 0 && "--segment-history".equals(args[0])) {
+			int converted = HistoryManager.convertToSegments();
+			if (converted < 0) {
+				System.exit(1);
+			}
+			System.out.println("Split " + converted + " games into monthly history segments");
+			return;
+		}
+		if (args.length > 1 && "--drop-history-before".equals(args[0])) {
+			int dropped;
+			try {
+				dropped = HistoryManager.dropHistoryBefore(YearMonth.parse(args[1]));
+			} catch (DateTimeParseException e) {
+				System.err.println("Expected a month like 2025-01, got " + args[1]);
+				dropped = -1;
+			}
+			if (dropped < 0) {
+				System.exit(1);
+			}
+			System.out.println("Dropped " + dropped + " months of history");
+			return;
+		}
+
 		// Set look and feel to system default for better appearance
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -29,6 +68,10 @@ public class Main {
 			System.out.println("Using default look and feel");
 		}
 
+		// Load questions, surprises and history in the background while the
+		// start screen is shown
+		GameDataLoader.getInstance().start();
+
 		// Run GUI on Event Dispatch Thread
 		SwingUtilities.invokeLater(() -> {
 			// Create view
@@ -0,0 +1,360 @@
+package Model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Estimates where the hidden mines of a board are, using only what a player can
+ * see: revealed numbers, revealed mines and flags. Samples complete mine layouts
+ * that are consistent with every revealed number and with the board's total
+ * mine count.
+ *
+ * In this game flagging a mine reveals it immediately, so a flag that stays on
+ * the board always marks a safe tile and is treated as known information.
+ *
+ * Layouts are sampled by randomized backtracking over the frontier (hidden
+ * tiles next to a revealed number) followed by a uniform fill of the interior.
+ * The samples are consistent but not perfectly uniform over all layouts, which
+ * is good enough for move selection.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class MineProbabilityEngine {
+	private static final int MAX_STEPS_PER_SAMPLE = 20000;
+	private static final int MAX_ATTEMPTS_PER_SAMPLE = 4;
+
+	private final int size;
+	private final Random random;
+	private final boolean[] knownMine; // revealed mines
+	private final boolean[] unknown; // hidden and unflagged tiles
+	private final int unknownCount;
+	private final int minesLeft; // mines not yet revealed
+
+	// Frontier cells in constraint order, and the constraints touching each one
+	private final int[] frontier;
+	private final int[][] frontierConstraints;
+	private final int[] interior;
+
+	// Per constraint: mines still needed and frontier cells not yet assigned
+	private final int[] constraintNeed;
+	private final int[] constraintCells;
+
+	// Scratch state for the backtracking sampler
+	private final int[] need;
+	private final int[] open;
+	private final boolean[] assigned;
+	private int frontierMines;
+	private int steps;
+
+	/**
+	 * Analyzes the visible state of a board.
+	 *
+	 * @param board  The board to analyze (only read)
+	 * @param random Random source for sampling
+	 */
+	public MineProbabilityEngine(Board board, Random random) {
+		this.size = board.getSize();
+		this.random = random;
+		int cells = size * size;
+		this.knownMine = new boolean[cells];
+		this.unknown = new boolean[cells];
+
+		int revealedMines = 0;
+		int hidden = 0;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				Tile tile = board.getTile(row, col);
+				int index = row * size + col;
+				if (tile.isRevealed()) {
+					if (tile.isMine()) {
+						knownMine[index] = true;
+						revealedMines++;
+					}
+				} else if (!tile.isFlagged()) {
+					unknown[index] = true;
+					hidden++;
+				}
+			}
+		}
+		this.unknownCount = hidden;
+		this.minesLeft = Math.max(0, board.getDifficulty().getMineCount() - revealedMines);
+
+		// One constraint per revealed number/empty tile that still touches hidden
+		// tiles
+		List<int[]> constraintCellLists = new ArrayList<>();
+		List<Integer> needs = new ArrayList<>();
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				Tile tile = board.getTile(row, col);
+				if (!tile.isRevealed() || tile.isMine() || tile.isQuestion() || tile.isSurprise()) {
+					continue;
+				}
+				int[] neighbors = new int[8];
+				int count = 0;
+				int known = 0;
+				for (int dr = -1; dr <= 1; dr++) {
+					for (int dc = -1; dc <= 1; dc++) {
+						if (dr == 0 && dc == 0)
+							continue;
+						int r = row + dr;
+						int c = col + dc;
+						if (!board.isValidPosition(r, c))
+							continue;
+						int index = r * size + c;
+						if (knownMine[index]) {
+							known++;
+						} else if (unknown[index]) {
+							neighbors[count++] = index;
+						}
+					}
+				}
+				if (count > 0) {
+					constraintCellLists.add(Arrays.copyOf(neighbors, count));
+					needs.add(tile.getAdjacentMines() - known);
+				}
+			}
+		}
+
+		int constraintCount = constraintCellLists.size();
+		this.constraintNeed = new int[constraintCount];
+		this.constraintCells = new int[constraintCount];
+		List<List<Integer>> constraintsByCell = new ArrayList<>(cells);
+		for (int i = 0; i < cells; i++) {
+			constraintsByCell.add(null);
+		}
+		for (int c = 0; c < constraintCount; c++) {
+			int[] members = constraintCellLists.get(c);
+			constraintNeed[c] = needs.get(c);
+			constraintCells[c] = members.length;
+			for (int index : members) {
+				if (constraintsByCell.get(index) == null) {
+					constraintsByCell.set(index, new ArrayList<>(4));
+				}
+				constraintsByCell.get(index).add(c);
+			}
+		}
+
+		// Order the frontier breadth-first through shared constraints so the
+		// backtracking sampler detects conflicts early
+		int[] order = new int[cells];
+		int frontierSize = 0;
+		boolean[] queued = new boolean[cells];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int start = 0; start < cells; start++) {
+			if (constraintsByCell.get(start) == null || queued[start])
+				continue;
+			queued[start] = true;
+			queue.add(start);
+			while (!queue.isEmpty()) {
+				int index = queue.poll();
+				order[frontierSize++] = index;
+				for (int c : constraintsByCell.get(index)) {
+					for (int other : constraintCellLists.get(c)) {
+						if (!queued[other]) {
+							queued[other] = true;
+							queue.add(other);
+						}
+					}
+				}
+			}
+		}
+		this.frontier = Arrays.copyOf(order, frontierSize);
+		this.frontierConstraints = new int[frontierSize][];
+		for (int i = 0; i < frontierSize; i++) {
+			List<Integer> list = constraintsByCell.get(frontier[i]);
+			frontierConstraints[i] = list.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		int[] inner = new int[cells];
+		int innerSize = 0;
+		for (int index = 0; index < cells; index++) {
+			if (unknown[index] && constraintsByCell.get(index) == null) {
+				inner[innerSize++] = index;
+			}
+		}
+		this.interior = Arrays.copyOf(inner, innerSize);
+
+		this.need = new int[constraintCount];
+		this.open = new int[constraintCount];
+		this.assigned = new boolean[frontierSize];
+	}
+
+	/**
+	 * Samples one complete mine layout consistent with the visible board.
+	 *
+	 * @return Mine flags indexed by row * size + col (including revealed mines),
+	 *         or null if no consistent layout was found
+	 */
+	public boolean[] sampleLayout() {
+		for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_SAMPLE; attempt++) {
+			System.arraycopy(constraintNeed, 0, need, 0, need.length);
+			System.arraycopy(constraintCells, 0, open, 0, open.length);
+			Arrays.fill(assigned, false);
+			frontierMines = 0;
+			steps = 0;
+
+			if (assignFrontier(0)) {
+				boolean[] layout = knownMine.clone();
+				for (int i = 0; i < frontier.length; i++) {
+					layout[frontier[i]] = assigned[i];
+				}
+				fillInterior(layout, minesLeft - frontierMines);
+				return layout;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Estimates the probability that each tile hides a mine.
+	 *
+	 * @param samples Number of layouts to sample
+	 * @return Probabilities indexed by row * size + col; revealed mines are 1,
+	 *         other known tiles are 0
+	 */
+	public double[] estimateProbabilities(int samples) {
+		return estimateProbabilities(samples, false, 0);
+	}
+
+	/**
+	 * Estimates the probability that each tile hides a mine, sampling until
+	 * either enough layouts were tried or the deadline has passed. Without any
+	 * layout every hidden tile gets the average mine density.
+	 *
+	 * @param samples       Maximum number of layouts to sample
+	 * @param deadlineNanos {@link System#nanoTime()} after which no new sample
+	 *                      is started
+	 * @return Probabilities indexed by row * size + col; revealed mines are 1,
+	 *         other known tiles are 0
+	 */
+	public double[] estimateProbabilities(int samples, long deadlineNanos) {
+		return estimateProbabilities(samples, true, deadlineNanos);
+	}
+
+	private double[] estimateProbabilities(int samples, boolean timed, long deadlineNanos) {
+		int cells = size * size;
+		double[] probabilities = new double[cells];
+		int found = 0;
+		for (int s = 0; s < samples; s++) {
+			if (timed && System.nanoTime() - deadlineNanos >= 0)
+				break;
+			boolean[] layout = sampleLayout();
+			if (layout == null)
+				continue;
+			found++;
+			for (int index = 0; index < cells; index++) {
+				if (layout[index] && unknown[index]) {
+					probabilities[index]++;
+				}
+			}
+		}
+
+		double density = unknownCount == 0 ? 0 : (double) minesLeft / unknownCount;
+		for (int index = 0; index < cells; index++) {
+			if (knownMine[index]) {
+				probabilities[index] = 1.0;
+			} else if (!unknown[index]) {
+				probabilities[index] = 0.0;
+			} else {
+				probabilities[index] = found == 0 ? density : probabilities[index] / found;
+			}
+		}
+		return probabilities;
+	}
+
+	/**
+	 * Randomized depth-first assignment of the frontier, pruning as soon as a
+	 * constraint can no longer be met.
+	 */
+	private boolean assignFrontier(int position) {
+		if (++steps > MAX_STEPS_PER_SAMPLE) {
+			return false;
+		}
+		if (position == frontier.length) {
+			int rest = minesLeft - frontierMines;
+			return rest >= 0 && rest <= interior.length;
+		}
+
+		// Try "mine" first roughly as often as the remaining mine density suggests
+		double density = unknownCount == 0 ? 0 : (double) minesLeft / unknownCount;
+		boolean mineFirst = random.nextDouble() < density;
+		for (int attempt = 0; attempt < 2; attempt++) {
+			boolean mine = (attempt == 0) == mineFirst;
+			if (canAssign(position, mine)) {
+				apply(position, mine, 1);
+				if (assignFrontier(position + 1)) {
+					return true;
+				}
+				apply(position, mine, -1);
+			}
+		}
+		return false;
+	}
+
+	private boolean canAssign(int position, boolean mine) {
+		int value = mine ? 1 : 0;
+		if (mine && frontierMines + 1 > minesLeft) {
+			return false;
+		}
+		for (int c : frontierConstraints[position]) {
+			int remainingNeed = need[c] - value;
+			if (remainingNeed < 0 || remainingNeed > open[c] - 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void apply(int position, boolean mine, int direction) {
+		int value = mine ? 1 : 0;
+		for (int c : frontierConstraints[position]) {
+			need[c] -= value * direction;
+			open[c] -= direction;
+		}
+		frontierMines += value * direction;
+		assigned[position] = mine && direction > 0;
+	}
+
+	/**
+	 * Places the remaining mines uniformly among interior tiles (partial
+	 * Fisher-Yates shuffle).
+	 */
+	private void fillInterior(boolean[] layout, int mines) {
+		int[] cells = interior.clone();
+		for (int i = 0; i < mines; i++) {
+			int j = i + random.nextInt(cells.length - i);
+			int tmp = cells[i];
+			cells[i] = cells[j];
+			cells[j] = tmp;
+			layout[cells[i]] = true;
+		}
+	}
+
+	/**
+	 * Checks whether a tile's content is still hidden from the player.
+	 *
+	 * @param row Row of the tile
+	 * @param col Column of the tile
+	 * @return true if the tile is unrevealed and unflagged
+	 */
+	public boolean isUnknown(int row, int col) {
+		return unknown[row * size + col];
+	}
+
+	/**
+	 * Gets the number of mines that have not been revealed yet.
+	 *
+	 * @return Remaining hidden mines
+	 */
+	public int getMinesLeft() {
+		return minesLeft;
+	}
+
+	public int getSize() {
+		return size;
+	}
+}
@@ -54,6 +54,11 @@ public class MineTile extends Tile {
 		// Mines don't track adjacent mines
 	}
 
+	@Override
+	public Tile copy() {
+		return copyStateInto(new MineTile(row, col));
+	}
+
 	@Override
 	public String toDisplayString() {
 		return "*";
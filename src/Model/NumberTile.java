@@ -57,6 +57,11 @@ public class NumberTile extends Tile {
 		this.adjacentMines = count;
 	}
 
+	@Override
+	public Tile copy() {
+		return copyStateInto(new NumberTile(row, col, adjacentMines));
+	}
+
 	@Override
 	public String toDisplayString() {
 		return String.valueOf(adjacentMines);
@@ -0,0 +1,56 @@
+package Model;
+
+/**
+ * A question backed by a record of a memory-mapped {@link QuestionPack}. The
+ * ID, level and correct answer are known up front; the question text and the
+ * options are decoded from the pack the first time any of them is read.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class PackedQuestion extends Question {
+	private final QuestionPack pack;
+	private final int record;
+	private volatile String[] strings; // text and options, decoded on demand
+
+	PackedQuestion(QuestionPack pack, int record, int id, int correctAnswer, String level) {
+		super(id, null, null, null, null, null, correctAnswer, level);
+		this.pack = pack;
+		this.record = record;
+	}
+
+	private String[] strings() {
+		String[] decoded = strings;
+		if (decoded == null) {
+			// Decoding twice on a race is harmless: the result is the same
+			decoded = pack.decodeStrings(record);
+			strings = decoded;
+		}
+		return decoded;
+	}
+
+	@Override
+	public String getQuestionText() {
+		return strings()[0];
+	}
+
+	@Override
+	public String getOption1() {
+		return strings()[1];
+	}
+
+	@Override
+	public String getOption2() {
+		return strings()[2];
+	}
+
+	@Override
+	public String getOption3() {
+		return strings()[3];
+	}
+
+	@Override
+	public String getOption4() {
+		return strings()[4];
+	}
+}
@@ -0,0 +1,435 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable hash map that shares structure between versions (a hash array
+ * mapped trie of 32-way nodes). Changing one key copies only the few nodes on
+ * its path, so each version of the question bank can be published and read
+ * without locks while an edit costs O(log32 n) instead of a copy of the map.
+ *
+ * Maps are changed through an {@link Editor}. An editor changes the nodes it
+ * created itself in place, so a bulk load does not copy a path per key; nodes
+ * of the map it started from are copied on their first change and never
+ * modified. After {@link Editor#freeze()} none of its nodes change again.
+ *
+ * Keys must not be null. Not thread-safe while editing; frozen maps are.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+final class PersistentMap<K, V> {
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<>(null, 0);
+
+	private final Node root; // null when empty
+	private final int size;
+
+	private PersistentMap(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the empty map.
+	 */
+	@SuppressWarnings("unchecked")
+	static <K, V> PersistentMap<K, V> empty() {
+		return (PersistentMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Gets the number of keys.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the value of a key.
+	 *
+	 * @return The value, or null if the key is absent
+	 */
+	@SuppressWarnings("unchecked")
+	V get(Object key) {
+		return root == null ? null : (V) root.find(key, hash(key), 0);
+	}
+
+	/**
+	 * Starts editing a new version of this map. This map is not changed.
+	 *
+	 * @return An editor holding the same keys
+	 */
+	Editor<K, V> edit() {
+		return new Editor<>(root, size);
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Builds a new version of a map. Single-threaded; must not be used after
+	 * {@link #freeze()}.
+	 */
+	static final class Editor<K, V> {
+		private Object owner = new Object(); // marks the nodes this editor may change in place
+		private Node root;
+		private int size;
+		private final Change change = new Change();
+
+		private Editor(Node root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+
+		/**
+		 * Gets the value of a key.
+		 *
+		 * @return The value, or null if the key is absent
+		 */
+		@SuppressWarnings("unchecked")
+		V get(Object key) {
+			return root == null ? null : (V) root.find(key, hash(key), 0);
+		}
+
+		/**
+		 * Sets the value of a key.
+		 *
+		 * @return The previous value, or null if the key was absent
+		 */
+		@SuppressWarnings("unchecked")
+		V put(K key, V value) {
+			checkOpen();
+			change.reset();
+			int hash = hash(key);
+			root = root == null ? BitmapNode.single(owner, key, hash, value, 0)
+					: root.put(owner, key, hash, value, 0, change);
+			if (!change.found) {
+				size++;
+			}
+			return (V) change.old;
+		}
+
+		/**
+		 * Removes a key.
+		 *
+		 * @return The removed value, or null if the key was absent
+		 */
+		@SuppressWarnings("unchecked")
+		V remove(Object key) {
+			checkOpen();
+			if (root == null) {
+				return null;
+			}
+			change.reset();
+			root = root.remove(owner, key, hash(key), 0, change);
+			if (change.found) {
+				size--;
+			}
+			return (V) change.old;
+		}
+
+		/**
+		 * Gets the number of keys.
+		 */
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Ends the edit.
+		 *
+		 * @return The edited map
+		 */
+		PersistentMap<K, V> freeze() {
+			checkOpen();
+			owner = null;
+			return size == 0 ? empty() : new PersistentMap<>(root, size);
+		}
+
+		private void checkOpen() {
+			if (owner == null) {
+				throw new IllegalStateException("Map editor used after freeze");
+			}
+		}
+	}
+
+	/**
+	 * What a put or remove found, so the editor can keep its size.
+	 */
+	private static final class Change {
+		boolean found;
+		Object old;
+
+		void reset() {
+			found = false;
+			old = null;
+		}
+	}
+
+	private abstract static class Node {
+		final Object owner; // the editor that may change this node in place
+
+		Node(Object owner) {
+			this.owner = owner;
+		}
+
+		abstract Object find(Object key, int hash, int shift);
+
+		abstract Node put(Object owner, Object key, int hash, Object value, int shift, Change change);
+
+		/**
+		 * @return The node without the key, or null if it is left empty
+		 */
+		abstract Node remove(Object owner, Object key, int hash, int shift, Change change);
+
+		/**
+		 * Gets the key of a node that holds a single entry and no children.
+		 *
+		 * @return The key, or null if the node holds more
+		 */
+		abstract Object soleKey();
+
+		abstract Object soleValue();
+	}
+
+	/**
+	 * Node for up to 32 hash positions at one level of the trie. Only the
+	 * positions in use take space.
+	 */
+	private static final class BitmapNode extends Node {
+		int bitmap; // positions in use
+		Object[] array; // per position in use: key and value, or null and child node
+
+		BitmapNode(Object owner, int bitmap, Object[] array) {
+			super(owner);
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		static BitmapNode single(Object owner, Object key, int hash, Object value, int shift) {
+			return new BitmapNode(owner, bit(hash, shift), new Object[] { key, value });
+		}
+
+		private static int bit(int hash, int shift) {
+			return 1 << ((hash >>> shift) & MASK);
+		}
+
+		private int index(int bit) {
+			return 2 * Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		Object find(Object key, int hash, int shift) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			int i = index(bit);
+			Object k = array[i];
+			if (k == null) {
+				return ((Node) array[i + 1]).find(key, hash, shift + BITS);
+			}
+			return key.equals(k) ? array[i + 1] : null;
+		}
+
+		@Override
+		Node put(Object owner, Object key, int hash, Object value, int shift, Change change) {
+			int bit = bit(hash, shift);
+			int i = index(bit);
+			if ((bitmap & bit) == 0) {
+				Object[] grown = new Object[array.length + 2];
+				System.arraycopy(array, 0, grown, 0, i);
+				grown[i] = key;
+				grown[i + 1] = value;
+				System.arraycopy(array, i, grown, i + 2, array.length - i);
+				if (this.owner == owner) {
+					bitmap |= bit;
+					array = grown;
+					return this;
+				}
+				return new BitmapNode(owner, bitmap | bit, grown);
+			}
+
+			Object k = array[i];
+			Object v = array[i + 1];
+			if (k == null) {
+				Node child = ((Node) v).put(owner, key, hash, value, shift + BITS, change);
+				return child == v ? this : with(owner, i, null, child);
+			}
+			if (key.equals(k)) {
+				change.found = true;
+				change.old = v;
+				return v == value ? this : with(owner, i, k, value);
+			}
+			// Two keys share this position: move both one level down
+			return with(owner, i, null, pair(owner, k, hash(k), v, key, hash, value, shift + BITS));
+		}
+
+		@Override
+		Node remove(Object owner, Object key, int hash, int shift, Change change) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			int i = index(bit);
+			Object k = array[i];
+			Object v = array[i + 1];
+			if (k == null) {
+				Node child = ((Node) v).remove(owner, key, hash, shift + BITS, change);
+				if (child == v) {
+					return this;
+				}
+				if (child == null) {
+					return without(owner, bit, i);
+				}
+				Object sole = child.soleKey();
+				// A child left with one entry is folded into this node
+				return sole != null ? with(owner, i, sole, child.soleValue()) : with(owner, i, null, child);
+			}
+			if (!key.equals(k)) {
+				return this;
+			}
+			change.found = true;
+			change.old = v;
+			return without(owner, bit, i);
+		}
+
+		@Override
+		Object soleKey() {
+			return array.length == 2 ? array[0] : null;
+		}
+
+		@Override
+		Object soleValue() {
+			return array[1];
+		}
+
+		private BitmapNode with(Object owner, int i, Object key, Object value) {
+			BitmapNode node = this.owner == owner ? this : new BitmapNode(owner, bitmap, array.clone());
+			node.array[i] = key;
+			node.array[i + 1] = value;
+			return node;
+		}
+
+		private BitmapNode without(Object owner, int bit, int i) {
+			if (bitmap == bit) {
+				return null;
+			}
+			Object[] shrunk = new Object[array.length - 2];
+			System.arraycopy(array, 0, shrunk, 0, i);
+			System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+			if (this.owner == owner) {
+				bitmap ^= bit;
+				array = shrunk;
+				return this;
+			}
+			return new BitmapNode(owner, bitmap ^ bit, shrunk);
+		}
+
+		/**
+		 * Creates the node holding two keys whose hashes agree up to a level.
+		 */
+		private static Node pair(Object owner, Object key1, int hash1, Object value1, Object key2, int hash2,
+				Object value2, int shift) {
+			if (shift >= 32) {
+				return new CollisionNode(owner, new Object[] { key1, value1, key2, value2 });
+			}
+			int index1 = (hash1 >>> shift) & MASK;
+			int index2 = (hash2 >>> shift) & MASK;
+			if (index1 == index2) {
+				Node child = pair(owner, key1, hash1, value1, key2, hash2, value2, shift + BITS);
+				return new BitmapNode(owner, 1 << index1, new Object[] { null, child });
+			}
+			Object[] array = index1 < index2 ? new Object[] { key1, value1, key2, value2 }
+					: new Object[] { key2, value2, key1, value1 };
+			return new BitmapNode(owner, (1 << index1) | (1 << index2), array);
+		}
+	}
+
+	/**
+	 * Node for keys whose hashes are equal in all 32 bits.
+	 */
+	private static final class CollisionNode extends Node {
+		Object[] array; // key, value pairs
+
+		CollisionNode(Object owner, Object[] array) {
+			super(owner);
+			this.array = array;
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		Object find(Object key, int hash, int shift) {
+			int i = indexOf(key);
+			return i < 0 ? null : array[i + 1];
+		}
+
+		@Override
+		Node put(Object owner, Object key, int hash, Object value, int shift, Change change) {
+			int i = indexOf(key);
+			Object[] changed;
+			if (i >= 0) {
+				change.found = true;
+				change.old = array[i + 1];
+				if (array[i + 1] == value) {
+					return this;
+				}
+				changed = array.clone();
+				changed[i + 1] = value;
+			} else {
+				changed = Arrays.copyOf(array, array.length + 2);
+				changed[array.length] = key;
+				changed[array.length + 1] = value;
+			}
+			return replace(owner, changed);
+		}
+
+		@Override
+		Node remove(Object owner, Object key, int hash, int shift, Change change) {
+			int i = indexOf(key);
+			if (i < 0) {
+				return this;
+			}
+			change.found = true;
+			change.old = array[i + 1];
+			if (array.length == 2) {
+				return null;
+			}
+			Object[] shrunk = new Object[array.length - 2];
+			System.arraycopy(array, 0, shrunk, 0, i);
+			System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+			return replace(owner, shrunk);
+		}
+
+		private Node replace(Object owner, Object[] changed) {
+			if (this.owner == owner) {
+				array = changed;
+				return this;
+			}
+			return new CollisionNode(owner, changed);
+		}
+
+		@Override
+		Object soleKey() {
+			return array.length == 2 ? array[0] : null;
+		}
+
+		@Override
+		Object soleValue() {
+			return array[1];
+		}
+	}
+}
@@ -26,6 +26,27 @@ public class Player {
 		this.boardColor = playerNumber == 1 ? new Color(70, 130, 180) : new Color(60, 179, 113);
 	}
 
+	/**
+	 * Creates a detached copy of another player (used when forking a game state).
+	 * 
+	 * @param source The player to copy
+	 */
+	private Player(Player source) {
+		this.name = source.name;
+		this.playerNumber = source.playerNumber;
+		this.score = source.score;
+		this.boardColor = source.boardColor;
+	}
+
+	/**
+	 * Creates a copy of this player with the same name, number and score.
+	 * 
+	 * @return A new, independent Player
+	 */
+	public Player copy() {
+		return new Player(this);
+	}
+
 	/**
 	 * Adds points to the player's score.
 	 * 
@@ -0,0 +1,322 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Per-player standings over the game history: games played, wins, best and
+ * average score, and an Elo rating.
+ *
+ * Players are keyed by their normalized name (trimmed, lower-case, single
+ * spaces), so "Dana" and " dana " are the same player; the spelling of their
+ * latest game is shown. In each game the two players are rated against each
+ * other by score: the higher score wins, equal scores are a draw. New players
+ * start at {@value #INITIAL_RATING} and move faster for their first
+ * {@value #PROVISIONAL_GAMES} games.
+ *
+ * Each finished game updates two entries in O(1) plus O(log n) to keep them in
+ * rating order, so {@link #getLeaderboard(int)} reads the top players without
+ * sorting. Like {@link HistoryAggregates}, the index is kept in a small file
+ * beside the history (see {@link HistoryManager#getPlayerIndex()}) and rebuilt
+ * from the games, in game order, only if the history changed some other way.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class PlayerIndex {
+	/** Rating of a player's first game. */
+	public static final int INITIAL_RATING = 1500;
+	/** Games a player's rating moves faster for. */
+	public static final int PROVISIONAL_GAMES = 10;
+
+	private static final double PROVISIONAL_K = 40;
+	private static final double K = 20;
+	private static final int FORMAT_VERSION = 1;
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	/**
+	 * Standings of one player.
+	 */
+	public static final class Entry {
+		private final String key;
+		private String name;
+		private int games;
+		private int wins;
+		private long scoreSum;
+		private int bestScore;
+		private double rating = INITIAL_RATING;
+
+		private Entry(String key, String name) {
+			this.key = key;
+			this.name = name;
+		}
+
+		private Entry copy() {
+			Entry copy = new Entry(key, name);
+			copy.games = games;
+			copy.wins = wins;
+			copy.scoreSum = scoreSum;
+			copy.bestScore = bestScore;
+			copy.rating = rating;
+			return copy;
+		}
+
+		/**
+		 * Gets the player's name as spelled in their latest game.
+		 *
+		 * @return The name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public int getGames() {
+			return games;
+		}
+
+		/**
+		 * Gets the number of games the player outscored their opponent.
+		 *
+		 * @return Win count
+		 */
+		public int getWins() {
+			return wins;
+		}
+
+		public int getBestScore() {
+			return bestScore;
+		}
+
+		public double getAverageScore() {
+			return games == 0 ? 0 : (double) scoreSum / games;
+		}
+
+		public double getRating() {
+			return rating;
+		}
+	}
+
+	// Highest rating first; ties by more games, then by name
+	private static final Comparator<Entry> RANKING = Comparator.comparingDouble((Entry e) -> -e.rating)
+			.thenComparing(e -> -e.games).thenComparing(e -> e.key);
+
+	private final Map<String, Entry> players = new HashMap<>();
+	private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+	private long sourceSize; // size of the history storage this index matches
+	private long sourceModified; // and its modification time
+
+	/**
+	 * Builds the index of a list of games.
+	 *
+	 * @param history The games, oldest first
+	 * @return A new index
+	 */
+	public static PlayerIndex of(List<GameHistory> history) {
+		PlayerIndex index = new PlayerIndex();
+		for (GameHistory game : history) {
+			index.add(game);
+		}
+		return index;
+	}
+
+	/**
+	 * Normalizes a player name into an index key.
+	 *
+	 * @param name The name
+	 * @return The key; empty for a null or blank name
+	 */
+	public static String normalize(String name) {
+		return name == null ? "" : SPACES.matcher(name.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Adds one finished game: both players' standings and ratings are updated.
+	 * A game whose players have the same name only counts once and is not
+	 * rated.
+	 *
+	 * @param game The game to add
+	 */
+	public synchronized void add(GameHistory game) {
+		Entry first = entry(game.getPlayer1Name());
+		Entry second = entry(game.getPlayer2Name());
+		int score1 = game.getPlayer1Score();
+		int score2 = game.getPlayer2Score();
+		if (first == second) {
+			update(first, game.getPlayer1Name(), score1, false, first.rating);
+			return;
+		}
+
+		// Expected result of player 1 against player 2, before either changes
+		double expected = 1 / (1 + Math.pow(10, (second.rating - first.rating) / 400));
+		double result = score1 > score2 ? 1 : score1 < score2 ? 0 : 0.5;
+		double newRating1 = first.rating + kFactor(first) * (result - expected);
+		double newRating2 = second.rating + kFactor(second) * (expected - result);
+		update(first, game.getPlayer1Name(), score1, score1 > score2, newRating1);
+		update(second, game.getPlayer2Name(), score2, score2 > score1, newRating2);
+	}
+
+	private static double kFactor(Entry entry) {
+		return entry.games < PROVISIONAL_GAMES ? PROVISIONAL_K : K;
+	}
+
+	private Entry entry(String name) {
+		String key = normalize(name);
+		Entry entry = players.get(key);
+		if (entry == null) {
+			entry = new Entry(key, name == null ? "" : name.trim());
+			players.put(key, entry);
+			ranking.add(entry);
+		}
+		return entry;
+	}
+
+	private void update(Entry entry, String name, int score, boolean won, double rating) {
+		// The ranking is ordered by these fields, so the entry leaves it while they change
+		ranking.remove(entry);
+		if (name != null && !name.trim().isEmpty()) {
+			entry.name = name.trim();
+		}
+		entry.bestScore = entry.games == 0 ? score : Math.max(entry.bestScore, score);
+		entry.games++;
+		entry.scoreSum += score;
+		if (won) {
+			entry.wins++;
+		}
+		entry.rating = rating;
+		ranking.add(entry);
+	}
+
+	/**
+	 * Gets the highest-rated players.
+	 *
+	 * @param count Number of players wanted
+	 * @return Up to count players, best first; copies that do not change
+	 */
+	public synchronized List<Entry> getLeaderboard(int count) {
+		List<Entry> top = new ArrayList<>(Math.min(Math.max(count, 0), ranking.size()));
+		Iterator<Entry> it = ranking.iterator();
+		while (top.size() < count && it.hasNext()) {
+			top.add(it.next().copy());
+		}
+		return top;
+	}
+
+	/**
+	 * Looks a player up by name (see {@link #normalize(String)}).
+	 *
+	 * @param name The player's name
+	 * @return A copy of the player's standings, or null if they have not played
+	 */
+	public synchronized Entry get(String name) {
+		Entry entry = players.get(normalize(name));
+		return entry == null ? null : entry.copy();
+	}
+
+	/**
+	 * Gets the number of players.
+	 *
+	 * @return Player count
+	 */
+	public synchronized int getPlayerCount() {
+		return players.size();
+	}
+
+	/**
+	 * Checks if this index was built from the history storage as it is now.
+	 * Both the size and the modification time must match.
+	 */
+	synchronized boolean matchesSource(long size, long modified) {
+		return sourceSize == size && sourceModified == modified;
+	}
+
+	/**
+	 * Records the size and modification time of the history storage this
+	 * index matches.
+	 */
+	synchronized void setSource(long size, long modified) {
+		this.sourceSize = size;
+		this.sourceModified = modified;
+	}
+
+	/**
+	 * Writes the index to a file, replacing it in one step.
+	 *
+	 * @param file The file to write
+	 * @return true if successful, false otherwise
+	 */
+	public synchronized boolean save(Path file) {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (CsvWriter out = new CsvWriter(
+					new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8))) {
+				out.field("version").field(FORMAT_VERSION).endRecord();
+				out.field("source").field(String.valueOf(sourceSize)).field(String.valueOf(sourceModified))
+						.endRecord();
+				for (Entry entry : players.values()) {
+					out.field(entry.name).field(entry.games).field(entry.wins).field(String.valueOf(entry.scoreSum))
+							.field(entry.bestScore).field(String.valueOf(entry.rating)).endRecord();
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error saving player index: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #save(Path)}.
+	 *
+	 * @param file The file to read
+	 * @return The index, or null if the file is missing or unreadable
+	 */
+	public static PlayerIndex load(Path file) {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		PlayerIndex index = new PlayerIndex();
+		try (CsvReader csv = new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			if (!csv.next() || !"version".equals(csv.get(0)) || csv.getInt(1) != FORMAT_VERSION) {
+				return null;
+			}
+			if (!csv.next() || !"source".equals(csv.get(0))) {
+				return null;
+			}
+			index.sourceSize = Long.parseLong(csv.get(1));
+			// Files without a time never match, so they are rebuilt once
+			index.sourceModified = csv.getFieldCount() > 2 ? Long.parseLong(csv.get(2)) : -1;
+			while (csv.next()) {
+				if (csv.isBlankRecord()) {
+					continue;
+				}
+				Entry entry = new Entry(normalize(csv.get(0)), csv.get(0));
+				entry.games = csv.getInt(1);
+				entry.wins = csv.getInt(2);
+				entry.scoreSum = Long.parseLong(csv.get(3));
+				entry.bestScore = csv.getInt(4);
+				entry.rating = Double.parseDouble(csv.get(5));
+				index.players.put(entry.key, entry);
+				index.ranking.add(entry);
+			}
+			return index;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Ignoring unreadable player index: " + e.getMessage());
+			return null;
+		}
+	}
+}
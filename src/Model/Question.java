@@ -83,13 +83,13 @@ public class Question {
 	public String getOption(int optionNum) {
 		switch (optionNum) {
 		case 1:
-			return option1;
+			return getOption1();
 		case 2:
-			return option2;
+			return getOption2();
 		case 3:
-			return option3;
+			return getOption3();
 		case 4:
-			return option4;
+			return getOption4();
 		default:
 			return "";
 		}
@@ -102,11 +102,11 @@ public class Question {
 	 * @return true if answer is correct
 	 */
 	public boolean isCorrect(int answerNum) {
-		return answerNum == correctAnswer;
+		return answerNum == getCorrectAnswer();
 	}
 
 	@Override
 	public String toString() {
-		return "Question #" + id + " [" + level + "]: " + questionText;
+		return "Question #" + getId() + " [" + getLevel() + "]: " + getQuestionText();
 	}
 }
\ No newline at end of file
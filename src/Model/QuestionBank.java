@@ -1,7 +1,12 @@
 package Model;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import Patterns.Observer.QuestionBankObserver;
 
 /**
  * Manages the question bank loaded from CSV file. Provides methods to retrieve
@@ -11,30 +16,55 @@ import java.util.*;
  * - Mixed difficulty distribution per game level
  * - No-repeat question tracking per game session
  * - EXPERT questions support (Iteration 3+)
+ * - Hash indexes by ID and by normalized question text, so lookups, CRUD and
+ *   duplicate checks are O(1) regardless of bank size (Iteration 4)
+ * - O(1) no-repeat dealing through per-level shuffled decks (see
+ *   {@link QuestionDealer})
+ * - Streaming RFC 4180 CSV parsing and writing (see {@link CsvReader}), so
+ *   quoted commas, quotes and line breaks round-trip correctly
+ * - Edits are appended to a change journal and compacted into the CSV
+ *   periodically (see {@link QuestionJournal})
+ * - Startup maps a compiled binary pack of the CSV and decodes question text
+ *   lazily (see {@link QuestionPack})
+ * - Incrementally maintained full-text search (see
+ *   {@link QuestionSearchIndex})
+ * - Reloads the CSV when it is changed outside the game (see {@link #reload()}
+ *   and {@link CatalogWatcher})
+ * - Thread-safe: readers use an immutable {@link QuestionSnapshot} published
+ *   through a volatile reference; writers publish a new one that shares all
+ *   but the edited trie nodes with the last, so an edit stays O(log n), and
+ *   every game deals from its own {@link QuestionDealer}
  *
  * @author Team Rhino
  * @version 3.0
  */
 public class QuestionBank {
-	private List<Question> easyQuestions;
-	private List<Question> mediumQuestions;
-	private List<Question> hardQuestions;
-	private List<Question> expertQuestions;
+	// Current questions. Readers use the snapshot without locking; writers
+	// (synchronized on the bank) build a new snapshot and publish it here.
+	private volatile QuestionSnapshot snapshot;
+
+	private final List<QuestionBankObserver> observers;
+	private QuestionSearchIndex searchIndex; // built on first search
+
+	private final QuestionDealer dealer; // shared dealer behind getRandomQuestionMixed
+	private final Random random;
 
-	private Set<Integer> usedQuestionIds; // Track used questions in current game
-	private Random random;
+	private static final String CSV_FILE = "src/Data/questions.csv";
 
-	private static final String CSV_FILE = "src/DATA/questions.csv";
+	private QuestionJournal journal; // Persists edits as small appends
+	private volatile long loadedCsvModified; // CSV modification time the snapshot reflects
 
 	// Singleton instance
 	private static QuestionBank instance;
 
 	/**
-	 * Gets the singleton instance of QuestionBank.
+	 * Gets the singleton instance of QuestionBank. The first call loads the
+	 * questions; {@link GameDataLoader} makes that call on a background thread at
+	 * startup.
 	 *
 	 * @return The QuestionBank instance
 	 */
-	public static QuestionBank getInstance() {
+	public static synchronized QuestionBank getInstance() {
 		if (instance == null) {
 			instance = new QuestionBank();
 		}
@@ -45,30 +75,63 @@ public class QuestionBank {
 	 * Creates a new QuestionBank and loads questions from CSV.
 	 */
 	private QuestionBank() {
-		this.easyQuestions = new ArrayList<>();
-		this.mediumQuestions = new ArrayList<>();
-		this.hardQuestions = new ArrayList<>();
-		this.expertQuestions = new ArrayList<>();
-		this.usedQuestionIds = new HashSet<>();
+		this.snapshot = QuestionSnapshot.EMPTY;
+		this.observers = new CopyOnWriteArrayList<>();
 		this.random = new Random();
+		this.dealer = new QuestionDealer(this, random);
 		loadQuestionsFromCSV();
 	}
 
 	/**
-	 * Resets the used questions tracker for a new game. Call this at the start of
-	 * each game.
+	 * Gets the current immutable snapshot of the bank. It never changes; later
+	 * edits publish a new snapshot.
+	 *
+	 * @return The current snapshot
+	 */
+	public QuestionSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Creates a dealer for one game. Each game deals from its own dealer, so
+	 * concurrent games (and simulations) never share no-repeat state.
+	 *
+	 * @return A new dealer over this bank
+	 */
+	public QuestionDealer newDealer() {
+		return new QuestionDealer(this, new Random());
+	}
+
+	/**
+	 * Creates a dealer for one game with a fixed seed. For the same bank
+	 * snapshot, the same seed deals the same questions in the same order.
+	 *
+	 * @param seed Seed of the game's dealing stream
+	 * @return A new dealer over this bank
+	 */
+	public QuestionDealer newDealer(long seed) {
+		return new QuestionDealer(this, new Random(seed));
+	}
+
+	/**
+	 * Resets the used questions tracker of the shared dealer (see
+	 * {@link #getRandomQuestionMixed}).
 	 */
 	public void resetUsedQuestions() {
-		usedQuestionIds.clear();
+		synchronized (dealer) {
+			dealer.reset();
+		}
 	}
 
 	/**
-	 * Marks a question as used in the current game.
+	 * Marks a question as used by the shared dealer.
 	 *
 	 * @param questionId The ID of the question to mark as used
 	 */
 	public void markQuestionUsed(int questionId) {
-		usedQuestionIds.add(questionId);
+		synchronized (dealer) {
+			dealer.markUsed(questionId);
+		}
 	}
 
 	/**
@@ -78,271 +141,316 @@ public class QuestionBank {
 	private void loadQuestionsFromCSV() {
 		// Try multiple possible locations for the CSV file
 		String[] possiblePaths = {
-				CSV_FILE, // src/DATA/questions.csv
-				"DATA/questions.csv", // From src folder
-				"src/DATA/questions.csv", // From project root
+				CSV_FILE, // src/Data/questions.csv (from project root)
+				"Data/questions.csv", // From src folder
+				"../" + CSV_FILE, // From bin folder
 				"questions.csv", // Fallback to root
 				"../questions.csv" // Parent directory fallback
 		};
 
-		BufferedReader reader = null;
-		boolean fileFound = false;
-
+		File csvFile = null;
 		for (String path : possiblePaths) {
-			try {
-				File file = new File(path);
-				if (file.exists()) {
-					reader = new BufferedReader(new FileReader(file));
-					fileFound = true;
-					System.out.println("Found questions.csv at: " + path);
-					break;
-				}
-			} catch (FileNotFoundException e) {
-				// Try next path
+			File file = new File(path);
+			if (file.exists()) {
+				csvFile = file;
+				System.out.println("Found questions.csv at: " + path);
+				break;
 			}
 		}
 
-		if (!fileFound) {
+		journal = new QuestionJournal(csvFile != null ? csvFile.toPath() : new File(CSV_FILE).toPath());
+		loadedCsvModified = csvFile != null ? csvFile.lastModified() : 0;
+
+		// Stage everything in one builder and publish a single snapshot
+		QuestionSnapshot.Builder builder = null;
+		if (csvFile == null) {
 			System.err.println("Warning: questions.csv not found. Loading default questions.");
-			loadDefaultQuestions();
-			return;
+		} else {
+			builder = loadQuestionsFromPack(csvFile);
+			if (builder == null) {
+				builder = parseQuestionsFromCSV(csvFile);
+			}
+		}
+		if (builder == null) {
+			builder = loadDefaultQuestions();
 		}
+		replayJournal(builder);
 
-		try {
-			String line;
-			boolean firstLine = true;
+		if (csvFile != null) {
+			System.out.println("Loaded questions: " + getTotalQuestions() + " total");
+			System.out.println("  Easy: " + snapshot.getLevelCount(0));
+			System.out.println("  Medium: " + snapshot.getLevelCount(1));
+			System.out.println("  Hard: " + snapshot.getLevelCount(2));
+			System.out.println("  Expert: " + snapshot.getLevelCount(3));
+		}
+	}
 
-			while ((line = reader.readLine()) != null) {
-				// Skip header line
-				if (firstLine) {
-					firstLine = false;
-					continue;
+	/**
+	 * Loads questions from the compiled pack next to the CSV file, compiling it
+	 * first if the CSV is newer. Questions are mapped lazily: their text is only
+	 * decoded when they are dealt or displayed.
+	 *
+	 * @return The loaded questions, or null if the pack is unavailable
+	 */
+	private QuestionSnapshot.Builder loadQuestionsFromPack(File csvFile) {
+		try {
+			QuestionPack pack = QuestionPack.openFor(csvFile.toPath());
+			QuestionSnapshot.Builder builder = new QuestionSnapshot.Builder();
+			for (int level = 0; level < QuestionDealer.LEVELS.length; level++) {
+				for (int i = 0; i < pack.getLevelCount(level); i++) {
+					builder.put(pack.getQuestion(level, i));
 				}
+			}
+			return builder;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Question pack unavailable, reading CSV instead: " + e.getMessage());
+			return null;
+		}
+	}
 
+	/**
+	 * Parses every question from the CSV file.
+	 *
+	 * @return The parsed questions, or null if the file could not be read
+	 */
+	private QuestionSnapshot.Builder parseQuestionsFromCSV(File csvFile) {
+		QuestionSnapshot.Builder builder = new QuestionSnapshot.Builder();
+		try (CsvReader csv = new CsvReader(
+				new InputStreamReader(new FileInputStream(csvFile), StandardCharsets.UTF_8))) {
+			// Skip header line
+			csv.next();
+
+			while (csv.next()) {
 				// Skip empty lines
-				if (line.trim().isEmpty()) {
+				if (csv.isBlankRecord()) {
 					continue;
 				}
 
 				try {
-					Question question = parseQuestionFromLine(line);
+					Question question = parseQuestion(csv);
 					if (question != null) {
-						addQuestionToList(question);
+						builder.put(question);
 					}
-				} catch (Exception e) {
-					System.err.println("Error parsing question line: " + line);
-					e.printStackTrace();
+				} catch (RuntimeException e) {
+					System.err.println("Error parsing question on line " + csv.getLineNumber() + ": " + e.getMessage());
 				}
 			}
-
-			reader.close();
-
-			System.out.println("Loaded questions: " + getTotalQuestions() + " total");
-			System.out.println("  Easy: " + easyQuestions.size());
-			System.out.println("  Medium: " + mediumQuestions.size());
-			System.out.println("  Hard: " + hardQuestions.size());
-			System.out.println("  Expert: " + expertQuestions.size()); // ✅ FIXED
+			return builder;
 
 		} catch (IOException e) {
 			System.err.println("Error reading questions file: " + e.getMessage());
-			loadDefaultQuestions();
+			return null;
 		}
 	}
 
 	/**
-	 * Parses a question from a CSV line.
+	 * Reloads the questions CSV after it was changed outside the game. The file
+	 * is parsed without holding the bank lock; the journal is then replayed on
+	 * top and the result published as one new snapshot, so readers and games in
+	 * progress switch over atomically. Observers are told about each question
+	 * that was added, changed or removed.
+	 *
+	 * @return true if a new snapshot was published
 	 */
-	private Question parseQuestionFromLine(String line) {
-		// Remove carriage returns
-		line = line.replace("\r", "");
-
-		// Split CSV safely (supports quoted commas)
-		String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-		if (parts.length < 8) {
-			System.err.println("Invalid question format (expected 8 fields): " + line);
-			return null;
+	public boolean reload() {
+		File csvFile = journal.getSnapshotPath().toFile();
+		long modified = csvFile.lastModified();
+		if (modified == 0 || modified == loadedCsvModified) {
+			return false; // missing, or already loaded (e.g. our own compaction)
 		}
 
-		try {
-			int id = Integer.parseInt(parts[0].trim());
-			String questionText = parts[1].trim().replace("\"", "");
-			String option1 = parts[2].trim().replace("\"", "");
-			String option2 = parts[3].trim().replace("\"", "");
-			String option3 = parts[4].trim().replace("\"", "");
-			String option4 = parts[5].trim().replace("\"", "");
-			int correctAnswer = Integer.parseInt(parts[6].trim());
-			String level = parts[7].trim().replace("\"", "").toUpperCase();
-
-			return new Question(id, questionText, option1, option2, option3, option4, correctAnswer, level);
+		QuestionSnapshot.Builder builder = loadQuestionsFromPack(csvFile);
+		if (builder == null) {
+			builder = parseQuestionsFromCSV(csvFile);
+		}
+		if (builder == null) {
+			return false;
+		}
 
-		} catch (NumberFormatException e) {
-			System.err.println("Error parsing question numbers: " + line);
-			return null;
+		QuestionSnapshot old;
+		QuestionSnapshot updated;
+		synchronized (this) {
+			if (csvFile.lastModified() != modified) {
+				return false; // changed again while parsing; the next reload picks it up
+			}
+			// Edits made since the file was written are in the journal
+			journal.replay(builder::put, builder::remove);
+			old = snapshot;
+			updated = builder.build(old.getVersion() + 1);
+			snapshot = updated;
+			loadedCsvModified = modified;
+			notifyDifferences(old, updated);
 		}
+		System.out.println("Reloaded questions: " + updated.size() + " total");
+		return true;
 	}
 
 	/**
-	 * Adds a question to the appropriate difficulty list.
+	 * Notifies observers of every question that differs between two snapshots.
 	 */
-	private void addQuestionToList(Question question) {
-		String level = question.getLevel().toUpperCase();
+	private void notifyDifferences(QuestionSnapshot old, QuestionSnapshot updated) {
+		for (Question question : old.getAllQuestions()) {
+			if (updated.findById(question.getId()) == null) {
+				notifyQuestionChanged(question, null);
+			}
+		}
+		for (Question question : updated.getAllQuestions()) {
+			Question previous = old.findById(question.getId());
+			if (previous == null || !sameContent(previous, question)) {
+				notifyQuestionChanged(previous, question);
+			}
+		}
+	}
 
-		switch (level) {
-			case "EASY":
-				easyQuestions.add(question);
-				break;
-			case "MEDIUM":
-				mediumQuestions.add(question);
-				break;
-			case "HARD":
-				hardQuestions.add(question);
-				break;
-			case "EXPERT":
-				expertQuestions.add(question);
-				break;
-			default:
-				System.err.println("Unknown difficulty level: " + level);
-				mediumQuestions.add(question); // Default to medium
+	private static boolean sameContent(Question a, Question b) {
+		return a.getCorrectAnswer() == b.getCorrectAnswer() && a.getLevel().equalsIgnoreCase(b.getLevel())
+				&& a.getQuestionText().equals(b.getQuestionText()) && a.getOption1().equals(b.getOption1())
+				&& a.getOption2().equals(b.getOption2()) && a.getOption3().equals(b.getOption3())
+				&& a.getOption4().equals(b.getOption4());
+	}
+
+	/**
+	 * Applies the edits journaled since the last snapshot, publishes the loaded
+	 * questions and compacts the journal if it has grown large.
+	 */
+	private void replayJournal(QuestionSnapshot.Builder builder) {
+		journal.replay(builder::put, builder::remove);
+		snapshot = builder.build(0);
+		if (journal.needsCompaction()) {
+			saveQuestionsToCSV();
 		}
 	}
 
 	/**
-	 * Gets a random question with mixed difficulty based on game level.
-	 * Avoids repeating questions that have been used in the current game.
+	 * Records an edit in the journal (one small append), compacting the journal
+	 * into a new snapshot when it has grown large. Called with the bank lock
+	 * held, so journal records are written in publish order.
 	 *
-	 * @param gameDifficulty The current game difficulty level
-	 * @return Random question with appropriate difficulty mix, or null if none
-	 *         available
+	 * @return true if the edit was persisted
 	 */
-	public Question getRandomQuestionMixed(Difficulty gameDifficulty) {
-		int roll = random.nextInt(100); // 0-99
-		String questionLevel;
-
-		switch (gameDifficulty) {
-			case EASY:
-				// EASY game: mostly EASY/MEDIUM, rare HARD, tiny EXPERT
-				if (roll < 55) {
-					questionLevel = "EASY"; // 55%
-				} else if (roll < 85) {
-					questionLevel = "MEDIUM"; // 30%
-				} else if (roll < 98) {
-					questionLevel = "HARD"; // 13%
-				} else {
-					questionLevel = "EXPERT"; // 2%
-				}
-				break;
-
-			case MEDIUM:
-				// MEDIUM game: mostly MEDIUM, some HARD, a bit EASY, small EXPERT
-				if (roll < 15) {
-					questionLevel = "EASY"; // 15%
-				} else if (roll < 65) {
-					questionLevel = "MEDIUM"; // 50%
-				} else if (roll < 92) {
-					questionLevel = "HARD"; // 27%
-				} else {
-					questionLevel = "EXPERT"; // 8%
-				}
-				break;
-
-			case HARD:
-				// HARD game: mostly HARD, some MEDIUM, rare EASY, meaningful EXPERT
-				if (roll < 8) {
-					questionLevel = "EASY"; // 8%
-				} else if (roll < 25) {
-					questionLevel = "MEDIUM"; // 17%
-				} else if (roll < 80) {
-					questionLevel = "HARD"; // 55%
-				} else {
-					questionLevel = "EXPERT"; // 20%
-				}
-				break;
-
-			default:
-				questionLevel = "MEDIUM";
+	private boolean persistChange(QuestionJournal.Op op, Question question) {
+		boolean saved = op == QuestionJournal.Op.DELETE ? journal.appendDelete(question.getId())
+				: journal.append(op, question);
+		if (saved && journal.needsCompaction()) {
+			saved = saveQuestionsToCSV();
 		}
+		return saved;
+	}
 
-		Question question = getRandomQuestionByLevel(questionLevel);
-
-		// Try to find unused question (max 50 attempts)
-		int attempts = 0;
-		while (question != null && usedQuestionIds.contains(question.getId()) && attempts < 50) {
-			question = getRandomQuestionByLevel(questionLevel);
-			attempts++;
+	/**
+	 * Parses a question from the current CSV record.
+	 */
+	private Question parseQuestion(CsvReader csv) {
+		if (csv.getFieldCount() < 8) {
+			System.err.println("Invalid question format (expected 8 fields) on line " + csv.getLineNumber());
+			return null;
 		}
 
-		// If all questions of this level are used, try other levels
-		if (question != null && usedQuestionIds.contains(question.getId())) {
-			question = getAnyUnusedQuestion();
-		}
+		try {
+			int id = csv.getInt(0);
+			String questionText = csv.get(1).trim();
+			String option1 = csv.get(2).trim();
+			String option2 = csv.get(3).trim();
+			String option3 = csv.get(4).trim();
+			String option4 = csv.get(5).trim();
+			int correctAnswer = csv.getInt(6);
+			String level = csv.get(7).trim().toUpperCase();
+
+			return new Question(id, questionText, option1, option2, option3, option4, correctAnswer, level);
 
-		// Mark as used if found
-		if (question != null) {
-			markQuestionUsed(question.getId());
+		} catch (NumberFormatException e) {
+			System.err.println("Error parsing question numbers: " + e.getMessage());
+			return null;
 		}
+	}
 
-		return question;
+	/**
+	 * Publishes a snapshot with one question added or replaced (a question with
+	 * the same ID and level keeps its slot). O(log n): the new snapshot shares
+	 * everything else with the current one. Caller holds the bank lock.
+	 */
+	private void publishPut(Question question) {
+		QuestionSnapshot current = snapshot;
+		QuestionSnapshot.Builder builder = current.toBuilder();
+		Question old = builder.put(question);
+		snapshot = builder.build(current.getVersion() + 1);
+		notifyQuestionChanged(old, question);
 	}
 
 	/**
-	 * Gets a random question by difficulty level string.
+	 * Publishes a snapshot with one question removed. Caller holds the bank
+	 * lock.
 	 *
-	 * @param level The difficulty level ("EASY", "MEDIUM", "HARD", "EXPERT")
-	 * @return Random question of that level, or null if none available
+	 * @return The removed question, or null if the ID was not found
 	 */
-	private Question getRandomQuestionByLevel(String level) {
-		List<Question> questions;
-
-		switch (level.toUpperCase()) {
-			case "EASY":
-				questions = easyQuestions;
-				break;
-			case "MEDIUM":
-				questions = mediumQuestions;
-				break;
-			case "HARD":
-				questions = hardQuestions; // ✅ FIXED
-				break;
-			case "EXPERT":
-				questions = expertQuestions; // ✅ ADDED
-				break;
-			default:
-				questions = mediumQuestions;
-		}
-
-		if (questions.isEmpty()) {
+	private Question publishRemove(int id) {
+		QuestionSnapshot current = snapshot;
+		if (current.findById(id) == null) {
 			return null;
 		}
+		QuestionSnapshot.Builder builder = current.toBuilder();
+		Question removed = builder.remove(id);
+		snapshot = builder.build(current.getVersion() + 1);
+		notifyQuestionChanged(removed, null);
+		return removed;
+	}
 
-		int index = random.nextInt(questions.size());
-		return questions.get(index);
+	/**
+	 * Registers an observer to be notified of question edits. Observers are
+	 * called on the thread that made the edit, after the new snapshot is
+	 * published.
+	 *
+	 * @param observer The observer to add
+	 */
+	public void addObserver(QuestionBankObserver observer) {
+		observers.add(observer);
 	}
 
 	/**
-	 * Gets any unused question from any difficulty level.
+	 * Unregisters a question edit observer.
 	 *
-	 * @return An unused question, or any question if all are used
+	 * @param observer The observer to remove
 	 */
-	private Question getAnyUnusedQuestion() {
-		List<Question> allQuestions = new ArrayList<>();
-		allQuestions.addAll(easyQuestions);
-		allQuestions.addAll(mediumQuestions);
-		allQuestions.addAll(hardQuestions);
-		allQuestions.addAll(expertQuestions); // ✅ ADDED
+	public void removeObserver(QuestionBankObserver observer) {
+		observers.remove(observer);
+	}
 
-		if (allQuestions.isEmpty()) {
-			return null;
+	private void notifyQuestionChanged(Question oldQuestion, Question newQuestion) {
+		for (QuestionBankObserver observer : observers) {
+			observer.onQuestionChanged(oldQuestion, newQuestion);
 		}
+	}
 
-		for (Question q : allQuestions) {
-			if (!usedQuestionIds.contains(q.getId())) {
-				return q;
-			}
+	/**
+	 * Gets the full-text search index, building it on first use. The index stays
+	 * in sync with later edits.
+	 *
+	 * @return The search index
+	 */
+	public synchronized QuestionSearchIndex getSearchIndex() {
+		// Built under the bank lock so no edit falls between the snapshot read
+		// and the observer registration
+		if (searchIndex == null) {
+			searchIndex = new QuestionSearchIndex(snapshot.getAllQuestions());
+			addObserver(searchIndex);
 		}
+		return searchIndex;
+	}
 
-		// If all used, return random (allows repeats if necessary)
-		return allQuestions.get(random.nextInt(allQuestions.size()));
+	/**
+	 * Gets a random question with mixed difficulty based on game level.
+	 * Avoids repeating questions that have been used since the last
+	 * {@link #resetUsedQuestions()}. Games deal from their own
+	 * {@link #newDealer() dealer} instead.
+	 *
+	 * @param gameDifficulty The current game difficulty level
+	 * @return Random question with appropriate difficulty mix, or null if none
+	 *         available
+	 */
+	public Question getRandomQuestionMixed(Difficulty gameDifficulty) {
+		synchronized (dealer) {
+			return dealer.deal(gameDifficulty);
+		}
 	}
 
 	/**
@@ -352,28 +460,24 @@ public class QuestionBank {
 	 * question level.
 	 */
 	public Question getRandomQuestion(Difficulty difficulty) {
-		List<Question> questions;
+		int level;
 
 		switch (difficulty) {
 			case EASY:
-				questions = easyQuestions;
-				break;
-			case MEDIUM:
-				questions = mediumQuestions;
+				level = 0;
 				break;
 			case HARD:
-				questions = hardQuestions;
+				level = 2;
 				break;
 			default:
-				questions = mediumQuestions;
+				level = 1;
 		}
 
-		if (questions.isEmpty()) {
+		Question question = snapshot.getRandomQuestion(level, random);
+		if (question == null) {
 			System.err.println("No questions available for difficulty: " + difficulty);
-			return null;
 		}
-
-		return questions.get(random.nextInt(questions.size()));
+		return question;
 	}
 
 	/**
@@ -382,7 +486,7 @@ public class QuestionBank {
 	 * @return Total questions
 	 */
 	public int getTotalQuestions() {
-		return easyQuestions.size() + mediumQuestions.size() + hardQuestions.size() + expertQuestions.size(); // ✅ FIXED
+		return snapshot.size();
 	}
 
 	/**
@@ -391,42 +495,39 @@ public class QuestionBank {
 	 * @return List of all questions
 	 */
 	public List<Question> getAllQuestions() {
-		List<Question> allQuestions = new ArrayList<>();
-		allQuestions.addAll(easyQuestions);
-		allQuestions.addAll(mediumQuestions);
-		allQuestions.addAll(hardQuestions);
-		allQuestions.addAll(expertQuestions); // ✅ ADDED
-		return allQuestions;
+		return snapshot.getAllQuestions();
 	}
 
 	/**
 	 * Loads default questions if CSV file is not found.
 	 */
-	private void loadDefaultQuestions() {
+	private QuestionSnapshot.Builder loadDefaultQuestions() {
+		QuestionSnapshot.Builder builder = new QuestionSnapshot.Builder();
+
 		// Easy questions
-		easyQuestions.add(new Question(1, "What does MVC stand for?", "Model View Controller", "Many Virtual Computers",
+		builder.put(new Question(1, "What does MVC stand for?", "Model View Controller", "Many Virtual Computers",
 				"Modern Visual Code", "Multiple Version Control", 1, "EASY"));
 
-		easyQuestions.add(
+		builder.put(
 				new Question(2, "What does HTML stand for?", "Hyper Text Markup Language", "High Tech Modern Language",
 						"Home Tool Markup Language", "Hyperlinks and Text Markup Language", 1, "EASY"));
 
 		// Medium questions
-		mediumQuestions
-				.add(new Question(3, "What is polymorphism in OOP?", "The ability of objects to take multiple forms",
-						"A type of loop", "A design pattern", "A testing method", 1, "MEDIUM"));
+		builder.put(new Question(3, "What is polymorphism in OOP?", "The ability of objects to take multiple forms",
+				"A type of loop", "A design pattern", "A testing method", 1, "MEDIUM"));
 
 		// Hard questions
-		hardQuestions.add(new Question(4, "What is the time complexity of QuickSort in average case?", "O(n log n)",
+		builder.put(new Question(4, "What is the time complexity of QuickSort in average case?", "O(n log n)",
 				"O(n²)", "O(n)", "O(log n)", 1, "HARD"));
 
 		// Expert questions (optional fallback examples)
-		expertQuestions.add(new Question(5, "In Java, what does the 'volatile' keyword guarantee?",
+		builder.put(new Question(5, "In Java, what does the 'volatile' keyword guarantee?",
 				"Visibility of writes across threads", "Mutual exclusion", "Faster execution",
 				"Automatic garbage collection",
 				1, "EXPERT"));
 
-		System.out.println("Loaded " + getTotalQuestions() + " default questions.");
+		System.out.println("Loaded " + builder.size() + " default questions.");
+		return builder;
 	}
 
 	/**
@@ -434,8 +535,8 @@ public class QuestionBank {
 	 *
 	 * @param question The question to add
 	 */
-	public void addQuestion(Question question) {
-		addQuestionToList(question);
+	public synchronized void addQuestion(Question question) {
+		publishPut(question);
 	}
 
 	/**
@@ -444,14 +545,10 @@ public class QuestionBank {
 	 *
 	 * @return true if added successfully
 	 */
-	public boolean addQuestion(String questionText, String opt1, String opt2, String opt3, String opt4,
+	public synchronized boolean addQuestion(String questionText, String opt1, String opt2, String opt3, String opt4,
 			int correctAnswer, Difficulty level) {
 		try {
-			int newId = 1;
-			List<Question> allQuestions = getAllQuestions();
-			if (!allQuestions.isEmpty()) {
-				newId = allQuestions.stream().mapToInt(Question::getId).max().orElse(0) + 1;
-			}
+			int newId = snapshot.getMaxQuestionId() + 1;
 
 			if (isDuplicateQuestion(questionText)) {
 				System.err.println("Error: Question text already exists.");
@@ -467,7 +564,7 @@ public class QuestionBank {
 					level.name().toUpperCase());
 			addQuestion(newQuestion);
 
-			return saveQuestionsToCSV();
+			return persistChange(QuestionJournal.Op.ADD, newQuestion);
 		} catch (Exception e) {
 			System.err.println("Error adding question: " + e.getMessage());
 			return false;
@@ -481,13 +578,20 @@ public class QuestionBank {
 	 * @return true if exists
 	 */
 	public boolean isDuplicateQuestion(String text) {
-		List<Question> all = getAllQuestions();
-		for (Question q : all) {
-			if (q.getQuestionText().trim().equalsIgnoreCase(text.trim())) {
-				return true;
-			}
-		}
-		return false;
+		return snapshot.findIdByText(text) != null;
+	}
+
+	/**
+	 * Checks if another question (not the one with the given ID) already has the
+	 * same text (case-insensitive). Used when editing a question.
+	 *
+	 * @param text      Question text
+	 * @param excludeId ID of the question being edited
+	 * @return true if a different question has this text
+	 */
+	public boolean isDuplicateQuestion(String text, int excludeId) {
+		Integer id = snapshot.findIdByText(text);
+		return id != null && id != excludeId;
 	}
 
 	/**
@@ -505,20 +609,19 @@ public class QuestionBank {
 	}
 
 	/**
-	 * Updates an existing question.
+	 * Updates an existing question. If the level is unchanged the question keeps
+	 * its slot.
 	 *
 	 * @return true if updated successfully
 	 */
-	public boolean updateQuestion(int id, String questionText, String opt1, String opt2, String opt3, String opt4,
-			int correctAnswer, Difficulty level) {
+	public synchronized boolean updateQuestion(int id, String questionText, String opt1, String opt2, String opt3,
+			String opt4, int correctAnswer, Difficulty level) {
 		try {
-			removeQuestion(id);
-
 			Question updatedQuestion = new Question(id, questionText, opt1, opt2, opt3, opt4, correctAnswer,
 					level.name().toUpperCase());
-			addQuestion(updatedQuestion);
+			publishPut(updatedQuestion);
 
-			return saveQuestionsToCSV();
+			return persistChange(QuestionJournal.Op.UPDATE, updatedQuestion);
 		} catch (Exception e) {
 			System.err.println("Error updating question: " + e.getMessage());
 			return false;
@@ -531,11 +634,11 @@ public class QuestionBank {
 	 * @param id The question ID to delete
 	 * @return true if deleted successfully
 	 */
-	public boolean deleteQuestion(int id) {
+	public synchronized boolean deleteQuestion(int id) {
 		try {
-			boolean removed = removeQuestion(id);
-			if (removed) {
-				return saveQuestionsToCSV();
+			Question question = publishRemove(id);
+			if (question != null) {
+				return persistChange(QuestionJournal.Op.DELETE, question);
 			}
 			return false;
 		} catch (Exception e) {
@@ -550,12 +653,8 @@ public class QuestionBank {
 	 * @param id The question ID to remove
 	 * @return true if question was found and removed
 	 */
-	public boolean removeQuestion(int id) {
-		boolean removed = easyQuestions.removeIf(q -> q.getId() == id);
-		removed |= mediumQuestions.removeIf(q -> q.getId() == id);
-		removed |= hardQuestions.removeIf(q -> q.getId() == id);
-		removed |= expertQuestions.removeIf(q -> q.getId() == id); // ✅ ADDED
-		return removed;
+	public synchronized boolean removeQuestion(int id) {
+		return publishRemove(id) != null;
 	}
 
 	/**
@@ -565,53 +664,30 @@ public class QuestionBank {
 	 * @return The question, or null if not found
 	 */
 	public Question findQuestionById(int id) {
-		for (Question q : easyQuestions) {
-			if (q.getId() == id)
-				return q;
-		}
-		for (Question q : mediumQuestions) {
-			if (q.getId() == id)
-				return q;
-		}
-		for (Question q : hardQuestions) {
-			if (q.getId() == id)
-				return q;
-		}
-		for (Question q : expertQuestions) { // ✅ ADDED
-			if (q.getId() == id)
-				return q;
-		}
-		return null;
+		return snapshot.findById(id);
 	}
 
 	/**
-	 * Saves all questions back to CSV file.
+	 * Saves all questions to a new CSV snapshot (written to a temporary file and
+	 * atomically renamed into place) and clears the edit journal.
 	 *
 	 * @return true if save was successful
 	 */
-	public boolean saveQuestionsToCSV() {
-		try (PrintWriter writer = new PrintWriter(new FileWriter(CSV_FILE))) {
-			writer.println("id,question,option1,option2,option3,option4,correct,level");
-
-			List<Question> allQuestions = getAllQuestions();
-			for (Question q : allQuestions) {
-				writer.println(String.format("%d,\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",%d,%s",
-						q.getId(),
-						q.getQuestionText(),
-						q.getOption1(),
-						q.getOption2(),
-						q.getOption3(),
-						q.getOption4(),
-						q.getCorrectAnswer(),
-						q.getLevel()));
-			}
-
-			System.out.println("Saved " + allQuestions.size() + " questions to " + CSV_FILE);
-			return true;
-
-		} catch (IOException e) {
-			System.err.println("Error saving questions: " + e.getMessage());
-			return false;
+	public synchronized boolean saveQuestionsToCSV() {
+		boolean saved = journal.compact(snapshot.getAllQuestions());
+		if (saved) {
+			// The rewritten file is not an outside change: do not reload it
+			loadedCsvModified = journal.getSnapshotPath().toFile().lastModified();
 		}
+		return saved;
+	}
+
+	/**
+	 * Gets the questions CSV file this bank loads and saves.
+	 *
+	 * @return Path of the questions CSV
+	 */
+	public Path getCsvPath() {
+		return journal.getSnapshotPath();
 	}
-}
\ No newline at end of file
+}
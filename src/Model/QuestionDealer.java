@@ -0,0 +1,395 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deals questions without repeats using one lazily shuffled deck per question
+ * level. Each draw picks a random card among the undealt part of the deck and
+ * swaps it to the dealt part (an on-demand Fisher-Yates shuffle), so every
+ * draw is O(1) and no question is dealt twice until the dealer is reset.
+ * Resetting is O(1) as well: it only moves the boundary between the dealt and
+ * undealt parts of each deck. A deck stores only the positions the shuffle has
+ * changed, so a new dealer allocates nothing per question and its first deal
+ * costs the same as any other.
+ *
+ * The question level is rolled with the weights configured for the game
+ * difficulty. If the rolled level has run dry, the roll is repeated over the
+ * levels that still have questions, keeping their relative weights.
+ *
+ * The dealer reads the bank through its published {@link QuestionSnapshot},
+ * so dealing never takes a lock. An edit published since the last deal is
+ * applied to the decks as it stands: added questions are new cards and
+ * removed ones empty slots that are skipped when drawn, so an edit costs O(1)
+ * per dealer. Only when the bank starts a new slot layout (a reload or a
+ * compaction) are the decks rebuilt, carrying over what was dealt, in
+ * O(questions dealt). A dealer belongs to one game and is not itself
+ * thread-safe; simulations of the game only {@link #peek} at it.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionDealer {
+	/** Question levels, in deck order. */
+	static final String[] LEVELS = { "EASY", "MEDIUM", "HARD", "EXPERT" };
+
+	/**
+	 * Percent chance of each question level (EASY, MEDIUM, HARD, EXPERT) per game
+	 * difficulty.
+	 */
+	private static final int[][] LEVEL_WEIGHTS = {
+			{ 55, 30, 13, 2 }, // EASY game: mostly EASY/MEDIUM, rare HARD, tiny EXPERT
+			{ 15, 50, 27, 8 }, // MEDIUM game: mostly MEDIUM, some HARD, a bit EASY, small EXPERT
+			{ 8, 17, 55, 20 } // HARD game: mostly HARD, some MEDIUM, rare EASY, meaningful EXPERT
+	};
+
+	private final QuestionBank bank;
+	private final Random random;
+	private final Deck[] decks;
+	private QuestionSnapshot snapshot; // the snapshot the decks were built from
+
+	/**
+	 * Creates a dealer over the questions of a bank.
+	 *
+	 * @param bank   The question bank to deal from
+	 * @param random Random source for level rolls and draws
+	 */
+	public QuestionDealer(QuestionBank bank, Random random) {
+		this.bank = bank;
+		this.random = random;
+		this.decks = new Deck[LEVELS.length];
+		for (int level = 0; level < LEVELS.length; level++) {
+			decks[level] = new Deck(0);
+		}
+		this.snapshot = null;
+	}
+
+	/**
+	 * Creates an independent copy of this dealer that already excludes every
+	 * question this dealer has dealt. Dealing from the copy never affects this
+	 * dealer, so simulations can deal without using up the live game's pool.
+	 *
+	 * @param random Random source for the copy
+	 * @return The copy
+	 */
+	public QuestionDealer copy(Random random) {
+		QuestionDealer copy = new QuestionDealer(bank, random);
+		copy.snapshot = snapshot;
+		for (int level = 0; level < LEVELS.length; level++) {
+			copy.decks[level] = decks[level].copy();
+		}
+		return copy;
+	}
+
+	/**
+	 * Deals a question with the level mix of the given game difficulty. Never
+	 * repeats a question until {@link #reset()}; once every question has been
+	 * dealt, a random question of the rolled level is returned instead.
+	 *
+	 * @param gameDifficulty The current game difficulty
+	 * @return A question, or null if the bank is empty
+	 */
+	public Question deal(Difficulty gameDifficulty) {
+		QuestionSnapshot questions = syncWithBank();
+		int[] weights = LEVEL_WEIGHTS[gameDifficulty.ordinal()];
+		for (int level = rollLevel(weights, true, questions, random); level >= 0; level = rollLevel(weights, true,
+				questions, random)) {
+			Question question = decks[level].draw(questions, level, random);
+			if (question != null) {
+				return question;
+			}
+			// The deck only had empty slots left and is now used up: roll again
+		}
+
+		// Every question has been dealt: allow repeats
+		int level = rollLevel(weights, false, questions, random);
+		return level < 0 ? null : questions.getRandomQuestion(level, random);
+	}
+
+	/**
+	 * Picks a question with the level mix of {@link #deal}, without dealing it:
+	 * no question is marked as dealt and this dealer's random stream is not
+	 * used. Simulations read the live game's dealer through this instead of
+	 * copying its decks. The question may be one that was already dealt, and
+	 * levels this dealer has used up are skipped only while the bank is
+	 * unchanged since its last deal.
+	 *
+	 * @param gameDifficulty The current game difficulty
+	 * @param random         Random source of the caller
+	 * @return A question, or null if the bank is empty
+	 */
+	public Question peek(Difficulty gameDifficulty, Random random) {
+		QuestionSnapshot questions = bank.getSnapshot();
+		int[] weights = LEVEL_WEIGHTS[gameDifficulty.ordinal()];
+		int level = questions == snapshot ? rollLevel(weights, true, questions, random) : -1;
+		if (level < 0) {
+			level = rollLevel(weights, false, questions, random);
+		}
+		return level < 0 ? null : questions.getRandomQuestion(level, random);
+	}
+
+	/**
+	 * Marks a question as used so it will not be dealt again until reset.
+	 *
+	 * @param questionId ID of the question
+	 */
+	public void markUsed(int questionId) {
+		markUsed(syncWithBank(), questionId);
+	}
+
+	private void markUsed(QuestionSnapshot questions, int questionId) {
+		Question question = questions.findById(questionId);
+		if (question != null) {
+			decks[levelIndex(question.getLevel())].markDealt(questions.getSlot(questionId));
+		}
+	}
+
+	/**
+	 * Makes every question available again.
+	 */
+	public void reset() {
+		for (Deck deck : decks) {
+			deck.reset();
+		}
+	}
+
+	/**
+	 * Rolls a level by weight. With {@code onlyAvailable}, levels whose deck is
+	 * empty are skipped and the remaining weights renormalized.
+	 *
+	 * @return Level index, or -1 if no level qualifies
+	 */
+	private int rollLevel(int[] weights, boolean onlyAvailable, QuestionSnapshot questions, Random random) {
+		int total = 0;
+		for (int level = 0; level < LEVELS.length; level++) {
+			if (qualifies(level, onlyAvailable, questions)) {
+				total += weights[level];
+			}
+		}
+		if (total == 0) {
+			// Only zero-weight levels left (or none at all)
+			for (int level = 0; level < LEVELS.length; level++) {
+				if (qualifies(level, onlyAvailable, questions)) {
+					return level;
+				}
+			}
+			return -1;
+		}
+
+		int roll = random.nextInt(total);
+		for (int level = 0; level < LEVELS.length; level++) {
+			if (qualifies(level, onlyAvailable, questions)) {
+				roll -= weights[level];
+				if (roll < 0) {
+					return level;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private boolean qualifies(int level, boolean onlyAvailable, QuestionSnapshot questions) {
+		return onlyAvailable ? decks[level].remaining > 0 : questions.getLevelCount(level) > 0;
+	}
+
+	/**
+	 * Brings the decks up to date if the bank published a new snapshot since
+	 * they were last used, keeping track of which questions were already dealt.
+	 *
+	 * @return The snapshot the decks now refer to
+	 */
+	private QuestionSnapshot syncWithBank() {
+		QuestionSnapshot current = bank.getSnapshot();
+		if (current == snapshot) {
+			return current;
+		}
+		QuestionSnapshot old = snapshot;
+		snapshot = current;
+		if (old != null && current.getLayoutVersion() == old.getLayoutVersion()) {
+			addNewSlots(old, current);
+		} else {
+			rebuild(old, current);
+		}
+		return current;
+	}
+
+	/**
+	 * Adds the slots appended since the old snapshot of the same layout. A
+	 * question that moved level counts as dealt if it was dealt in its old
+	 * level.
+	 */
+	private void addNewSlots(QuestionSnapshot old, QuestionSnapshot current) {
+		for (int level = 0; level < LEVELS.length; level++) {
+			Deck deck = decks[level];
+			int from = deck.size;
+			deck.grow(current.getSlotCount(level));
+			for (int slot = from; slot < deck.size; slot++) {
+				Question question = current.getQuestion(level, slot);
+				if (question == null) {
+					continue;
+				}
+				Question previous = old.findById(question.getId());
+				if (previous != null
+						&& decks[levelIndex(previous.getLevel())].isDealt(old.getSlot(question.getId()))) {
+					deck.markDealt(slot);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds new decks for a new slot layout, marking the questions dealt from
+	 * the old decks. O(questions dealt): new decks start unshuffled.
+	 */
+	private void rebuild(QuestionSnapshot old, QuestionSnapshot current) {
+		Deck[] oldDecks = decks.clone();
+		for (int level = 0; level < LEVELS.length; level++) {
+			decks[level] = new Deck(current.getSlotCount(level));
+		}
+		if (old == null) {
+			return;
+		}
+		for (int level = 0; level < LEVELS.length; level++) {
+			Deck deck = oldDecks[level];
+			for (int i = 0; i < deck.dealtCount(); i++) {
+				Question question = old.getQuestion(level, deck.dealtSlot(i));
+				if (question != null) {
+					markUsed(current, question.getId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Maps a question level to its deck (unknown levels are stored as MEDIUM).
+	 */
+	static int levelIndex(String level) {
+		for (int i = 0; i < LEVELS.length; i++) {
+			if (LEVELS[i].equalsIgnoreCase(level)) {
+				return i;
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * A deck of the slots of one level. Positions [0, remaining) hold the
+	 * undealt slots, [remaining, size) the dealt ones. A position holds the slot
+	 * of the same number unless the shuffle moved it; only moved positions are
+	 * stored, both ways, so any slot can be dealt in O(1).
+	 */
+	private static final class Deck {
+		private int size;
+		private int remaining;
+		private final Map<Integer, Integer> slotAt; // position -> slot, where they differ
+		private final Map<Integer, Integer> positionOf; // slot -> position, where they differ
+
+		Deck(int size) {
+			this.size = size;
+			this.remaining = size;
+			this.slotAt = new HashMap<>();
+			this.positionOf = new HashMap<>();
+		}
+
+		private Deck(Deck source) {
+			this.size = source.size;
+			this.remaining = source.remaining;
+			this.slotAt = new HashMap<>(source.slotAt);
+			this.positionOf = new HashMap<>(source.positionOf);
+		}
+
+		/**
+		 * Deals a random undealt question. Empty slots met on the way are dealt
+		 * too, so they are not picked again.
+		 *
+		 * @return The question, or null if only empty slots were left
+		 */
+		Question draw(QuestionSnapshot questions, int level, Random random) {
+			while (remaining > 0) {
+				int slot = slotAt(random.nextInt(remaining));
+				markDealt(slot);
+				Question question = questions.getQuestion(level, slot);
+				if (question != null) {
+					return question;
+				}
+			}
+			return null;
+		}
+
+		void markDealt(int slot) {
+			int pos = positionOf(slot);
+			if (pos >= remaining) {
+				return; // already dealt
+			}
+			remaining--;
+			swap(pos, remaining);
+		}
+
+		boolean isDealt(int slot) {
+			return positionOf(slot) >= remaining;
+		}
+
+		/**
+		 * Adds undealt slots after the last one.
+		 */
+		void grow(int newSize) {
+			for (int slot = size; slot < newSize; slot++) {
+				// The new slot sits past the dealt ones: swap it to the undealt part
+				swap(slot, remaining);
+				remaining++;
+			}
+			size = Math.max(size, newSize);
+		}
+
+		void reset() {
+			remaining = size;
+		}
+
+		Deck copy() {
+			return new Deck(this);
+		}
+
+		int dealtCount() {
+			return size - remaining;
+		}
+
+		/**
+		 * Gets a dealt slot.
+		 *
+		 * @param i Index among the dealt slots, below {@link #dealtCount()}
+		 */
+		int dealtSlot(int i) {
+			return slotAt(remaining + i);
+		}
+
+		private int slotAt(int pos) {
+			Integer slot = slotAt.get(pos);
+			return slot != null ? slot : pos;
+		}
+
+		private int positionOf(int slot) {
+			Integer pos = positionOf.get(slot);
+			return pos != null ? pos : slot;
+		}
+
+		private void swap(int a, int b) {
+			if (a != b) {
+				int slotA = slotAt(a);
+				int slotB = slotAt(b);
+				place(a, slotB);
+				place(b, slotA);
+			}
+		}
+
+		private void place(int pos, int slot) {
+			if (pos == slot) {
+				slotAt.remove(pos);
+				positionOf.remove(slot);
+			} else {
+				slotAt.put(pos, slot);
+				positionOf.put(slot, pos);
+			}
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package Model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Append-only change journal for the question bank.
+ *
+ * The bank is persisted as a snapshot CSV file plus a journal file next to it
+ * ({@code questions.csv.journal}). Every add, update or delete appends one
+ * small CSV record to the journal instead of rewriting the snapshot:
+ *
+ * <pre>
+ * ADD,id,question,option1,option2,option3,option4,correct,level
+ * UPDATE,id,question,option1,option2,option3,option4,correct,level
+ * DELETE,id
+ * </pre>
+ *
+ * On load the snapshot is read first and the journal is replayed on top of it.
+ * Once the journal grows past {@link #COMPACT_THRESHOLD} records, the bank is
+ * compacted: a new snapshot is written to a temporary file and atomically
+ * renamed over the old one, then the journal is cleared. Replaying is
+ * idempotent, so a crash between the rename and the journal reset only
+ * replays changes that are already in the snapshot.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionJournal {
+	/** Journal records after which the bank should be compacted. */
+	public static final int COMPACT_THRESHOLD = 500;
+
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final String[] CSV_COLUMNS = { "id", "question", "option1", "option2", "option3", "option4",
+			"correct", "level" };
+
+	/** Kinds of journal records. */
+	public enum Op {
+		ADD, UPDATE, DELETE
+	}
+
+	private final Path snapshotPath;
+	private final Path journalPath;
+	private int recordCount;
+
+	/**
+	 * Creates a journal for a snapshot file. Nothing is read or written until
+	 * {@link #replay} or {@link #append} is called.
+	 *
+	 * @param snapshotPath Path of the questions CSV snapshot
+	 */
+	public QuestionJournal(Path snapshotPath) {
+		this.snapshotPath = snapshotPath.toAbsolutePath().normalize();
+		this.journalPath = Paths.get(this.snapshotPath + JOURNAL_SUFFIX);
+	}
+
+	/**
+	 * Gets the snapshot file this journal belongs to.
+	 *
+	 * @return Snapshot path
+	 */
+	public Path getSnapshotPath() {
+		return snapshotPath;
+	}
+
+	/**
+	 * Replays the journal. Records that cannot be parsed (for example a record
+	 * cut short by a crash) are skipped; a torn last record is removed from the
+	 * file so later appends start on a fresh line.
+	 *
+	 * @param upsert Called with the question of each ADD/UPDATE record
+	 * @param delete Called with the ID of each DELETE record
+	 * @return Number of records applied
+	 */
+	public int replay(Consumer<Question> upsert, IntConsumer delete) {
+		recordCount = 0;
+		if (!Files.exists(journalPath)) {
+			return 0;
+		}
+
+		int applied = 0;
+		try {
+			repairTail();
+			try (CsvReader csv = new CsvReader(
+					new InputStreamReader(Files.newInputStream(journalPath), StandardCharsets.UTF_8))) {
+				while (csv.next()) {
+					if (csv.isBlankRecord()) {
+						continue;
+					}
+					recordCount++;
+					try {
+						if (applyRecord(csv, upsert, delete)) {
+							applied++;
+						} else {
+							System.err.println("Skipping invalid journal record on line " + csv.getLineNumber());
+						}
+					} catch (RuntimeException e) {
+						System.err.println("Skipping invalid journal record on line " + csv.getLineNumber() + ": "
+								+ e.getMessage());
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Error reading question journal: " + e.getMessage());
+		}
+
+		if (applied > 0) {
+			System.out.println("Replayed " + applied + " question changes from " + journalPath.getFileName());
+		}
+		return applied;
+	}
+
+	/**
+	 * Appends an ADD or UPDATE record.
+	 *
+	 * @param op       ADD or UPDATE
+	 * @param question The new state of the question
+	 * @return true if the record was written
+	 */
+	public boolean append(Op op, Question question) {
+		StringWriter line = new StringWriter(128);
+		try {
+			new CsvWriter(line).field(op.name()).field(question.getId()).field(question.getQuestionText())
+					.field(question.getOption1()).field(question.getOption2()).field(question.getOption3())
+					.field(question.getOption4()).field(question.getCorrectAnswer()).field(question.getLevel())
+					.endRecord();
+		} catch (IOException e) {
+			// StringWriter does not throw
+			return false;
+		}
+		return appendLine(line.toString());
+	}
+
+	/**
+	 * Appends a DELETE record.
+	 *
+	 * @param id ID of the deleted question
+	 * @return true if the record was written
+	 */
+	public boolean appendDelete(int id) {
+		return appendLine(Op.DELETE.name() + "," + id + System.lineSeparator());
+	}
+
+	/**
+	 * Checks whether the journal has grown enough to be compacted.
+	 *
+	 * @return true if {@link #compact} should be called
+	 */
+	public boolean needsCompaction() {
+		return recordCount >= COMPACT_THRESHOLD;
+	}
+
+	/**
+	 * Writes a full snapshot of the bank and clears the journal. The snapshot is
+	 * written to a temporary file first and renamed into place, so readers see
+	 * either the old or the new file, never a partial one.
+	 *
+	 * @param questions Every question in the bank
+	 * @return true if the snapshot was written
+	 */
+	public boolean compact(Collection<Question> questions) {
+		Path temp = Paths.get(snapshotPath + TEMP_SUFFIX);
+		try {
+			Path parent = snapshotPath.getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+
+			try (CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(
+					Files.newOutputStream(temp), StandardCharsets.UTF_8)))) {
+				for (String column : CSV_COLUMNS) {
+					writer.field(column);
+				}
+				writer.endRecord();
+				for (Question q : questions) {
+					writer.field(q.getId())
+							.quotedField(q.getQuestionText())
+							.quotedField(q.getOption1())
+							.quotedField(q.getOption2())
+							.quotedField(q.getOption3())
+							.quotedField(q.getOption4())
+							.field(q.getCorrectAnswer())
+							.field(q.getLevel())
+							.endRecord();
+				}
+			}
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+
+			try {
+				Files.move(temp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			// The snapshot now contains every journaled change
+			Files.deleteIfExists(journalPath);
+			recordCount = 0;
+
+			System.out.println("Saved " + questions.size() + " questions to " + snapshotPath);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error saving questions: " + e.getMessage());
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException ignored) {
+			}
+			return false;
+		}
+	}
+
+	private boolean applyRecord(CsvReader csv, Consumer<Question> upsert, IntConsumer delete) {
+		Op op = Op.valueOf(csv.get(0).trim());
+		if (op == Op.DELETE) {
+			if (csv.getFieldCount() < 2) {
+				return false;
+			}
+			delete.accept(csv.getInt(1));
+			return true;
+		}
+		if (csv.getFieldCount() < 9) {
+			return false;
+		}
+		upsert.accept(new Question(csv.getInt(1), csv.get(2), csv.get(3), csv.get(4), csv.get(5), csv.get(6),
+				csv.getInt(7), csv.get(8).trim().toUpperCase()));
+		return true;
+	}
+
+	/**
+	 * Appends one record and forces it to disk, so an acknowledged edit
+	 * survives a crash.
+	 */
+	private boolean appendLine(String line) {
+		try {
+			Path parent = journalPath.getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+				channel.force(false);
+			}
+			recordCount++;
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error writing question journal: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Drops a partially written last record (one without a line break).
+	 */
+	private void repairTail() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+			long length = file.length();
+			long end = length;
+			while (end > 0) {
+				file.seek(end - 1);
+				int b = file.read();
+				if (b == '\n' || b == '\r') {
+					break;
+				}
+				end--;
+			}
+			if (end < length) {
+				System.err.println("Discarding incomplete last record of " + journalPath.getFileName());
+				file.setLength(end);
+			}
+		}
+	}
+}
@@ -0,0 +1,310 @@
+package Model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, memory-mapped question pack.
+ *
+ * The questions CSV is compiled into a binary pack next to it
+ * ({@code questions.pack}) so the bank can start without parsing text. The
+ * pack is memory-mapped and questions are handed out as {@link PackedQuestion}
+ * shells that decode their text only when it is first read (when the question
+ * is dealt or displayed).
+ *
+ * Layout (big-endian):
+ *
+ * <pre>
+ * Header (32 bytes)
+ *   int  magic "QPAK"
+ *   int  format version
+ *   long last-modified time of the CSV the pack was compiled from
+ *   int  question count
+ *   int  level count
+ *   int  heap offset
+ *   int  reserved
+ * Level table (level count x 8 bytes), in {@link QuestionDealer#LEVELS} order
+ *   int  first record
+ *   int  record count
+ * Records (question count x 32 bytes), grouped by level
+ *   int  id
+ *   int  correct answer
+ *   int  heap position of the question text
+ *   int  byte length of the question text and of options 1-4 (5 ints)
+ * String heap
+ *   UTF-8 bytes of each record's five strings, back to back
+ * </pre>
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionPack {
+	private static final int MAGIC = 0x5150414B; // "QPAK"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int LEVEL_ENTRY_SIZE = 8;
+	static final int RECORD_SIZE = 32;
+	static final int STRINGS_PER_RECORD = 5;
+
+	private static final String PACK_EXTENSION = ".pack";
+
+	private final ByteBuffer data;
+	private final int questionCount;
+	private final int[] levelStart;
+	private final int[] levelCount;
+	private final int recordsOffset;
+	private final int heapOffset;
+
+	private QuestionPack(ByteBuffer data) throws IOException {
+		this.data = data;
+		if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+			throw new IOException("Not a question pack (or unsupported version)");
+		}
+		this.questionCount = data.getInt(16);
+		int levels = data.getInt(20);
+		this.heapOffset = data.getInt(24);
+		if (levels != QuestionDealer.LEVELS.length) {
+			throw new IOException("Question pack has " + levels + " levels, expected " + QuestionDealer.LEVELS.length);
+		}
+
+		this.levelStart = new int[levels];
+		this.levelCount = new int[levels];
+		for (int level = 0; level < levels; level++) {
+			levelStart[level] = data.getInt(HEADER_SIZE + level * LEVEL_ENTRY_SIZE);
+			levelCount[level] = data.getInt(HEADER_SIZE + level * LEVEL_ENTRY_SIZE + 4);
+		}
+		this.recordsOffset = HEADER_SIZE + levels * LEVEL_ENTRY_SIZE;
+		if (recordsOffset + (long) questionCount * RECORD_SIZE > heapOffset || heapOffset > data.capacity()) {
+			throw new IOException("Question pack is truncated");
+		}
+	}
+
+	/**
+	 * Gets the pack file that belongs to a questions CSV file.
+	 *
+	 * @param csvPath Path of the questions CSV
+	 * @return Path of the pack next to it
+	 */
+	public static Path packPathFor(Path csvPath) {
+		String name = csvPath.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		String base = dot > 0 ? name.substring(0, dot) : name;
+		return csvPath.resolveSibling(base + PACK_EXTENSION);
+	}
+
+	/**
+	 * Opens the pack for a CSV file, compiling it first if it is missing or
+	 * older than the CSV.
+	 *
+	 * @param csvPath Path of the questions CSV
+	 * @return The mapped pack
+	 * @throws IOException If the pack cannot be compiled or read
+	 */
+	public static QuestionPack openFor(Path csvPath) throws IOException {
+		Path packPath = packPathFor(csvPath);
+		long csvModified = Files.getLastModifiedTime(csvPath).toMillis();
+		if (!isCurrent(packPath, csvModified)) {
+			compile(csvPath, packPath);
+		}
+		return open(packPath);
+	}
+
+	/**
+	 * Memory-maps an existing pack.
+	 *
+	 * @param packPath Path of the pack
+	 * @return The mapped pack
+	 * @throws IOException If the file cannot be read or is not a valid pack
+	 */
+	public static QuestionPack open(Path packPath) throws IOException {
+		try (FileChannel channel = FileChannel.open(packPath, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new QuestionPack(mapped);
+		}
+	}
+
+	/**
+	 * Compiles a questions CSV into a pack. The pack is written to a temporary
+	 * file and atomically renamed into place.
+	 *
+	 * @param csvPath  Path of the questions CSV
+	 * @param packPath Path of the pack to write
+	 * @return Number of questions compiled
+	 * @throws IOException If the CSV cannot be read or the pack written
+	 */
+	public static int compile(Path csvPath, Path packPath) throws IOException {
+		long csvModified = Files.getLastModifiedTime(csvPath).toMillis();
+
+		// Later rows with the same ID replace earlier ones, like the bank does
+		Map<Integer, String[]> rows = new LinkedHashMap<>();
+		Map<Integer, Integer> levels = new LinkedHashMap<>();
+		try (CsvReader csv = new CsvReader(
+				new InputStreamReader(Files.newInputStream(csvPath), StandardCharsets.UTF_8))) {
+			csv.next(); // header
+			while (csv.next()) {
+				if (csv.isBlankRecord()) {
+					continue;
+				}
+				if (csv.getFieldCount() < 8) {
+					System.err.println("Invalid question format (expected 8 fields) on line " + csv.getLineNumber());
+					continue;
+				}
+				try {
+					int id = csv.getInt(0);
+					int correct = csv.getInt(6);
+					String[] row = { Integer.toString(correct), csv.get(1).trim(), csv.get(2).trim(),
+							csv.get(3).trim(), csv.get(4).trim(), csv.get(5).trim() };
+					rows.remove(id);
+					rows.put(id, row);
+					levels.put(id, QuestionDealer.levelIndex(csv.get(7).trim()));
+				} catch (NumberFormatException e) {
+					System.err.println("Error parsing question numbers: " + e.getMessage());
+				}
+			}
+		}
+
+		int levelTotal = QuestionDealer.LEVELS.length;
+		List<List<Integer>> idsByLevel = new ArrayList<>();
+		for (int level = 0; level < levelTotal; level++) {
+			idsByLevel.add(new ArrayList<>());
+		}
+		for (Map.Entry<Integer, Integer> entry : levels.entrySet()) {
+			idsByLevel.get(entry.getValue()).add(entry.getKey());
+		}
+
+		int count = rows.size();
+		int recordsOffset = HEADER_SIZE + levelTotal * LEVEL_ENTRY_SIZE;
+		int heapOffset = recordsOffset + count * RECORD_SIZE;
+		ByteBuffer index = ByteBuffer.allocate(heapOffset).order(ByteOrder.BIG_ENDIAN);
+		ByteArrayOutputStream heap = new ByteArrayOutputStream(Math.max(1024, count * 128));
+
+		index.putInt(MAGIC).putInt(VERSION).putLong(csvModified).putInt(count).putInt(levelTotal)
+				.putInt(heapOffset).putInt(0);
+		int record = 0;
+		for (List<Integer> ids : idsByLevel) {
+			index.putInt(record).putInt(ids.size());
+			record += ids.size();
+		}
+		for (List<Integer> ids : idsByLevel) {
+			for (int id : ids) {
+				String[] row = rows.get(id);
+				index.putInt(id).putInt(Integer.parseInt(row[0])).putInt(heap.size());
+				for (int i = 1; i <= STRINGS_PER_RECORD; i++) {
+					byte[] bytes = row[i].getBytes(StandardCharsets.UTF_8);
+					index.putInt(bytes.length);
+					heap.write(bytes, 0, bytes.length);
+				}
+			}
+		}
+
+		Path temp = Paths.get(packPath + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			index.flip();
+			ByteBuffer heapBytes = ByteBuffer.wrap(heap.toByteArray());
+			while (index.hasRemaining()) {
+				channel.write(index);
+			}
+			while (heapBytes.hasRemaining()) {
+				channel.write(heapBytes);
+			}
+		}
+		try {
+			Files.move(temp, packPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, packPath, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		System.out.println("Compiled " + count + " questions into " + packPath.getFileName());
+		return count;
+	}
+
+	/**
+	 * Checks whether a pack exists and was compiled from the current CSV.
+	 */
+	private static boolean isCurrent(Path packPath, long csvModified) {
+		if (!Files.exists(packPath)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(packPath, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(16);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// keep reading until the header is complete
+			}
+			return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+					&& header.getLong(8) == csvModified;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the total number of questions in the pack.
+	 *
+	 * @return Question count
+	 */
+	public int getQuestionCount() {
+		return questionCount;
+	}
+
+	/**
+	 * Gets the number of questions of a level.
+	 *
+	 * @param level Level index (see {@link QuestionDealer#LEVELS})
+	 * @return Question count
+	 */
+	public int getLevelCount(int level) {
+		return levelCount[level];
+	}
+
+	/**
+	 * Gets a lazy question shell. Only the ID, level and correct answer are read
+	 * now; the texts are decoded on first use.
+	 *
+	 * @param level Level index (see {@link QuestionDealer#LEVELS})
+	 * @param index Index of the question within the level
+	 * @return The question
+	 */
+	public Question getQuestion(int level, int index) {
+		if (index < 0 || index >= levelCount[level]) {
+			throw new IndexOutOfBoundsException("Question " + index + " of level " + QuestionDealer.LEVELS[level]);
+		}
+		int record = recordsOffset + (levelStart[level] + index) * RECORD_SIZE;
+		return new PackedQuestion(this, record, data.getInt(record), data.getInt(record + 4),
+				QuestionDealer.LEVELS[level]);
+	}
+
+	/**
+	 * Decodes the strings of a record (question text, then options 1-4).
+	 */
+	String[] decodeStrings(int record) {
+		String[] strings = new String[STRINGS_PER_RECORD];
+		int position = heapOffset + data.getInt(record + 8);
+		ByteBuffer view = data.duplicate();
+		for (int i = 0; i < STRINGS_PER_RECORD; i++) {
+			int length = data.getInt(record + 12 + i * 4);
+			byte[] bytes = new byte[length];
+			view.position(position);
+			view.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			position += length;
+		}
+		return strings;
+	}
+}
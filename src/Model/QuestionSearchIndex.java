@@ -0,0 +1,336 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import Patterns.Observer.QuestionBankObserver;
+
+/**
+ * Full-text search over the question bank.
+ *
+ * Question text and options are split into lowercase terms (runs of letters
+ * and digits) and kept in an inverted index: a sorted map from term to the
+ * questions containing it. Because the map is sorted, every query term
+ * is matched as a prefix with one range lookup, so results can be shown while
+ * the user is still typing. A query with several terms returns the questions
+ * that match all of them (AND), optionally restricted to one level, together
+ * with per-level counts (facets) of the unrestricted matches.
+ *
+ * The index observes the bank and is updated incrementally on every add,
+ * update and delete. Searches and updates are synchronized, so edits made on
+ * other threads are safe.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionSearchIndex implements QuestionBankObserver {
+	/** Order of search results: by level, then by question ID. */
+	public static final Comparator<Question> RESULT_ORDER = Comparator
+			.comparingInt((Question q) -> QuestionDealer.levelIndex(q.getLevel())).thenComparingInt(Question::getId);
+
+	private final NavigableMap<String, Posting> postings;
+
+	// Questions are stored under dense document numbers so postings and query
+	// results can be plain int arrays and bit sets
+	private Question[] docs;
+	private byte[] docLevels;
+	private String[][] docTerms; // to unindex on update/delete
+	private int docLimit; // document numbers in use are below this
+	private int[] freeDocs;
+	private int freeCount;
+	private final Map<Integer, Integer> docById;
+
+	/**
+	 * Document numbers of the questions containing one term (unordered).
+	 */
+	private static final class Posting {
+		private int[] docs = new int[4];
+		private int size;
+
+		void add(int doc) {
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+			}
+			docs[size++] = doc;
+		}
+
+		void remove(int doc) {
+			for (int i = 0; i < size; i++) {
+				if (docs[i] == doc) {
+					docs[i] = docs[--size];
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Result of a search: the matching questions and per-level facet counts.
+	 */
+	public static final class Result {
+		private final List<Question> questions;
+		private final int[] levelCounts;
+
+		private Result(List<Question> questions, int[] levelCounts) {
+			this.questions = questions;
+			this.levelCounts = levelCounts;
+		}
+
+		/**
+		 * Gets the matching questions, ordered by level and then by ID.
+		 *
+		 * @return Unmodifiable list of questions
+		 */
+		public List<Question> getQuestions() {
+			return questions;
+		}
+
+		/**
+		 * Gets how many questions of a level match the query text, ignoring the
+		 * level filter.
+		 *
+		 * @param level Question level (EASY, MEDIUM, HARD or EXPERT)
+		 * @return Number of matches of that level
+		 */
+		public int getLevelCount(String level) {
+			return levelCounts[QuestionDealer.levelIndex(level)];
+		}
+
+		/**
+		 * Gets how many questions match the query text, ignoring the level filter.
+		 *
+		 * @return Number of matches across all levels
+		 */
+		public int getTotalCount() {
+			int total = 0;
+			for (int count : levelCounts) {
+				total += count;
+			}
+			return total;
+		}
+	}
+
+	/**
+	 * Builds an index over a set of questions.
+	 *
+	 * @param questions The questions to index
+	 */
+	public QuestionSearchIndex(Collection<Question> questions) {
+		int capacity = Math.max(16, questions.size());
+		this.postings = new TreeMap<>();
+		this.docs = new Question[capacity];
+		this.docLevels = new byte[capacity];
+		this.docTerms = new String[capacity][];
+		this.freeDocs = new int[16];
+		this.docById = new HashMap<>(capacity * 2);
+		for (Question question : questions) {
+			add(question);
+		}
+	}
+
+	@Override
+	public synchronized void onQuestionChanged(Question oldQuestion, Question newQuestion) {
+		if (oldQuestion != null) {
+			remove(oldQuestion.getId());
+		}
+		if (newQuestion != null) {
+			add(newQuestion);
+		}
+	}
+
+	/**
+	 * Searches the index.
+	 *
+	 * @param query Search text; each term matches as a word prefix and all terms
+	 *              must match. Blank matches every question.
+	 * @param level Level to restrict the results to, or null for all levels
+	 * @return The matching questions and level facets
+	 */
+	public synchronized Result search(String query, String level) {
+		List<String> terms = tokenize(query == null ? "" : query);
+		BitSet matches = terms.isEmpty() ? allDocs() : match(terms);
+
+		int[] levelCounts = new int[QuestionDealer.LEVELS.length];
+		int wanted = level == null ? -1 : QuestionDealer.levelIndex(level);
+		long[] keys = new long[matches.cardinality()];
+		int count = 0;
+		for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+			int docLevel = docLevels[doc];
+			levelCounts[docLevel]++;
+			if (wanted < 0 || wanted == docLevel) {
+				// Sort key: level, then question ID
+				keys[count++] = ((long) docLevel << 32) | (docs[doc].getId() & 0xFFFFFFFFL);
+			}
+		}
+
+		Arrays.sort(keys, 0, count);
+		List<Question> questions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			questions.add(docs[docById.get((int) keys[i])]);
+		}
+		return new Result(Collections.unmodifiableList(questions), levelCounts);
+	}
+
+	/**
+	 * Checks whether a single question matches a query, with the same rules as
+	 * {@link #search}. Lets views place an edited question without searching
+	 * again.
+	 *
+	 * @param question The question to test
+	 * @param query    Search text
+	 * @param level    Level filter, or null for all levels
+	 * @return true if the question would be in the search results
+	 */
+	public static boolean matches(Question question, String query, String level) {
+		if (level != null && QuestionDealer.levelIndex(level) != QuestionDealer.levelIndex(question.getLevel())) {
+			return false;
+		}
+		List<String> queryTerms = tokenize(query == null ? "" : query);
+		if (queryTerms.isEmpty()) {
+			return true;
+		}
+		List<String> terms = tokenize(question.getQuestionText());
+		for (int option = 1; option <= 4; option++) {
+			terms.addAll(tokenize(question.getOption(option)));
+		}
+		for (String queryTerm : queryTerms) {
+			boolean found = false;
+			for (String term : terms) {
+				if (term.startsWith(queryTerm)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Intersects the prefix matches of every term.
+	 */
+	private BitSet match(List<String> terms) {
+		BitSet result = null;
+		for (String term : terms) {
+			BitSet termDocs = prefixMatches(term);
+			if (result == null) {
+				result = termDocs;
+			} else {
+				result.and(termDocs);
+			}
+			if (result.isEmpty()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private BitSet prefixMatches(String prefix) {
+		BitSet bits = new BitSet(docLimit);
+		for (Posting posting : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+			for (int i = 0; i < posting.size; i++) {
+				bits.set(posting.docs[i]);
+			}
+		}
+		return bits;
+	}
+
+	private BitSet allDocs() {
+		BitSet bits = new BitSet(docLimit);
+		for (int doc = 0; doc < docLimit; doc++) {
+			if (docs[doc] != null) {
+				bits.set(doc);
+			}
+		}
+		return bits;
+	}
+
+	private void add(Question question) {
+		remove(question.getId());
+
+		Set<String> terms = new HashSet<>();
+		terms.addAll(tokenize(question.getQuestionText()));
+		for (int option = 1; option <= 4; option++) {
+			terms.addAll(tokenize(question.getOption(option)));
+		}
+
+		int doc = allocateDoc();
+		docs[doc] = question;
+		docLevels[doc] = (byte) QuestionDealer.levelIndex(question.getLevel());
+		docTerms[doc] = terms.toArray(new String[0]);
+		docById.put(question.getId(), doc);
+		for (String term : docTerms[doc]) {
+			postings.computeIfAbsent(term, t -> new Posting()).add(doc);
+		}
+	}
+
+	private void remove(int id) {
+		Integer doc = docById.remove(id);
+		if (doc == null) {
+			return;
+		}
+		for (String term : docTerms[doc]) {
+			Posting posting = postings.get(term);
+			if (posting != null) {
+				posting.remove(doc);
+				if (posting.size == 0) {
+					postings.remove(term);
+				}
+			}
+		}
+		docs[doc] = null;
+		docTerms[doc] = null;
+		if (freeCount == freeDocs.length) {
+			freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+		}
+		freeDocs[freeCount++] = doc;
+	}
+
+	private int allocateDoc() {
+		if (freeCount > 0) {
+			return freeDocs[--freeCount];
+		}
+		if (docLimit == docs.length) {
+			int capacity = docs.length * 2;
+			docs = Arrays.copyOf(docs, capacity);
+			docLevels = Arrays.copyOf(docLevels, capacity);
+			docTerms = Arrays.copyOf(docTerms, capacity);
+		}
+		return docLimit++;
+	}
+
+	/**
+	 * Splits text into lowercase terms made of letters and digits.
+	 */
+	static List<String> tokenize(String text) {
+		List<String> terms = new ArrayList<>();
+		if (text == null) {
+			return terms;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+}
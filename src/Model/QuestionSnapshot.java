@@ -0,0 +1,380 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Immutable view of the question bank at one point in time: the questions of
+ * each level by position (slot) plus the ID and text indexes.
+ *
+ * The bank publishes a snapshot through a single volatile reference. Readers
+ * (dealers, views, the search index) take the current snapshot and use it
+ * without locking; it never changes under them. Writers turn the snapshot into
+ * a {@link Builder}, apply their edit and publish the result as a new snapshot.
+ * Snapshots are {@link PersistentMap}s underneath, so a builder starts in O(1)
+ * and an edit copies only the few trie nodes it touches: every version of a
+ * million-question bank shares almost all of its structure with the last.
+ *
+ * A question keeps its slot for as long as it stays in its level. Removing a
+ * question leaves its slot empty rather than moving another question into it,
+ * so slots mean the same in every snapshot of one layout (see
+ * {@link #getLayoutVersion()}), and dealers can follow edits without
+ * rebuilding. A level is compacted, starting a new layout, once it has more
+ * empty slots than questions.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class QuestionSnapshot {
+	/** A snapshot with no questions. */
+	static final QuestionSnapshot EMPTY = new Builder().build(0);
+
+	private final List<PersistentMap<Integer, Question>> levels; // slot -> question, per level
+	private final int[] slotCounts; // slots used per level, empty ones included
+	private final PersistentMap<Integer, Question> questionsById;
+	private final PersistentMap<Integer, Integer> slotById; // slot of each question in its level
+	private final int maxQuestionId;
+	private final int version;
+	private final int layoutVersion;
+
+	// Built on first duplicate check so loading a pack does not decode every
+	// question's text. Building it twice on a race is harmless.
+	private volatile PersistentMap<String, Integer> idByNormalizedText;
+
+	private QuestionSnapshot(List<PersistentMap<Integer, Question>> levels, int[] slotCounts,
+			PersistentMap<Integer, Question> questionsById, PersistentMap<Integer, Integer> slotById,
+			PersistentMap<String, Integer> idByNormalizedText, int maxQuestionId, int version, int layoutVersion) {
+		this.levels = levels;
+		this.slotCounts = slotCounts;
+		this.questionsById = questionsById;
+		this.slotById = slotById;
+		this.idByNormalizedText = idByNormalizedText;
+		this.maxQuestionId = maxQuestionId;
+		this.version = version;
+		this.layoutVersion = layoutVersion;
+	}
+
+	/**
+	 * Gets the version of this snapshot. Every published edit increases it, so
+	 * dependent structures can tell when to rebuild.
+	 *
+	 * @return Snapshot version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the version of the snapshot that started this one's slot layout.
+	 * Snapshots with the same layout version agree on the question in every
+	 * slot they both have, except for questions removed in between; a newer one
+	 * may have more slots.
+	 */
+	int getLayoutVersion() {
+		return layoutVersion;
+	}
+
+	/**
+	 * Gets the total number of questions.
+	 *
+	 * @return Question count
+	 */
+	public int size() {
+		return questionsById.size();
+	}
+
+	/**
+	 * Gets the number of questions of a level.
+	 *
+	 * @param level Level index (see {@link QuestionDealer#LEVELS})
+	 * @return Question count
+	 */
+	public int getLevelCount(int level) {
+		return levels.get(level).size();
+	}
+
+	/**
+	 * Gets the number of slots of a level, empty ones included. At most twice
+	 * the number of questions.
+	 */
+	int getSlotCount(int level) {
+		return slotCounts[level];
+	}
+
+	/**
+	 * Gets a question by its slot within its level.
+	 *
+	 * @param level Level index (see {@link QuestionDealer#LEVELS})
+	 * @param slot  Slot within the level, below {@link #getSlotCount(int)}
+	 * @return The question, or null if the slot is empty
+	 */
+	public Question getQuestion(int level, int slot) {
+		return levels.get(level).get(slot);
+	}
+
+	/**
+	 * Gets a random question of a level.
+	 *
+	 * @param level  Level index (see {@link QuestionDealer#LEVELS})
+	 * @param random Random source
+	 * @return A question, or null if the level has none
+	 */
+	Question getRandomQuestion(int level, Random random) {
+		if (getLevelCount(level) == 0) {
+			return null;
+		}
+		// At most half the slots are empty, so this takes two tries on average
+		Question question;
+		do {
+			question = getQuestion(level, random.nextInt(slotCounts[level]));
+		} while (question == null);
+		return question;
+	}
+
+	/**
+	 * Finds a question by ID.
+	 *
+	 * @param id The question ID
+	 * @return The question, or null if not found
+	 */
+	public Question findById(int id) {
+		return questionsById.get(id);
+	}
+
+	/**
+	 * Gets the slot of a question within its level.
+	 */
+	int getSlot(int id) {
+		return slotById.get(id);
+	}
+
+	/**
+	 * Gets the highest question ID in use (0 if there are no questions).
+	 */
+	int getMaxQuestionId() {
+		return maxQuestionId;
+	}
+
+	/**
+	 * Gets all questions, level by level.
+	 *
+	 * @return New list of all questions
+	 */
+	public List<Question> getAllQuestions() {
+		List<Question> all = new ArrayList<>(size());
+		for (int level = 0; level < slotCounts.length; level++) {
+			for (int slot = 0; slot < slotCounts[level]; slot++) {
+				Question question = getQuestion(level, slot);
+				if (question != null) {
+					all.add(question);
+				}
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Finds the question with the given text (trimmed, case-insensitive).
+	 *
+	 * @param text Question text
+	 * @return ID of the question with that text, or null if none
+	 */
+	Integer findIdByText(String text) {
+		return textIndex().get(normalizeText(text));
+	}
+
+	private PersistentMap<String, Integer> textIndex() {
+		PersistentMap<String, Integer> index = idByNormalizedText;
+		if (index == null) {
+			PersistentMap.Editor<String, Integer> editor = PersistentMap.<String, Integer>empty().edit();
+			for (Question question : getAllQuestions()) {
+				editor.put(normalizeText(question.getQuestionText()), question.getId());
+			}
+			index = editor.freeze();
+			idByNormalizedText = index;
+		}
+		return index;
+	}
+
+	private static String normalizeText(String text) {
+		return text.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Starts an edit of this snapshot. O(1): the builder shares this
+	 * snapshot's structure and copies only what the edit changes.
+	 *
+	 * @return A builder holding the same questions
+	 */
+	Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	/**
+	 * Mutable, single-threaded staging area used to load the bank and to apply
+	 * edits before they are published as a new snapshot.
+	 */
+	static final class Builder {
+		private final List<PersistentMap.Editor<Integer, Question>> levels;
+		private final int[] slotCounts;
+		private final PersistentMap.Editor<Integer, Question> questionsById;
+		private final PersistentMap.Editor<Integer, Integer> slotById;
+		private PersistentMap.Editor<String, Integer> idByNormalizedText; // null until first built
+		private int maxQuestionId;
+		private int layoutVersion; // -1 while the slots form a new layout
+
+		/**
+		 * Creates an empty builder.
+		 */
+		Builder() {
+			this.levels = new ArrayList<>(QuestionDealer.LEVELS.length);
+			for (int level = 0; level < QuestionDealer.LEVELS.length; level++) {
+				levels.add(PersistentMap.<Integer, Question>empty().edit());
+			}
+			this.slotCounts = new int[QuestionDealer.LEVELS.length];
+			this.questionsById = PersistentMap.<Integer, Question>empty().edit();
+			this.slotById = PersistentMap.<Integer, Integer>empty().edit();
+			this.layoutVersion = -1;
+		}
+
+		private Builder(QuestionSnapshot source) {
+			this.levels = new ArrayList<>(source.levels.size());
+			for (PersistentMap<Integer, Question> level : source.levels) {
+				levels.add(level.edit());
+			}
+			this.slotCounts = source.slotCounts.clone();
+			this.questionsById = source.questionsById.edit();
+			this.slotById = source.slotById.edit();
+			PersistentMap<String, Integer> index = source.idByNormalizedText;
+			if (index != null) {
+				// Keep the text index current instead of rebuilding it after the edit
+				this.idByNormalizedText = index.edit();
+			}
+			this.maxQuestionId = source.maxQuestionId;
+			this.layoutVersion = source.layoutVersion;
+		}
+
+		/**
+		 * Adds a question. A question with the same ID is replaced; if it has the
+		 * same level it keeps its slot.
+		 *
+		 * @return The replaced question, or null if the ID was new
+		 */
+		Question put(Question question) {
+			int id = question.getId();
+			int level = QuestionDealer.levelIndex(question.getLevel());
+			if (level == 1 && !"MEDIUM".equalsIgnoreCase(question.getLevel())) {
+				System.err.println("Unknown difficulty level: " + question.getLevel());
+			}
+
+			Question existing = questionsById.get(id);
+			if (existing != null && QuestionDealer.levelIndex(existing.getLevel()) == level) {
+				unindexText(existing);
+				levels.get(level).put(slotById.get(id), question);
+			} else {
+				if (existing != null) {
+					remove(id);
+				}
+				int slot = slotCounts[level]++;
+				levels.get(level).put(slot, question);
+				slotById.put(id, slot);
+			}
+			questionsById.put(id, question);
+			if (idByNormalizedText != null) {
+				idByNormalizedText.put(normalizeText(question.getQuestionText()), id);
+			}
+			maxQuestionId = Math.max(maxQuestionId, id);
+			return existing;
+		}
+
+		/**
+		 * Removes a question. Its slot is left empty.
+		 *
+		 * @return The removed question, or null if the ID was not found
+		 */
+		Question remove(int id) {
+			Question question = questionsById.remove(id);
+			if (question == null) {
+				return null;
+			}
+			levels.get(QuestionDealer.levelIndex(question.getLevel())).remove(slotById.remove(id));
+			unindexText(question);
+			return question;
+		}
+
+		/**
+		 * Finds a question by ID.
+		 */
+		Question find(int id) {
+			return questionsById.get(id);
+		}
+
+		/**
+		 * Gets the number of questions staged.
+		 */
+		int size() {
+			return questionsById.size();
+		}
+
+		/**
+		 * Gets the number of questions of a level.
+		 */
+		int getLevelCount(int level) {
+			return levels.get(level).size();
+		}
+
+		private void unindexText(Question question) {
+			if (idByNormalizedText != null) {
+				String key = normalizeText(question.getQuestionText());
+				Integer indexedId = idByNormalizedText.get(key);
+				if (indexedId != null && indexedId == question.getId()) {
+					idByNormalizedText.remove(key);
+				}
+			}
+		}
+
+		/**
+		 * Moves the questions of a level into consecutive slots, starting a new
+		 * layout. O(level size), and only once more than half the slots are empty.
+		 */
+		private void compact(int level) {
+			PersistentMap.Editor<Integer, Question> old = levels.get(level);
+			PersistentMap.Editor<Integer, Question> compacted = PersistentMap.<Integer, Question>empty().edit();
+			int next = 0;
+			for (int slot = 0; slot < slotCounts[level]; slot++) {
+				Question question = old.get(slot);
+				if (question != null) {
+					compacted.put(next, question);
+					slotById.put(question.getId(), next);
+					next++;
+				}
+			}
+			levels.set(level, compacted);
+			slotCounts[level] = next;
+			layoutVersion = -1;
+		}
+
+		/**
+		 * Freezes the staged questions into a snapshot. The builder must not be
+		 * used afterwards.
+		 *
+		 * @param version Version of the new snapshot
+		 * @return The snapshot
+		 */
+		QuestionSnapshot build(int version) {
+			List<PersistentMap<Integer, Question>> frozen = new ArrayList<>(levels.size());
+			for (int level = 0; level < levels.size(); level++) {
+				int count = levels.get(level).size();
+				if (slotCounts[level] - count > count) {
+					compact(level);
+				}
+				frozen.add(levels.get(level).freeze());
+			}
+			return new QuestionSnapshot(frozen, slotCounts, questionsById.freeze(), slotById.freeze(),
+					idByNormalizedText != null ? idByNormalizedText.freeze() : null, maxQuestionId, version,
+					layoutVersion < 0 ? version : layoutVersion);
+		}
+	}
+}
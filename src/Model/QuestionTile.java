@@ -128,6 +128,15 @@ public class QuestionTile extends Tile {
 		// Question tiles don't track adjacent mines
 	}
 
+	@Override
+	public Tile copy() {
+		QuestionTile copy = new QuestionTile(row, col);
+		copy.activated = activated;
+		copy.question = question;
+		copy.pendingInList = pendingInList;
+		return copyStateInto(copy);
+	}
+
 	@Override
 	public String toDisplayString() {
 		return "?";
@@ -0,0 +1,520 @@
+package Model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Game history split into one CSV segment per month, for histories that grow
+ * over years.
+ *
+ * Each segment ({@code history-2025-01.csv}) has the same format as the
+ * history CSV and is read through its own {@link HistoryStore}, so only the
+ * segments that changed are read again. Beside each segment a small index
+ * ({@code history-2025-01.idx}) records its oldest and newest game, its game
+ * count per difficulty and a Bloom filter of its player names. Queries by
+ * date range or player skip the segments whose index rules them out and scan
+ * the rest in parallel. Dropping old months deletes their files without
+ * touching the rest of the history.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class SegmentedHistory {
+	private static final String PREFIX = "history-";
+	private static final String HEADER = "timestamp,player1,player2,player1Score,player2Score,totalScore,difficulty,winner,remainingLives";
+
+	private final Path directory;
+	private final TreeMap<YearMonth, Segment> segments;
+
+	/**
+	 * Opens the segments in a directory, creating the directory if needed.
+	 *
+	 * @param directory The segment directory
+	 * @throws IOException If the directory cannot be read
+	 */
+	public SegmentedHistory(Path directory) throws IOException {
+		this.directory = directory;
+		this.segments = new TreeMap<>();
+		Files.createDirectories(directory);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*.csv")) {
+			for (Path file : files) {
+				YearMonth month = monthOf(file);
+				if (month != null) {
+					segments.put(month, new Segment(month, file));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the month of a segment file from its name.
+	 *
+	 * @return The month, or null if the name is not a segment name
+	 */
+	private static YearMonth monthOf(Path file) {
+		String name = file.getFileName().toString();
+		try {
+			return YearMonth.parse(name.substring(PREFIX.length(), name.length() - ".csv".length()));
+		} catch (DateTimeParseException | IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Appends games, each to the segment of the month it was played in.
+	 *
+	 * @param histories The games to append, oldest first
+	 * @throws IOException If a segment cannot be written
+	 */
+	public synchronized void append(List<GameHistory> histories) throws IOException {
+		Map<YearMonth, List<GameHistory>> byMonth = new LinkedHashMap<>();
+		for (GameHistory history : histories) {
+			byMonth.computeIfAbsent(YearMonth.from(history.getTimestamp()), month -> new ArrayList<>()).add(history);
+		}
+		for (Map.Entry<YearMonth, List<GameHistory>> entry : byMonth.entrySet()) {
+			Segment segment = segments.get(entry.getKey());
+			if (segment == null) {
+				segment = new Segment(entry.getKey(),
+						directory.resolve(PREFIX + entry.getKey() + ".csv"));
+				segments.put(entry.getKey(), segment);
+			}
+			segment.append(entry.getValue());
+		}
+	}
+
+	/**
+	 * Gets every game, oldest month first.
+	 *
+	 * @return Read-only list of games; it does not change after it is returned
+	 */
+	public List<GameHistory> getRecords() {
+		List<List<GameHistory>> parts = new ArrayList<>();
+		for (Segment segment : snapshotSegments()) {
+			parts.add(segment.store.getRecords());
+		}
+		return new Concatenation(parts);
+	}
+
+	/**
+	 * Gets the months that have history, oldest first.
+	 *
+	 * @return The months
+	 */
+	public synchronized List<YearMonth> getMonths() {
+		return Collections.unmodifiableList(new ArrayList<>(segments.keySet()));
+	}
+
+	/**
+	 * Gets the number of games.
+	 *
+	 * @return Game count
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : snapshotSegments()) {
+			size += segment.index().count;
+		}
+		return size;
+	}
+
+	/**
+	 * Finds the games played in a date range, optionally by one player.
+	 * Segments whose index shows they cannot match are not read; the others
+	 * are scanned in parallel.
+	 *
+	 * @param from   Earliest time (inclusive), or null for no lower bound
+	 * @param to     Latest time (inclusive), or null for no upper bound
+	 * @param player Name of a player who must have played (case-insensitive),
+	 *               or null for any player
+	 * @return Matching games, oldest month first
+	 */
+	public List<GameHistory> query(LocalDateTime from, LocalDateTime to, String player) {
+		long fromSeconds = from == null ? Long.MIN_VALUE : toSeconds(from);
+		long toSeconds = to == null ? Long.MAX_VALUE : toSeconds(to);
+		String playerKey = player == null ? null : playerKey(player);
+
+		return snapshotSegments().parallelStream()
+				.filter(segment -> segment.index().mayMatch(fromSeconds, toSeconds, playerKey))
+				.flatMap(segment -> segment.store.getRecords().stream().filter(game -> {
+					long time = toSeconds(game.getTimestamp());
+					return time >= fromSeconds && time <= toSeconds && (playerKey == null
+							|| playerKey.equals(playerKey(game.getPlayer1Name()))
+							|| playerKey.equals(playerKey(game.getPlayer2Name())));
+				}))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets the number of games of a difficulty, from the segment indexes
+	 * alone.
+	 *
+	 * @param difficulty The difficulty
+	 * @return Game count
+	 */
+	public int getGameCount(Difficulty difficulty) {
+		int count = 0;
+		for (Segment segment : snapshotSegments()) {
+			count += segment.index().countByDifficulty[difficulty.ordinal()];
+		}
+		return count;
+	}
+
+	/**
+	 * Deletes every month before a given month. Each dropped month costs one
+	 * or two file deletions, whatever its size.
+	 *
+	 * @param month First month to keep
+	 * @return Number of months dropped
+	 * @throws IOException If a segment cannot be deleted
+	 */
+	public synchronized int dropBefore(YearMonth month) throws IOException {
+		List<Segment> old = new ArrayList<>(segments.headMap(month).values());
+		for (Segment segment : old) {
+			segment.delete();
+			segments.remove(segment.month);
+		}
+		return old.size();
+	}
+
+	/**
+	 * Deletes every segment.
+	 *
+	 * @throws IOException If a segment cannot be deleted
+	 */
+	public synchronized void clear() throws IOException {
+		for (Segment segment : segments.values()) {
+			segment.delete();
+		}
+		segments.clear();
+	}
+
+	/**
+	 * Gets the total size of the segment files, which changes whenever a game
+	 * is added or a month is dropped.
+	 *
+	 * @return Size in bytes
+	 */
+	public synchronized long totalBytes() {
+		long total = 0;
+		for (Segment segment : segments.values()) {
+			total += segment.fileSize();
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the latest modification time of the segment files, which changes
+	 * whenever a game is added.
+	 *
+	 * @return Time in milliseconds since the epoch, or 0 if there are no
+	 *         segments
+	 */
+	public synchronized long lastModified() {
+		long latest = 0;
+		for (Segment segment : segments.values()) {
+			latest = Math.max(latest, segment.lastModified());
+		}
+		return latest;
+	}
+
+	/**
+	 * Splits games into monthly segments.
+	 *
+	 * @param records   The games, oldest first
+	 * @param directory Segment directory to create; it must not hold segments
+	 * @return Number of games copied
+	 * @throws IOException If a segment cannot be written
+	 */
+	public static int split(List<GameHistory> records, Path directory) throws IOException {
+		SegmentedHistory history = new SegmentedHistory(directory);
+		if (!history.segments.isEmpty()) {
+			throw new IOException(directory.getFileName() + " already holds history segments");
+		}
+		history.append(records);
+		return records.size();
+	}
+
+	private synchronized List<Segment> snapshotSegments() {
+		return new ArrayList<>(segments.values());
+	}
+
+	private static long toSeconds(LocalDateTime time) {
+		return time.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static String playerKey(String name) {
+		return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * One month of history: its CSV file, a cache of its records and its
+	 * index.
+	 */
+	private static final class Segment {
+		private final YearMonth month;
+		private final Path file;
+		private final Path indexFile;
+		private final HistoryStore store;
+		private SegmentIndex index; // null until first needed
+
+		Segment(YearMonth month, Path file) {
+			this.month = month;
+			this.file = file;
+			String name = file.getFileName().toString();
+			this.indexFile = file.resolveSibling(name.substring(0, name.length() - ".csv".length()) + ".idx");
+			this.store = new HistoryStore(file);
+		}
+
+		/**
+		 * Gets the index, reading it from its file, or rebuilding it if it
+		 * does not match the segment (for example after a crash).
+		 */
+		synchronized SegmentIndex index() {
+			long size = fileSize();
+			if (index == null) {
+				index = SegmentIndex.load(indexFile);
+			}
+			if (index == null || index.segmentSize != size) {
+				index = new SegmentIndex();
+				for (GameHistory game : store.getRecords()) {
+					index.add(game);
+				}
+				index.segmentSize = size;
+				index.save(indexFile);
+			}
+			return index;
+		}
+
+		synchronized void append(List<GameHistory> histories) throws IOException {
+			SegmentIndex current = index();
+			boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+			try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+					Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+					StandardCharsets.UTF_8)))) {
+				if (newFile) {
+					out.println(HEADER);
+				}
+				for (GameHistory history : histories) {
+					out.println(history.toCsvLine());
+				}
+				if (out.checkError()) {
+					index = null; // rebuilt from whatever reached the file
+					throw new IOException("Could not write " + file.getFileName());
+				}
+			}
+			for (GameHistory history : histories) {
+				current.add(history);
+			}
+			current.segmentSize = fileSize();
+			current.save(indexFile);
+		}
+
+		long fileSize() {
+			try {
+				return Files.exists(file) ? Files.size(file) : 0;
+			} catch (IOException e) {
+				return -1;
+			}
+		}
+
+		long lastModified() {
+			try {
+				return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+			} catch (IOException e) {
+				return -1;
+			}
+		}
+
+		synchronized void delete() throws IOException {
+			Files.deleteIfExists(indexFile);
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Summary of one segment, used to skip it in queries: time range, game
+	 * count per difficulty and a Bloom filter of player names.
+	 */
+	private static final class SegmentIndex {
+		private static final int FORMAT_VERSION = 1;
+		private static final int BLOOM_BITS = 1024;
+
+		private long segmentSize; // size of the segment file this index matches
+		private int count;
+		private long minSeconds = Long.MAX_VALUE;
+		private long maxSeconds = Long.MIN_VALUE;
+		private final int[] countByDifficulty = new int[Difficulty.values().length];
+		private final long[] players = new long[BLOOM_BITS / 64];
+
+		void add(GameHistory game) {
+			long time = toSeconds(game.getTimestamp());
+			minSeconds = Math.min(minSeconds, time);
+			maxSeconds = Math.max(maxSeconds, time);
+			count++;
+			if (game.getDifficulty() != null) {
+				countByDifficulty[game.getDifficulty().ordinal()]++;
+			}
+			addPlayer(playerKey(game.getPlayer1Name()));
+			addPlayer(playerKey(game.getPlayer2Name()));
+		}
+
+		boolean mayMatch(long fromSeconds, long toSeconds, String playerKey) {
+			if (count == 0 || maxSeconds < fromSeconds || minSeconds > toSeconds) {
+				return false;
+			}
+			return playerKey == null || mayContainPlayer(playerKey);
+		}
+
+		private void addPlayer(String key) {
+			int hash = key.hashCode();
+			int second = mix(hash);
+			set(hash);
+			set(second);
+		}
+
+		private boolean mayContainPlayer(String key) {
+			int hash = key.hashCode();
+			return isSet(hash) && isSet(mix(hash));
+		}
+
+		private static int mix(int hash) {
+			int h = hash * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+		private void set(int hash) {
+			int bit = Math.floorMod(hash, BLOOM_BITS);
+			players[bit >>> 6] |= 1L << (bit & 63);
+		}
+
+		private boolean isSet(int hash) {
+			int bit = Math.floorMod(hash, BLOOM_BITS);
+			return (players[bit >>> 6] & (1L << (bit & 63))) != 0;
+		}
+
+		void save(Path file) {
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			try {
+				try (CsvWriter out = new CsvWriter(
+						new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8))) {
+					out.field("version").field(FORMAT_VERSION).endRecord();
+					out.field("segment").field(String.valueOf(segmentSize)).endRecord();
+					out.field("games").field(count).field(String.valueOf(minSeconds))
+							.field(String.valueOf(maxSeconds)).endRecord();
+					for (Difficulty difficulty : Difficulty.values()) {
+						out.field(difficulty.name()).field(countByDifficulty[difficulty.ordinal()]).endRecord();
+					}
+					out.field("players");
+					for (long word : players) {
+						out.field(Long.toHexString(word));
+					}
+					out.endRecord();
+				}
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// The index is rebuilt from the segment next time
+				System.err.println("Error saving history index: " + e.getMessage());
+			}
+		}
+
+		static SegmentIndex load(Path file) {
+			if (!Files.exists(file)) {
+				return null;
+			}
+			SegmentIndex index = new SegmentIndex();
+			try (CsvReader csv = new CsvReader(
+					new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+				if (!csv.next() || !"version".equals(csv.get(0)) || csv.getInt(1) != FORMAT_VERSION) {
+					return null;
+				}
+				while (csv.next()) {
+					if (csv.isBlankRecord()) {
+						continue;
+					}
+					String key = csv.get(0);
+					if ("segment".equals(key)) {
+						index.segmentSize = Long.parseLong(csv.get(1));
+					} else if ("games".equals(key)) {
+						index.count = csv.getInt(1);
+						index.minSeconds = Long.parseLong(csv.get(2));
+						index.maxSeconds = Long.parseLong(csv.get(3));
+					} else if ("players".equals(key)) {
+						for (int i = 0; i < index.players.length; i++) {
+							index.players[i] = Long.parseUnsignedLong(csv.get(i + 1), 16);
+						}
+					} else {
+						index.countByDifficulty[Difficulty.valueOf(key).ordinal()] = csv.getInt(1);
+					}
+				}
+				return index;
+			} catch (IOException | RuntimeException e) {
+				return null; // rebuilt from the segment
+			}
+		}
+	}
+
+	/**
+	 * Read-only list over the records of several segments, in order.
+	 */
+	private static final class Concatenation extends AbstractList<GameHistory> implements RandomAccess {
+		private final List<List<GameHistory>> parts;
+		private final int[] starts; // index of the first record of each part
+		private final int size;
+
+		Concatenation(List<List<GameHistory>> parts) {
+			this.parts = parts;
+			this.starts = new int[parts.size()];
+			int total = 0;
+			for (int i = 0; i < parts.size(); i++) {
+				starts[i] = total;
+				total += parts.get(i).size();
+			}
+			this.size = total;
+		}
+
+		@Override
+		public GameHistory get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			int part = Arrays.binarySearch(starts, index);
+			if (part < 0) {
+				part = -part - 2;
+			} else {
+				while (parts.get(part).isEmpty()) {
+					part++; // several parts start here; the non-empty one holds it
+				}
+			}
+			return parts.get(part).get(index - starts[part]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -12,6 +12,7 @@ public class Surprise {
 	private final int pointsEffect; // positive for good, negative for bad
 	private final int livesEffect; // positive for good, negative for bad
 	private final boolean isGood;
+	private final double weight; // relative chance of being picked (see SurpriseCatalog)
 
 	/**
 	 * Creates a new surprise effect.
@@ -23,11 +24,26 @@ public class Surprise {
 	 * @param isGood       Whether this is a good surprise
 	 */
 	public Surprise(int id, String message, int pointsEffect, int livesEffect, boolean isGood) {
+		this(id, message, pointsEffect, livesEffect, isGood, 1);
+	}
+
+	/**
+	 * Creates a new surprise effect with a sampling weight.
+	 * 
+	 * @param id           Unique identifier
+	 * @param message      Description message
+	 * @param pointsEffect Points to add/subtract
+	 * @param livesEffect  Lives to add/subtract
+	 * @param isGood       Whether this is a good surprise
+	 * @param weight       Relative chance of being picked (0 = never)
+	 */
+	public Surprise(int id, String message, int pointsEffect, int livesEffect, boolean isGood, double weight) {
 		this.id = id;
 		this.message = message;
 		this.pointsEffect = pointsEffect;
 		this.livesEffect = livesEffect;
 		this.isGood = isGood;
+		this.weight = weight;
 	}
 
 	public int getId() {
@@ -50,6 +66,10 @@ public class Surprise {
 		return isGood;
 	}
 
+	public double getWeight() {
+		return weight;
+	}
+
 	@Override
 	public String toString() {
 		return message;
@@ -0,0 +1,334 @@
+package Model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable catalog of every surprise, shared by all games in the process.
+ *
+ * The surprise CSV files are read once; every {@link SurpriseManager} is a thin
+ * view over the catalog, so starting a game (or a simulation) costs no file
+ * I/O. Each surprise has a weight (an optional fifth CSV column, default 1)
+ * and is sampled in O(1) with Walker's alias method, from the good surprises,
+ * the bad surprises or all of them together. With the default weights every
+ * surprise is equally likely.
+ *
+ * When a file is reloaded (see {@link #reload(boolean)}), a new catalog is
+ * published; games already running keep the catalog they started with.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class SurpriseCatalog {
+	private static final String GOOD_SURPRISES_FILE = "src/Data/good_surprises.csv";
+	private static final String BAD_SURPRISES_FILE = "src/Data/bad_surprises.csv";
+
+	private static volatile SurpriseCatalog current;
+
+	private final Surprise[] goodSurprises;
+	private final Surprise[] badSurprises;
+	private final Surprise[] allSurprises;
+	private final AliasTable goodTable;
+	private final AliasTable badTable;
+	private final AliasTable allTable;
+
+	private SurpriseCatalog(Surprise[] goodSurprises, Surprise[] badSurprises) {
+		this.goodSurprises = goodSurprises;
+		this.badSurprises = badSurprises;
+		this.allSurprises = new Surprise[goodSurprises.length + badSurprises.length];
+		System.arraycopy(goodSurprises, 0, allSurprises, 0, goodSurprises.length);
+		System.arraycopy(badSurprises, 0, allSurprises, goodSurprises.length, badSurprises.length);
+		this.goodTable = new AliasTable(goodSurprises);
+		this.badTable = new AliasTable(badSurprises);
+		this.allTable = new AliasTable(allSurprises);
+	}
+
+	/**
+	 * Gets the current catalog, reading the surprise files on first use. Safe to
+	 * call from any thread.
+	 *
+	 * @return The shared catalog
+	 */
+	public static SurpriseCatalog getInstance() {
+		SurpriseCatalog catalog = current;
+		if (catalog == null) {
+			synchronized (SurpriseCatalog.class) {
+				catalog = current;
+				if (catalog == null) {
+					catalog = new SurpriseCatalog(load(true), load(false));
+					current = catalog;
+				}
+			}
+		}
+		return catalog;
+	}
+
+	/**
+	 * Reads one surprise file again after it was changed outside the game and
+	 * publishes a new catalog. New games use it; running games keep theirs.
+	 *
+	 * @param good true to reload the good surprises, false for the bad ones
+	 */
+	public static synchronized void reload(boolean good) {
+		Surprise[] surprises = readFile(good);
+		if (surprises.length == 0) {
+			// Half-written or emptied file: keep the surprises we have
+			System.err.println("Ignoring empty surprises file, keeping the loaded surprises");
+			return;
+		}
+		SurpriseCatalog old = getInstance();
+		current = good ? new SurpriseCatalog(surprises, old.badSurprises)
+				: new SurpriseCatalog(old.goodSurprises, surprises);
+		System.out.println("Reloaded " + surprises.length + (good ? " good" : " bad") + " surprises");
+	}
+
+	/**
+	 * Creates a catalog from given surprises (for simulations and tests).
+	 *
+	 * @param goodSurprises The good surprises (at least one)
+	 * @param badSurprises  The bad surprises (at least one)
+	 * @return A new catalog; it is not published as the shared one
+	 */
+	public static SurpriseCatalog of(List<Surprise> goodSurprises, List<Surprise> badSurprises) {
+		return new SurpriseCatalog(goodSurprises.toArray(new Surprise[0]), badSurprises.toArray(new Surprise[0]));
+	}
+
+	/**
+	 * Gets the surprise file that is loaded, for watching it.
+	 *
+	 * @param good true for the good surprises file, false for the bad one
+	 * @return The file, or null if it was not found
+	 */
+	public static File getFile(boolean good) {
+		return findFile(good ? GOOD_SURPRISES_FILE : BAD_SURPRISES_FILE);
+	}
+
+	/**
+	 * Samples a good surprise by weight.
+	 *
+	 * @param random Random source
+	 * @return A good surprise
+	 */
+	public Surprise sampleGood(Random random) {
+		return goodSurprises[goodTable.sample(random)];
+	}
+
+	/**
+	 * Samples a bad surprise by weight.
+	 *
+	 * @param random Random source
+	 * @return A bad surprise
+	 */
+	public Surprise sampleBad(Random random) {
+		return badSurprises[badTable.sample(random)];
+	}
+
+	/**
+	 * Samples any surprise, good or bad, by weight.
+	 *
+	 * @param random Random source
+	 * @return A surprise
+	 */
+	public Surprise sample(Random random) {
+		return allSurprises[allTable.sample(random)];
+	}
+
+	/**
+	 * Gets the number of good surprises.
+	 *
+	 * @return Good surprise count
+	 */
+	public int getGoodCount() {
+		return goodSurprises.length;
+	}
+
+	/**
+	 * Gets the number of bad surprises.
+	 *
+	 * @return Bad surprise count
+	 */
+	public int getBadCount() {
+		return badSurprises.length;
+	}
+
+	/**
+	 * Loads one side of the catalog, falling back to the built-in surprises if
+	 * the file is missing or empty.
+	 */
+	private static Surprise[] load(boolean good) {
+		Surprise[] surprises = readFile(good);
+		return surprises.length > 0 ? surprises : good ? defaultGoodSurprises() : defaultBadSurprises();
+	}
+
+	/**
+	 * Reads the surprises of one CSV file.
+	 *
+	 * @return The surprises (empty if the file is missing or unreadable)
+	 */
+	private static Surprise[] readFile(boolean good) {
+		String filename = good ? GOOD_SURPRISES_FILE : BAD_SURPRISES_FILE;
+		List<Surprise> surprises = new ArrayList<>();
+
+		File file = findFile(filename);
+		if (file == null) {
+			System.err.println("Could not load " + filename + ": file not found in expected locations");
+			return new Surprise[0];
+		}
+
+		try (CsvReader csv = new CsvReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			// Skip header
+			csv.next();
+
+			while (csv.next()) {
+				if (csv.isBlankRecord()) {
+					continue;
+				}
+				Surprise surprise = parseSurprise(csv, good);
+				if (surprise != null) {
+					surprises.add(surprise);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Could not load " + filename + ": " + e.getMessage());
+		}
+
+		return surprises.toArray(new Surprise[0]);
+	}
+
+	/**
+	 * Finds a surprise file, trying multiple likely locations (IDE vs JAR run).
+	 *
+	 * @return The file, or null if it does not exist in any location
+	 */
+	private static File findFile(String filename) {
+		String[] possiblePaths = { filename, "src/" + filename, "../" + filename, "resources/" + filename };
+		for (String path : possiblePaths) {
+			File candidate = new File(path);
+			if (candidate.exists()) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parses the current CSV record into a Surprise object. CSV format:
+	 * id,message,points,lives[,weight]
+	 *
+	 * @param csv    The reader positioned on the record
+	 * @param isGood Whether this is a good surprise
+	 * @return Surprise object or null if parsing fails
+	 */
+	private static Surprise parseSurprise(CsvReader csv, boolean isGood) {
+		try {
+			if (csv.getFieldCount() < 4) {
+				return null;
+			}
+
+			int id = csv.getInt(0);
+			String message = csv.get(1).trim();
+			int pointsEffect = csv.getInt(2);
+			int livesEffect = csv.getInt(3);
+			double weight = 1;
+			if (csv.getFieldCount() > 4 && !csv.get(4).trim().isEmpty()) {
+				weight = Double.parseDouble(csv.get(4).trim());
+				if (!(weight >= 0) || Double.isInfinite(weight)) {
+					System.err.println("Invalid surprise weight on line " + csv.getLineNumber() + ", using 1");
+					weight = 1;
+				}
+			}
+
+			return new Surprise(id, message, pointsEffect, livesEffect, isGood, weight);
+		} catch (Exception e) {
+			System.err.println("Error parsing surprise line: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Creates default good surprises if file is missing.
+	 */
+	private static Surprise[] defaultGoodSurprises() {
+		return new Surprise[] { new Surprise(1, "Lucky find! +5 points and +1 life!", 5, 1, true),
+				new Surprise(2, "Power-up! +5 points and +1 life!", 5, 1, true),
+				new Surprise(3, "Bonus! +5 points and +1 life!", 5, 1, true) };
+	}
+
+	/**
+	 * Creates default bad surprises if file is missing.
+	 */
+	private static Surprise[] defaultBadSurprises() {
+		return new Surprise[] { new Surprise(1, "Trap! -5 points and -1 life!", -5, -1, false),
+				new Surprise(2, "Curse! -5 points and -1 life!", -5, -1, false),
+				new Surprise(3, "Bad luck! -5 points and -1 life!", -5, -1, false) };
+	}
+
+	/**
+	 * Walker's alias table (Vose's construction) for O(1) weighted sampling.
+	 * Each column holds its own entry with probability {@code probability[i]}
+	 * and otherwise its alias; a sample is one uniform column pick and one coin
+	 * flip.
+	 */
+	private static final class AliasTable {
+		private final double[] probability;
+		private final int[] alias;
+
+		AliasTable(Surprise[] surprises) {
+			int n = surprises.length;
+			probability = new double[n];
+			alias = new int[n];
+
+			double total = 0;
+			for (Surprise surprise : surprises) {
+				total += surprise.getWeight();
+			}
+
+			// Scale so the average column is 1, then pair small with large columns
+			double[] scaled = new double[n];
+			int[] small = new int[n];
+			int[] large = new int[n];
+			int smallCount = 0;
+			int largeCount = 0;
+			for (int i = 0; i < n; i++) {
+				// All weights zero: fall back to uniform
+				scaled[i] = total > 0 ? surprises[i].getWeight() * n / total : 1;
+				if (scaled[i] < 1) {
+					small[smallCount++] = i;
+				} else {
+					large[largeCount++] = i;
+				}
+			}
+			while (smallCount > 0 && largeCount > 0) {
+				int less = small[--smallCount];
+				int more = large[--largeCount];
+				probability[less] = scaled[less];
+				alias[less] = more;
+				scaled[more] = (scaled[more] + scaled[less]) - 1;
+				if (scaled[more] < 1) {
+					small[smallCount++] = more;
+				} else {
+					large[largeCount++] = more;
+				}
+			}
+			// Leftovers are 1 up to rounding error
+			while (largeCount > 0) {
+				probability[large[--largeCount]] = 1;
+			}
+			while (smallCount > 0) {
+				probability[small[--smallCount]] = 1;
+			}
+		}
+
+		int sample(Random random) {
+			int column = random.nextInt(probability.length);
+			return random.nextDouble() < probability[column] ? column : alias[column];
+		}
+	}
+}
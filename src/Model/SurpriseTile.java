@@ -93,6 +93,13 @@ public class SurpriseTile extends Tile {
 		// Surprise tiles don't track adjacent mines
 	}
 
+	@Override
+	public Tile copy() {
+		SurpriseTile copy = new SurpriseTile(row, col);
+		copy.surprise = surprise;
+		return copyStateInto(copy);
+	}
+
 	@Override
 	public String toDisplayString() {
 		return "!";
@@ -112,6 +112,27 @@ public abstract class Tile {
 	 */
 	public abstract String toDisplayString();
 
+	/**
+	 * Creates an independent copy of this tile with the same type, position and
+	 * state. Used when a forked board needs to modify a tile it shares with its
+	 * parent.
+	 * 
+	 * @return A new tile equal in type and state to this one
+	 */
+	public abstract Tile copy();
+
+	/**
+	 * Copies the revealed/flagged state of this tile onto a freshly created copy.
+	 * 
+	 * @param target The new tile
+	 * @return The same target, for chaining
+	 */
+	protected <T extends Tile> T copyStateInto(T target) {
+		target.revealed = revealed;
+		target.flagged = flagged;
+		return target;
+	}
+
 	// Getters and Setters
 	public boolean isRevealed() {
 		return revealed;
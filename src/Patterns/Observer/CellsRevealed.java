@@ -0,0 +1,65 @@
+package Patterns.Observer;
+
+/**
+ * Event for the tiles one action revealed on a board: a single tile, or a
+ * whole cascade at once. Tiles are given as cell indexes (row * size + col) in
+ * a plain int array, in the order they were revealed.
+ *
+ * Events are shared between observers, so observers must not change the
+ * array.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class CellsRevealed {
+    private final int boardNum;
+    private final int boardSize;
+    private final int[] cells;
+
+    /**
+     * Creates the event.
+     *
+     * @param boardNum  The board number (1 or 2)
+     * @param boardSize Tiles per board side
+     * @param cells     Revealed cells as row * boardSize + col; not copied
+     */
+    public CellsRevealed(int boardNum, int boardSize, int[] cells) {
+        this.boardNum = boardNum;
+        this.boardSize = boardSize;
+        this.cells = cells;
+    }
+
+    public int getBoardNum() {
+        return boardNum;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Gets the number of tiles revealed.
+     *
+     * @return Tile count
+     */
+    public int getCount() {
+        return cells.length;
+    }
+
+    /**
+     * Gets the revealed cells.
+     *
+     * @return Cells as row * board size + col; must not be changed
+     */
+    public int[] getCells() {
+        return cells;
+    }
+
+    public int getRow(int i) {
+        return cells[i] / boardSize;
+    }
+
+    public int getCol(int i) {
+        return cells[i] % boardSize;
+    }
+}
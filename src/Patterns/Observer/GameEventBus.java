@@ -0,0 +1,633 @@
+package Patterns.Observer;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers game events to {@link GameObserver}s on their own threads, so a
+ * slow observer never holds up the move that caused the event.
+ *
+ * Events are written into a preallocated ring of reusable event slots, so
+ * publishing costs a few field writes; only the events that carry data (see
+ * {@link StatsChanged} and {@link CellsRevealed}) are objects of their own. Each subscribed
+ * observer has its own thread and its own position (sequence) in the ring: it
+ * takes every event published since it last looked as one batch, calls the
+ * observer for each in order, and then tells the observer the batch ended if
+ * it implements {@link EndOfBatchListener}. How a subscriber waits for events
+ * is set by its {@link WaitStrategy}.
+ *
+ * A slot is only overwritten once every subscriber has read it, but
+ * publishing never waits: a subscriber that falls a whole ring behind (a
+ * stalled observer) is detached, with a message on the error stream, and
+ * stops receiving events. Each slot is stamped with the sequence of its event,
+ * so a detached subscriber that is still reading finds out instead of
+ * delivering an overwritten event. Events are published from one thread (the
+ * game runs on the Event Dispatch Thread).
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameEventBus {
+    /** Default number of event slots. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int STATS_CHANGED = 1;
+    private static final int GAME_OVER = 2;
+    private static final int TURN_CHANGED = 3;
+    private static final int CELLS_REVEALED = 4;
+    private static final int FLAG_CHANGED = 5;
+    private static final int TILE_ACTIVATED = 6;
+    private static final int QUESTION_ANSWERED = 7;
+    private static final int SURPRISE_TRIGGERED = 8;
+    private static final int HINT_SHOWN = 9;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_CHECK_MILLIS = 50; // how often blocked subscribers check for close
+
+    /**
+     * How a subscriber waits for new events.
+     */
+    public enum WaitStrategy {
+        /** Spins on the CPU: lowest latency, keeps a core busy. */
+        BUSY_SPIN,
+        /** Spins briefly, then yields the CPU between checks. */
+        YIELDING,
+        /** Spins and yields briefly, then sleeps about a millisecond between checks. */
+        SLEEPING,
+        /** Sleeps until an event is published: no CPU while idle. */
+        BLOCKING
+    }
+
+    /**
+     * Optional interface for observers that want to know when a batch of
+     * events has been delivered, for example to flush output once per batch.
+     */
+    public interface EndOfBatchListener {
+        /**
+         * Called after the last event of a batch.
+         */
+        void onEndOfBatch();
+    }
+
+    /**
+     * One ring slot. Slots are reused; their fields are overwritten by each
+     * event that lands in them.
+     */
+    private static final class Event {
+        volatile long sequence = -1; // sequence of the event in the slot; -1 while it is written
+        int type;
+        int playerNumber;
+        int boardNum;
+        int row;
+        int col;
+        int value; // cost, question id or surprise points
+        int change; // surprise lives
+        boolean flag; // won, flagged, correct, good or mine
+        String message;
+        Object payload; // StatsChanged or CellsRevealed
+
+        /**
+         * Copies the event at a sequence out of its slot.
+         *
+         * @return false if the slot no longer holds that event
+         */
+        boolean copyTo(Event target, long expected) {
+            if (sequence != expected) {
+                return false;
+            }
+            target.type = type;
+            target.playerNumber = playerNumber;
+            target.boardNum = boardNum;
+            target.row = row;
+            target.col = col;
+            target.value = value;
+            target.change = change;
+            target.flag = flag;
+            target.message = message;
+            target.payload = payload;
+            VarHandle.acquireFence(); // the reads above happen before the check below
+            return sequence == expected;
+        }
+    }
+
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1); // last published sequence
+    private long nextSequence = -1; // last claimed sequence; publishing thread only
+    private long gatingCache = -1; // slowest subscriber's sequence when last checked
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Wakes BLOCKING subscribers
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicInteger blockedSubscribers = new AtomicInteger();
+
+    /**
+     * Creates a bus with {@value #DEFAULT_CAPACITY} event slots.
+     */
+    public GameEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a bus.
+     *
+     * @param capacity Number of event slots; rounded up to a power of two
+     */
+    public GameEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Event[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Event();
+        }
+        this.mask = size - 1;
+    }
+
+    // ========== Subscribers ==========
+
+    /**
+     * Subscribes an observer with the {@link WaitStrategy#SLEEPING} strategy.
+     *
+     * @param observer The observer
+     */
+    public void subscribe(GameObserver observer) {
+        subscribe(observer, WaitStrategy.SLEEPING);
+    }
+
+    /**
+     * Subscribes an observer. It receives the events published from now on, on
+     * a new daemon thread. Subscribing an observer twice has no effect.
+     *
+     * @param observer     The observer
+     * @param waitStrategy How its thread waits for events
+     */
+    public synchronized void subscribe(GameObserver observer, WaitStrategy waitStrategy) {
+        if (observer == null || find(observer) != null) {
+            return;
+        }
+        Subscription subscription = new Subscription(observer, waitStrategy, cursor.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+    }
+
+    /**
+     * Unsubscribes an observer. It still receives the events published before
+     * this call, on its own thread; this call does not wait for them.
+     *
+     * @param observer The observer
+     */
+    public void unsubscribe(GameObserver observer) {
+        unsubscribe(observer, null);
+    }
+
+    /**
+     * Unsubscribes an observer and runs an action once it has received the
+     * events published before this call. The action runs on the observer's
+     * thread, or right away on the calling thread if the observer is not
+     * subscribed; this call does not wait for either.
+     *
+     * @param observer The observer
+     * @param whenDone Action to run after the observer's last event, or null
+     */
+    public void unsubscribe(GameObserver observer, Runnable whenDone) {
+        Subscription subscription;
+        synchronized (this) {
+            subscription = find(observer);
+            if (subscription != null) {
+                subscription.close();
+            } else {
+                subscription = findClosing(observer); // e.g. after close(): still delivering
+            }
+        }
+        if (whenDone != null && (subscription == null || !subscription.whenDone(whenDone))) {
+            whenDone.run();
+        }
+    }
+
+    /**
+     * Gets the subscribed observers.
+     *
+     * @return The observers, in subscription order
+     */
+    public List<GameObserver> getObservers() {
+        List<GameObserver> observers = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.closing) {
+                observers.add(subscription.observer);
+            }
+        }
+        return observers;
+    }
+
+    /**
+     * Unsubscribes every observer. Events already published are still
+     * delivered.
+     */
+    public synchronized void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Waits until every subscriber has handled the events published so far.
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return true if they all caught up in time
+     */
+    public boolean awaitDelivery(long timeoutMillis) {
+        long target = cursor.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (minimumSequence(target) < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(SLEEP_NANOS / 10);
+        }
+        return true;
+    }
+
+    private Subscription findClosing(GameObserver observer) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.observer == observer) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    private Subscription find(GameObserver observer) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.observer == observer && !subscription.closing) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    // ========== Publishing ==========
+
+    /**
+     * Publishes the net score and lives changes of an action.
+     *
+     * @param change The changes
+     */
+    public void publishStatsChanged(StatsChanged change) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        Event event = slot(sequence);
+        event.type = STATS_CHANGED;
+        event.payload = change;
+        publish(event, sequence);
+    }
+
+    public void publishGameOver(boolean won, String message) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        Event event = slot(sequence);
+        event.type = GAME_OVER;
+        event.flag = won;
+        event.message = message;
+        publish(event, sequence);
+    }
+
+    public void publishTurnChanged(int playerNumber) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        Event event = slot(sequence);
+        event.type = TURN_CHANGED;
+        event.playerNumber = playerNumber;
+        publish(event, sequence);
+    }
+
+    /**
+     * Publishes tiles revealed on a board.
+     *
+     * @param revealed The board and its cells
+     */
+    public void publishCellsRevealed(CellsRevealed revealed) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        Event event = slot(sequence);
+        event.type = CELLS_REVEALED;
+        event.payload = revealed;
+        publish(event, sequence);
+    }
+
+    public void publishFlagChanged(int boardNum, int row, int col, boolean flagged) {
+        publishTileEvent(FLAG_CHANGED, boardNum, row, col, flagged, 0, 0);
+    }
+
+    public void publishTileActivated(int boardNum, int row, int col, int cost) {
+        publishTileEvent(TILE_ACTIVATED, boardNum, row, col, false, cost, 0);
+    }
+
+    public void publishQuestionAnswered(int boardNum, int row, int col, boolean correct, int questionId) {
+        publishTileEvent(QUESTION_ANSWERED, boardNum, row, col, correct, questionId, 0);
+    }
+
+    public void publishSurpriseTriggered(int boardNum, int row, int col, boolean good, int points, int lives) {
+        publishTileEvent(SURPRISE_TRIGGERED, boardNum, row, col, good, points, lives);
+    }
+
+    public void publishHintShown(int boardNum, int row, int col, boolean mine) {
+        publishTileEvent(HINT_SHOWN, boardNum, row, col, mine, 0, 0);
+    }
+
+    private void publishTileEvent(int type, int boardNum, int row, int col, boolean flag, int value, int change) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        Event event = slot(sequence);
+        event.type = type;
+        event.boardNum = boardNum;
+        event.row = row;
+        event.col = col;
+        event.flag = flag;
+        event.value = value;
+        event.change = change;
+        publish(event, sequence);
+    }
+
+    /**
+     * Claims the next sequence. If the slowest subscriber has not yet read the
+     * event that was last in its slot, that subscriber is detached rather than
+     * waited for.
+     */
+    private long claim() {
+        long sequence = ++nextSequence;
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint > gatingCache) {
+            long slowest = minimumSequence(sequence - 1);
+            if (wrapPoint > slowest) {
+                detachLagging(wrapPoint);
+                slowest = minimumSequence(sequence - 1);
+            }
+            gatingCache = slowest;
+        }
+        return sequence;
+    }
+
+    private void detachLagging(long wrapPoint) {
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.detached && subscription.sequence.get() < wrapPoint) {
+                subscription.detached = true;
+                subscription.close();
+                System.err.println("Game observer " + subscription.thread.getName() + " fell " + ring.length
+                        + " events behind and was detached");
+            }
+        }
+    }
+
+    /**
+     * Gets the slot for a sequence, marked as being written.
+     */
+    private Event slot(long sequence) {
+        Event event = ring[(int) sequence & mask];
+        event.sequence = -1;
+        VarHandle.releaseFence(); // the event's writes happen after the mark
+        return event;
+    }
+
+    private void publish(Event event, long sequence) {
+        event.sequence = sequence;
+        cursor.set(sequence);
+        if (blockedSubscribers.get() > 0) {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Gets the lowest sequence any attached subscriber has handled, or the
+     * given sequence if there are none.
+     */
+    private long minimumSequence(long sequence) {
+        long minimum = sequence;
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.detached) {
+                minimum = Math.min(minimum, subscription.sequence.get());
+            }
+        }
+        return minimum;
+    }
+
+    // ========== Consuming ==========
+
+    /**
+     * One observer's position in the ring and the thread that delivers its
+     * events.
+     */
+    private final class Subscription implements Runnable {
+        final GameObserver observer;
+        final WaitStrategy waitStrategy;
+        final AtomicLong sequence; // last handled sequence
+        final Thread thread;
+        volatile boolean closing;
+        volatile boolean detached; // fell a ring behind; no longer holds up publishing
+        private final Event current = new Event(); // the event being delivered
+        private volatile long lastSequence = Long.MAX_VALUE; // last event to deliver once closing
+        private Runnable whenDone; // guarded by this; runs after the last event
+        private boolean ended; // guarded by this
+
+        Subscription(GameObserver observer, WaitStrategy waitStrategy, long start) {
+            this.observer = observer;
+            this.waitStrategy = waitStrategy;
+            this.sequence = new AtomicLong(start);
+            this.thread = new Thread(this, "game-events-" + observer.getClass().getSimpleName());
+            thread.setDaemon(true);
+        }
+
+        void close() {
+            if (!closing) {
+                lastSequence = cursor.get();
+            }
+            closing = true;
+            if (waitStrategy == WaitStrategy.BLOCKING) {
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Sets the action to run once the thread has delivered its last event.
+         *
+         * @return false if the thread has already ended
+         */
+        synchronized boolean whenDone(Runnable action) {
+            if (ended) {
+                return false;
+            }
+            whenDone = action;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long next = sequence.get() + 1;
+                while (true) {
+                    long available = waitFor(next);
+                    if (closing) {
+                        available = Math.min(available, lastSequence);
+                    }
+                    if (available < next) {
+                        return; // closed, and every published event was delivered
+                    }
+                    for (long s = next; s <= available; s++) {
+                        if (!ring[(int) s & mask].copyTo(current, s)) {
+                            return; // detached, and the slot was reused
+                        }
+                        deliver(current);
+                    }
+                    if (observer instanceof EndOfBatchListener) {
+                        ((EndOfBatchListener) observer).onEndOfBatch();
+                    }
+                    sequence.set(available);
+                    next = available + 1;
+                }
+            } finally {
+                subscriptions.remove(this);
+                Runnable action;
+                synchronized (this) {
+                    ended = true;
+                    action = whenDone;
+                }
+                if (action != null) {
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Game observer cleanup failed: " + e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Waits until the event at a sequence is published.
+         *
+         * @return The last published sequence; less than the sequence asked
+         *         for only when closing
+         */
+        private long waitFor(long next) {
+            int tries = SPIN_TRIES + YIELD_TRIES;
+            long available;
+            while ((available = cursor.get()) < next) {
+                if (closing) {
+                    return cursor.get();
+                }
+                switch (waitStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELDING:
+                    if (tries > YIELD_TRIES) {
+                        tries--;
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                    break;
+                case SLEEPING:
+                    if (tries > YIELD_TRIES) {
+                        tries--;
+                        Thread.onSpinWait();
+                    } else if (tries > 0) {
+                        tries--;
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(SLEEP_NANOS);
+                    }
+                    break;
+                default: // BLOCKING
+                    block(next);
+                    break;
+                }
+            }
+            return available;
+        }
+
+        private void block(long next) {
+            blockedSubscribers.incrementAndGet();
+            lock.lock();
+            try {
+                // Checked under the lock, after registering, so no signal is missed
+                while (cursor.get() < next && !closing) {
+                    published.await(BLOCK_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                closing = true;
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+                blockedSubscribers.decrementAndGet();
+            }
+        }
+
+        private void deliver(Event event) {
+            try {
+                switch (event.type) {
+                case STATS_CHANGED:
+                    observer.onStatsChanged((StatsChanged) event.payload);
+                    break;
+                case GAME_OVER:
+                    observer.onGameOver(event.flag, event.message);
+                    break;
+                case TURN_CHANGED:
+                    observer.onTurnChanged(event.playerNumber);
+                    break;
+                case CELLS_REVEALED:
+                    observer.onCellsRevealed((CellsRevealed) event.payload);
+                    break;
+                case FLAG_CHANGED:
+                    observer.onFlagChanged(event.boardNum, event.row, event.col, event.flag);
+                    break;
+                case TILE_ACTIVATED:
+                    observer.onTileActivated(event.boardNum, event.row, event.col, event.value);
+                    break;
+                case QUESTION_ANSWERED:
+                    observer.onQuestionAnswered(event.boardNum, event.row, event.col, event.flag, event.value);
+                    break;
+                case SURPRISE_TRIGGERED:
+                    observer.onSurpriseTriggered(event.boardNum, event.row, event.col, event.flag, event.value,
+                            event.change);
+                    break;
+                case HINT_SHOWN:
+                    observer.onHintShown(event.boardNum, event.row, event.col, event.flag);
+                    break;
+                default:
+                    break;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Game observer failed: " + e);
+            }
+        }
+    }
+}
@@ -4,40 +4,137 @@ package Patterns.Observer;
  * Observer interface for game events.
  * Implements Observer design pattern.
  * Observers are notified when game state changes.
- * 
+ *
+ * Each player action ends with one {@link #onStatsChanged(StatsChanged)}
+ * carrying its net score and lives changes, so observers see a reveal that
+ * earns points and costs a life as one update. Tile events say exactly which
+ * tiles changed, so views and recorders can update just those. Every method
+ * has an empty default; observers implement the ones they need.
+ *
  * @author Team Rhino
  * @version 3.0 - Iteration 3
  */
 public interface GameObserver {
     /**
-     * Called when a player's score changes.
-     * 
+     * Called when a player's score changes. Called by the default
+     * {@link #onStatsChanged(StatsChanged)}, once per action and player.
+     *
      * @param playerNumber Player number (1 or 2)
      * @param newScore The new score
      * @param change Amount of change (can be negative)
      */
-    void onScoreChanged(int playerNumber, int newScore, int change);
-    
+    default void onScoreChanged(int playerNumber, int newScore, int change) {
+    }
+
     /**
-     * Called when shared lives change.
-     * 
+     * Called when shared lives change. Called by the default
+     * {@link #onStatsChanged(StatsChanged)}, once per action.
+     *
      * @param newLives Current number of lives
      * @param change Amount of change (can be negative)
      */
-    void onLivesChanged(int newLives, int change);
-    
+    default void onLivesChanged(int newLives, int change) {
+    }
+
     /**
      * Called when game is over.
-     * 
+     *
      * @param won Whether the game was won
      * @param message End game message
      */
-    void onGameOver(boolean won, String message);
-    
+    default void onGameOver(boolean won, String message) {
+    }
+
     /**
      * Called when turn changes.
-     * 
+     *
      * @param playerNumber New active player (1 or 2)
      */
-    void onTurnChanged(int playerNumber);
-}
\ No newline at end of file
+    default void onTurnChanged(int playerNumber) {
+    }
+
+    /**
+     * Called once per action with its net score and lives changes, before any
+     * turn change or game over the action causes. By default passes them on
+     * to {@link #onScoreChanged} and {@link #onLivesChanged}.
+     *
+     * @param change The changes and the values after them
+     */
+    default void onStatsChanged(StatsChanged change) {
+        for (int player = 1; player <= 2; player++) {
+            if (change.getScoreChange(player) != 0) {
+                onScoreChanged(player, change.getScore(player), change.getScoreChange(player));
+            }
+        }
+        if (change.getLivesChange() != 0) {
+            onLivesChanged(change.getLives(), change.getLivesChange());
+        }
+    }
+
+    /**
+     * Called when tiles are revealed: one event per board for a whole cascade.
+     *
+     * @param event The board and its revealed cells
+     */
+    default void onCellsRevealed(CellsRevealed event) {
+    }
+
+    /**
+     * Called when a flag is placed or removed.
+     *
+     * @param boardNum Board number (1 or 2)
+     * @param row Row of the tile
+     * @param col Column of the tile
+     * @param flagged true if the tile is now flagged
+     */
+    default void onFlagChanged(int boardNum, int row, int col, boolean flagged) {
+    }
+
+    /**
+     * Called when a question or surprise tile is paid for.
+     *
+     * @param boardNum Board number (1 or 2)
+     * @param row Row of the tile
+     * @param col Column of the tile
+     * @param cost Points paid
+     */
+    default void onTileActivated(int boardNum, int row, int col, int cost) {
+    }
+
+    /**
+     * Called when a question tile is answered.
+     *
+     * @param boardNum Board number (1 or 2)
+     * @param row Row of the tile
+     * @param col Column of the tile
+     * @param correct Whether the answer was correct
+     * @param questionId Id of the question, or 0 if none was available
+     */
+    default void onQuestionAnswered(int boardNum, int row, int col, boolean correct, int questionId) {
+    }
+
+    /**
+     * Called when a surprise tile's surprise is drawn. Its points and lives
+     * arrive with the action's {@link #onStatsChanged(StatsChanged)}.
+     *
+     * @param boardNum Board number (1 or 2)
+     * @param row Row of the tile
+     * @param col Column of the tile
+     * @param good Whether the surprise is a good one
+     * @param points Points effect
+     * @param lives Lives effect
+     */
+    default void onSurpriseTriggered(int boardNum, int row, int col, boolean good, int points, int lives) {
+    }
+
+    /**
+     * Called when a player buys a hint.
+     *
+     * @param boardNum Board number (1 or 2)
+     * @param row Row of the hinted tile
+     * @param col Column of the hinted tile
+     * @param mine true if the tile is a mine, false if it is safe
+     */
+    default void onHintShown(int boardNum, int row, int col, boolean mine) {
+    }
+}
@@ -0,0 +1,21 @@
+package Patterns.Observer;
+
+import Model.Question;
+
+/**
+ * Observer interface for question bank edits.
+ * Observers are notified whenever a question is added, replaced or removed,
+ * so derived structures (such as the search index) can update incrementally.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public interface QuestionBankObserver {
+    /**
+     * Called after a question was added, replaced or removed.
+     *
+     * @param oldQuestion The previous version (null if the question was added)
+     * @param newQuestion The new version (null if the question was removed)
+     */
+    void onQuestionChanged(Question oldQuestion, Question newQuestion);
+}
@@ -0,0 +1,73 @@
+package Patterns.Observer;
+
+/**
+ * Event for the net score and lives changes of one action, such as a reveal
+ * that earns points and then costs a life. Gives both the changes and the
+ * values after them.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class StatsChanged {
+    private final int player1Score;
+    private final int player2Score;
+    private final int totalScore;
+    private final int lives;
+    private final int player1Change;
+    private final int player2Change;
+    private final int livesChange;
+
+    /**
+     * Creates the event.
+     *
+     * @param player1Score  Player 1's score after the action
+     * @param player2Score  Player 2's score after the action
+     * @param totalScore    Shared score after the action
+     * @param lives         Shared lives after the action
+     * @param player1Change Net change of player 1's score
+     * @param player2Change Net change of player 2's score
+     * @param livesChange   Net change of the lives
+     */
+    public StatsChanged(int player1Score, int player2Score, int totalScore, int lives, int player1Change,
+            int player2Change, int livesChange) {
+        this.player1Score = player1Score;
+        this.player2Score = player2Score;
+        this.totalScore = totalScore;
+        this.lives = lives;
+        this.player1Change = player1Change;
+        this.player2Change = player2Change;
+        this.livesChange = livesChange;
+    }
+
+    /**
+     * Gets a player's score after the action.
+     *
+     * @param playerNumber Player number (1 or 2)
+     * @return The score
+     */
+    public int getScore(int playerNumber) {
+        return playerNumber == 1 ? player1Score : player2Score;
+    }
+
+    /**
+     * Gets the net change of a player's score.
+     *
+     * @param playerNumber Player number (1 or 2)
+     * @return The change; 0 if the action did not change it
+     */
+    public int getScoreChange(int playerNumber) {
+        return playerNumber == 1 ? player1Change : player2Change;
+    }
+
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getLivesChange() {
+        return livesChange;
+    }
+}
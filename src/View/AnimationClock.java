@@ -0,0 +1,247 @@
+package View;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * One frame clock for every animation in the views: score counters, hint
+ * highlights, particles, speech bubbles and dialogs that close themselves.
+ *
+ * Animations are registered against a target (usually the component they
+ * change). Starting an animation on a target that already has one cancels the
+ * old one, so a score that changes twice in a row runs one counter, not two
+ * fighting over the same label. All running animations are stepped together
+ * on frames of a fixed {@value #FRAME_MILLIS} ms grid and see the same frame
+ * time, so what they draw lands in the same repaint. When only delayed actions
+ * are waiting, the clock sleeps until the first is due; when nothing is
+ * waiting, it stops.
+ *
+ * Used on the Event Dispatch Thread only.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public final class AnimationClock {
+    /** Time between frames: about 60 frames a second. */
+    public static final int FRAME_MILLIS = 16;
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS);
+
+    /**
+     * An animation stepped once per frame.
+     */
+    public interface Animation {
+        /**
+         * Draws one frame.
+         *
+         * @param frameNanos Time of the frame (see {@link System#nanoTime()})
+         * @return true to be called again next frame, false when finished
+         */
+        boolean tick(long frameNanos);
+    }
+
+    private static AnimationClock instance;
+
+    private final Map<Object, Animation> animations = new HashMap<>();
+    private final Map<Object, Delayed> delayed = new HashMap<>();
+    private final List<Object> frameTargets = new ArrayList<>(); // reused each frame
+    private final Timer timer;
+    private final long epoch = System.nanoTime(); // frames fall on epoch + n * FRAME_NANOS
+    private long wakeAt; // when the timer fires next, while it is running
+
+    private static final class Delayed {
+        final long due;
+        final Runnable action;
+
+        Delayed(long due, Runnable action) {
+            this.due = due;
+            this.action = action;
+        }
+    }
+
+    private AnimationClock() {
+        timer = new Timer(FRAME_MILLIS, e -> frame());
+        timer.setRepeats(false); // each frame schedules the next
+        timer.setCoalesce(false); // a frame may schedule the next while its own event is still pending
+    }
+
+    /**
+     * Gets the clock.
+     *
+     * @return The shared clock
+     */
+    public static AnimationClock getInstance() {
+        if (instance == null) {
+            instance = new AnimationClock();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts an animation on a target, cancelling any animation or delayed
+     * action already on it. The first frame comes on the next tick.
+     *
+     * @param target    What the animation changes
+     * @param animation The animation
+     */
+    public void start(Object target, Animation animation) {
+        delayed.remove(target);
+        animations.put(target, animation);
+        wakeBy(nextFrame(System.nanoTime()));
+    }
+
+    /**
+     * Starts a tween on a target: the frame callback gets the fraction of the
+     * duration elapsed, from just above 0 up to exactly 1 on the last frame.
+     *
+     * @param target         What the tween changes
+     * @param durationMillis Length of the tween
+     * @param frame          Draws the tween at a fraction between 0 and 1
+     */
+    public void tween(Object target, long durationMillis, DoubleConsumer frame) {
+        long start = System.nanoTime();
+        long duration = Math.max(1, TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        start(target, now -> {
+            double fraction = Math.min(1.0, (double) (now - start) / duration);
+            frame.accept(fraction);
+            return fraction < 1.0;
+        });
+    }
+
+    /**
+     * Runs an action after a delay, cancelling any animation or delayed action
+     * already on the target.
+     *
+     * @param target      What the action is for
+     * @param delayMillis Delay before the action runs
+     * @param action      The action
+     */
+    public void after(Object target, long delayMillis, Runnable action) {
+        animations.remove(target);
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        delayed.put(target, new Delayed(due, action));
+        wakeBy(due);
+    }
+
+    /**
+     * Cancels the animation or delayed action on a target, if any.
+     *
+     * @param target The target
+     */
+    public void cancel(Object target) {
+        animations.remove(target);
+        delayed.remove(target);
+    }
+
+    /**
+     * Checks if a target has an animation or delayed action.
+     *
+     * @param target The target
+     * @return true if something is scheduled for it
+     */
+    public boolean isScheduled(Object target) {
+        return animations.containsKey(target) || delayed.containsKey(target);
+    }
+
+    /**
+     * Checks if the clock is ticking or waiting for a delayed action.
+     *
+     * @return false when idle
+     */
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    private void frame() {
+        long now = System.nanoTime();
+
+        // Animations may start or cancel others, so step a copy of the targets
+        frameTargets.addAll(animations.keySet());
+        for (Object target : frameTargets) {
+            Animation animation = animations.get(target);
+            if (animation != null && !step(animation, now) && animations.get(target) == animation) {
+                animations.remove(target);
+            }
+        }
+        frameTargets.clear();
+
+        frameTargets.addAll(delayed.keySet());
+        for (Object target : frameTargets) {
+            Delayed action = delayed.get(target);
+            if (action != null && action.due - now <= 0) {
+                delayed.remove(target);
+                run(action.action);
+            }
+        }
+        frameTargets.clear();
+
+        scheduleNext(now);
+    }
+
+    private static boolean step(Animation animation, long now) {
+        try {
+            return animation.tick(now);
+        } catch (RuntimeException e) {
+            System.err.println("Animation failed: " + e);
+            return false;
+        }
+    }
+
+    private static void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            System.err.println("Delayed action failed: " + e);
+        }
+    }
+
+    /**
+     * Schedules the next frame if anything is animating, else the first
+     * delayed action, else nothing.
+     */
+    private void scheduleNext(long now) {
+        long next = Long.MAX_VALUE;
+        if (!animations.isEmpty()) {
+            next = nextFrame(now);
+        } else {
+            for (Delayed action : delayed.values()) {
+                next = Math.min(next, action.due);
+            }
+        }
+        if (next != Long.MAX_VALUE) {
+            wakeBy(next); // keeps an earlier wake set by something started this frame
+        }
+    }
+
+    /**
+     * Makes sure the timer fires no later than a given time.
+     */
+    private void wakeBy(long time) {
+        if (timer.isRunning() && wakeAt - time <= 0) {
+            return;
+        }
+        timer.stop();
+        schedule(time, System.nanoTime());
+    }
+
+    private void schedule(long time, long now) {
+        long delayNanos = Math.max(0, time - now);
+        // Round up so the timer does not fire just before the time
+        int delay = (int) Math.min(Integer.MAX_VALUE, (delayNanos + 999_999) / 1_000_000);
+        wakeAt = time;
+        timer.setInitialDelay(delay);
+        timer.start();
+    }
+
+    /**
+     * Gets the first frame time on the grid after a time.
+     */
+    private long nextFrame(long now) {
+        return now + FRAME_NANOS - Math.floorMod(now - epoch, FRAME_NANOS);
+    }
+}
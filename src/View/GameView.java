@@ -33,6 +33,7 @@ public class GameView extends JFrame {
 	private JComboBox<String> difficultyCombo;
 	private JButton startButton;
 	private JButton demoButton;
+	private JLabel loadingLabel; // game data loading progress
 
 	// Game components
 	private JPanel board1Panel;
@@ -395,6 +396,12 @@ public class GameView extends JFrame {
 		demoButton.setPreferredSize(new Dimension(200, 65));
 		formCard.add(demoButton, gbc);
 
+		gbc.gridy++;
+		gbc.insets = new Insets(10, 0, 0, 0);
+		loadingLabel = createLabel("Loading game data...");
+		loadingLabel.setHorizontalAlignment(SwingConstants.CENTER);
+		formCard.add(loadingLabel, gbc);
+
 		gridPanel.add(formCard);
 
 		// --- RIGHT COLUMN: Info Cards ---
@@ -1193,35 +1200,42 @@ public class GameView extends JFrame {
 		}
 	}
 
-	// Inner class for drawing particles and speech bubbles
+	// Inner class for drawing particles and speech bubbles, one step per
+	// AnimationClock frame while any are alive
 	private class ParticlePanel extends JComponent {
 		private java.util.List<Particle> particles = new java.util.ArrayList<>();
 		private java.util.List<SpeechBubble> bubbles = new java.util.ArrayList<>();
-		private Timer animationTimer;
 
 		public ParticlePanel() {
 			setOpaque(false);
-			animationTimer = new Timer(16, e -> updateVisuals());
 		}
 
 		public void addExplosion(int x, int y, Color color) {
 			for (int i = 0; i < 30; i++) { // 30 particles per explosion
 				particles.add(new Particle(x, y, color));
 			}
-			if (!animationTimer.isRunning()) {
-				animationTimer.start();
-			}
+			startAnimating();
 		}
 
 		public void addBubble(int x, int y, String text, boolean isLeft) {
 			bubbles.add(new SpeechBubble(x, y, text, isLeft));
-			if (!animationTimer.isRunning()) {
-				animationTimer.start();
-			}
+			startAnimating();
 			repaint();
 		}
 
-		private void updateVisuals() {
+		private void startAnimating() {
+			AnimationClock clock = AnimationClock.getInstance();
+			if (!clock.isScheduled(this)) {
+				clock.start(this, frame -> updateVisuals());
+			}
+		}
+
+		/**
+		 * Moves everything one frame on.
+		 *
+		 * @return true while anything is still alive
+		 */
+		private boolean updateVisuals() {
 			boolean active = false;
 
 			// Update Particles
@@ -1250,10 +1264,8 @@ public class GameView extends JFrame {
 				}
 			}
 
-			if (!active) {
-				animationTimer.stop();
-			}
 			repaint();
+			return active;
 		}
 
 		@Override
@@ -1368,46 +1380,41 @@ public class GameView extends JFrame {
 
 	// --- Animated Counters Logic ---
 
+	private static final int SCORE_ANIMATION_MS = 500;
+
+	// What the team score label shows, including mid-animation; updateScores is
+	// called with the target.
 	private int displayedTotalScore = 0;
-	// We track the target separately, updateScores is called with the target.
 
 	/**
 	 * Updates scores display. Simplified method that only takes scores as
 	 * parameters.
 	 */
 	public void updateScores(int totalScore, int p1Score, int p2Score) {
-		// Animate Total Score
-		animateLabel(totalScoreLabel, displayedTotalScore, totalScore, "⭐ Team Score: ", "");
-		displayedTotalScore = totalScore;
+		animateTotalScore(totalScore);
 
 		player1ScoreLabel.setText("A: " + p1Score);
 		player2ScoreLabel.setText("B: " + p2Score);
 	}
 
-	private void animateLabel(JLabel label, int start, int end, String prefix, String suffix) {
+	/**
+	 * Counts the team score label up or down to a new value. A new value while
+	 * the label is still counting replaces the running animation and counts on
+	 * from the number shown.
+	 */
+	private void animateTotalScore(int end) {
+		int start = displayedTotalScore;
 		if (start == end) {
-			label.setText(prefix + end + suffix);
+			AnimationClock.getInstance().cancel(totalScoreLabel);
+			totalScoreLabel.setText("⭐ Team Score: " + end);
 			return;
 		}
 
-		Timer timer = new Timer(20, null);
-		long startTime = System.currentTimeMillis();
-		int duration = 500; // 500ms animation
-
-		timer.addActionListener(e -> {
-			long now = System.currentTimeMillis();
-			float fraction = (float) (now - startTime) / duration;
-
-			if (fraction >= 1f) {
-				label.setText(prefix + end + suffix);
-				timer.stop();
-			} else {
-				// Linear interpolation
-				int current = (int) (start + (end - start) * fraction);
-				label.setText(prefix + current + suffix);
-			}
+		AnimationClock.getInstance().tween(totalScoreLabel, SCORE_ANIMATION_MS, fraction -> {
+			// Linear interpolation
+			displayedTotalScore = fraction >= 1 ? end : (int) (start + (end - start) * fraction);
+			totalScoreLabel.setText("⭐ Team Score: " + displayedTotalScore);
 		});
-		timer.start();
 	}
 
 	public void updateMineCount(int count) {
@@ -1617,6 +1624,33 @@ public class GameView extends JFrame {
 		startButton.addActionListener(listener);
 	}
 
+	/**
+	 * Shows game data loading progress on the start screen. The label disappears
+	 * once everything is loaded.
+	 *
+	 * @param completed Number of data sets loaded so far
+	 * @param total     Total number of data sets
+	 * @param message   Description of the last data set that finished
+	 */
+	public void setLoadingProgress(int completed, int total, String message) {
+		if (completed >= total) {
+			loadingLabel.setVisible(false);
+		} else {
+			loadingLabel.setText(message + " (" + completed + "/" + total + ")...");
+			loadingLabel.setVisible(true);
+		}
+	}
+
+	/**
+	 * Shows a message while a game waits for its data to finish loading.
+	 *
+	 * @param message The message to show under the start buttons
+	 */
+	public void showLoadingMessage(String message) {
+		loadingLabel.setText(message);
+		loadingLabel.setVisible(true);
+	}
+
 	public void setBoardButtonListener(int boardNum, int row, int col, ActionListener listener) {
 		if (boardNum == 1) {
 			board1Buttons[row][col].addActionListener(listener);
@@ -1714,9 +1748,11 @@ public class GameView extends JFrame {
 				questionBtn.setMaximumSize(new Dimension(180, 40));
 				questionBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-				// Tooltip showing question level
+				// Tooltip showing question level (once a question has been dealt)
 				if (qTile.getQuestion() != null) {
 					questionBtn.setToolTipText(qTile.getQuestion().getLevel() + " Question - Click to answer");
+				} else {
+					questionBtn.setToolTipText("Question - Click to answer");
 				}
 
 				// Add click listener to answer the question
@@ -1745,6 +1781,8 @@ public class GameView extends JFrame {
 			questionView.refresh();
 	}
 
+	private final Object hintReset = new Object(); // AnimationClock target of the hint highlight
+
 	/**
 	 * Highlights a specific tile for a hint.
 	 */
@@ -1758,14 +1796,12 @@ public class GameView extends JFrame {
 		btn.setBackground(highlightColor);
 		btn.setBorder(BorderFactory.createLineBorder(Color.YELLOW, 3));
 
-		// Reset color after delay
-		Timer timer = new Timer(2000, e -> {
+		// Reset color after delay; a newer hint restarts the delay
+		AnimationClock.getInstance().after(hintReset, 2000, () -> {
 			if (controller != null) {
 				controller.refreshView();
 			}
 		});
-		timer.setRepeats(false);
-		timer.start();
 	}
 
 	/**
@@ -1803,10 +1839,8 @@ public class GameView extends JFrame {
 		// or overlay.
 		// Making it non-modal ensures flow continues, but we want the user to SEE it.
 
-		// Timer to close
-		Timer timer = new Timer(timeoutMs, e -> dialog.dispose());
-		timer.setRepeats(false);
-		timer.start();
+		// Close on the animation clock
+		AnimationClock.getInstance().after(dialog, timeoutMs, dialog::dispose);
 
 		dialog.setVisible(true);
 	}
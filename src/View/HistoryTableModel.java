@@ -0,0 +1,200 @@
+package View;
+
+import Model.GameHistory;
+import Model.HistoryQuery;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Table model for the history screen, backed directly by the history records.
+ *
+ * Rows are fetched and formatted only when the table asks for them: the page
+ * of {@link #PAGE_SIZE} rows around a requested row is formatted at once and
+ * kept in a small LRU cache, so opening the screen costs the same however
+ * many games there are. Sorting and filtering are done by a
+ * {@link HistoryQuery} on a background thread; the table shows the previous
+ * rows until the new order is ready.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int CACHE_ROWS = 10 * PAGE_SIZE;
+
+    private static final String[] COLUMNS = { "Date", "Player 1", "Player 2", "Total Score", "Difficulty", "Result" };
+    private static final HistoryQuery.SortKey[] SORT_KEYS = { HistoryQuery.SortKey.DATE,
+            HistoryQuery.SortKey.PLAYER1, HistoryQuery.SortKey.PLAYER2, HistoryQuery.SortKey.TOTAL_SCORE,
+            HistoryQuery.SortKey.DIFFICULTY, HistoryQuery.SortKey.RESULT };
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, HH:mm");
+
+    private List<GameHistory> records = Collections.emptyList(); // latest records
+    private HistoryQuery query = HistoryQuery.ALL;
+
+    // What the table shows (lags behind records and query while a query runs)
+    private List<GameHistory> shownRecords = Collections.emptyList();
+    private HistoryQuery shownQuery = HistoryQuery.ALL;
+    private int[] rows; // record index of each row; null when the query keeps record order
+    private int generation; // increases with every change, so stale query results are dropped
+
+    // Formatted rows by row index, least recently used first
+    private final Map<Integer, Object[]> cache = new LinkedHashMap<Integer, Object[]>(CACHE_ROWS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+            return size() > CACHE_ROWS;
+        }
+    };
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? shownRecords.size() : rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[] values = cache.get(row);
+        if (values == null) {
+            loadPage(row);
+            values = cache.get(row);
+        }
+        return values[column];
+    }
+
+    /**
+     * Shows new history records with the current query. Must be called on the
+     * Event Dispatch Thread.
+     *
+     * @param records The history records, oldest first; must not change
+     */
+    public void setRecords(List<GameHistory> records) {
+        this.records = records;
+        apply(query, records);
+    }
+
+    /**
+     * Gets the current query.
+     *
+     * @return The query
+     */
+    public HistoryQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Changes the filter or sort order. Must be called on the Event Dispatch
+     * Thread.
+     *
+     * @param query The new query
+     */
+    public void setQuery(HistoryQuery query) {
+        this.query = query;
+        apply(query, records);
+    }
+
+    /**
+     * Sorts by a column, toggling between ascending and descending if the
+     * table is already sorted by it.
+     *
+     * @param column Model column index
+     */
+    public void sortBy(int column) {
+        HistoryQuery.SortKey key = SORT_KEYS[column];
+        boolean descending = query.getSortKey() == key && !query.isDescending();
+        setQuery(query.withSort(key, descending));
+    }
+
+    /**
+     * Evaluates a query and shows its rows. Queries that keep record order
+     * are applied straight away; others run on a background thread.
+     */
+    private void apply(HistoryQuery query, List<GameHistory> records) {
+        int current = ++generation;
+        if (!query.isFiltered() && query.getSortKey() == HistoryQuery.SortKey.DATE) {
+            show(records, query, null);
+            return;
+        }
+        new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                return query.run(records);
+            }
+
+            @Override
+            protected void done() {
+                if (current != generation) {
+                    return; // a newer query or newer records replaced this one
+                }
+                try {
+                    show(records, query, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error querying history: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void show(List<GameHistory> newRecords, HistoryQuery newQuery, int[] newRows) {
+        shownRecords = newRecords;
+        shownQuery = newQuery;
+        rows = newRows;
+        cache.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Formats the page of rows that contains a row.
+     */
+    private void loadPage(int row) {
+        int start = row - row % PAGE_SIZE;
+        int end = Math.min(start + PAGE_SIZE, getRowCount());
+        for (int r = start; r < end; r++) {
+            if (!cache.containsKey(r)) {
+                cache.put(r, format(shownRecords.get(recordIndex(r))));
+            }
+        }
+    }
+
+    private int recordIndex(int row) {
+        if (rows != null) {
+            return rows[row];
+        }
+        return shownQuery.isDescending() ? shownRecords.size() - 1 - row : row;
+    }
+
+    private static Object[] format(GameHistory h) {
+        return new Object[] {
+                h.getTimestamp().format(DATE_FORMAT),
+                h.getPlayer1Name(),
+                h.getPlayer2Name(),
+                h.getTotalScore(),
+                h.getDifficulty(),
+                h.getWinner()
+        };
+    }
+}
@@ -1,27 +1,37 @@
 package View;
 
+import Model.Difficulty;
+import Model.GameDataLoader;
 import Model.GameHistory;
+import Model.HistoryAggregates;
 import Model.HistoryManager;
+import Model.HistoryQuery;
+import Model.PlayerIndex;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 public class HistoryView extends JPanel {
     private static final long serialVersionUID = 1L;
     private GameView mainView; // Reference to main view for navigation
     private JPanel contentPanel;
-    private DefaultTableModel tableModel;
+    private final HistoryTableModel tableModel = new HistoryTableModel(); // keeps sort and filter across refreshes
+    private JPanel filterBar; // created once so the filters survive refreshes
+    private CompletableFuture<List<GameHistory>> pendingLoad; // latest history load
 
     // Modern Colors
     private static final Color BG_DARK = new Color(30, 20, 60);
     private static final Color CARD_BG = new Color(45, 35, 75);
     private static final Color ACCENT_PURPLE = new Color(170, 40, 180);
     private static final Color TEXT_GRAY = new Color(200, 200, 220);
+    private static final int LEADERBOARD_SIZE = 5;
 
     public HistoryView(GameView mainView) {
         this.mainView = mainView;
@@ -40,13 +50,46 @@ public class HistoryView extends JPanel {
         // Header
         addHeader();
 
-        // Stats Cards
-        addStatsCards();
-
-        // Table / Empty State
-        addHistoryContent();
+        JLabel loading = new JLabel("Loading history...");
+        loading.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        loading.setForeground(TEXT_GRAY);
+        contentPanel.add(loading);
 
         add(contentPanel, BorderLayout.CENTER);
+
+        // Stats and table are filled in when the startup load finishes
+        showWhenLoaded(GameDataLoader.getInstance().getHistory());
+    }
+
+    /**
+     * Rebuilds the stats and table once a background history load completes.
+     * Only the most recent load is shown, so an older, slower load never
+     * replaces newer data.
+     */
+    private void showWhenLoaded(CompletableFuture<List<GameHistory>> loading) {
+        pendingLoad = loading;
+        loading.thenAccept(history -> {
+            // Kept current as games are saved, so this does not scan the history
+            HistoryAggregates stats = HistoryManager.getAggregates();
+            List<PlayerIndex.Entry> leaders = HistoryManager.getPlayerIndex().getLeaderboard(LEADERBOARD_SIZE);
+            SwingUtilities.invokeLater(() -> showHistory(loading, history, stats, leaders));
+        });
+    }
+
+    private void showHistory(CompletableFuture<List<GameHistory>> loading, List<GameHistory> history,
+            HistoryAggregates stats, List<PlayerIndex.Entry> leaders) {
+        if (pendingLoad != loading) {
+            return;
+        }
+        contentPanel.removeAll();
+        addHeader();
+        // Stats Cards
+        addStatsCards(stats);
+        addLeaderboard(leaders);
+        // Table / Empty State
+        addHistoryContent(history);
+        contentPanel.revalidate();
+        contentPanel.repaint();
     }
 
     private void createNavBar() {
@@ -107,6 +150,10 @@ public class HistoryView extends JPanel {
         JButton clearBtn = createStyledButton("Clear History", new Color(220, 53, 69));
         clearBtn.addActionListener(e -> clearHistory());
 
+        JButton replayBtn = createStyledButton("Replays", new Color(100, 50, 150));
+        replayBtn.addActionListener(e -> new ReplayDialog(mainView).setVisible(true));
+
+        btnPanel.add(replayBtn);
         btnPanel.add(refreshBtn);
         btnPanel.add(clearBtn);
 
@@ -116,20 +163,10 @@ public class HistoryView extends JPanel {
         contentPanel.add(Box.createVerticalStrut(30));
     }
 
-    private void addStatsCards() {
-        List<GameHistory> history = HistoryManager.loadHistory();
-
-        int totalGames = history.size();
-        double avgScore = history.isEmpty() ? 0
-                : history.stream()
-                        .mapToInt(GameHistory::getTotalScore)
-                        .average().orElse(0);
-
-        Set<String> uniquePlayers = history.stream()
-                .flatMap(h -> java.util.stream.Stream.of(h.getPlayer1Name(), h.getPlayer2Name()))
-                .filter(n -> !n.trim().equalsIgnoreCase("AI Bot"))
-                .collect(Collectors.toSet());
-        int activePlayers = uniquePlayers.size();
+    private void addStatsCards(HistoryAggregates stats) {
+        int totalGames = stats.getGameCount();
+        double avgScore = stats.getAverageScore();
+        int activePlayers = stats.getPlayerCount();
 
         JPanel cardsPanel = new JPanel(new GridLayout(1, 3, 20, 0));
         cardsPanel.setOpaque(false);
@@ -143,9 +180,35 @@ public class HistoryView extends JPanel {
         contentPanel.add(Box.createVerticalStrut(30));
     }
 
-    private void addHistoryContent() {
-        List<GameHistory> history = HistoryManager.loadHistory();
+    private void addLeaderboard(List<PlayerIndex.Entry> leaders) {
+        if (leaders.isEmpty()) {
+            return;
+        }
+        RoundedPanel board = new RoundedPanel(15, CARD_BG);
+        board.setLayout(new GridLayout(leaders.size() + 1, 1, 0, 4));
+        board.setBorder(BorderFactory.createEmptyBorder(15, 25, 15, 25));
+        board.setMaximumSize(new Dimension(2000, 60 + 28 * leaders.size()));
+
+        JLabel title = new JLabel("🥇 Leaderboard");
+        title.setFont(new Font("Segoe UI Emoji", Font.BOLD, 18));
+        title.setForeground(Color.WHITE);
+        board.add(title);
+
+        int rank = 1;
+        for (PlayerIndex.Entry player : leaders) {
+            JLabel row = new JLabel(String.format("%d.  %s   —   rating %.0f   |   %d games, %d wins   |   best %d, avg %.0f",
+                    rank++, player.getName(), player.getRating(), player.getGames(), player.getWins(),
+                    player.getBestScore(), player.getAverageScore()));
+            row.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            row.setForeground(TEXT_GRAY);
+            board.add(row);
+        }
+
+        contentPanel.add(board);
+        contentPanel.add(Box.createVerticalStrut(30));
+    }
 
+    private void addHistoryContent(List<GameHistory> history) {
         if (history.isEmpty()) {
             JPanel emptyPanel = new RoundedPanel(20, CARD_BG);
             emptyPanel.setLayout(new GridBagLayout());
@@ -177,24 +240,8 @@ public class HistoryView extends JPanel {
 
             contentPanel.add(emptyPanel);
         } else {
-            // Table
-            String[] cols = { "Date", "Player 1", "Player 2", "Total Score", "Difficulty", "Result" };
-            tableModel = new DefaultTableModel(cols, 0) {
-                public boolean isCellEditable(int row, int col) {
-                    return false;
-                }
-            };
-
-            for (GameHistory h : history) {
-                tableModel.addRow(new Object[] {
-                        h.getTimestamp().format(java.time.format.DateTimeFormatter.ofPattern("MMM dd, HH:mm")),
-                        h.getPlayer1Name(),
-                        h.getPlayer2Name(),
-                        h.getTotalScore(),
-                        h.getDifficulty(),
-                        h.getWinner()
-                });
-            }
+            // Table (rows are formatted as they are shown)
+            tableModel.setRecords(history);
 
             JTable table = new JTable(tableModel);
             table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -213,6 +260,16 @@ public class HistoryView extends JPanel {
             table.setForeground(Color.WHITE);
             table.setShowGrid(false);
             table.setSelectionBackground(ACCENT_PURPLE);
+            table.getTableHeader().setToolTipText("Click a column to sort");
+            table.getTableHeader().addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    int column = table.columnAtPoint(e.getPoint());
+                    if (column >= 0) {
+                        tableModel.sortBy(table.convertColumnIndexToModel(column));
+                    }
+                }
+            });
 
             JScrollPane scroll = new JScrollPane(table);
             scroll.getViewport().setBackground(CARD_BG);
@@ -222,12 +279,68 @@ public class HistoryView extends JPanel {
             RoundedPanel wrapper = new RoundedPanel(20, CARD_BG);
             wrapper.setLayout(new BorderLayout());
             wrapper.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+            if (filterBar == null) {
+                filterBar = createFilterBar();
+            }
+            wrapper.add(filterBar, BorderLayout.NORTH);
             wrapper.add(scroll);
 
             contentPanel.add(wrapper);
         }
     }
 
+    /**
+     * Creates the player / difficulty / result filters above the table.
+     */
+    private JPanel createFilterBar() {
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        bar.setOpaque(false);
+        bar.setBorder(BorderFactory.createEmptyBorder(0, 0, 15, 0));
+
+        JTextField playerField = new JTextField(14);
+        playerField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        playerField.setToolTipText("Filter by player name");
+
+        JComboBox<Object> difficultyBox = new JComboBox<>(new Object[] { "All difficulties", Difficulty.EASY,
+                Difficulty.MEDIUM, Difficulty.HARD });
+        JComboBox<String> resultBox = new JComboBox<>(new String[] { "All results", "Won", "Lost" });
+
+        Runnable applyFilter = () -> {
+            Object difficulty = difficultyBox.getSelectedItem();
+            HistoryQuery.Result result = HistoryQuery.Result.values()[resultBox.getSelectedIndex()];
+            tableModel.setQuery(tableModel.getQuery().withFilter(playerField.getText(),
+                    difficulty instanceof Difficulty ? (Difficulty) difficulty : null, result));
+        };
+
+        // Filter as the player name is typed, once typing pauses
+        Timer typingTimer = new Timer(250, e -> applyFilter.run());
+        typingTimer.setRepeats(false);
+        playerField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+        });
+        difficultyBox.addActionListener(e -> applyFilter.run());
+        resultBox.addActionListener(e -> applyFilter.run());
+
+        JLabel label = new JLabel("Player:");
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        label.setForeground(TEXT_GRAY);
+        bar.add(label);
+        bar.add(playerField);
+        bar.add(difficultyBox);
+        bar.add(resultBox);
+        return bar;
+    }
+
     private JPanel createStatCard(String title, String value, String iconStr) {
         RoundedPanel card = new RoundedPanel(15, CARD_BG);
         card.setLayout(new BorderLayout());
@@ -314,13 +427,8 @@ public class HistoryView extends JPanel {
         }
     }
 
-    // Refresh data
+    // Refresh data (read in the background; the current table stays until then)
     public void refresh() {
-        contentPanel.removeAll();
-        addHeader();
-        addStatsCards();
-        addHistoryContent();
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        showWhenLoaded(GameDataLoader.getInstance().reloadHistory());
     }
 }
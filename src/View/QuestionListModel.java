@@ -0,0 +1,98 @@
+package View;
+
+import Model.Question;
+import Model.QuestionSearchIndex;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * List model for the question manager. Holds the current search results in
+ * result order and applies single edits as row-level insert/change/remove
+ * events, so the list only repaints the affected card.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionListModel extends AbstractListModel<Question> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Question> questions = new ArrayList<>();
+
+    @Override
+    public int getSize() {
+        return questions.size();
+    }
+
+    @Override
+    public Question getElementAt(int index) {
+        return questions.get(index);
+    }
+
+    /**
+     * Replaces all rows (after the query or level filter changed).
+     *
+     * @param results Questions in result order
+     */
+    public void setQuestions(List<Question> results) {
+        int oldSize = questions.size();
+        questions.clear();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        questions.addAll(results);
+        if (!results.isEmpty()) {
+            fireIntervalAdded(this, 0, results.size() - 1);
+        }
+    }
+
+    /**
+     * Applies one bank edit.
+     *
+     * @param oldQuestion Previous version, or null if the question was added
+     * @param newQuestion New version, or null if the question was removed
+     * @param keepNew     Whether the new version matches the current filter
+     */
+    public void applyChange(Question oldQuestion, Question newQuestion, boolean keepNew) {
+        int oldIndex = oldQuestion == null ? -1 : indexOf(oldQuestion);
+        if (oldIndex < 0 && newQuestion != null) {
+            // Already listed (a search ran after the change but before it was
+            // applied here): update that row instead of adding a duplicate
+            oldIndex = indexOf(newQuestion);
+        }
+        if (newQuestion != null && keepNew) {
+            int newIndex = insertionPoint(newQuestion);
+            if (oldIndex >= 0 && (newIndex == oldIndex || newIndex == oldIndex + 1)) {
+                // Same position: update in place
+                questions.set(oldIndex, newQuestion);
+                fireContentsChanged(this, oldIndex, oldIndex);
+                return;
+            }
+            if (oldIndex >= 0) {
+                removeAt(oldIndex);
+                newIndex = insertionPoint(newQuestion);
+            }
+            questions.add(newIndex, newQuestion);
+            fireIntervalAdded(this, newIndex, newIndex);
+        } else if (oldIndex >= 0) {
+            removeAt(oldIndex);
+        }
+    }
+
+    private void removeAt(int index) {
+        questions.remove(index);
+        fireIntervalRemoved(this, index, index);
+    }
+
+    private int indexOf(Question question) {
+        int index = Collections.binarySearch(questions, question, QuestionSearchIndex.RESULT_ORDER);
+        return index >= 0 && questions.get(index).getId() == question.getId() ? index : -1;
+    }
+
+    private int insertionPoint(Question question) {
+        int index = Collections.binarySearch(questions, question, QuestionSearchIndex.RESULT_ORDER);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -1,23 +1,54 @@
 package View;
 
 import Model.Difficulty;
+import Model.GameDataLoader;
 import Model.Question;
 import Model.QuestionBank;
+import Model.QuestionSearchIndex;
+import Patterns.Observer.QuestionBankObserver;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
 
-public class QuestionView extends JPanel {
+public class QuestionView extends JPanel implements QuestionBankObserver {
     private static final long serialVersionUID = 1L;
     private GameView mainView;
     private JPanel contentPanel;
-    private JPanel questionsListPanel; // Panel to hold question cards
+
+    // Virtualized question list: only visible rows are painted, all through one
+    // recycled card renderer
+    private static final int CARD_HEIGHT = 220;
+    private static final int CARD_GAP = 20;
+    private static final int ACTION_NONE = 0;
+    private static final int ACTION_EDIT = 1;
+    private static final int ACTION_DELETE = 2;
+    private JList<Question> questionList;
+    private QuestionListModel listModel;
+    private QuestionCardRenderer cardRenderer;
+    private JLabel emptyLabel;
+    private int hoverIndex = -1;
+    private int hoverAction = ACTION_NONE;
     private QuestionBank questionBank;
 
+    // Search
+    private static final String[] FILTER_LEVELS = { null, "EASY", "MEDIUM", "HARD", "EXPERT" };
+    private static final String[] FILTER_LABELS = { "All", "Easy", "Medium", "Hard", "Expert" };
+    private JTextField searchField;
+    private JToggleButton[] levelButtons;
+    private String levelFilter; // null = all levels
+    private int[] facetCounts = new int[FILTER_LEVELS.length]; // index 0 = all
+    private boolean observingBank;
+    private boolean waitingForLoad; // a refresh is already registered for when loading ends
+
     // Colors
     private static final Color BG_DARK = new Color(30, 20, 60);
     private static final Color CARD_BG = new Color(45, 35, 75);
@@ -28,7 +59,8 @@ public class QuestionView extends JPanel {
 
     public QuestionView(GameView mainView) {
         this.mainView = mainView;
-        this.questionBank = QuestionBank.getInstance();
+        // The bank is taken from the startup loader in refresh(), so building
+        // this view never waits for the questions to load
 
         setLayout(new BorderLayout());
         setBackground(BG_DARK);
@@ -40,27 +72,66 @@ public class QuestionView extends JPanel {
         contentPanel.setOpaque(false);
         contentPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 40, 20));
 
-        // Top Section (Header + New Button)
-        JPanel topSection = createHeaderSection();
+        // Top Section (Header + New Button, then Search Bar)
+        JPanel topSection = new JPanel(new BorderLayout());
+        topSection.setOpaque(false);
+        topSection.add(createHeaderSection(), BorderLayout.NORTH);
+        topSection.add(createSearchBar(), BorderLayout.SOUTH);
         contentPanel.add(topSection, BorderLayout.NORTH);
 
-        // Center Section (Scrollable List of Cards)
-        questionsListPanel = new JPanel();
-        questionsListPanel.setLayout(new BoxLayout(questionsListPanel, BoxLayout.Y_AXIS));
-        questionsListPanel.setBackground(BG_DARK);
-        questionsListPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10)); // Inner padding
+        // Center Section (Scrollable, virtualized list of cards)
+        listModel = new QuestionListModel();
+        cardRenderer = new QuestionCardRenderer();
+        questionList = new JList<Question>(listModel) {
+            private static final long serialVersionUID = 1L;
 
-        JScrollPane scroll = new JScrollPane(questionsListPanel);
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                int action = actionAt(e.getPoint());
+                if (action == ACTION_EDIT)
+                    return "Edit Question";
+                if (action == ACTION_DELETE)
+                    return "Delete Question";
+                return null;
+            }
+        };
+        questionList.setCellRenderer(cardRenderer);
+        // Fixed cell size: the list never measures every card
+        questionList.setFixedCellHeight(CARD_HEIGHT + CARD_GAP);
+        questionList.setFixedCellWidth(400);
+        questionList.setBackground(BG_DARK);
+        questionList.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10)); // Inner padding
+        questionList.setSelectionModel(new DefaultListSelectionModel() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void setSelectionInterval(int index0, int index1) {
+                // Cards are not selectable
+            }
+        });
+        ToolTipManager.sharedInstance().registerComponent(questionList);
+        installCardMouseHandling();
+
+        emptyLabel = new JLabel("No questions match your search.");
+        emptyLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        emptyLabel.setForeground(TEXT_GRAY);
+        emptyLabel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        emptyLabel.setVisible(false);
+
+        JScrollPane scroll = new JScrollPane(questionList);
         scroll.getViewport().setBackground(BG_DARK);
         scroll.setBorder(null);
         scroll.getVerticalScrollBar().setUnitIncrement(16);
         scroll.setOpaque(false);
 
-        contentPanel.add(scroll, BorderLayout.CENTER);
+        JPanel listArea = new JPanel(new BorderLayout());
+        listArea.setOpaque(false);
+        listArea.add(emptyLabel, BorderLayout.NORTH);
+        listArea.add(scroll, BorderLayout.CENTER);
+        contentPanel.add(listArea, BorderLayout.CENTER);
 
         add(contentPanel, BorderLayout.CENTER);
-
-        refresh();
+        // The list is filled by refresh() when the view is first shown
     }
 
     private void createNavBar() {
@@ -124,64 +195,261 @@ public class QuestionView extends JPanel {
         return p;
     }
 
-    // --- Card Creation ---
+    /**
+     * Search field plus level filter buttons. The list is filtered as you type.
+     */
+    private JPanel createSearchBar() {
+        JPanel bar = new JPanel(new BorderLayout(15, 10));
+        bar.setOpaque(false);
+        bar.setBorder(BorderFactory.createEmptyBorder(0, 10, 15, 10));
+
+        searchField = new JTextField();
+        searchField.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        searchField.setForeground(Color.WHITE);
+        searchField.setBackground(CARD_BG);
+        searchField.setCaretColor(Color.WHITE);
+        searchField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(80, 70, 110), 1),
+                BorderFactory.createEmptyBorder(8, 12, 8, 12)));
+        searchField.setToolTipText("Search questions and answers");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
 
-    private JPanel createQuestionCard(Question q) {
-        JPanel card = new RoundedPanel(15, CARD_BG);
-        card.setLayout(new BorderLayout(0, 15));
-        card.setBorder(BorderFactory.createEmptyBorder(20, 25, 20, 25));
-        card.setMaximumSize(new Dimension(2000, 250));
-        card.setPreferredSize(new Dimension(800, 220));
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
 
-        // 1. Header Row
-        JPanel header = new JPanel(new BorderLayout());
-        header.setOpaque(false);
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refresh();
+            }
+        });
 
-        JLabel badge = createLevelBadge(q.getLevel());
-        header.add(badge, BorderLayout.WEST);
+        JLabel searchLabel = new JLabel("🔍");
+        searchLabel.setFont(new Font("Segoe UI", Font.PLAIN, 18));
+        searchLabel.setForeground(TEXT_GRAY);
+        bar.add(searchLabel, BorderLayout.WEST);
+        bar.add(searchField, BorderLayout.CENTER);
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        filters.setOpaque(false);
+        ButtonGroup group = new ButtonGroup();
+        levelButtons = new JToggleButton[FILTER_LEVELS.length];
+        for (int i = 0; i < FILTER_LEVELS.length; i++) {
+            String level = FILTER_LEVELS[i];
+            JToggleButton btn = new JToggleButton(FILTER_LABELS[i]);
+            btn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+            btn.setForeground(Color.WHITE);
+            btn.setBackground(new Color(100, 50, 150));
+            btn.setFocusPainted(false);
+            btn.setBorderPainted(false);
+            btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            btn.addItemListener(e -> btn.setContentAreaFilled(btn.isSelected()));
+            btn.addActionListener(e -> {
+                levelFilter = level;
+                refresh();
+            });
+            btn.setSelected(level == null);
+            btn.setContentAreaFilled(btn.isSelected());
+            group.add(btn);
+            filters.add(btn);
+            levelButtons[i] = btn;
+        }
+        bar.add(filters, BorderLayout.SOUTH);
 
-        // Actions with Custom Painted Icons
-        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
-        actions.setOpaque(false);
+        return bar;
+    }
 
-        JButton editBtn = createIconButton("EDIT", BUTTON_EDIT);
-        editBtn.setToolTipText("Edit Question");
-        editBtn.addActionListener(e -> showEditQuestionDialog(q.getId()));
+    // --- Card Rendering ---
 
-        JButton delBtn = createIconButton("DELETE", BUTTON_DANGER);
-        delBtn.setToolTipText("Delete Question");
-        delBtn.addActionListener(e -> deleteQuestion(q.getId()));
+    /**
+     * Paints every question card with one set of recycled components. The edit
+     * and delete buttons are painted only; clicks are hit-tested by
+     * {@link #actionAt(Point)}.
+     */
+    private class QuestionCardRenderer implements ListCellRenderer<Question> {
+        private final JPanel cell;
+        private final JLabel badge;
+        private final JButton editBtn;
+        private final JButton delBtn;
+        private final JLabel qText;
+        private final JPanel[] optionPanels = new JPanel[4];
+        private final JLabel[] optionLabels = new JLabel[4];
+
+        QuestionCardRenderer() {
+            cell = new JPanel(new BorderLayout());
+            cell.setOpaque(false);
+            cell.setBorder(BorderFactory.createEmptyBorder(0, 0, CARD_GAP, 0));
+
+            JPanel card = new RoundedPanel(15, CARD_BG);
+            card.setLayout(new BorderLayout(0, 15));
+            card.setBorder(BorderFactory.createEmptyBorder(20, 25, 20, 25));
+            cell.add(card, BorderLayout.CENTER);
+
+            // 1. Header Row
+            JPanel header = new JPanel(new BorderLayout());
+            header.setOpaque(false);
+
+            badge = new JLabel();
+            badge.setFont(new Font("Segoe UI", Font.BOLD, 12));
+            badge.setOpaque(true);
+            badge.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+            header.add(badge, BorderLayout.WEST);
+
+            // Actions with Custom Painted Icons
+            JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
+            actions.setOpaque(false);
+            editBtn = createIconButton("EDIT", BUTTON_EDIT);
+            delBtn = createIconButton("DELETE", BUTTON_DANGER);
+            actions.add(editBtn);
+            actions.add(delBtn);
+            header.add(actions, BorderLayout.EAST);
+
+            card.add(header, BorderLayout.NORTH);
+
+            // 2. Question Text
+            qText = new JLabel();
+            qText.setFont(new Font("Segoe UI", Font.BOLD, 22));
+            qText.setForeground(Color.WHITE);
+            card.add(qText, BorderLayout.CENTER);
+
+            // 3. Options Grid
+            JPanel optionsGrid = new JPanel(new GridLayout(2, 2, 20, 10));
+            optionsGrid.setOpaque(false);
+            for (int i = 0; i < 4; i++) {
+                optionPanels[i] = new JPanel(new BorderLayout());
+                optionPanels[i].setOpaque(false);
+                optionLabels[i] = new JLabel();
+                optionLabels[i].setFont(new Font("Segoe UI", Font.PLAIN, 14));
+                optionPanels[i].add(optionLabels[i], BorderLayout.CENTER);
+                optionsGrid.add(optionPanels[i]);
+            }
+            card.add(optionsGrid, BorderLayout.SOUTH);
+        }
 
-        actions.add(editBtn);
-        actions.add(delBtn);
-        header.add(actions, BorderLayout.EAST);
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Question> list, Question q, int index,
+                boolean isSelected, boolean cellHasFocus) {
+            styleLevelBadge(badge, q.getLevel());
+            qText.setText("<html>" + q.getQuestionText() + "</html>");
+            for (int i = 1; i <= 4; i++) {
+                styleOption(optionPanels[i - 1], optionLabels[i - 1], i + ". " + q.getOption(i),
+                        i == q.getCorrectAnswer());
+            }
+            editBtn.getModel().setRollover(index == hoverIndex && hoverAction == ACTION_EDIT);
+            delBtn.getModel().setRollover(index == hoverIndex && hoverAction == ACTION_DELETE);
+            return cell;
+        }
 
-        card.add(header, BorderLayout.NORTH);
+        /**
+         * Finds which action button (if any) lies under a point of a card.
+         *
+         * @param size  Size of the cell
+         * @param point Point relative to the cell
+         */
+        int actionAt(Dimension size, Point point) {
+            cell.setSize(size);
+            layoutTree(cell);
+            if (boundsIn(editBtn).contains(point))
+                return ACTION_EDIT;
+            if (boundsIn(delBtn).contains(point))
+                return ACTION_DELETE;
+            return ACTION_NONE;
+        }
 
-        // 2. Question Text
-        JLabel qText = new JLabel("<html>" + q.getQuestionText() + "</html>");
-        qText.setFont(new Font("Segoe UI", Font.BOLD, 22));
-        qText.setForeground(Color.WHITE);
-        card.add(qText, BorderLayout.CENTER);
+        private Rectangle boundsIn(Component c) {
+            return SwingUtilities.convertRectangle(c.getParent(), c.getBounds(), cell);
+        }
 
-        // 3. Options Grid
-        JPanel optionsGrid = new JPanel(new GridLayout(2, 2, 20, 10));
-        optionsGrid.setOpaque(false);
+        private void layoutTree(Container c) {
+            c.doLayout();
+            for (Component child : c.getComponents()) {
+                if (child instanceof Container)
+                    layoutTree((Container) child);
+            }
+        }
+    }
 
-        for (int i = 1; i <= 4; i++) {
-            boolean isCorrect = (i == q.getCorrectAnswer());
-            optionsGrid.add(createOptionPanel(i + ". " + q.getOption(i), isCorrect));
+    /**
+     * Hover and click handling for the painted edit/delete buttons.
+     */
+    private void installCardMouseHandling() {
+        MouseAdapter handler = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                updateHover(e.getPoint());
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                updateHover(null);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e))
+                    return;
+                int index = rowAt(e.getPoint());
+                int action = actionAt(e.getPoint());
+                if (index < 0 || action == ACTION_NONE)
+                    return;
+                int id = listModel.getElementAt(index).getId();
+                if (action == ACTION_EDIT)
+                    showEditQuestionDialog(id);
+                else
+                    deleteQuestion(id);
+            }
+        };
+        questionList.addMouseListener(handler);
+        questionList.addMouseMotionListener(handler);
+    }
+
+    private void updateHover(Point p) {
+        int index = p == null ? -1 : rowAt(p);
+        int action = p == null ? ACTION_NONE : actionAt(p);
+        if (index == hoverIndex && action == hoverAction)
+            return;
+        repaintRow(hoverIndex);
+        hoverIndex = index;
+        hoverAction = action;
+        repaintRow(hoverIndex);
+        questionList.setCursor(action == ACTION_NONE ? Cursor.getDefaultCursor()
+                : Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+    }
+
+    private void repaintRow(int index) {
+        if (index >= 0 && index < listModel.getSize()) {
+            Rectangle r = questionList.getCellBounds(index, index);
+            if (r != null)
+                questionList.repaint(r);
         }
+    }
 
-        card.add(optionsGrid, BorderLayout.SOUTH);
+    /** Row under a point, or -1 (locationToIndex snaps to the nearest row). */
+    private int rowAt(Point p) {
+        int index = questionList.locationToIndex(p);
+        if (index < 0)
+            return -1;
+        Rectangle r = questionList.getCellBounds(index, index);
+        return r != null && r.contains(p) ? index : -1;
+    }
 
-        return card;
+    private int actionAt(Point p) {
+        int index = rowAt(p);
+        if (index < 0)
+            return ACTION_NONE;
+        Rectangle r = questionList.getCellBounds(index, index);
+        cardRenderer.getListCellRendererComponent(questionList, listModel.getElementAt(index), index, false, false);
+        return cardRenderer.actionAt(r.getSize(), new Point(p.x - r.x, p.y - r.y));
     }
 
     // --- Helpers ---
 
-    private JLabel createLevelBadge(String level) {
-        String text = level.toUpperCase();
+    private void styleLevelBadge(JLabel lbl, String level) {
         Color bg = new Color(76, 175, 80); // Default Green
         if (level.equalsIgnoreCase("Medium"))
             bg = new Color(255, 193, 7);
@@ -190,21 +458,12 @@ public class QuestionView extends JPanel {
         else if (level.equalsIgnoreCase("Expert"))
             bg = new Color(139, 0, 0);
 
-        JLabel lbl = new JLabel(" " + text + " ");
-        lbl.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        lbl.setForeground(Color.WHITE);
-        if (level.equalsIgnoreCase("Medium"))
-            lbl.setForeground(Color.BLACK);
-
-        lbl.setOpaque(true);
+        lbl.setText(" " + level.toUpperCase() + " ");
+        lbl.setForeground(level.equalsIgnoreCase("Medium") ? Color.BLACK : Color.WHITE);
         lbl.setBackground(bg);
-        lbl.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
-        return lbl;
     }
 
-    private JPanel createOptionPanel(String text, boolean isCorrect) {
-        JPanel p = new JPanel(new BorderLayout());
-        p.setOpaque(false);
+    private void styleOption(JPanel p, JLabel lbl, String text, boolean isCorrect) {
         Color borderColor = isCorrect ? new Color(46, 204, 113) : new Color(80, 70, 110);
         Color bgColor = isCorrect ? new Color(46, 204, 113, 30) : new Color(0, 0, 0, 0);
 
@@ -213,12 +472,8 @@ public class QuestionView extends JPanel {
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)));
         p.setBackground(bgColor);
 
-        JLabel lbl = new JLabel("<html>" + text + (isCorrect ? " ✓" : "") + "</html>");
+        lbl.setText("<html>" + text + (isCorrect ? " ✓" : "") + "</html>");
         lbl.setForeground(isCorrect ? new Color(46, 204, 113) : TEXT_GRAY);
-        lbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        p.add(lbl, BorderLayout.CENTER);
-
-        return p;
     }
 
     // --- Custom Icon Button ---
@@ -279,7 +534,7 @@ public class QuestionView extends JPanel {
     }
 
     private void showEditQuestionDialog(int questionId) {
-        Question q = questionBank.findQuestionById(questionId);
+        Question q = bank().findQuestionById(questionId);
         if (q != null) {
             showQuestionEditorDialog(q);
         }
@@ -461,7 +716,7 @@ public class QuestionView extends JPanel {
                     return;
                 }
                 // Update
-                questionBank.updateQuestion(existingHelper.getId(), qText,
+                bank().updateQuestion(existingHelper.getId(), qText,
                         optFields[0].getText().trim(),
                         optFields[1].getText().trim(),
                         optFields[2].getText().trim(),
@@ -474,7 +729,7 @@ public class QuestionView extends JPanel {
                     return;
                 }
                 // Add
-                questionBank.addQuestion(qText,
+                bank().addQuestion(qText,
                         optFields[0].getText().trim(),
                         optFields[1].getText().trim(),
                         optFields[2].getText().trim(),
@@ -483,7 +738,6 @@ public class QuestionView extends JPanel {
                         Difficulty.valueOf(levelCombo.getSelectedItem().toString().toUpperCase()));
             }
 
-            refresh();
             dialog.dispose();
             JOptionPane.showMessageDialog(mainView, isEdit ? "Question Updated!" : "Question Added!");
         });
@@ -593,24 +847,103 @@ public class QuestionView extends JPanel {
     private void deleteQuestion(int id) {
         int confirm = JOptionPane.showConfirmDialog(this, "Delete question?", "Confirm", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            if (questionBank.deleteQuestion(id)) {
-                refresh();
+            if (bank().deleteQuestion(id)) {
                 JOptionPane.showMessageDialog(this, "Deleted!");
             } else
                 JOptionPane.showMessageDialog(this, "Error!");
         }
     }
 
+    /**
+     * Gets the question bank for edits. Only waits for loading if an edit is
+     * made before the list was first shown.
+     */
+    private QuestionBank bank() {
+        return questionBank != null ? questionBank : QuestionBank.getInstance();
+    }
+
+    /**
+     * Re-runs the search and replaces the list contents. Waits in the
+     * background (showing a loading message) if the questions are still being
+     * loaded.
+     */
     public void refresh() {
-        questionsListPanel.removeAll();
-        List<Question> questions = questionBank.getAllQuestions();
-        questionsListPanel.add(Box.createVerticalStrut(10));
-        for (Question q : questions) {
-            questionsListPanel.add(createQuestionCard(q));
-            questionsListPanel.add(Box.createVerticalStrut(20));
+        if (questionBank == null) {
+            CompletableFuture<QuestionBank> loading = GameDataLoader.getInstance().getQuestions();
+            if (!loading.isDone()) {
+                emptyLabel.setText("Loading questions...");
+                emptyLabel.setVisible(true);
+                if (!waitingForLoad) {
+                    // Once: every search typed while loading would add another
+                    waitingForLoad = true;
+                    loading.thenRun(() -> SwingUtilities.invokeLater(this::refresh));
+                }
+                return;
+            }
+            questionBank = QuestionBank.getInstance();
+            emptyLabel.setText("No questions match your search.");
+        }
+
+        QuestionSearchIndex.Result result = questionBank.getSearchIndex().search(searchField.getText(), levelFilter);
+
+        facetCounts[0] = result.getTotalCount();
+        for (int i = 1; i < FILTER_LEVELS.length; i++) {
+            facetCounts[i] = result.getLevelCount(FILTER_LEVELS[i]);
+        }
+        updateFilterLabels();
+
+        hoverIndex = -1;
+        hoverAction = ACTION_NONE;
+        listModel.setQuestions(result.getQuestions());
+        emptyLabel.setVisible(listModel.getSize() == 0);
+
+        if (!observingBank) {
+            // Registered after the first search, which builds the search index,
+            // so the index is always updated before this view
+            questionBank.addObserver(this);
+            observingBank = true;
         }
-        questionsListPanel.revalidate();
-        questionsListPanel.repaint();
+    }
+
+    /**
+     * Applies a single add, edit or delete to the list and the facet counts
+     * without searching again.
+     */
+    @Override
+    public void onQuestionChanged(Question oldQuestion, Question newQuestion) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            // Edited from a background thread: apply on the EDT
+            SwingUtilities.invokeLater(() -> onQuestionChanged(oldQuestion, newQuestion));
+            return;
+        }
+        String query = searchField.getText();
+        if (oldQuestion != null && QuestionSearchIndex.matches(oldQuestion, query, null)) {
+            facetCounts[0]--;
+            facetCounts[filterIndex(oldQuestion.getLevel())]--;
+        }
+        if (newQuestion != null && QuestionSearchIndex.matches(newQuestion, query, null)) {
+            facetCounts[0]++;
+            facetCounts[filterIndex(newQuestion.getLevel())]++;
+        }
+        updateFilterLabels();
+
+        listModel.applyChange(oldQuestion, newQuestion,
+                newQuestion != null && QuestionSearchIndex.matches(newQuestion, query, levelFilter));
+        emptyLabel.setVisible(listModel.getSize() == 0);
+    }
+
+    private void updateFilterLabels() {
+        for (int i = 0; i < FILTER_LEVELS.length; i++) {
+            levelButtons[i].setText(FILTER_LABELS[i] + " (" + facetCounts[i] + ")");
+        }
+    }
+
+    private int filterIndex(String level) {
+        for (int i = 1; i < FILTER_LEVELS.length; i++) {
+            if (FILTER_LEVELS[i].equalsIgnoreCase(level))
+                return i;
+        }
+        return 2; // unknown levels are stored as MEDIUM
     }
 
     private boolean validateQuestionInput(String questionText, JTextField[] optionFields) {
@@ -626,12 +959,8 @@ public class QuestionView extends JPanel {
 
     private boolean isDuplicateQuestionText(String text, int skipsId) {
         if (skipsId == -1)
-            return questionBank.isDuplicateQuestion(text);
-        for (Question q : questionBank.getAllQuestions()) {
-            if (q.getId() != skipsId && q.getQuestionText().equalsIgnoreCase(text.trim()))
-                return true;
-        }
-        return false;
+            return bank().isDuplicateQuestion(text);
+        return bank().isDuplicateQuestion(text, skipsId);
     }
 
     private JButton createNavButton(String text, boolean active) {
@@ -0,0 +1,292 @@
+package View;
+
+import Model.Board;
+import Model.GameRecorder;
+import Model.GameReplay;
+import Model.QuestionTile;
+import Model.SurpriseTile;
+import Model.Tile;
+
+import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Dialog that replays recorded games (see {@link GameRecorder}).
+ *
+ * Pick a recorded game, then play it event by event, drag the slider to jump
+ * to any point, or press "End" to replay the whole game at once. Jumps use the
+ * snapshots in the log (see {@link GameReplay#seek(int)}), so they take the
+ * same time wherever they land.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class ReplayDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PLAY_DELAY_MS = 120; // between events while playing
+
+    private static final Color BG_DARK = new Color(30, 20, 60);
+    private static final Color TEXT_GRAY = new Color(200, 200, 220);
+    private static final Color HIDDEN_COLOR = new Color(60, 70, 90);
+    private static final Color REVEALED_COLOR = new Color(30, 40, 60);
+    private static final Color MINE_COLOR = new Color(231, 76, 60);
+    private static final Color FLAG_COLOR = new Color(244, 67, 54);
+    private static final Color QUESTION_COLOR = new Color(255, 193, 7);
+    private static final Color SURPRISE_COLOR = new Color(156, 39, 176);
+    private static final Color NUMBER_COLOR = new Color(100, 181, 246);
+
+    private final JComboBox<Path> gameChooser;
+    private final JPanel boardsPanel = new JPanel(new GridLayout(1, 2, 20, 0));
+    private final JSlider slider = new JSlider(0, 0, 0);
+    private final JLabel status = new JLabel(" ");
+    private final JButton playBtn = new JButton("▶ Play");
+    private final Timer playTimer;
+
+    private GameReplay replay;
+    private JLabel[][][] cells; // [board][row][col]
+    private boolean updatingSlider; // true while the slider follows the replay
+
+    /**
+     * Creates the dialog, showing the newest recorded game.
+     *
+     * @param parent Parent frame
+     */
+    public ReplayDialog(JFrame parent) {
+        super(parent, "Game Replays", true);
+        getContentPane().setBackground(BG_DARK);
+        setLayout(new BorderLayout(10, 10));
+
+        List<Path> logs = GameRecorder.listLogs();
+        gameChooser = new JComboBox<>(logs.toArray(new Path[0]));
+        gameChooser.setRenderer(new DefaultListCellRenderer() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                String text = value == null ? "" : describe((Path) value);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        gameChooser.addActionListener(e -> open((Path) gameChooser.getSelectedItem()));
+
+        JPanel top = new JPanel(new BorderLayout(10, 0));
+        top.setOpaque(false);
+        top.setBorder(BorderFactory.createEmptyBorder(10, 15, 0, 15));
+        JLabel chooseLabel = new JLabel("Recorded game:");
+        chooseLabel.setForeground(Color.WHITE);
+        top.add(chooseLabel, BorderLayout.WEST);
+        top.add(gameChooser, BorderLayout.CENTER);
+        add(top, BorderLayout.NORTH);
+
+        boardsPanel.setOpaque(false);
+        boardsPanel.setBorder(BorderFactory.createEmptyBorder(0, 15, 0, 15));
+        add(boardsPanel, BorderLayout.CENTER);
+
+        playTimer = new Timer(PLAY_DELAY_MS, e -> {
+            if (replay == null || !replay.step()) {
+                stopPlaying();
+            }
+            showPosition();
+        });
+
+        add(createControls(), BorderLayout.SOUTH);
+
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(1000, 650);
+        setLocationRelativeTo(parent);
+
+        if (logs.isEmpty()) {
+            status.setText("No recorded games yet. Games are recorded as they are played.");
+        } else {
+            open(logs.get(0));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        playTimer.stop();
+        super.dispose();
+    }
+
+    private JPanel createControls() {
+        JPanel controls = new JPanel(new BorderLayout(0, 8));
+        controls.setOpaque(false);
+        controls.setBorder(BorderFactory.createEmptyBorder(0, 15, 15, 15));
+
+        slider.setOpaque(false);
+        slider.addChangeListener(e -> {
+            if (!updatingSlider && replay != null) {
+                replay.seek(slider.getValue());
+                showPosition();
+            }
+        });
+        controls.add(slider, BorderLayout.NORTH);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        buttons.setOpaque(false);
+        buttons.add(createButton("⏮ Start", () -> replay.seek(0)));
+        buttons.add(createButton("◀ Back", () -> replay.seek(replay.getPosition() - 1)));
+        playBtn.addActionListener(e -> {
+            if (playTimer.isRunning()) {
+                stopPlaying();
+            } else if (replay != null) {
+                if (replay.getPosition() == replay.getEventCount()) {
+                    replay.seek(0);
+                }
+                playBtn.setText("⏸ Pause");
+                playTimer.start();
+            }
+        });
+        buttons.add(playBtn);
+        buttons.add(createButton("Next ▶", () -> replay.step()));
+        // Maximum speed: apply everything, draw once
+        buttons.add(createButton("End ⏭", () -> replay.replayAll()));
+        controls.add(buttons, BorderLayout.CENTER);
+
+        status.setForeground(TEXT_GRAY);
+        status.setHorizontalAlignment(SwingConstants.CENTER);
+        controls.add(status, BorderLayout.SOUTH);
+        return controls;
+    }
+
+    private JButton createButton(String text, Runnable action) {
+        JButton btn = new JButton(text);
+        btn.addActionListener(e -> {
+            if (replay != null) {
+                stopPlaying();
+                action.run();
+                showPosition();
+            }
+        });
+        return btn;
+    }
+
+    private void stopPlaying() {
+        playTimer.stop();
+        playBtn.setText("▶ Play");
+    }
+
+    private void open(Path log) {
+        stopPlaying();
+        replay = log == null ? null : GameReplay.open(log);
+        boardsPanel.removeAll();
+        if (replay == null) {
+            status.setText("This recording could not be read.");
+            boardsPanel.revalidate();
+            boardsPanel.repaint();
+            return;
+        }
+
+        int size = replay.getDifficulty().getBoardSize();
+        cells = new JLabel[2][size][size];
+        for (int b = 0; b < 2; b++) {
+            JPanel grid = new JPanel(new GridLayout(size, size, 2, 2));
+            grid.setOpaque(false);
+            grid.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(TEXT_GRAY),
+                    b == 0 ? replay.getPlayer1Name() : replay.getPlayer2Name(), 0, 0, null, Color.WHITE));
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    JLabel cell = new JLabel("", SwingConstants.CENTER);
+                    cell.setOpaque(true);
+                    cell.setFont(new Font("Segoe UI Emoji", Font.BOLD, 14));
+                    cells[b][row][col] = cell;
+                    grid.add(cell);
+                }
+            }
+            boardsPanel.add(grid);
+        }
+        boardsPanel.revalidate();
+        boardsPanel.repaint();
+        showPosition();
+    }
+
+    /**
+     * Draws the boards and status at the replay's position.
+     */
+    private void showPosition() {
+        if (replay == null) {
+            return;
+        }
+        drawBoard(cells[0], replay.getBoard1());
+        drawBoard(cells[1], replay.getBoard2());
+
+        updatingSlider = true;
+        slider.setMaximum(replay.getEventCount());
+        slider.setValue(replay.getPosition());
+        updatingSlider = false;
+
+        int position = replay.getPosition();
+        String last = position == 0 ? "start" : replay.getEventName(position - 1).toLowerCase();
+        String turn = replay.getCurrentPlayer() == 1 ? replay.getPlayer1Name() : replay.getPlayer2Name();
+        String text = "Event " + position + " / " + replay.getEventCount() + " (" + last + ")   |   "
+                + replay.getPlayer1Name() + ": " + replay.getScore(1) + "   " + replay.getPlayer2Name() + ": "
+                + replay.getScore(2) + "   |   Lives: " + replay.getLives() + "   |   ";
+        if (replay.isGameOver()) {
+            text += replay.isGameWon() ? "Board cleared" : "Game over";
+        } else {
+            text += "Turn: " + turn;
+        }
+        status.setText(text);
+    }
+
+    private static void drawBoard(JLabel[][] labels, Board board) {
+        for (int row = 0; row < labels.length; row++) {
+            for (int col = 0; col < labels.length; col++) {
+                drawTile(labels[row][col], board.getTile(row, col));
+            }
+        }
+    }
+
+    private static void drawTile(JLabel label, Tile tile) {
+        label.setForeground(Color.WHITE);
+        if (tile.isFlagged()) {
+            label.setText("🚩");
+            label.setBackground(FLAG_COLOR);
+        } else if (!tile.isRevealed()) {
+            label.setText("");
+            label.setBackground(HIDDEN_COLOR);
+        } else {
+            switch (tile.getType()) {
+                case "MINE":
+                    label.setText("💣");
+                    label.setBackground(MINE_COLOR);
+                    break;
+                case "QUESTION":
+                    label.setText(((QuestionTile) tile).isActivated() ? "❓✔" : "❓");
+                    label.setBackground(QUESTION_COLOR);
+                    break;
+                case "SURPRISE":
+                    label.setText(((SurpriseTile) tile).isActivated() ? "🎁✔" : "🎁");
+                    label.setBackground(SURPRISE_COLOR);
+                    break;
+                case "NUMBER":
+                    label.setText(String.valueOf(tile.getAdjacentMines()));
+                    label.setForeground(NUMBER_COLOR);
+                    label.setBackground(REVEALED_COLOR);
+                    break;
+                default:
+                    label.setText("·");
+                    label.setBackground(REVEALED_COLOR);
+            }
+        }
+    }
+
+    /**
+     * Formats a log's start time from its name (game-yyyyMMdd-HHmmss-...).
+     */
+    private static String describe(Path log) {
+        String name = log.getFileName().toString();
+        String[] parts = name.split("-");
+        if (parts.length < 3 || parts[1].length() != 8 || parts[2].length() != 6) {
+            return name;
+        }
+        String date = parts[1];
+        String time = parts[2];
+        return date.substring(0, 4) + "-" + date.substring(4, 6) + "-" + date.substring(6) + "  "
+                + time.substring(0, 2) + ":" + time.substring(2, 4) + ":" + time.substring(4);
+    }
+}
@@ -299,12 +299,10 @@ public class TriviaDialog extends JDialog {
 		JDialog dialog = pane.createDialog(this, title);
 
 		// Auto-close after showing
-		Timer timer = new Timer(2000, e -> {
+		AnimationClock.getInstance().after(dialog, 2000, () -> {
 			dialog.dispose();
 			dispose(); // Close the trivia dialog too
 		});
-		timer.setRepeats(false);
-		timer.start();
 
 		dialog.setVisible(true);
 	}
@@ -0,0 +1,124 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+import View.AnimationClock;
+
+/**
+ * JUnit tests for AnimationClock.
+ * Tests that a new animation replaces the old one on its target, that
+ * cancelled animations stop, and that delayed actions run once, on time.
+ * The clock is used on the Event Dispatch Thread, as in the views.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class AnimationClockTest {
+
+    private static final AnimationClock CLOCK = AnimationClock.getInstance();
+
+    private static void onEdt(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    private static boolean idle() throws Exception {
+        boolean[] running = new boolean[1];
+        onEdt(() -> running[0] = CLOCK.isRunning());
+        return !running[0];
+    }
+
+    /**
+     * Test ID: JU-078
+     * Test Type: JUnit Test
+     * Description: Test starting an animation on a busy target replaces the
+     * old one, cancelling stops it, and a tween ends exactly at 1
+     * Expected: The replaced animation never runs, the cancelled one runs no
+     * more frames, and the clock stops once nothing is scheduled
+     */
+    @Test
+    public void testReplaceAndCancel() throws Exception {
+        Object target = new Object();
+        AtomicInteger replaced = new AtomicInteger();
+        AtomicInteger frames = new AtomicInteger();
+        CountDownLatch threeFrames = new CountDownLatch(3);
+        onEdt(() -> {
+            CLOCK.start(target, now -> replaced.incrementAndGet() > 0);
+            CLOCK.start(target, now -> {
+                frames.incrementAndGet();
+                threeFrames.countDown();
+                return true;
+            });
+        });
+        assertTrue(threeFrames.await(2, TimeUnit.SECONDS));
+
+        onEdt(() -> CLOCK.cancel(target));
+        int framesAtCancel = frames.get();
+        Thread.sleep(100);
+        assertEquals(0, replaced.get());
+        assertEquals(framesAtCancel, frames.get());
+
+        List<Double> fractions = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(1);
+        onEdt(() -> CLOCK.tween(target, 60, fraction -> {
+            fractions.add(fraction);
+            if (fraction >= 1.0) {
+                finished.countDown();
+            }
+        }));
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(1.0, fractions.get(fractions.size() - 1), 0.0);
+        assertEquals(1, fractions.stream().filter(f -> f >= 1.0).count());
+        assertTrue(fractions.get(0) > 0);
+        onEdt(() -> assertFalse(CLOCK.isScheduled(target)));
+        assertTrue(idle());
+    }
+
+    /**
+     * Test ID: JU-079
+     * Test Type: JUnit Test
+     * Description: Test delayed actions run once after their delay, and a new
+     * delayed action or animation on the target replaces the old one
+     * Expected: Only the latest action per target runs, no earlier than its
+     * delay
+     */
+    @Test
+    public void testDelayedScheduling() throws Exception {
+        Object first = new Object();
+        Object second = new Object();
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong start = new AtomicLong();
+        AtomicLong ranAfter = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(2);
+        onEdt(() -> {
+            start.set(System.nanoTime());
+            CLOCK.after(first, 40, () -> ran.add("replaced"));
+            CLOCK.after(first, 150, () -> {
+                ranAfter.set(System.nanoTime() - start.get());
+                ran.add("first");
+                done.countDown();
+            });
+            CLOCK.start(second, now -> {
+                ran.add("animation");
+                return true;
+            });
+            CLOCK.after(second, 20, () -> {
+                ran.add("second");
+                done.countDown();
+            });
+        });
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertEquals(List.of("second", "first"), ran);
+        assertTrue(ranAfter.get() >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(idle());
+    }
+}
@@ -0,0 +1,163 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import Model.*;
+
+/**
+ * JUnit tests for AsyncHistoryWriter.
+ * Tests flush policies, batching, retries of failed saves and that closing
+ * never loses a game that was accepted.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class AsyncHistoryWriterTest {
+
+    private static final long WAIT_MILLIS = 3000;
+
+    /**
+     * Saver that records every batch it is given and can be told to fail.
+     */
+    private static final class RecordingSaver {
+        private final List<List<GameHistory>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int failures; // calls left that fail
+
+        boolean save(List<GameHistory> batch) {
+            calls.incrementAndGet();
+            if (failures > 0) {
+                failures--;
+                return false;
+            }
+            batches.add(new ArrayList<>(batch));
+            return true;
+        }
+
+        int saved() {
+            synchronized (batches) {
+                return batches.stream().mapToInt(List::size).sum();
+            }
+        }
+
+        boolean awaitSaved(int games) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (saved() < games) {
+                if (System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+                Thread.sleep(5);
+            }
+            return true;
+        }
+    }
+
+    private static GameHistory game(int total) {
+        return new GameHistory("Dana", "Lee", total, 0, total, Difficulty.EASY, "Won together", 1);
+    }
+
+    /**
+     * Test ID: JU-073
+     * Test Type: JUnit Test
+     * Description: Test flush policies read from text
+     * Expected: Valid texts give their policy with limits clamped; blank or
+     * invalid texts save every game
+     */
+    @Test
+    public void testParsePolicy() {
+        for (String text : new String[] { null, "", " record ", "bogus", "records:x", "millis:", "records" }) {
+            AsyncHistoryWriter.FlushPolicy policy = AsyncHistoryWriter.FlushPolicy.parse(text);
+            assertEquals(1, policy.getMaxRecords());
+            assertEquals(0, policy.getMaxDelayMillis());
+        }
+        AsyncHistoryWriter.FlushPolicy records = AsyncHistoryWriter.FlushPolicy.parse("records: 5");
+        assertEquals(5, records.getMaxRecords());
+        assertEquals(Long.MAX_VALUE, records.getMaxDelayMillis());
+        assertEquals(1, AsyncHistoryWriter.FlushPolicy.parse("records:0").getMaxRecords());
+
+        AsyncHistoryWriter.FlushPolicy millis = AsyncHistoryWriter.FlushPolicy.parse("millis:250");
+        assertEquals(Integer.MAX_VALUE, millis.getMaxRecords());
+        assertEquals(250, millis.getMaxDelayMillis());
+        assertEquals(0, AsyncHistoryWriter.FlushPolicy.parse("millis:-5").getMaxDelayMillis());
+    }
+
+    /**
+     * Test ID: JU-074
+     * Test Type: JUnit Test
+     * Description: Test games are written once enough are queued, or once the
+     * oldest has waited long enough, and the rest when the writer closes
+     * Expected: No write before the count or deadline is reached; one batch
+     * when it is; queued games are saved on close
+     */
+    @Test
+    public void testBatchingAndDeadline() throws InterruptedException {
+        RecordingSaver saver = new RecordingSaver();
+        AsyncHistoryWriter writer = new AsyncHistoryWriter(AsyncHistoryWriter.FlushPolicy.everyRecords(3),
+                saver::save);
+        assertTrue(writer.submit(game(1)));
+        assertTrue(writer.submit(game(2)));
+        Thread.sleep(300);
+        assertEquals(0, saver.calls.get());
+        assertTrue(writer.submit(game(3)));
+        assertTrue(saver.awaitSaved(3));
+        assertEquals(1, saver.batches.size());
+        assertEquals(2, saver.batches.get(0).get(1).getTotalScore());
+
+        assertTrue(writer.submit(game(4)));
+        writer.close();
+        assertEquals(4, saver.saved());
+        assertEquals(4, saver.batches.get(1).get(0).getTotalScore());
+        assertFalse(writer.submit(game(5)));
+
+        RecordingSaver timed = new RecordingSaver();
+        AsyncHistoryWriter timedWriter = new AsyncHistoryWriter(AsyncHistoryWriter.FlushPolicy.everyMillis(200),
+                timed::save);
+        long start = System.currentTimeMillis();
+        assertTrue(timedWriter.submit(game(1)));
+        assertTrue(timedWriter.submit(game(2)));
+        assertTrue(timed.awaitSaved(2));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertEquals(1, timed.batches.size());
+        timedWriter.close();
+    }
+
+    /**
+     * Test ID: JU-075
+     * Test Type: JUnit Test
+     * Description: Test a batch that fails to save is retried, with the games
+     * queued in the meantime, and that games submitted while the writer closes
+     * are either refused or saved
+     * Expected: Every accepted game is saved exactly once
+     */
+    @Test
+    public void testRetryAndClose() throws InterruptedException {
+        RecordingSaver saver = new RecordingSaver();
+        saver.failures = 2;
+        AsyncHistoryWriter writer = new AsyncHistoryWriter(AsyncHistoryWriter.FlushPolicy.everyRecord(), saver::save);
+        assertTrue(writer.submit(game(1)));
+        Thread.sleep(50);
+        assertTrue(writer.submit(game(2)));
+        assertTrue(saver.awaitSaved(2));
+        assertTrue(saver.calls.get() >= 3);
+        assertEquals(1, saver.batches.get(0).get(0).getTotalScore());
+        writer.close();
+
+        RecordingSaver racing = new RecordingSaver();
+        AsyncHistoryWriter closing = new AsyncHistoryWriter(AsyncHistoryWriter.FlushPolicy.everyRecords(1000),
+                racing::save);
+        AtomicInteger accepted = new AtomicInteger();
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < 1000 && closing.submit(game(i)); i++) {
+                accepted.incrementAndGet();
+            }
+        });
+        submitter.start();
+        Thread.sleep(1);
+        closing.close();
+        submitter.join();
+        assertEquals(accepted.get(), racing.saved());
+    }
+}
@@ -0,0 +1,109 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for BinaryHistoryLog.
+ * Tests that games appended or converted from CSV read back unchanged.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class BinaryHistoryLogTest {
+
+    private Path directory;
+    private Path binary;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("binary-history-test");
+        binary = directory.resolve("history.bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-049
+     * Test Type: JUnit Test
+     * Description: Test appended games read back the same, also after the log
+     * is reopened
+     * Expected: Same fields and order; older snapshots do not change
+     */
+    @Test
+    public void testAppendReadRoundTrip() throws IOException {
+        List<GameHistory> games = games();
+        List<GameHistory> snapshot;
+        try (BinaryHistoryLog log = new BinaryHistoryLog(binary)) {
+            log.append(games.get(0));
+            snapshot = log.records();
+            log.appendAll(games.subList(1, games.size()));
+            assertEquals(games.size(), log.size());
+            assertSameGames(games, log.records());
+        }
+        assertEquals(1, snapshot.size());
+
+        try (BinaryHistoryLog reopened = new BinaryHistoryLog(binary)) {
+            assertSameGames(games, reopened.records());
+            BinaryHistoryLog.Records records = reopened.records();
+            assertEquals(records.getName(records.getPlayer1Id(0)), "Dana, Jr");
+            assertEquals(records.getPlayer1Id(0), records.getPlayer1Id(2)); // names are stored once
+        }
+    }
+
+    /**
+     * Test ID: JU-050
+     * Test Type: JUnit Test
+     * Description: Test a history CSV converts to a log holding the same games,
+     * and an existing log is not overwritten
+     * Expected: Same games; second conversion fails with IOException
+     */
+    @Test
+    public void testConvertCsv() throws IOException {
+        List<GameHistory> games = games();
+        Path csv = directory.resolve("history.csv");
+        StringBuilder text = new StringBuilder(
+                "timestamp,player1,player2,player1Score,player2Score,totalScore,difficulty,winner,remainingLives\n");
+        for (GameHistory game : games) {
+            text.append(game.toCsvLine()).append('\n');
+        }
+        Files.write(csv, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(games.size(), BinaryHistoryLog.convertCsv(csv, binary));
+        try (BinaryHistoryLog log = new BinaryHistoryLog(binary)) {
+            assertSameGames(games, log.records());
+        }
+        try {
+            BinaryHistoryLog.convertCsv(csv, binary);
+            fail("Existing log was overwritten");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static List<GameHistory> games() {
+        List<GameHistory> games = new ArrayList<>();
+        games.add(GameHistory.fromCsvLine("2025-01-15 10:00:00,\"Dana, Jr\",Lee,10,20,30,EASY,Won,3"));
+        games.add(GameHistory.fromCsvLine("2025-02-01 08:30:15,Sam,Ana,-5,7,2,HARD,Lost,0"));
+        games.add(GameHistory.fromCsvLine("2025-02-03 23:59:59,\"Dana, Jr\",\"Quote \"\"Q\"\"\",1,1,2,MEDIUM,Won,1"));
+        return games;
+    }
+
+    private static void assertSameGames(List<GameHistory> expected, List<GameHistory> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toCsvLine(), actual.get(i).toCsvLine());
+        }
+    }
+}
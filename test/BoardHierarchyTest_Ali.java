@@ -2,6 +2,7 @@
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
+import java.util.Random;
 import Model.*;
 
 /**
@@ -240,4 +241,65 @@ public class BoardHierarchyTest_Ali {
 
         assertEquals(expectedSafe, easyBoard.getTotalSafeTiles());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test ID: JU-033 / WB-05
+     * Test Type: White-Box Test + JUnit Test
+     * Description: Test forked boards are isolated from their parent
+     * White-Box Coverage: Copy-on-write row sharing in Board.fork()
+     * Expected: Reveals on a fork (or a fork of a fork) never change the parent
+     */
+    @Test
+    public void testForkIsolation() {
+        Board fork = easyBoard.fork();
+        Board grandFork = fork.fork();
+
+        for (int row = 0; row < easyBoard.getSize(); row++) {
+            for (int col = 0; col < easyBoard.getSize(); col++) {
+                if (!easyBoard.getTile(row, col).isMine()) {
+                    grandFork.revealTile(row, col);
+
+                    assertTrue(grandFork.getTile(row, col).isRevealed());
+                    assertFalse(fork.getTile(row, col).isRevealed());
+                    assertFalse(easyBoard.getTile(row, col).isRevealed());
+                    assertEquals(0, easyBoard.getRevealedCount());
+                    assertTrue(fork.isFork());
+                    assertFalse(easyBoard.isFork());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Test ID: JU-066
+     * Test Type: JUnit Test
+     * Description: Test forking never moves the random numbers of the board or
+     * game that was forked
+     * Expected: A forked board and a game whose state was forked roll the same
+     * as an untouched twin with the same seed
+     */
+    @Test
+    public void testForkKeepsSourceRandomStream() {
+        // Two boards from one seed roll the same bonuses unless forking moves one's random numbers
+        Board forked = new Board(Difficulty.EASY, 42L);
+        Board twin = new Board(Difficulty.EASY, 42L);
+        Board fork = forked.fork();
+        fork.fork().fork();
+        fork.revealRandomMine();
+
+        assertTrue(forked.revealRandomMine());
+        assertTrue(twin.revealRandomMine());
+        assertEquals(twin.revealRandom3x3Area(), forked.revealRandom3x3Area());
+        for (int row = 0; row < twin.getSize(); row++) {
+            for (int col = 0; col < twin.getSize(); col++) {
+                assertEquals(twin.getTile(row, col).isRevealed(), forked.getTile(row, col).isRevealed());
+            }
+        }
+
+        GameState game = new GameState("A", "B", Difficulty.EASY);
+        game.setRandom(new Random(7L));
+        game.fork().fork();
+        assertEquals(new Random(7L).nextLong(), game.getRandom().nextLong());
+    }
+}
@@ -0,0 +1,114 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringWriter;
+import Model.*;
+
+/**
+ * JUnit tests for CsvReader and CsvWriter.
+ * Tests that fields the writer quotes come back unchanged from the reader.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class CsvRoundTripTest {
+
+    private static final String[] TRICKY = { "a, b", "say \"hi\"", "line\nbreak", "crlf\r\nend", "", " pad ",
+            "\"\"", "plain" };
+
+    /**
+     * Test ID: JU-034
+     * Test Type: JUnit Test
+     * Description: Test written fields with commas, quotes and line breaks are
+     * read back unchanged
+     * Expected: Same field count and values, one record per written record
+     */
+    @Test
+    public void testRoundTripTrickyFields() throws IOException {
+        StringWriter text = new StringWriter();
+        CsvWriter writer = new CsvWriter(text);
+        for (String value : TRICKY) {
+            writer.field(value);
+        }
+        writer.field(-42).endRecord();
+        writer.field("second").endRecord();
+
+        CsvReader reader = CsvReader.forText(text.toString());
+        assertTrue(reader.next());
+        assertEquals(TRICKY.length + 1, reader.getFieldCount());
+        for (int i = 0; i < TRICKY.length; i++) {
+            assertEquals(TRICKY[i], reader.get(i));
+        }
+        assertEquals(-42, reader.getInt(TRICKY.length));
+
+        assertTrue(reader.next());
+        assertEquals(1, reader.getFieldCount());
+        assertEquals("second", reader.get(0));
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test ID: JU-035
+     * Test Type: JUnit Test
+     * Description: Test always-quoted fields and appendField read back the
+     * same as field()
+     * Expected: Values unchanged whichever way they were written
+     */
+    @Test
+    public void testQuotedFieldAndAppendField() throws IOException {
+        StringWriter text = new StringWriter();
+        CsvWriter writer = new CsvWriter(text);
+        for (String value : TRICKY) {
+            writer.quotedField(value);
+        }
+        writer.endRecord();
+
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < TRICKY.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            CsvWriter.appendField(line, TRICKY[i]);
+        }
+        text.write(line + "\n");
+
+        CsvReader reader = CsvReader.forText(text.toString());
+        for (int record = 0; record < 2; record++) {
+            assertTrue(reader.next());
+            assertEquals(TRICKY.length, reader.getFieldCount());
+            for (int i = 0; i < TRICKY.length; i++) {
+                assertEquals(TRICKY[i], reader.get(i));
+            }
+        }
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test ID: JU-036
+     * Test Type: JUnit Test
+     * Description: Test CRLF endings, blank lines and line numbers of records
+     * spanning several lines
+     * Expected: Records split at line ends outside quotes only
+     */
+    @Test
+    public void testLineEndsAndLineNumbers() throws IOException {
+        CsvReader reader = CsvReader.forText("id,text\r\n1,\"two\nlines\"\r\n\r\n2,x");
+        assertTrue(reader.next());
+        assertEquals(1, reader.getLineNumber());
+        assertEquals("text", reader.get(1));
+
+        assertTrue(reader.next());
+        assertEquals(2, reader.getLineNumber());
+        assertEquals("two\nlines", reader.get(1));
+
+        assertTrue(reader.next());
+        assertTrue(reader.isBlankRecord());
+        assertEquals(4, reader.getLineNumber());
+
+        assertTrue(reader.next());
+        assertEquals(2, reader.getInt(0));
+        assertEquals("x", reader.get(1));
+        assertFalse(reader.next());
+    }
+}
@@ -0,0 +1,230 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import Patterns.Observer.GameEventBus;
+import Patterns.Observer.GameObserver;
+import Patterns.Observer.StatsChanged;
+
+/**
+ * JUnit tests for GameEventBus.
+ * Tests event order, a ring smaller than the events published, detaching a
+ * stalled subscriber and draining on unsubscribe.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameEventBusTest {
+
+    private GameEventBus bus;
+
+    /**
+     * Records the events it gets, optionally slowly.
+     */
+    private static class Recorder implements GameObserver {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final long delayMillis;
+
+        Recorder(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onTurnChanged(int playerNumber) {
+            record("turn " + playerNumber);
+        }
+
+        @Override
+        public void onFlagChanged(int boardNum, int row, int col, boolean flagged) {
+            record("flag " + row + " " + flagged);
+        }
+
+        @Override
+        public void onStatsChanged(StatsChanged change) {
+            record("stats " + change.getScore(1));
+        }
+
+        private void record(String event) {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        bus = new GameEventBus(8);
+    }
+
+    @After
+    public void tearDown() {
+        bus.close();
+    }
+
+    /**
+     * Publishes events of several kinds and returns what a subscriber should
+     * have got, in order.
+     */
+    private List<String> publish(int count) {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0:
+                    bus.publishTurnChanged(i);
+                    expected.add("turn " + i);
+                    break;
+                case 1:
+                    bus.publishFlagChanged(1, i, 0, i % 2 == 0);
+                    expected.add("flag " + i + " " + (i % 2 == 0));
+                    break;
+                default:
+                    bus.publishStatsChanged(new StatsChanged(i, 0, i, 3, 1, 0, 0));
+                    expected.add("stats " + i);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Publishes events in bursts that fit in the ring, waiting for every
+     * subscriber after each.
+     */
+    private List<String> publishInBursts(int bursts) {
+        List<String> expected = new ArrayList<>();
+        for (int burst = 0; burst < bursts; burst++) {
+            expected.addAll(publish(6));
+            assertTrue(bus.awaitDelivery(5000));
+        }
+        return expected;
+    }
+
+    /**
+     * Test ID: JU-059
+     * Test Type: JUnit Test
+     * Description: Test every subscriber gets every event in publish order,
+     * whatever its wait strategy
+     * Expected: Each subscriber's events equal the published sequence
+     */
+    @Test
+    public void testOrderForEveryWaitStrategy() {
+        List<Recorder> recorders = new ArrayList<>();
+        for (GameEventBus.WaitStrategy strategy : GameEventBus.WaitStrategy.values()) {
+            Recorder recorder = new Recorder(0);
+            bus.subscribe(recorder, strategy);
+            recorders.add(recorder);
+        }
+        List<String> expected = publishInBursts(50);
+        for (Recorder recorder : recorders) {
+            assertEquals(expected, recorder.events);
+        }
+    }
+
+    /**
+     * Test ID: JU-060
+     * Test Type: JUnit Test
+     * Description: Test a slow subscriber and a fast one over many laps of a
+     * ring far smaller than the number of events, with the slow one never a
+     * whole ring behind
+     * Expected: Both get every event in order
+     */
+    @Test
+    public void testWrapAroundWithSlowSubscriber() {
+        Recorder slow = new Recorder(2);
+        Recorder fast = new Recorder(0);
+        bus.subscribe(slow, GameEventBus.WaitStrategy.BLOCKING);
+        bus.subscribe(fast, GameEventBus.WaitStrategy.YIELDING);
+        List<String> expected = publishInBursts(10);
+        assertEquals(expected, slow.events);
+        assertEquals(expected, fast.events);
+    }
+
+    /**
+     * Test ID: JU-061
+     * Test Type: JUnit Test
+     * Description: Test unsubscribing a subscriber that is behind
+     * Expected: unsubscribe returns without waiting; the earlier events are
+     * still delivered, then the cleanup action runs; later events do not
+     * reach it
+     */
+    @Test
+    public void testUnsubscribeDrains() throws InterruptedException {
+        Recorder slow = new Recorder(5);
+        bus.subscribe(slow, GameEventBus.WaitStrategy.BLOCKING);
+        List<String> expected = publish(6);
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> seenWhenDone = new ArrayList<>();
+        long start = System.nanoTime();
+        bus.unsubscribe(slow, () -> {
+            seenWhenDone.addAll(slow.events);
+            done.countDown();
+        });
+        assertTrue("unsubscribe waited", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20));
+        assertFalse(bus.getObservers().contains(slow));
+
+        publish(2);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(expected, seenWhenDone);
+        assertEquals(expected, slow.events);
+    }
+
+    /**
+     * Test ID: JU-062
+     * Test Type: JUnit Test
+     * Description: Test a stalled subscriber falling a whole ring behind
+     * Expected: Publishing does not wait for it; it is detached and gets no
+     * overwritten events, while the other subscriber gets every event
+     */
+    @Test
+    public void testStalledSubscriberIsDetached() throws InterruptedException {
+        CountDownLatch stall = new CountDownLatch(1);
+        Recorder stalled = new Recorder(0) {
+            @Override
+            public void onTurnChanged(int playerNumber) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onTurnChanged(playerNumber);
+            }
+        };
+        Recorder fast = new Recorder(0);
+        bus.subscribe(stalled, GameEventBus.WaitStrategy.BLOCKING);
+        bus.subscribe(fast, GameEventBus.WaitStrategy.BLOCKING);
+
+        List<String> expected = new ArrayList<>();
+        long publishing = 0;
+        for (int burst = 0; burst < 10; burst++) {
+            long start = System.nanoTime();
+            expected.addAll(publish(6));
+            publishing += System.nanoTime() - start;
+            // Wait for the other subscriber only: the stalled one never catches up
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (fast.events.size() < expected.size() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        assertTrue("publishing waited", publishing < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(expected, fast.events);
+        assertFalse(bus.getObservers().contains(stalled));
+
+        CountDownLatch done = new CountDownLatch(1);
+        stall.countDown();
+        bus.unsubscribe(stalled, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // Whatever it got before it was detached is a prefix, in order
+        assertTrue(stalled.events.size() < expected.size());
+        assertEquals(expected.subList(0, stalled.events.size()), stalled.events);
+    }
+}
@@ -0,0 +1,161 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import Model.*;
+import Patterns.Observer.GameEventBus;
+
+/**
+ * JUnit tests for GameRecorder and GameReplay.
+ * Plays random games while recording them and checks that replaying the log
+ * gives back the same game.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameReplayTest {
+
+    private static final int GAMES = 12;
+    private static final int MAX_MOVES = 400;
+
+    /**
+     * Test ID: JU-057
+     * Test Type: JUnit Test
+     * Description: Test stepping through a recorded game ends in the live
+     * game's final state, and seeking anywhere matches stepping there
+     * Expected: Same tiles, scores, lives, turn and result at every position
+     */
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        Random random = new Random(2024L);
+        for (int g = 0; g < GAMES; g++) {
+            GameState game = new GameState("A", "B", Difficulty.values()[g % 3]);
+            Path log = Files.createTempFile("replay-test", ".moves");
+            try {
+                GameRecorder recorder = new GameRecorder(game, log);
+                game.addObserver(recorder, GameEventBus.WaitStrategy.BLOCKING);
+                play(game, random);
+                recorder.close();
+                assertTrue(recorder.awaitClosed(5000));
+                game.closeObservers();
+
+                String live = state(game.getBoard1(), game.getBoard2(), game.getPlayer1().getScore(),
+                        game.getPlayer2().getScore(), game.getTotalScore(), game.getSharedLives(),
+                        game.getCurrentPlayerIndex() + 1, game.isGameOver());
+
+                GameReplay replay = GameReplay.open(log);
+                assertNotNull(replay);
+                List<String> steps = new ArrayList<>();
+                steps.add(state(replay));
+                while (replay.step()) {
+                    steps.add(state(replay));
+                }
+                assertEquals(replay.getEventCount() + 1, steps.size());
+                assertEquals("Final state of game " + g, live, steps.get(steps.size() - 1));
+
+                GameReplay seeking = GameReplay.open(log);
+                for (int i = 0; i < 50; i++) {
+                    int position = random.nextInt(seeking.getEventCount() + 1);
+                    seeking.seek(position);
+                    assertEquals("Seek to " + position + " in game " + g, steps.get(position), state(seeking));
+                }
+            } finally {
+                Files.deleteIfExists(log);
+            }
+        }
+    }
+
+    /**
+     * Test ID: JU-058
+     * Test Type: JUnit Test
+     * Description: Test a log cut short, as by a crash, still opens and
+     * replays up to its last complete event
+     * Expected: Log opens; fewer events than the full log, same prefix
+     */
+    @Test
+    public void testTruncatedLog() throws Exception {
+        GameState game = new GameState("A", "B", Difficulty.EASY);
+        Path log = Files.createTempFile("replay-test", ".moves");
+        try {
+            GameRecorder recorder = new GameRecorder(game, log);
+            game.addObserver(recorder, GameEventBus.WaitStrategy.BLOCKING);
+            play(game, new Random(7L));
+            recorder.close();
+            assertTrue(recorder.awaitClosed(5000));
+            game.closeObservers();
+
+            GameReplay full = GameReplay.open(log);
+            byte[] bytes = Files.readAllBytes(log);
+            Files.write(log, Arrays.copyOf(bytes, bytes.length - 3));
+            GameReplay cut = GameReplay.open(log);
+            assertNotNull(cut);
+            assertTrue(cut.getEventCount() <= full.getEventCount());
+            cut.replayAll();
+            full.seek(cut.getEventCount());
+            assertEquals(state(full), state(cut));
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    /**
+     * Plays random clicks the way the controller applies them.
+     */
+    private static void play(GameState game, Random random) throws IOException {
+        for (int moves = 0; !game.isGameOver() && moves < MAX_MOVES; moves++) {
+            Board board = game.getCurrentBoard();
+            int row = random.nextInt(board.getSize());
+            int col = random.nextInt(board.getSize());
+            Tile tile = board.getTile(row, col);
+            if (random.nextInt(10) < 2 && !tile.isRevealed()) {
+                if (tile.isMine() && !tile.isFlagged()) {
+                    game.flagMine(tile);
+                } else {
+                    game.toggleFlag(tile);
+                }
+            } else if (tile.isFlagged()) {
+                continue;
+            } else if (tile.isQuestion() && !((QuestionTile) tile).isActivated()) {
+                if (game.getTotalScore() >= game.getActivationCost()) {
+                    game.activateTile(tile);
+                    game.handleQuestionAnswer((QuestionTile) tile, random.nextBoolean());
+                    game.completeQuestionTileInteraction();
+                }
+            } else if (tile.isSurprise() && !((SurpriseTile) tile).isActivated()) {
+                if (game.getTotalScore() >= game.getActivationCost()) {
+                    game.activateTile(tile);
+                }
+            } else if (!tile.isRevealed()) {
+                game.revealTile(row, col);
+            }
+        }
+    }
+
+    private static String state(GameReplay replay) {
+        return state(replay.getBoard1(), replay.getBoard2(), replay.getScore(1), replay.getScore(2),
+                replay.getTotalScore(), replay.getLives(), replay.getCurrentPlayer(), replay.isGameOver());
+    }
+
+    private static String state(Board board1, Board board2, int score1, int score2, int total, int lives,
+            int player, boolean over) {
+        StringBuilder text = new StringBuilder();
+        for (Board board : new Board[] { board1, board2 }) {
+            for (int row = 0; row < board.getSize(); row++) {
+                for (int col = 0; col < board.getSize(); col++) {
+                    Tile tile = board.getTile(row, col);
+                    boolean used = tile.isQuestion() ? ((QuestionTile) tile).isActivated()
+                            : tile.isSurprise() && ((SurpriseTile) tile).isActivated();
+                    text.append(tile.isRevealed() ? 'R' : '.').append(tile.isFlagged() ? 'F' : '.')
+                            .append(used ? 'U' : '.');
+                }
+            }
+        }
+        return text + " " + score1 + " " + score2 + " " + total + " " + lives + " " + player + " " + over;
+    }
+}
@@ -0,0 +1,100 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import Model.*;
+import Patterns.Observer.GameObserver;
+import Patterns.Observer.StatsChanged;
+
+/**
+ * JUnit tests for the score and lives events of GameState.
+ * Tests that the changes of one action are reported together, once, and
+ * before the turn change that ends the action.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class GameStateEventsTest {
+
+    /**
+     * Observer that records the score, lives and turn events it is sent.
+     */
+    private static class Recorder implements GameObserver {
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onStatsChanged(StatsChanged change) {
+            events.add("stats total=" + change.getTotalScore() + " p1=" + change.getScoreChange(1) + " p2="
+                    + change.getScoreChange(2) + " lives=" + change.getLives() + " dl=" + change.getLivesChange());
+        }
+
+        @Override
+        public void onTurnChanged(int playerNumber) {
+            events.add("turn " + playerNumber);
+        }
+    }
+
+    /**
+     * Removes the recorder and waits until it has been sent every event so far.
+     */
+    private static List<String> drain(GameState game, Recorder recorder) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        game.removeObserver(recorder, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return new ArrayList<>(recorder.events);
+    }
+
+    /**
+     * Test ID: JU-076
+     * Test Type: JUnit Test
+     * Description: Test an action that changes both score and lives, and
+     * nested actions, report one StatsChanged with the net changes
+     * Expected: One event per outermost action; an action that changes
+     * nothing reports nothing
+     */
+    @Test
+    public void testStatsCoalescedPerAction() throws InterruptedException {
+        GameState game = new GameState("P1", "P2", Difficulty.MEDIUM);
+        Recorder recorder = new Recorder();
+        game.addObserver(recorder);
+
+        // 8 lives + 4: capped at 10, the 2 extra become 2 * 8 points
+        game.addLives(4);
+        game.addLives(0);
+        game.addScore(3);
+        game.addScore(-1);
+
+        assertEquals(List.of(
+                "stats total=16 p1=16 p2=0 lives=10 dl=2",
+                "stats total=19 p1=3 p2=0 lives=10 dl=0",
+                "stats total=18 p1=-1 p2=0 lives=10 dl=0"), drain(game, recorder));
+        game.closeObservers();
+    }
+
+    /**
+     * Test ID: JU-077
+     * Test Type: JUnit Test
+     * Description: Test a mine hit reports its lost life before the turn
+     * change, and the next player's changes are reported as theirs
+     * Expected: Lives event, then turn event, then player 2's score change
+     */
+    @Test
+    public void testStatsBeforeTurnChange() throws InterruptedException {
+        GameState game = new GameState("P1", "P2", Difficulty.EASY);
+        Recorder recorder = new Recorder();
+        game.addObserver(recorder);
+
+        game.handleMineHit();
+        game.addScore(5);
+
+        assertEquals(List.of(
+                "stats total=0 p1=0 p2=0 lives=9 dl=-1",
+                "turn 2",
+                "stats total=5 p1=0 p2=5 lives=9 dl=0"), drain(game, recorder));
+        game.closeObservers();
+    }
+}
@@ -0,0 +1,104 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for HistoryAggregates.
+ * Tests that running statistics match a full recount and that saved
+ * statistics are only trusted for the history they were computed from.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryAggregatesTest {
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("aggregates-test");
+        file = directory.resolve("history.stats");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-069
+     * Test Type: JUnit Test
+     * Description: Test games added one by one give the same statistics as a
+     * recount, also after a save and load
+     * Expected: Same counts, sums, best scores and players; the AI bot is not
+     * counted as a player
+     */
+    @Test
+    public void testAddMatchesRecount() {
+        List<GameHistory> games = new ArrayList<>();
+        games.add(new GameHistory("Dana", "AI Bot", 5, -9, -4, Difficulty.EASY, "Lost together", 0));
+        games.add(new GameHistory("Dana", "Lee", 20, 10, 30, Difficulty.HARD, "Won together", 2));
+        games.add(new GameHistory("Sam", "Lee", 3, 4, 7, Difficulty.EASY, "Won together", 1));
+
+        HistoryAggregates running = new HistoryAggregates();
+        for (GameHistory game : games) {
+            running.add(game);
+        }
+        running.setSource(123, 456);
+        assertTrue(running.save(file));
+
+        for (HistoryAggregates aggregates : new HistoryAggregates[] { running, HistoryAggregates.of(games),
+                HistoryAggregates.load(file) }) {
+            assertEquals(3, aggregates.getGameCount());
+            assertEquals(33, aggregates.getScoreSum());
+            assertEquals(30, aggregates.getBestScore());
+            assertEquals(7, aggregates.getBestScore(Difficulty.EASY));
+            assertEquals(2, aggregates.getGameCount(Difficulty.EASY));
+            assertEquals(0, aggregates.getGameCount(Difficulty.MEDIUM));
+            assertEquals(2, aggregates.getWins());
+            assertEquals(1, aggregates.getLosses());
+            assertEquals(3, aggregates.getPlayerCount());
+        }
+    }
+
+    /**
+     * Test ID: JU-070
+     * Test Type: JUnit Test
+     * Description: Test saved statistics match only the history size and
+     * modification time they were saved with
+     * Expected: A different size or time is stale; a file from before the time
+     * was kept never matches; an unreadable file is not loaded
+     */
+    @Test
+    public void testStalenessMatching() throws IOException {
+        HistoryAggregates aggregates = new HistoryAggregates();
+        aggregates.add(new GameHistory("Dana", "Lee", 1, 2, 3, Difficulty.MEDIUM, "Won together", 1));
+        aggregates.setSource(1000, 1700000000000L);
+        assertTrue(aggregates.save(file));
+
+        HistoryAggregates loaded = HistoryAggregates.load(file);
+        assertTrue(loaded.matchesSource(1000, 1700000000000L));
+        assertFalse("Edited to the same size", loaded.matchesSource(1000, 1700000001000L));
+        assertFalse("Appended", loaded.matchesSource(1100, 1700000000000L));
+
+        // Older files record only the size
+        List<String> lines = new ArrayList<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+        lines.replaceAll(line -> line.startsWith("source,") ? "source,1000" : line);
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        assertFalse(HistoryAggregates.load(file).matchesSource(1000, 1700000000000L));
+
+        Files.write(file, "version,99\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(HistoryAggregates.load(file));
+        assertNull(HistoryAggregates.load(directory.resolve("missing.stats")));
+    }
+}
@@ -0,0 +1,82 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for HistoryQuery.
+ * Tests filtering and sorting of history records by packed primitive keys.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryQueryTest {
+
+    private static List<GameHistory> records() {
+        List<GameHistory> records = new ArrayList<>();
+        records.add(new GameHistory("dana", "Lee", 5, 5, 10, Difficulty.EASY, "Won together", 2)); // 0
+        records.add(new GameHistory("Ana", "Sam", -20, 5, -15, Difficulty.HARD, "Lost together", 0)); // 1
+        records.add(new GameHistory("Dana", "AI Bot", 20, 20, 40, Difficulty.MEDIUM, "Won together", 1)); // 2
+        records.add(new GameHistory("Sam", "Lee", 5, 5, 10, Difficulty.EASY, "Lost together", 0)); // 3
+        records.add(new GameHistory("bob", "Ana", 0, -3, -3, Difficulty.MEDIUM, "Won together", 4)); // 4
+        return records;
+    }
+
+    /**
+     * Test ID: JU-071
+     * Test Type: JUnit Test
+     * Description: Test sorting by each key, including negative scores and
+     * ties
+     * Expected: Ascending key order with ties in record order; descending is
+     * the exact reverse; the default query needs no index at all
+     */
+    @Test
+    public void testPackedSortKeys() {
+        List<GameHistory> records = records();
+        assertNull(HistoryQuery.ALL.run(records));
+        assertNull(HistoryQuery.ALL.withSort(HistoryQuery.SortKey.DATE, true).run(records));
+
+        assertArrayEquals(new int[] { 1, 4, 0, 3, 2 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.TOTAL_SCORE, false).run(records));
+        assertArrayEquals(new int[] { 2, 3, 0, 4, 1 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.TOTAL_SCORE, true).run(records));
+        assertArrayEquals(new int[] { 0, 3, 2, 4, 1 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.DIFFICULTY, false).run(records));
+        assertArrayEquals(new int[] { 1, 3, 0, 2, 4 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.RESULT, false).run(records));
+        // Names sort case-insensitively; "Dana" and "dana" stay apart, upper case first
+        assertArrayEquals(new int[] { 1, 4, 2, 0, 3 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.PLAYER1, false).run(records));
+        assertArrayEquals(new int[] { 2, 4, 0, 3, 1 },
+                HistoryQuery.ALL.withSort(HistoryQuery.SortKey.PLAYER2, false).run(records));
+    }
+
+    /**
+     * Test ID: JU-072
+     * Test Type: JUnit Test
+     * Description: Test player, difficulty and result filters, alone and
+     * combined with a sort
+     * Expected: Only matching records, in the query's order; the player filter
+     * matches either player, ignoring case and surrounding spaces
+     */
+    @Test
+    public void testFilters() {
+        List<GameHistory> records = records();
+        HistoryQuery dana = HistoryQuery.ALL.withFilter("  DAN ", null, null);
+        assertTrue(dana.isFiltered());
+        assertArrayEquals(new int[] { 0, 2 }, dana.run(records));
+
+        assertArrayEquals(new int[] { 1, 3 }, HistoryQuery.ALL.withFilter("SAM", null, HistoryQuery.Result.ANY)
+                .run(records));
+        assertArrayEquals(new int[] { 2, 4 },
+                HistoryQuery.ALL.withFilter("", Difficulty.MEDIUM, HistoryQuery.Result.WON).run(records));
+        assertArrayEquals(new int[] { 3, 1 }, HistoryQuery.ALL.withSort(HistoryQuery.SortKey.TOTAL_SCORE, true)
+                .withFilter(null, null, HistoryQuery.Result.LOST).run(records));
+        assertArrayEquals(new int[] { 3, 0 }, HistoryQuery.ALL.withFilter("lee", Difficulty.EASY, null)
+                .withSort(HistoryQuery.SortKey.DATE, true).run(records));
+        assertEquals(0, HistoryQuery.ALL.withFilter("nobody", null, null).run(records).length);
+        assertFalse(HistoryQuery.ALL.withFilter(" ", null, null).isFiltered());
+    }
+}
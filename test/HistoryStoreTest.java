@@ -0,0 +1,113 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for HistoryStore.
+ * Tests that appended games are read incrementally and that a rewritten
+ * history is read again from the start.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class HistoryStoreTest {
+
+    private static final String HEADER = "timestamp,player1,player2,player1Score,player2Score,totalScore,difficulty,winner,remainingLives";
+
+    private Path directory;
+    private Path csv;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("history-store-test");
+        csv = directory.resolve("history.csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-067
+     * Test Type: JUnit Test
+     * Description: Test games appended to the file are added to the cache, and
+     * a record still being written is left for later
+     * Expected: Earlier records are kept as the same objects, earlier snapshots
+     * do not change, and a record without its line break is not read
+     */
+    @Test
+    public void testIncrementalAppend() throws IOException {
+        write(HEADER + "\n" + game("Dana", "Lee", 10).toCsvLine() + "\n");
+        HistoryStore store = new HistoryStore(csv);
+        List<GameHistory> first = store.getRecords();
+        assertEquals(1, first.size());
+
+        String partial = game("Sam", "Ana", 20).toCsvLine();
+        append(partial.substring(0, partial.length() / 2));
+        assertEquals(1, store.size());
+
+        append(partial.substring(partial.length() / 2) + "\n" + game("Lee", "Sam", 30).toCsvLine() + "\n");
+        List<GameHistory> second = store.getRecords();
+        assertEquals(3, second.size());
+        assertSame(first.get(0), second.get(0));
+        assertEquals("Sam", second.get(1).getPlayer1Name());
+        assertEquals(30, second.get(2).getTotalScore());
+        assertEquals(1, first.size());
+        assertSame(second, store.getRecords());
+    }
+
+    /**
+     * Test ID: JU-068
+     * Test Type: JUnit Test
+     * Description: Test a rewritten history is noticed by size, modification
+     * time or a record boundary that no longer matches
+     * Expected: After each rewrite the records are those of the new file
+     */
+    @Test
+    public void testRewriteDetected() throws IOException {
+        write(HEADER + "\n" + game("Dana", "Lee", 10).toCsvLine() + "\n");
+        HistoryStore store = new HistoryStore(csv);
+        assertEquals("Dana", store.getRecords().get(0).getPlayer1Name());
+        FileTime modified = Files.getLastModifiedTime(csv);
+
+        // Same size, newer time: only the time shows the edit
+        write(HEADER + "\n" + game("Anna", "Lee", 10).toCsvLine() + "\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertEquals("Anna", store.getRecords().get(0).getPlayer1Name());
+
+        // Grown, but the old end of the records is now inside a longer record
+        write(HEADER + "\n" + game("Alexandra", "Lee", 10).toCsvLine() + "\n");
+        List<GameHistory> records = store.getRecords();
+        assertEquals(1, records.size());
+        assertEquals("Alexandra", records.get(0).getPlayer1Name());
+
+        // Cleared
+        write(HEADER + "\n");
+        assertEquals(0, store.size());
+        Files.delete(csv);
+        assertEquals(0, store.getRecords().size());
+    }
+
+    private void write(String text) throws IOException {
+        Files.write(csv, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void append(String text) throws IOException {
+        Files.write(csv, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static GameHistory game(String player1, String player2, int total) {
+        return new GameHistory(player1, player2, total / 2, total - total / 2, total, Difficulty.EASY, "Won together", 3);
+    }
+}
@@ -0,0 +1,110 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.Random;
+import Control.MctsPlayer;
+import Model.*;
+
+/**
+ * JUnit tests for the AI partner's search and its mine probabilities.
+ * Tests probabilities that are known exactly, a move that is clearly best
+ * and that a move's time budget is kept.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class MctsPlayerTest {
+
+    /**
+     * Reveals every tile of a board that is not a mine, leaving exactly the
+     * mines hidden.
+     */
+    private static void revealAllSafeTiles(Board board) {
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                if (!board.getTile(row, col).isMine()) {
+                    board.revealTile(row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test ID: JU-063
+     * Test Type: JUnit Test
+     * Description: Test mine probabilities on a board whose hidden tiles are
+     * all mines, and on a board sampled past its deadline
+     * Expected: Hidden mines are 1 and revealed tiles 0; past the deadline no
+     * layout is sampled, so every hidden tile gets the mine density
+     */
+    @Test
+    public void testKnownProbabilities() {
+        Board board = new Board(Difficulty.EASY, 42L);
+        revealAllSafeTiles(board);
+        int size = board.getSize();
+        double[] probabilities = new MineProbabilityEngine(board, new Random(1L)).estimateProbabilities(50);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                double expected = board.getTile(row, col).isMine() ? 1.0 : 0.0;
+                assertEquals(expected, probabilities[row * size + col], 0.0);
+            }
+        }
+
+        Board fresh = new Board(Difficulty.EASY, 43L);
+        MineProbabilityEngine engine = new MineProbabilityEngine(fresh, new Random(2L));
+        double density = (double) Difficulty.EASY.getMineCount() / (size * size);
+        double[] late = engine.estimateProbabilities(200, System.nanoTime() - 1);
+        for (double probability : late) {
+            assertEquals(density, probability, 0.0);
+        }
+    }
+
+    /**
+     * Test ID: JU-064
+     * Test Type: JUnit Test
+     * Description: Test the search on a board where only mines are left hidden
+     * Expected: The player flags a mine (+1) instead of stepping on one
+     */
+    @Test
+    public void testFlagsKnownMine() {
+        GameState game = new GameState("P1", "P2", Difficulty.EASY);
+        revealAllSafeTiles(game.getBoard1());
+        MctsPlayer player = new MctsPlayer(2);
+        try {
+            MctsPlayer.Move move = player.chooseMove(game.fork(), 150);
+            assertNotNull(move);
+            assertEquals(MctsPlayer.MoveType.FLAG, move.getType());
+            assertTrue(game.getBoard1().getTile(move.getRow(), move.getCol()).isMine());
+        } finally {
+            player.shutdown();
+        }
+    }
+
+    /**
+     * Test ID: JU-065
+     * Test Type: JUnit Test
+     * Description: Test a move on the largest board stays within its time
+     * budget, including a budget of zero
+     * Expected: chooseMove returns a move no later than the budget plus a
+     * small allowance for thread start-up
+     */
+    @Test
+    public void testTimeBudgetRespected() {
+        GameState game = new GameState("P1", "P2", Difficulty.HARD);
+        Board board = game.getBoard1();
+        board.revealTile(board.getSize() / 2, board.getSize() / 2);
+        MctsPlayer player = new MctsPlayer(2);
+        try {
+            for (long budget : new long[] { 0, 100 }) {
+                long start = System.nanoTime();
+                MctsPlayer.Move move = player.chooseMove(game.fork(), budget);
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+                assertNotNull(move);
+                assertTrue("Took " + elapsedMillis + " ms for a " + budget + " ms budget",
+                        elapsedMillis <= budget + 150);
+            }
+        } finally {
+            player.shutdown();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for PlayerIndex.
+ * Tests standings, Elo rating updates, the leaderboard and saving the index.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class PlayerIndexTest {
+
+    /**
+     * Test ID: JU-054
+     * Test Type: JUnit Test
+     * Description: Test a win moves both new players by the provisional
+     * factor, and a draw between equal ratings moves neither
+     * Expected: 1520 and 1480 after one win; ratings unchanged by the draw
+     */
+    @Test
+    public void testEloUpdates() {
+        PlayerIndex index = new PlayerIndex();
+        index.add(game("Dana", "Lee", 30, 10));
+        assertEquals(1520.0, index.get("Dana").getRating(), 1e-9);
+        assertEquals(1480.0, index.get("Lee").getRating(), 1e-9);
+
+        index.add(game("Sam", "Ana", 5, 5));
+        assertEquals(PlayerIndex.INITIAL_RATING, index.get("Sam").getRating(), 1e-9);
+        assertEquals(PlayerIndex.INITIAL_RATING, index.get("Ana").getRating(), 1e-9);
+
+        // The underdog gains more for beating a stronger player
+        index.add(game("Lee", "Dana", 12, 8));
+        double expected = 1 / (1 + Math.pow(10, (1520.0 - 1480.0) / 400));
+        assertEquals(1480.0 + 40 * (1 - expected), index.get("Lee").getRating(), 1e-9);
+        assertEquals(1520.0 - 40 * (1 - expected), index.get("Dana").getRating(), 1e-9);
+
+        PlayerIndex.Entry dana = index.get(" DANA ");
+        assertEquals(2, dana.getGames());
+        assertEquals(1, dana.getWins());
+        assertEquals(30, dana.getBestScore());
+        assertEquals(19.0, dana.getAverageScore(), 1e-9);
+        assertNull(index.get("Nobody"));
+    }
+
+    /**
+     * Test ID: JU-055
+     * Test Type: JUnit Test
+     * Description: Test the leaderboard is ordered by rating and a game
+     * against oneself is counted but not rated
+     * Expected: Winner first, loser last; self game leaves the rating alone
+     */
+    @Test
+    public void testLeaderboard() {
+        PlayerIndex index = new PlayerIndex();
+        index.add(game("Dana", "Lee", 30, 10));
+        index.add(game("Sam", "Ana", 5, 5));
+        index.add(game("Sam", "sam", 9, 1));
+
+        List<String> names = new ArrayList<>();
+        for (PlayerIndex.Entry entry : index.getLeaderboard(10)) {
+            names.add(entry.getName());
+        }
+        assertEquals("Dana", names.get(0));
+        assertEquals("Lee", names.get(names.size() - 1));
+        assertEquals(4, names.size());
+        assertEquals(2, index.getLeaderboard(2).size());
+
+        assertEquals(2, index.get("Sam").getGames());
+        assertEquals(PlayerIndex.INITIAL_RATING, index.get("Sam").getRating(), 1e-9);
+    }
+
+    /**
+     * Test ID: JU-056
+     * Test Type: JUnit Test
+     * Description: Test a saved index loads back with the same standings, and
+     * an unreadable file loads as null
+     * Expected: Same players, games, wins, scores and ratings
+     */
+    @Test
+    public void testSaveLoadRoundTrip() throws IOException {
+        PlayerIndex index = PlayerIndex.of(List.of(game("Dana, Jr", "Lee", 30, 10), game("Lee", "Ana", 7, 9),
+                game("Ana", "Dana, Jr", 4, 4)));
+        Path file = Files.createTempFile("players", ".idx");
+        try {
+            assertTrue(index.save(file));
+            PlayerIndex loaded = PlayerIndex.load(file);
+            assertNotNull(loaded);
+            assertEquals(index.getPlayerCount(), loaded.getPlayerCount());
+            for (PlayerIndex.Entry entry : index.getLeaderboard(10)) {
+                PlayerIndex.Entry copy = loaded.get(entry.getName());
+                assertEquals(entry.getName(), copy.getName());
+                assertEquals(entry.getGames(), copy.getGames());
+                assertEquals(entry.getWins(), copy.getWins());
+                assertEquals(entry.getBestScore(), copy.getBestScore());
+                assertEquals(entry.getAverageScore(), copy.getAverageScore(), 1e-9);
+                assertEquals(entry.getRating(), copy.getRating(), 1e-9);
+            }
+
+            Files.write(file, "garbage".getBytes());
+            assertNull(PlayerIndex.load(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static GameHistory game(String player1, String player2, int score1, int score2) {
+        return new GameHistory(player1, player2, score1, score2, score1 + score2, Difficulty.EASY, "Won", 1);
+    }
+}
@@ -0,0 +1,94 @@
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import Model.*;
+
+/**
+ * JUnit tests for QuestionDealer.
+ * Tests that a deck deals every question once and that dealing is
+ * reproducible from a seed.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionDealerTest {
+
+    private QuestionBank bank;
+
+    @Before
+    public void setUp() {
+        bank = QuestionBank.getInstance();
+    }
+
+    /**
+     * Test ID: JU-037
+     * Test Type: JUnit Test
+     * Description: Test no question is dealt twice before the deck runs out
+     * Expected: One full deck deals every question of the bank exactly once
+     */
+    @Test
+    public void testNoRepeatsWithinDeck() {
+        assertTrue(bank.getTotalQuestions() > 0);
+        for (Difficulty difficulty : Difficulty.values()) {
+            QuestionDealer dealer = new QuestionDealer(bank, new Random(difficulty.ordinal()));
+            Set<Integer> dealt = new HashSet<>();
+            for (int i = 0; i < bank.getTotalQuestions(); i++) {
+                Question question = dealer.deal(difficulty);
+                assertNotNull(question);
+                assertTrue("Question " + question.getId() + " dealt twice", dealt.add(question.getId()));
+            }
+            assertEquals(bank.getTotalQuestions(), dealt.size());
+        }
+    }
+
+    /**
+     * Test ID: JU-038
+     * Test Type: JUnit Test
+     * Description: Test dealers with the same seed deal the same questions,
+     * also after a reset
+     * Expected: Same question IDs in the same order
+     */
+    @Test
+    public void testDeterministicPerSeed() {
+        QuestionDealer first = new QuestionDealer(bank, new Random(1234L));
+        QuestionDealer second = new QuestionDealer(bank, new Random(1234L));
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < bank.getTotalQuestions(); i++) {
+                assertEquals(first.deal(Difficulty.MEDIUM).getId(), second.deal(Difficulty.MEDIUM).getId());
+            }
+            first.reset();
+            second.reset();
+        }
+    }
+
+    /**
+     * Test ID: JU-039
+     * Test Type: JUnit Test
+     * Description: Test marked questions are skipped and copies deal apart
+     * from the original
+     * Expected: A marked question is never dealt; dealing from a copy leaves
+     * the original's deck unchanged
+     */
+    @Test
+    public void testMarkUsedAndCopy() {
+        QuestionDealer dealer = new QuestionDealer(bank, new Random(5L));
+        Question marked = dealer.deal(Difficulty.EASY);
+        dealer.reset();
+        dealer.markUsed(marked.getId());
+
+        QuestionDealer copy = dealer.copy(new Random(6L));
+        for (int i = 0; i < bank.getTotalQuestions() - 1; i++) {
+            assertNotEquals(marked.getId(), copy.deal(Difficulty.EASY).getId());
+        }
+
+        Set<Integer> dealt = new HashSet<>();
+        for (int i = 0; i < bank.getTotalQuestions() - 1; i++) {
+            assertTrue(dealt.add(dealer.deal(Difficulty.EASY).getId()));
+        }
+        assertFalse(dealt.contains(marked.getId()));
+    }
+}
@@ -0,0 +1,121 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import Model.*;
+
+/**
+ * JUnit tests for QuestionJournal.
+ * Tests replaying edits, dropping a torn last record and compaction.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionJournalTest {
+
+    private Path directory;
+    private Path snapshot;
+    private QuestionJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("journal-test");
+        snapshot = directory.resolve("questions.csv");
+        journal = new QuestionJournal(snapshot);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-040
+     * Test Type: JUnit Test
+     * Description: Test replay applies adds, updates and deletes in order
+     * Expected: Replayed state equals the edits made
+     */
+    @Test
+    public void testReplay() {
+        journal.append(QuestionJournal.Op.ADD, question(1, "First, \"quoted\"\nquestion", "HARD"));
+        journal.append(QuestionJournal.Op.ADD, question(2, "Second", "EASY"));
+        journal.append(QuestionJournal.Op.UPDATE, question(1, "First again", "MEDIUM"));
+        journal.appendDelete(2);
+
+        Map<Integer, Question> bank = new LinkedHashMap<>();
+        int applied = new QuestionJournal(snapshot).replay(q -> bank.put(q.getId(), q), bank::remove);
+
+        assertEquals(4, applied);
+        assertEquals(1, bank.size());
+        assertEquals("First again", bank.get(1).getQuestionText());
+        assertEquals("MEDIUM", bank.get(1).getLevel());
+    }
+
+    /**
+     * Test ID: JU-041
+     * Test Type: JUnit Test
+     * Description: Test a record cut short by a crash is dropped and later
+     * appends start on a fresh line
+     * Expected: Complete records replay; the torn one is gone
+     */
+    @Test
+    public void testTruncatedLastRecord() throws IOException {
+        journal.append(QuestionJournal.Op.ADD, question(1, "Kept", "EASY"));
+        Path file = directory.resolve("questions.csv.journal");
+        Files.write(file, "ADD,2,\"Torn, half a rec".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<Integer> ids = new ArrayList<>();
+        QuestionJournal reopened = new QuestionJournal(snapshot);
+        assertEquals(1, reopened.replay(q -> ids.add(q.getId()), id -> fail("no deletes")));
+        assertEquals(List.of(1), ids);
+
+        reopened.append(QuestionJournal.Op.ADD, question(3, "After the crash", "EXPERT"));
+        ids.clear();
+        assertEquals(2, new QuestionJournal(snapshot).replay(q -> ids.add(q.getId()), id -> fail("no deletes")));
+        assertEquals(List.of(1, 3), ids);
+    }
+
+    /**
+     * Test ID: JU-042
+     * Test Type: JUnit Test
+     * Description: Test compaction writes a snapshot the CSV reader can load
+     * and clears the journal
+     * Expected: Snapshot holds every question; nothing left to replay
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        List<Question> questions = List.of(question(1, "One, with comma", "EASY"), question(2, "Two", "HARD"));
+        journal.append(QuestionJournal.Op.ADD, questions.get(0));
+        journal.append(QuestionJournal.Op.ADD, questions.get(1));
+
+        assertTrue(journal.compact(questions));
+        assertFalse(journal.needsCompaction());
+        assertFalse(Files.exists(directory.resolve("questions.csv.journal")));
+        assertEquals(0, new QuestionJournal(snapshot).replay(q -> fail("journal not cleared"), id -> fail("journal not cleared")));
+
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(snapshot, StandardCharsets.UTF_8))) {
+            assertTrue(csv.next()); // header
+            for (Question expected : questions) {
+                assertTrue(csv.next());
+                assertEquals(expected.getId(), csv.getInt(0));
+                assertEquals(expected.getQuestionText(), csv.get(1));
+                assertEquals(expected.getLevel(), csv.get(7));
+            }
+            assertFalse(csv.next());
+        }
+    }
+
+    private static Question question(int id, String text, String level) {
+        return new Question(id, text, "A", "B", "C", "D", 2, level);
+    }
+}
@@ -0,0 +1,101 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for QuestionPack.
+ * Tests that questions compiled into a pack read back unchanged.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionPackTest {
+
+    private Path directory;
+    private Path csv;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("pack-test");
+        csv = directory.resolve("questions.csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-043
+     * Test Type: JUnit Test
+     * Description: Test a written pack reads back the same questions per level
+     * Expected: Same IDs, texts, options, answers and levels
+     */
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        List<Question> questions = List.of(
+                new Question(1, "Easy, with \"quotes\"", "a", "b", "c", "d", 1, "EASY"),
+                new Question(2, "Hard\nover two lines", "é", "ü", "日本", "", 4, "HARD"),
+                new Question(3, "Second easy", "w", "x", "y", "z", 3, "EASY"),
+                new Question(4, "Expert", "1", "2", "3", "4", 2, "EXPERT"));
+        assertTrue(new QuestionJournal(csv).compact(questions));
+
+        Path pack = QuestionPack.packPathFor(csv);
+        assertEquals(directory.resolve("questions.pack"), pack);
+        assertEquals(4, QuestionPack.compile(csv, pack));
+
+        QuestionPack read = QuestionPack.open(pack);
+        assertEquals(4, read.getQuestionCount());
+        assertEquals(2, read.getLevelCount(0)); // EASY
+        assertEquals(0, read.getLevelCount(1)); // MEDIUM
+        assertEquals(1, read.getLevelCount(2)); // HARD
+        assertEquals(1, read.getLevelCount(3)); // EXPERT
+
+        assertSameQuestion(questions.get(0), read.getQuestion(0, 0));
+        assertSameQuestion(questions.get(2), read.getQuestion(0, 1));
+        assertSameQuestion(questions.get(1), read.getQuestion(2, 0));
+        assertSameQuestion(questions.get(3), read.getQuestion(3, 0));
+    }
+
+    /**
+     * Test ID: JU-044
+     * Test Type: JUnit Test
+     * Description: Test openFor compiles a missing pack and reads a garbage
+     * file as invalid
+     * Expected: Pack created next to the CSV; garbage rejected with IOException
+     */
+    @Test
+    public void testOpenForAndInvalidPack() throws IOException {
+        assertTrue(new QuestionJournal(csv).compact(
+                List.of(new Question(7, "Only", "a", "b", "c", "d", 1, "MEDIUM"))));
+        QuestionPack pack = QuestionPack.openFor(csv);
+        assertEquals(1, pack.getLevelCount(1));
+        assertTrue(Files.exists(QuestionPack.packPathFor(csv)));
+
+        Path garbage = directory.resolve("garbage.pack");
+        Files.write(garbage, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        try {
+            QuestionPack.open(garbage);
+            fail("Garbage pack was accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static void assertSameQuestion(Question expected, Question actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getQuestionText(), actual.getQuestionText());
+        for (int option = 1; option <= 4; option++) {
+            assertEquals(expected.getOption(option), actual.getOption(option));
+        }
+        assertEquals(expected.getCorrectAnswer(), actual.getCorrectAnswer());
+        assertEquals(expected.getLevel(), actual.getLevel());
+    }
+}
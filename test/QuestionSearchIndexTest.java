@@ -0,0 +1,84 @@
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for QuestionSearchIndex.
+ * Tests prefix matching, level filters and incremental updates.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class QuestionSearchIndexTest {
+
+    private QuestionSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new QuestionSearchIndex(List.of(
+                new Question(1, "What is Java bytecode?", "JVM", "CPU", "GPU", "None", 1, "EASY"),
+                new Question(2, "Which pattern decouples observers?", "Observer", "Factory", "Java", "None", 1,
+                        "HARD"),
+                new Question(3, "What does JavaScript run in?", "Browser", "Kernel", "BIOS", "None", 1, "MEDIUM"),
+                new Question(4, "Explain garbage collection", "Heap", "Stack", "Disk", "None", 1, "HARD")));
+    }
+
+    /**
+     * Test ID: JU-045
+     * Test Type: JUnit Test
+     * Description: Test terms match word prefixes in the text and options,
+     * and all terms must match
+     * Expected: Hits ordered by level then ID, with facet counts per level
+     */
+    @Test
+    public void testPrefixHits() {
+        assertEquals(List.of(1, 3, 2), ids(index.search("jav", null)));
+        assertEquals(List.of(1, 3, 2), ids(index.search("JAVA", null)));
+        assertEquals(List.of(1), ids(index.search("java byte", null)));
+        assertEquals(List.of(4), ids(index.search("gar", null)));
+        assertEquals(List.of(), ids(index.search("zebra", null)));
+        assertEquals(4, index.search("", null).getTotalCount());
+
+        QuestionSearchIndex.Result hard = index.search("java", "HARD");
+        assertEquals(List.of(2), ids(hard));
+        assertEquals(1, hard.getLevelCount("EASY"));
+        assertEquals(1, hard.getLevelCount("MEDIUM"));
+        assertEquals(1, hard.getLevelCount("HARD"));
+        assertTrue(QuestionSearchIndex.matches(new Question(9, "Java", "a", "b", "c", "d", 1, "EASY"), "ja", null));
+    }
+
+    /**
+     * Test ID: JU-046
+     * Test Type: JUnit Test
+     * Description: Test added, replaced and removed questions are found or
+     * dropped without rebuilding the index
+     * Expected: Results follow each change
+     */
+    @Test
+    public void testUpdatesAfterAddAndRemove() {
+        Question zebra = new Question(5, "Name a zebra crossing", "a", "b", "c", "d", 1, "EASY");
+        index.onQuestionChanged(null, zebra);
+        assertEquals(List.of(5), ids(index.search("zeb", null)));
+
+        Question renamed = new Question(5, "Name a pelican crossing", "a", "b", "c", "d", 1, "EXPERT");
+        index.onQuestionChanged(zebra, renamed);
+        assertEquals(List.of(), ids(index.search("zeb", null)));
+        assertEquals(List.of(5), ids(index.search("pel", "EXPERT")));
+
+        index.onQuestionChanged(index.search("javascript", null).getQuestions().get(0), null);
+        assertEquals(List.of(1, 2), ids(index.search("java", null)));
+        assertEquals(4, index.search("", null).getTotalCount());
+    }
+
+    private static List<Integer> ids(QuestionSearchIndex.Result result) {
+        List<Integer> ids = new ArrayList<>();
+        for (Question question : result.getQuestions()) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import Model.*;
+
+/**
+ * JUnit tests for SegmentedHistory.
+ * Tests monthly splitting, queries by date and player, and dropping old
+ * months.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class SegmentedHistoryTest {
+
+    private Path directory;
+    private SegmentedHistory history;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TempDirs.create("segment-test");
+        List<GameHistory> games = new ArrayList<>();
+        games.add(game("2025-01-10 10:00:00", "Dana", "Lee"));
+        games.add(game("2025-01-20 10:00:00", "Sam", "Ana"));
+        games.add(game("2025-02-05 10:00:00", "Dana", "Sam"));
+        games.add(game("2025-03-01 00:00:00", "Lee", "Ana"));
+        assertEquals(4, SegmentedHistory.split(games, directory));
+        history = new SegmentedHistory(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TempDirs.delete(directory);
+    }
+
+    /**
+     * Test ID: JU-051
+     * Test Type: JUnit Test
+     * Description: Test games are split one segment per month and read back
+     * in order
+     * Expected: Three months, four games, oldest first; splitting again fails
+     */
+    @Test
+    public void testSplitByMonth() throws IOException {
+        assertEquals(List.of(YearMonth.of(2025, 1), YearMonth.of(2025, 2), YearMonth.of(2025, 3)),
+                history.getMonths());
+        assertEquals(4, history.size());
+        assertEquals("Dana", history.getRecords().get(0).getPlayer1Name());
+        assertEquals("Lee", history.getRecords().get(3).getPlayer1Name());
+        assertEquals(4, history.getGameCount(Difficulty.EASY));
+        try {
+            SegmentedHistory.split(List.of(), directory);
+            fail("Split into a directory that already holds segments");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Test ID: JU-052
+     * Test Type: JUnit Test
+     * Description: Test queries return only games in the date range and with
+     * the player, and skip months whose index rules them out
+     * Expected: Matching games only; a month that cannot match is not read
+     */
+    @Test
+    public void testQueryPruning() throws IOException {
+        assertEquals(2, history.query(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 31, 23, 59),
+                null).size());
+        assertEquals(2, history.query(null, null, " dana ").size());
+        assertEquals(1, history.query(LocalDateTime.of(2025, 2, 1, 0, 0), null, "Sam").size());
+        assertEquals(0, history.query(null, null, "Nobody").size());
+
+        // Move a January game to March in place: the size is unchanged, so the
+        // index still rules January out and the moved game is never read
+        Path january = directory.resolve("history-2025-01.csv");
+        String text = new String(Files.readAllBytes(january), StandardCharsets.UTF_8);
+        Files.write(january, text.replace("2025-01-20", "2025-03-20").getBytes(StandardCharsets.UTF_8));
+        history = new SegmentedHistory(directory);
+        List<GameHistory> march = history.query(LocalDateTime.of(2025, 3, 1, 0, 0), null, null);
+        assertEquals(1, march.size());
+        assertEquals("Ana", march.get(0).getPlayer2Name());
+    }
+
+    /**
+     * Test ID: JU-053
+     * Test Type: JUnit Test
+     * Description: Test dropping months before a month deletes their segments
+     * only
+     * Expected: Older months gone from the queries and the directory
+     */
+    @Test
+    public void testDropBefore() throws IOException {
+        assertEquals(2, history.dropBefore(YearMonth.of(2025, 3)));
+        assertEquals(List.of(YearMonth.of(2025, 3)), history.getMonths());
+        assertEquals(1, history.size());
+        assertEquals(0, history.query(null, null, "Dana").size());
+        assertFalse(Files.exists(directory.resolve("history-2025-01.csv")));
+        assertFalse(Files.exists(directory.resolve("history-2025-02.idx")));
+        assertEquals(1, new SegmentedHistory(directory).size());
+        assertEquals(0, history.dropBefore(YearMonth.of(2025, 3)));
+    }
+
+    private static GameHistory game(String time, String player1, String player2) {
+        return GameHistory.fromCsvLine(time + "," + player1 + "," + player2 + ",1,2,3,EASY,Won,2");
+    }
+}
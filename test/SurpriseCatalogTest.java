@@ -0,0 +1,80 @@
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.List;
+import java.util.Random;
+import Model.*;
+
+/**
+ * JUnit tests for SurpriseCatalog.
+ * Tests that the alias tables sample surprises in proportion to their
+ * weights.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+public class SurpriseCatalogTest {
+
+    private static final int SAMPLES = 200_000;
+
+    /**
+     * Test ID: JU-047
+     * Test Type: JUnit Test
+     * Description: Test weighted surprises are drawn in proportion to their
+     * weights, and a zero weight is never drawn
+     * Expected: Observed frequencies within 1% of the expected ones
+     */
+    @Test
+    public void testWeightedDistribution() {
+        double[] weights = { 1, 2, 3, 4, 0 };
+        Surprise[] good = new Surprise[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            good[i] = new Surprise(i, "Good " + i, 1, 0, true, weights[i]);
+        }
+        SurpriseCatalog catalog = SurpriseCatalog.of(List.of(good),
+                List.of(new Surprise(100, "Bad", -1, 0, false)));
+
+        int[] counts = new int[weights.length];
+        Random random = new Random(99L);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[catalog.sampleGood(random).getId()]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals("Surprise " + i, weights[i] / 10.0, (double) counts[i] / SAMPLES, 0.01);
+        }
+        assertEquals(0, counts[4]);
+    }
+
+    /**
+     * Test ID: JU-048
+     * Test Type: JUnit Test
+     * Description: Test equal weights sample uniformly, and sampling from all
+     * surprises mixes good and bad by their weights
+     * Expected: Each of the uniform surprises about equally often; good share
+     * of the mixed draws matches its share of the total weight
+     */
+    @Test
+    public void testUniformAndMixedSampling() {
+        SurpriseCatalog catalog = SurpriseCatalog.of(
+                List.of(new Surprise(0, "A", 1, 0, true), new Surprise(1, "B", 1, 0, true),
+                        new Surprise(2, "C", 1, 0, true)),
+                List.of(new Surprise(3, "D", -1, 0, false, 3.0)));
+        assertEquals(3, catalog.getGoodCount());
+        assertEquals(1, catalog.getBadCount());
+
+        int[] counts = new int[3];
+        int good = 0;
+        Random random = new Random(7L);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[catalog.sampleGood(random).getId()]++;
+            if (catalog.sample(random).isGood()) {
+                good++;
+            }
+            assertFalse(catalog.sampleBad(random).isGood());
+        }
+        for (int count : counts) {
+            assertEquals(1.0 / 3, (double) count / SAMPLES, 0.01);
+        }
+        assertEquals(0.5, (double) good / SAMPLES, 0.01);
+    }
+}
@@ -0,0 +1,46 @@
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Temporary directories for tests that work on files. Create one in the
+ * test's setUp and delete it in its tearDown.
+ *
+ * @author Team Rhino
+ * @version 4.0 - Iteration 4
+ */
+final class TempDirs {
+
+    private TempDirs() {
+    }
+
+    /**
+     * Creates an empty temporary directory.
+     *
+     * @param prefix Start of the directory name
+     * @return The directory
+     */
+    static Path create(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * Deletes a directory and everything in it. Does nothing if it is null or
+     * already gone.
+     *
+     * @param directory The directory
+     */
+    static void delete(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}